@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Hashes the content of a mix of files resembling the inputs of a Java build, reading each file in chunks the same way as file content is hashed during a build.
+ *
+ * <p>The jars are the jars on the classpath of the benchmark, and the class files are taken from these jars. The classpath contains no source files,
+ * so these are generated from Java keywords and identifiers.</p>
+ */
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ContentHashingBenchmark {
+    private static final int CHUNK_SIZE = 8192;
+    private static final int MAX_JARS = 40;
+    private static final int MAX_CLASS_FILES = 2000;
+    private static final int SOURCE_FILES = 400;
+    private static final String[] SOURCE_WORDS = {"package ", "import ", "org.gradle.", "public ", "private ", "final ", "class ", "interface ", "void ", "return ", "String ", "int ", "new ", "if (", "for (", ") {\n", "}\n", ";\n", "    ", "        ", "this.", "null", "file", "hash", "// ", "/**\n", " * ", " */\n", "@Override\n"};
+
+    @Param({"md5", "murmur3"})
+    String hashFunction;
+
+    List<byte[]> files;
+    HashFunction function;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        files = new ArrayList<byte[]>();
+        List<File> jars = classpathJars();
+        int classFiles = 0;
+        for (File jar : jars) {
+            // Dependency jars
+            files.add(Files.toByteArray(jar));
+            // Compiled classes
+            classFiles += addClassFiles(jar, MAX_CLASS_FILES - classFiles);
+        }
+        // Source files, mostly a few kilobytes
+        Random random = new Random(1234L);
+        for (int i = 0; i < SOURCE_FILES; i++) {
+            files.add(sourceFile(random, 512 + random.nextInt(16 * 1024)));
+        }
+        function = "md5".equals(hashFunction) ? Hashing.md5() : Hashing.murmur3_128();
+    }
+
+    private static List<File> classpathJars() {
+        List<File> jars = new ArrayList<File>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            File file = new File(entry);
+            if (file.isFile() && file.getName().endsWith(".jar") && jars.size() < MAX_JARS) {
+                jars.add(file);
+            }
+        }
+        return jars;
+    }
+
+    private int addClassFiles(File jar, int maxClassFiles) throws IOException {
+        int added = 0;
+        ZipFile zipFile = new ZipFile(jar);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements() && added < maxClassFiles) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.getName().endsWith(".class")) {
+                    InputStream inputStream = zipFile.getInputStream(entry);
+                    try {
+                        files.add(ByteStreams.toByteArray(inputStream));
+                    } finally {
+                        inputStream.close();
+                    }
+                    added++;
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+        return added;
+    }
+
+    private static byte[] sourceFile(Random random, int size) {
+        ByteArrayOutputStream source = new ByteArrayOutputStream(size + 64);
+        while (source.size() < size) {
+            byte[] word = SOURCE_WORDS[random.nextInt(SOURCE_WORDS.length)].getBytes(Charsets.UTF_8);
+            source.write(word, 0, word.length);
+        }
+        return source.toByteArray();
+    }
+
+    @Benchmark
+    public void hashFiles(Blackhole blackhole) {
+        for (byte[] file : files) {
+            Hasher hasher = function.newHasher();
+            for (int offset = 0; offset < file.length; offset += CHUNK_SIZE) {
+                hasher.putBytes(file, offset, Math.min(CHUNK_SIZE, file.length - offset));
+            }
+            blackhole.consume(hasher.hash());
+        }
+    }
+}
@@ -35,6 +35,8 @@ public class Hashing {
 
     private static final HashFunction SHA1 = MessageDigestHashFunction.of("SHA-1");
 
+    private static final HashFunction MURMUR3_128 = new Murmur3HashFunction();
+
     public static HashFunction md5() {
         return MD5;
     }
@@ -43,7 +45,31 @@ public class Hashing {
         return SHA1;
     }
 
-    private static abstract class MessageDigestHashFunction implements HashFunction {
+    /**
+     * The 128-bit variant of MurmurHash3 for x64, with a seed of 0. Not a cryptographic hash function, but much faster than {@link #md5()}.
+     * Produces the same hashes as Guava's {@code murmur3_128()}.
+     */
+    public static HashFunction murmur3_128() {
+        return MURMUR3_128;
+    }
+
+    private static abstract class AbstractHashFunction implements HashFunction {
+        @Override
+        public HashCode hashBytes(byte[] bytes) {
+            Hasher hasher = newHasher();
+            hasher.putBytes(bytes);
+            return hasher.hash();
+        }
+
+        @Override
+        public HashCode hashString(CharSequence string) {
+            Hasher hasher = newHasher();
+            hasher.putString(string);
+            return hasher.hash();
+        }
+    }
+
+    private static abstract class MessageDigestHashFunction extends AbstractHashFunction {
         public static MessageDigestHashFunction of(String algorithm) {
             MessageDigest prototype;
             try {
@@ -65,20 +91,6 @@ public class Hashing {
             return new MessageDigestHasher(digest);
         }
 
-        @Override
-        public HashCode hashBytes(byte[] bytes) {
-            Hasher hasher = newHasher();
-            hasher.putBytes(bytes);
-            return hasher.hash();
-        }
-
-        @Override
-        public HashCode hashString(CharSequence string) {
-            Hasher hasher = newHasher();
-            hasher.putString(string);
-            return hasher.hash();
-        }
-
         protected abstract MessageDigest createDigest();
     }
 
@@ -191,6 +203,194 @@ public class Hashing {
             putBytes(value.toString().getBytes(Charsets.UTF_8));
         }
 
+        @Override
+        public void putHash(HashCode hashCode) {
+            putBytes(hashCode.getBytes());
+        }
+    }
+    private static class Murmur3HashFunction extends AbstractHashFunction {
+        @Override
+        public Hasher newHasher() {
+            return new Murmur3Hasher();
+        }
+    }
+
+    /**
+     * Processes the input in blocks of 16 bytes, buffering the bytes of an incomplete block.
+     */
+    private static class Murmur3Hasher implements Hasher {
+        private static final int BLOCK_SIZE = 16;
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private final byte[] tail = new byte[BLOCK_SIZE];
+        private final ByteBuffer scratch = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        private int tailLength;
+        private long length;
+        private long h1;
+        private long h2;
+        private boolean done;
+
+        private void checkNotDone() {
+            if (done) {
+                throw new IllegalStateException("Cannot reuse hasher");
+            }
+        }
+
+        @Override
+        public void putByte(byte b) {
+            checkNotDone();
+            tail[tailLength++] = b;
+            if (tailLength == BLOCK_SIZE) {
+                processBlock(tail, 0);
+                tailLength = 0;
+            }
+        }
+
+        @Override
+        public void putBytes(byte[] bytes) {
+            putBytes(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void putBytes(byte[] bytes, int off, int len) {
+            checkNotDone();
+            int end = off + len;
+            int pos = off;
+            if (tailLength > 0) {
+                int count = Math.min(BLOCK_SIZE - tailLength, len);
+                System.arraycopy(bytes, pos, tail, tailLength, count);
+                tailLength += count;
+                pos += count;
+                if (tailLength < BLOCK_SIZE) {
+                    return;
+                }
+                processBlock(tail, 0);
+                tailLength = 0;
+            }
+            while (end - pos >= BLOCK_SIZE) {
+                processBlock(bytes, pos);
+                pos += BLOCK_SIZE;
+            }
+            tailLength = end - pos;
+            System.arraycopy(bytes, pos, tail, 0, tailLength);
+        }
+
+        private void processBlock(byte[] bytes, int off) {
+            long k1 = getLongLittleEndian(bytes, off);
+            long k2 = getLongLittleEndian(bytes, off + 8);
+            length += BLOCK_SIZE;
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        @Override
+        public HashCode hash() {
+            checkNotDone();
+            done = true;
+            if (tailLength > 0) {
+                long k1 = 0;
+                long k2 = 0;
+                for (int i = tailLength - 1; i >= 8; i--) {
+                    k2 = (k2 << 8) | (tail[i] & 0xffL);
+                }
+                for (int i = Math.min(tailLength, 8) - 1; i >= 0; i--) {
+                    k1 = (k1 << 8) | (tail[i] & 0xffL);
+                }
+                h1 ^= mixK1(k1);
+                h2 ^= mixK2(k2);
+                length += tailLength;
+            }
+
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix64(h1);
+            h2 = fmix64(h2);
+            h1 += h2;
+            h2 += h1;
+
+            ByteBuffer result = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+            result.putLong(h1);
+            result.putLong(h2);
+            return HashCode.fromBytesNoCopy(result.array());
+        }
+
+        private static long getLongLittleEndian(byte[] bytes, int off) {
+            return (bytes[off] & 0xffL)
+                | (bytes[off + 1] & 0xffL) << 8
+                | (bytes[off + 2] & 0xffL) << 16
+                | (bytes[off + 3] & 0xffL) << 24
+                | (bytes[off + 4] & 0xffL) << 32
+                | (bytes[off + 5] & 0xffL) << 40
+                | (bytes[off + 6] & 0xffL) << 48
+                | (bytes[off + 7] & 0xffL) << 56;
+        }
+
+        private static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            return k1;
+        }
+
+        private static long mixK2(long k2) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            return k2;
+        }
+
+        private static long fmix64(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+
+        private void update(int length) {
+            putBytes(scratch.array(), 0, length);
+            ((Buffer) scratch).clear();
+        }
+
+        @Override
+        public void putInt(int value) {
+            scratch.putInt(value);
+            update(4);
+        }
+
+        @Override
+        public void putLong(long value) {
+            scratch.putLong(value);
+            update(8);
+        }
+
+        @Override
+        public void putDouble(double value) {
+            putLong(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        public void putBoolean(boolean value) {
+            putByte((byte) (value ? 1 : 0));
+        }
+
+        @Override
+        public void putString(CharSequence value) {
+            putBytes(value.toString().getBytes(Charsets.UTF_8));
+        }
+
         @Override
         public void putHash(HashCode hashCode) {
             putBytes(hashCode.getBytes());
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.io;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compresses and decompresses single blocks in the LZ4 block format.
+ *
+ * The compressor uses the greedy single probe strategy of the reference implementation, trading compression ratio for speed.
+ */
+final class Lz4Block {
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_DISTANCE = 65535;
+    private static final int HASH_LOG = 12;
+    private static final int SKIP_TRIGGER = 6;
+    private static final int RUN_MASK = 15;
+
+    private final int[] hashTable = new int[1 << HASH_LOG];
+
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses the given bytes into the given buffer, which must be at least {@link #maxCompressedLength(int)} long.
+     *
+     * @return the length of the compressed block.
+     */
+    int compress(byte[] src, int srcLength, byte[] dst) {
+        int anchor = 0;
+        int dstPos = 0;
+        if (srcLength >= MATCH_FIND_LIMIT + 1) {
+            Arrays.fill(hashTable, -1);
+            int matchStartLimit = srcLength - MATCH_FIND_LIMIT;
+            int matchEndLimit = srcLength - LAST_LITERALS;
+            int pos = 0;
+            int searchCount = 1 << SKIP_TRIGGER;
+            while (pos < matchStartLimit) {
+                int sequence = readInt(src, pos);
+                int hash = hash(sequence);
+                int candidate = hashTable[hash];
+                hashTable[hash] = pos;
+                if (candidate < 0 || pos - candidate > MAX_DISTANCE || readInt(src, candidate) != sequence) {
+                    // Skip faster over data that does not compress
+                    pos += searchCount++ >>> SKIP_TRIGGER;
+                    continue;
+                }
+                searchCount = 1 << SKIP_TRIGGER;
+                while (pos > anchor && candidate > 0 && src[pos - 1] == src[candidate - 1]) {
+                    pos--;
+                    candidate--;
+                }
+                int matchLength = MIN_MATCH;
+                while (pos + matchLength < matchEndLimit && src[candidate + matchLength] == src[pos + matchLength]) {
+                    matchLength++;
+                }
+                dstPos = writeSequence(src, anchor, pos - anchor, pos - candidate, matchLength, dst, dstPos);
+                pos += matchLength;
+                anchor = pos;
+                if (pos < matchStartLimit) {
+                    hashTable[hash(readInt(src, pos - 2))] = pos - 2;
+                }
+            }
+        }
+        return writeLastLiterals(src, anchor, srcLength - anchor, dst, dstPos);
+    }
+
+    private static int writeSequence(byte[] src, int literalStart, int literalLength, int offset, int matchLength, byte[] dst, int dstPos) {
+        int matchRun = matchLength - MIN_MATCH;
+        int tokenPos = dstPos++;
+        dst[tokenPos] = (byte) ((Math.min(literalLength, RUN_MASK) << 4) | Math.min(matchRun, RUN_MASK));
+        dstPos = writeLength(literalLength, dst, dstPos);
+        System.arraycopy(src, literalStart, dst, dstPos, literalLength);
+        dstPos += literalLength;
+        dst[dstPos++] = (byte) offset;
+        dst[dstPos++] = (byte) (offset >>> 8);
+        return writeLength(matchRun, dst, dstPos);
+    }
+
+    private static int writeLastLiterals(byte[] src, int literalStart, int literalLength, byte[] dst, int dstPos) {
+        dst[dstPos++] = (byte) (Math.min(literalLength, RUN_MASK) << 4);
+        dstPos = writeLength(literalLength, dst, dstPos);
+        System.arraycopy(src, literalStart, dst, dstPos, literalLength);
+        return dstPos + literalLength;
+    }
+
+    private static int writeLength(int length, byte[] dst, int dstPos) {
+        if (length >= RUN_MASK) {
+            int remaining = length - RUN_MASK;
+            while (remaining >= 255) {
+                dst[dstPos++] = (byte) 255;
+                remaining -= 255;
+            }
+            dst[dstPos++] = (byte) remaining;
+        }
+        return dstPos;
+    }
+
+    /**
+     * Decompresses the given block into the given buffer.
+     *
+     * @return the length of the decompressed data.
+     */
+    static int decompress(byte[] src, int srcLength, byte[] dst) throws IOException {
+        try {
+            int srcPos = 0;
+            int dstPos = 0;
+            while (true) {
+                int token = src[srcPos++] & 0xff;
+                int literalLength = token >>> 4;
+                if (literalLength == RUN_MASK) {
+                    int value;
+                    do {
+                        value = src[srcPos++] & 0xff;
+                        literalLength += value;
+                    } while (value == 255);
+                }
+                if (srcPos + literalLength > srcLength || dstPos + literalLength > dst.length) {
+                    throw corrupt();
+                }
+                System.arraycopy(src, srcPos, dst, dstPos, literalLength);
+                srcPos += literalLength;
+                dstPos += literalLength;
+                if (srcPos == srcLength) {
+                    // The last sequence has only literals
+                    return dstPos;
+                }
+
+                if (srcPos + 2 > srcLength) {
+                    throw corrupt();
+                }
+                int offset = (src[srcPos] & 0xff) | ((src[srcPos + 1] & 0xff) << 8);
+                srcPos += 2;
+                int matchLength = token & RUN_MASK;
+                if (matchLength == RUN_MASK) {
+                    int value;
+                    do {
+                        value = src[srcPos++] & 0xff;
+                        matchLength += value;
+                    } while (value == 255);
+                }
+                matchLength += MIN_MATCH;
+                if (offset == 0 || offset > dstPos || dstPos + matchLength > dst.length) {
+                    throw corrupt();
+                }
+                int matchPos = dstPos - offset;
+                if (offset >= matchLength) {
+                    System.arraycopy(dst, matchPos, dst, dstPos, matchLength);
+                    dstPos += matchLength;
+                } else {
+                    // The match overlaps the bytes it produces
+                    for (int i = 0; i < matchLength; i++) {
+                        dst[dstPos++] = dst[matchPos + i];
+                    }
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw corrupt();
+        }
+    }
+
+    private static IOException corrupt() {
+        return new IOException("Corrupt LZ4 block.");
+    }
+
+    private static int readInt(byte[] bytes, int pos) {
+        return (bytes[pos] & 0xff) | ((bytes[pos + 1] & 0xff) << 8) | ((bytes[pos + 2] & 0xff) << 16) | ((bytes[pos + 3] & 0xff) << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream that decompresses data written by {@link Lz4BlockOutputStream}.
+ */
+public class Lz4BlockInputStream extends InputStream {
+    private final InputStream input;
+    private final byte[] buffer = new byte[Lz4BlockOutputStream.BLOCK_SIZE];
+    private final byte[] compressed = new byte[Lz4Block.maxCompressedLength(Lz4BlockOutputStream.BLOCK_SIZE)];
+    private int position;
+    private int count;
+    private boolean finished;
+
+    public Lz4BlockInputStream(InputStream input) {
+        this.input = input;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == count && !readBlock()) {
+            return -1;
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (position == count && !readBlock()) {
+            return -1;
+        }
+        int chunk = Math.min(length, count - position);
+        System.arraycopy(buffer, position, bytes, offset, chunk);
+        position += chunk;
+        return chunk;
+    }
+
+    @Override
+    public int available() {
+        return count - position;
+    }
+
+    private boolean readBlock() throws IOException {
+        if (finished) {
+            return false;
+        }
+        int length = readInt();
+        if (length == 0) {
+            finished = true;
+            return false;
+        }
+        int storedLength = readInt();
+        if (length < 0 || length > buffer.length || storedLength <= 0 || storedLength > length) {
+            throw new IOException("Corrupt LZ4 block header.");
+        }
+        if (storedLength == length) {
+            readFully(buffer, length);
+        } else {
+            readFully(compressed, storedLength);
+            if (Lz4Block.decompress(compressed, storedLength, buffer) != length) {
+                throw new IOException("Corrupt LZ4 block.");
+            }
+        }
+        position = 0;
+        count = length;
+        return true;
+    }
+
+    private int readInt() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int b = input.read();
+            if (b < 0) {
+                throw new EOFException("Unexpected end of LZ4 stream.");
+            }
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    private void readFully(byte[] bytes, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int read = input.read(bytes, offset, length - offset);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of LZ4 stream.");
+            }
+            offset += read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
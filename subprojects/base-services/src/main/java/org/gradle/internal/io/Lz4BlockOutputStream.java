@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream that compresses the data written to it with LZ4.
+ *
+ * The data is split into blocks, each of which is compressed on its own. Each block is written as its uncompressed length,
+ * the length of the stored block and the stored block, where the block is stored uncompressed when compressing it does not make it smaller.
+ * The stream ends with an uncompressed length of zero. The data can be read using {@link Lz4BlockInputStream}.
+ */
+public class Lz4BlockOutputStream extends OutputStream {
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private final OutputStream output;
+    private final Lz4Block compressor = new Lz4Block();
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+    private final byte[] compressed = new byte[Lz4Block.maxCompressedLength(BLOCK_SIZE)];
+    private int count;
+    private boolean closed;
+
+    public Lz4BlockOutputStream(OutputStream output) {
+        this.output = output;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == BLOCK_SIZE) {
+            writeBlock();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (count == BLOCK_SIZE) {
+                writeBlock();
+            }
+            int chunk = Math.min(length, BLOCK_SIZE - count);
+            System.arraycopy(bytes, offset, buffer, count, chunk);
+            count += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        output.flush();
+    }
+
+    private void writeBlock() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        int compressedLength = compressor.compress(buffer, count, compressed);
+        if (compressedLength < count) {
+            writeInt(count);
+            writeInt(compressedLength);
+            output.write(compressed, 0, compressedLength);
+        } else {
+            writeInt(count);
+            writeInt(count);
+            output.write(buffer, 0, count);
+        }
+        count = 0;
+    }
+
+    private void writeInt(int value) throws IOException {
+        output.write(value >>> 24);
+        output.write(value >>> 16);
+        output.write(value >>> 8);
+        output.write(value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeBlock();
+            writeInt(0);
+        } finally {
+            output.close();
+        }
+    }
+}
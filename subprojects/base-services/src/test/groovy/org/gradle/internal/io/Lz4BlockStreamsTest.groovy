@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.io
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class Lz4BlockStreamsTest extends Specification {
+    def random = new Random(1234L)
+
+    @Unroll
+    def "can compress and decompress #length #type bytes"() {
+        def data = generate(type, length)
+
+        expect:
+        decompress(compress(data)) == data
+
+        where:
+        [type, length] << [["random", "repetitive", "text"], [0, 1, 12, 13, 100, Lz4BlockOutputStream.BLOCK_SIZE, Lz4BlockOutputStream.BLOCK_SIZE + 1, 300000]].combinations()
+    }
+
+    def "can write single bytes"() {
+        def data = generate("text", 100000)
+        def output = new ByteArrayOutputStream()
+
+        when:
+        def compressingOutput = new Lz4BlockOutputStream(output)
+        data.each { compressingOutput.write(it) }
+        compressingOutput.close()
+
+        then:
+        decompress(output.toByteArray()) == data
+    }
+
+    def "compresses repetitive data"() {
+        def data = generate("repetitive", 300000)
+
+        expect:
+        compress(data).length < data.length / 10
+    }
+
+    def "stores data that does not compress without growing it by more than the block headers"() {
+        def data = generate("random", 300000)
+
+        expect:
+        compress(data).length <= data.length + 8 * 5 + 4
+    }
+
+    def "fails on truncated stream"() {
+        def compressed = compress(generate("text", 1000))
+
+        when:
+        decompress(Arrays.copyOf(compressed, compressed.length - 1))
+
+        then:
+        thrown(EOFException)
+    }
+
+    def "fails on corrupt block"() {
+        def compressed = compress(generate("repetitive", 1000))
+        // Point the first match, which follows the block header, the token and 7 literals, before the start of the block
+        compressed[8 + 1 + 7] = (byte) 0xff
+        compressed[8 + 1 + 7 + 1] = (byte) 0xff
+
+        when:
+        decompress(compressed)
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Corrupt LZ4 block."
+    }
+
+    private byte[] generate(String type, int length) {
+        def data = new byte[length]
+        switch (type) {
+            case "random":
+                random.nextBytes(data)
+                break
+            case "repetitive":
+                for (int i = 0; i < length; i++) {
+                    data[i] = (byte) (i % 7)
+                }
+                break
+            case "text":
+                def words = ["build", "cache", "entry", "task", "output", "gradle", " ", "\n"]
+                def text = new StringBuilder()
+                while (text.length() < length) {
+                    text.append(words[random.nextInt(words.size())])
+                }
+                data = text.substring(0, length).bytes
+                break
+        }
+        return data
+    }
+
+    private static byte[] compress(byte[] data) {
+        def output = new ByteArrayOutputStream()
+        def compressingOutput = new Lz4BlockOutputStream(output)
+        compressingOutput.write(data)
+        compressingOutput.close()
+        return output.toByteArray()
+    }
+
+    private static byte[] decompress(byte[] data) {
+        def input = new Lz4BlockInputStream(new ByteArrayInputStream(data))
+        try {
+            return input.bytes
+        } finally {
+            input.close()
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.gradle.caching.BuildCacheKey
 import org.gradle.caching.BuildCacheService
 import org.gradle.caching.BuildCacheServiceFactory
 import org.gradle.caching.http.HttpBuildCache
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.resource.transport.http.DefaultSslContextFactory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.test.fixtures.server.http.AuthScheme
@@ -36,6 +37,8 @@ import spock.lang.Specification
 
 import javax.servlet.http.HttpServletRequest
 import javax.servlet.http.HttpServletResponse
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
 
 class HttpBuildCacheServiceTest extends Specification {
     public static final List<Integer> FATAL_HTTP_ERROR_CODES = [
@@ -74,12 +77,29 @@ class HttpBuildCacheServiceTest extends Specification {
         }
     }
 
+    def otherKey = new BuildCacheKey() {
+        @Override
+        String getHashCode() {
+            return 'abcdef0123456'
+        }
+
+        @Override
+        String toString() {
+            return getHashCode()
+        }
+
+        @Override
+        String getDisplayName() {
+            return getHashCode()
+        }
+    }
+
     def setup() {
         server.start()
         def config = new HttpBuildCache()
         config.url = server.uri.resolve("/cache/")
         buildCacheDescriber = new NoopBuildCacheDescriber()
-        cache = new DefaultHttpBuildCacheServiceFactory(new DefaultSslContextFactory()).createBuildCacheService(config, buildCacheDescriber)
+        cache = new DefaultHttpBuildCacheServiceFactory(new DefaultSslContextFactory(), new DefaultExecutorFactory()).createBuildCacheService(config, buildCacheDescriber)
     }
 
     def "can cache artifact"() {
@@ -267,7 +287,7 @@ class HttpBuildCacheServiceTest extends Specification {
         configuration.url = server.uri.resolve("/cache/")
         configuration.credentials.username = 'user'
         configuration.credentials.password = 'password'
-        cache = new DefaultHttpBuildCacheServiceFactory(new DefaultSslContextFactory()).createBuildCacheService(configuration, buildCacheDescriber) as HttpBuildCacheService
+        cache = new DefaultHttpBuildCacheServiceFactory(new DefaultSslContextFactory(), new DefaultExecutorFactory()).createBuildCacheService(configuration, buildCacheDescriber) as HttpBuildCacheService
 
         server.authenticationScheme = AuthScheme.BASIC
 
@@ -293,6 +313,127 @@ class HttpBuildCacheServiceTest extends Specification {
         server.authenticationAttempts == ['Basic'] as Set
     }
 
+    def "stores entries in the background when asynchronous stores are enabled"() {
+        def destFile = tempDir.file("cached.zip")
+        def content = "Data".bytes
+        server.expectPut("/cache/${key.hashCode}", destFile, HttpStatus.SC_OK, null, content.length)
+        cache = createAsyncStoringCache()
+
+        when:
+        cache.store(key, writer(content))
+        cache.close()
+
+        then:
+        destFile.bytes == content
+    }
+
+    def "loads entry that is still being stored in the background from memory"() {
+        def storeStarted = new CountDownLatch(1)
+        def storeReleased = new CountDownLatch(1)
+        server.expect("/cache/${key.hashCode}", false, ["PUT"], new HttpServer.ActionSupport("block until released") {
+            @Override
+            void handle(HttpServletRequest request, HttpServletResponse response) {
+                storeStarted.countDown()
+                storeReleased.await()
+                response.setStatus(200)
+            }
+        })
+        cache = createAsyncStoringCache()
+
+        when:
+        cache.store(key, writer("Data".bytes))
+        storeStarted.await()
+        def receivedInput = null
+        def fromCache = cache.load(key) { input ->
+            receivedInput = input.text
+        }
+        storeReleased.countDown()
+        cache.close()
+
+        then:
+        fromCache
+        receivedInput == "Data"
+    }
+
+    def "does not report failure of background store from other operations"() {
+        def storeFailed = new CountDownLatch(1)
+        server.expect("/cache/${key.hashCode}", false, ["PUT"], new HttpServer.ActionSupport("return 500 broken") {
+            @Override
+            void handle(HttpServletRequest request, HttpServletResponse response) {
+                response.sendError(HttpStatus.SC_INTERNAL_SERVER_ERROR, "broken")
+                storeFailed.countDown()
+            }
+        })
+        server.expectGetMissing("/cache/${otherKey.hashCode}")
+        cache = createAsyncStoringCache()
+
+        when:
+        cache.store(key, writer("Data".bytes))
+        storeFailed.await()
+        def fromCache = cache.load(otherKey) { input -> }
+        cache.close()
+
+        then:
+        !fromCache
+        noExceptionThrown()
+    }
+
+    def "stores do not wait for a slow server when asynchronous stores are enabled"() {
+        def keys = (1..8).collect { keyOf("abcdef${it}") }
+        def serverReleased = new CountDownLatch(1)
+        def putCount = new AtomicInteger()
+        keys.each { storedKey ->
+            server.expect("/cache/${storedKey.hashCode}", false, ["PUT"], new HttpServer.ActionSupport("wait until released") {
+                @Override
+                void handle(HttpServletRequest request, HttpServletResponse response) {
+                    putCount.incrementAndGet()
+                    serverReleased.await()
+                    response.setStatus(200)
+                }
+            })
+        }
+        cache = createAsyncStoringCache()
+
+        when:
+        // None of the stores is answered before they have all been handed over
+        keys.each { cache.store(it, writer("Data".bytes)) }
+        serverReleased.countDown()
+        cache.close()
+
+        then:
+        putCount.get() == keys.size()
+    }
+
+    private static BuildCacheKey keyOf(String hashCode) {
+        return new BuildCacheKey() {
+            @Override
+            String getHashCode() {
+                return hashCode
+            }
+
+            @Override
+            String toString() {
+                return hashCode
+            }
+
+            @Override
+            String getDisplayName() {
+                return hashCode
+            }
+        }
+    }
+
+    private BuildCacheService createAsyncStoringCache() {
+        def config = new HttpBuildCache()
+        config.url = server.uri.resolve("/cache/")
+        System.setProperty(DefaultHttpBuildCacheServiceFactory.ASYNC_STORE_PROPERTY, "true")
+        try {
+            return new DefaultHttpBuildCacheServiceFactory(new DefaultSslContextFactory(), new DefaultExecutorFactory()).createBuildCacheService(config, buildCacheDescriber)
+        } finally {
+            System.clearProperty(DefaultHttpBuildCacheServiceFactory.ASYNC_STORE_PROPERTY)
+        }
+    }
+
     private HttpResourceInteraction expectError(int httpCode, String method) {
         server.expect("/cache/${key.hashCode}", false, [method], new HttpServer.ActionSupport("return ${httpCode} broken") {
             @Override
@@ -24,6 +24,8 @@ import org.gradle.caching.BuildCacheServiceFactory;
 import org.gradle.caching.http.HttpBuildCache;
 import org.gradle.caching.http.HttpBuildCacheCredentials;
 import org.gradle.internal.authentication.DefaultBasicAuthentication;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.resource.transport.http.DefaultHttpSettings;
 import org.gradle.internal.resource.transport.http.HttpClientHelper;
 import org.gradle.internal.resource.transport.http.SslContextFactory;
@@ -39,11 +41,20 @@ import java.util.Collections;
  */
 public class DefaultHttpBuildCacheServiceFactory implements BuildCacheServiceFactory<HttpBuildCache> {
 
+    /**
+     * When set to true, entries are stored in the background so that storing does not hold up the task that produced the entry.
+     */
+    public static final String ASYNC_STORE_PROPERTY = "org.gradle.caching.http.asyncStore";
+
+    private static final int MAX_CONCURRENT_STORES = 4;
+
     private final SslContextFactory sslContextFactory;
+    private final ExecutorFactory executorFactory;
 
     @Inject
-    public DefaultHttpBuildCacheServiceFactory(SslContextFactory sslContextFactory) {
+    public DefaultHttpBuildCacheServiceFactory(SslContextFactory sslContextFactory, ExecutorFactory executorFactory) {
         this.sslContextFactory = sslContextFactory;
+        this.executorFactory = executorFactory;
     }
 
     @Override
@@ -83,7 +94,8 @@ public class DefaultHttpBuildCacheServiceFactory implements BuildCacheServiceFac
             .config("authenticated", Boolean.toString(authenticated))
             .config("allowUntrustedServer", Boolean.toString(allowUntrustedServer));
 
-        return new HttpBuildCacheService(httpClientHelper, noUserInfoUrl);
+        ManagedExecutor storeExecutor = Boolean.getBoolean(ASYNC_STORE_PROPERTY) ? executorFactory.create("HTTP build cache store", MAX_CONCURRENT_STORES) : null;
+        return new HttpBuildCacheService(httpClientHelper, noUserInfoUrl, storeExecutor);
     }
 
     @VisibleForTesting
@@ -38,17 +38,24 @@ import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
 import org.gradle.caching.internal.tasks.TaskOutputPacker;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.resource.transport.http.HttpClientHelper;
 import org.gradle.util.GradleVersion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
 
 /**
  * Build cache implementation that delegates to a service accessible via HTTP.
@@ -68,19 +75,48 @@ public class HttpBuildCacheService implements BuildCacheService {
         511 // network authentication required
     );
 
+    /**
+     * The maximum number of bytes of entries waiting to be stored in the background.
+     */
+    private static final int MAX_PENDING_STORE_BYTES = 64 * 1024 * 1024;
+
     private final URI root;
     private final HttpClientHelper httpClientHelper;
+    private final ManagedExecutor storeExecutor;
+    private final ConcurrentMap<String, byte[]> pendingStores = new ConcurrentHashMap<String, byte[]>();
+    private final Semaphore pendingStoreBytes = new Semaphore(MAX_PENDING_STORE_BYTES);
+    private volatile boolean storesDisabled;
 
     public HttpBuildCacheService(HttpClientHelper httpClientHelper, URI url) {
+        this(httpClientHelper, url, null);
+    }
+
+    /**
+     * Creates a service that stores entries in the background on the given executor, when one is given.
+     * The entries are buffered in memory until they are stored, and loads of these entries are served from memory.
+     * A failed background store is logged against the key of its entry, and disables storing for the rest of the build.
+     */
+    public HttpBuildCacheService(HttpClientHelper httpClientHelper, URI url, @Nullable ManagedExecutor storeExecutor) {
         if (!url.getPath().endsWith("/")) {
             throw new IncompleteArgumentException("HTTP cache root URI must end with '/'");
         }
         this.root = url;
         this.httpClientHelper = httpClientHelper;
+        this.storeExecutor = storeExecutor;
     }
 
     @Override
     public boolean load(BuildCacheKey key, BuildCacheEntryReader reader) throws BuildCacheException {
+        byte[] pendingEntry = pendingStores.get(key.getHashCode());
+        if (pendingEntry != null) {
+            try {
+                reader.readFrom(new ByteArrayInputStream(pendingEntry));
+                return true;
+            } catch (IOException e) {
+                throw wrap(e);
+            }
+        }
+
         final URI uri = root.resolve("./" + key.getHashCode());
         HttpGet httpGet = new HttpGet(uri);
         httpGet.addHeader(HttpHeaders.ACCEPT, BUILD_CACHE_CONTENT_TYPE + ", */*");
@@ -137,7 +173,68 @@ public class HttpBuildCacheService implements BuildCacheService {
 
     @Override
     public void store(BuildCacheKey key, final BuildCacheEntryWriter output) throws BuildCacheException {
+        if (storesDisabled) {
+            LOGGER.debug("Not storing entry {} as an earlier background store failed.", key.getDisplayName());
+            return;
+        }
         final URI uri = root.resolve(key.getHashCode());
+        long size = output.getSize();
+        if (storeExecutor == null || size > MAX_PENDING_STORE_BYTES) {
+            doStore(uri, output);
+        } else {
+            storeInBackground(key, uri, output, (int) size);
+        }
+    }
+
+    private void storeInBackground(final BuildCacheKey key, final URI uri, BuildCacheEntryWriter output, final int size) {
+        final String hashCode = key.getHashCode();
+        // Blocks when too many bytes are waiting to be stored, before the entry is buffered
+        pendingStoreBytes.acquireUninterruptibly(size);
+        byte[] entry = null;
+        boolean scheduled = false;
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(size);
+            output.writeTo(buffer);
+            entry = buffer.toByteArray();
+            final byte[] pendingEntry = entry;
+            pendingStores.put(hashCode, pendingEntry);
+            storeExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        doStore(uri, new ByteArrayEntryWriter(pendingEntry));
+                    } catch (RuntimeException e) {
+                        backgroundStoreFailed(key, e);
+                    } finally {
+                        pendingStores.remove(hashCode, pendingEntry);
+                        pendingStoreBytes.release(size);
+                    }
+                }
+            });
+            scheduled = true;
+        } catch (IOException e) {
+            throw wrap(e);
+        } finally {
+            if (!scheduled) {
+                if (entry != null) {
+                    pendingStores.remove(hashCode, entry);
+                }
+                pendingStoreBytes.release(size);
+            }
+        }
+    }
+
+    /**
+     * Reports the failure of a background store against the entry that failed, rather than failing whichever operation comes next.
+     * Further stores are skipped, as the cache would stop storing entries after a store failed in the foreground.
+     */
+    private void backgroundStoreFailed(BuildCacheKey key, RuntimeException failure) {
+        storesDisabled = true;
+        LOGGER.warn("Could not store entry {} in remote build cache: {}", key.getDisplayName(), failure.getMessage());
+        LOGGER.debug("Failure storing entry {} in the background.", key.getDisplayName(), failure);
+    }
+
+    private void doStore(URI uri, final BuildCacheEntryWriter output) {
         HttpPut httpPut = new HttpPut(uri);
         httpPut.addHeader(HttpHeaders.CONTENT_TYPE, BUILD_CACHE_CONTENT_TYPE);
         addDiagnosticHeaders(httpPut);
@@ -220,7 +317,32 @@ public class HttpBuildCacheService implements BuildCacheService {
 
     @Override
     public void close() throws IOException {
-        httpClientHelper.close();
+        try {
+            if (storeExecutor != null) {
+                // Waits for the pending stores to complete
+                storeExecutor.stop();
+            }
+        } finally {
+            httpClientHelper.close();
+        }
+    }
+
+    private static class ByteArrayEntryWriter implements BuildCacheEntryWriter {
+        private final byte[] entry;
+
+        ByteArrayEntryWriter(byte[] entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public void writeTo(OutputStream output) throws IOException {
+            output.write(entry);
+        }
+
+        @Override
+        public long getSize() {
+            return entry.length;
+        }
     }
 
     /**
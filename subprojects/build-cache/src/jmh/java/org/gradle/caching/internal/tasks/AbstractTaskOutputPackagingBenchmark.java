@@ -16,6 +16,7 @@
 
 package org.gradle.caching.internal.tasks;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.io.FileUtils;
@@ -55,6 +56,7 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
         .put("tar.small", new AntTarPacker(2))
         .put("tar.large", new AntTarPacker(64))
         .put("tar.gz", new GzipPacker(new AntTarPacker(4)))
+        .put("tar.lz4", new Lz4Packer(new AntTarPacker(4)))
         .put("zip", new ZipPacker(4))
         .build();
 
@@ -66,6 +68,8 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
         .put("in-memory", new InMemoryDataAccessor())
         .build();
 
+    private static final byte[][] WORDS = createWords();
+
     DataSource sample;
 
     List<DataSource> inputs;
@@ -77,6 +81,13 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
 
     protected abstract String getAccessorName();
 
+    /**
+     * Whether the inputs should contain data that compresses like source code and class files, instead of random bytes.
+     */
+    protected boolean isCompressibleInput() {
+        return false;
+    }
+
     @Setup(Level.Trial)
     public void setupTrial() throws IOException {
         DIRECTORY_PROVIDER.setupTrial();
@@ -85,7 +96,7 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
         System.out.println(">>> Measuring format: " + packerName + " with accessor " + accessorName);
         Packer packer = PACKERS.get(packerName);
         DataAccessor accessor = ACCESSORS.get(accessorName);
-        this.inputs = createInputFiles(fileCount, minFileSize, maxFileSize, accessor);
+        this.inputs = createInputFiles(fileCount, minFileSize, maxFileSize, isCompressibleInput(), accessor);
         this.sample = packSample("sample." + packerName, inputs, packer, accessor);
     }
 
@@ -104,20 +115,34 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
         DIRECTORY_PROVIDER.tearDownIteration();
     }
 
-    private static ImmutableList<DataSource> createInputFiles(int fileCount, int minFileSize, int maxFileSize, DataAccessor accessor) throws IOException {
+    private static ImmutableList<DataSource> createInputFiles(int fileCount, int minFileSize, int maxFileSize, boolean compressible, DataAccessor accessor) throws IOException {
         Random random = new Random(1234L);
         ImmutableList.Builder<DataSource> inputs = ImmutableList.builder();
         for (int idx = 0; idx < fileCount; idx++) {
             String name = "input-" + idx + ".bin";
             int fileSize = minFileSize + random.nextInt(maxFileSize - minFileSize);
             byte[] buffer = new byte[fileSize];
-            random.nextBytes(buffer);
+            if (compressible) {
+                fillWithWords(buffer, random);
+            } else {
+                random.nextBytes(buffer);
+            }
             DataSource input = accessor.createSource(name, buffer, Level.Trial);
             inputs.add(input);
         }
         return inputs.build();
     }
 
+    private static void fillWithWords(byte[] buffer, Random random) {
+        int pos = 0;
+        while (pos < buffer.length) {
+            byte[] word = WORDS[random.nextInt(WORDS.length)];
+            int length = Math.min(word.length, buffer.length - pos);
+            System.arraycopy(word, 0, buffer, pos, length);
+            pos += length;
+        }
+    }
+
     private static DataSource packSample(String name, List<DataSource> inputs, Packer packer, DataAccessor accessor) throws IOException {
         long sumLength = 0;
         for (DataSource input : inputs) {
@@ -148,6 +173,15 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
         packer.unpack(sample, accessor.createTargetFactory("unpack-" + accessorName, Level.Iteration));
     }
 
+    private static byte[][] createWords() {
+        String[] words = {"public ", "class ", "void ", "return ", "import ", "org.gradle.", "String ", "final ", "int ", "(", ")", " {\n", "}\n", ";\n", "    ", "cache", "task", "output"};
+        byte[][] bytes = new byte[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            bytes[i] = words[i].getBytes(Charsets.UTF_8);
+        }
+        return bytes;
+    }
+
     @SuppressWarnings("Since15")
     private static class DefaultDirectoryProvider implements DirectoryProvider {
         private Path tempDir;
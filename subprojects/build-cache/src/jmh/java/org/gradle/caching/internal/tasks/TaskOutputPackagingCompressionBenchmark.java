@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Compares the throughput of packing and unpacking with the compressions supported for build cache entries.
+ * The compression ratio of each compression is printed when the sample entry is packed.
+ */
+public class TaskOutputPackagingCompressionBenchmark extends AbstractTaskOutputPackagingBenchmark {
+    @Param({"tar.gz", "tar.lz4", "tar"})
+    String packer;
+
+    @Param({"buffered"})
+    String accessor;
+
+    @Param({"true", "false"})
+    boolean compressible;
+
+    @Override
+    protected String getPackerName() {
+        return packer;
+    }
+
+    @Override
+    protected String getAccessorName() {
+        return accessor;
+    }
+
+    @Override
+    protected boolean isCompressibleInput() {
+        return compressible;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.configuration;
+
+import org.gradle.api.Incubating;
+
+/**
+ * The compression used for the entries stored in the build cache.
+ *
+ * <p>A compression other than {@link #GZIP} is part of the cache key, so that versions of Gradle before 4.11, which can only read entries compressed with gzip,
+ * never load the entries. As a result, entries stored with one compression are not used by builds that use another compression.</p>
+ *
+ * @since 4.11
+ */
+@Incubating
+public enum BuildCacheCompression {
+    /**
+     * Compresses entries with gzip. This is the default.
+     */
+    GZIP,
+
+    /**
+     * Compresses entries with LZ4, which is faster than gzip but produces larger entries.
+     */
+    LZ4,
+
+    /**
+     * Stores entries without compressing them.
+     */
+    NONE
+}
@@ -17,6 +17,7 @@
 package org.gradle.caching.configuration;
 
 import org.gradle.api.Action;
+import org.gradle.api.Incubating;
 import org.gradle.caching.BuildCacheServiceFactory;
 import org.gradle.internal.HasInternalProtocol;
 
@@ -116,4 +117,23 @@ public interface BuildCacheConfiguration {
      * @throws IllegalStateException If no remote cache has been assigned yet
      */
     void remote(Action<? super BuildCache> configuration);
+
+    /**
+     * Returns the compression used for the entries stored in the build cache. Defaults to {@link BuildCacheCompression#GZIP}.
+     *
+     * @since 4.11
+     */
+    @Incubating
+    BuildCacheCompression getCompression();
+
+    /**
+     * Sets the compression used for the entries stored in the build cache.
+     *
+     * <p>Each entry is packed once and the same entry is stored in both the local and the remote build cache.</p>
+     *
+     * @param compression the compression to use.
+     * @since 4.11
+     */
+    @Incubating
+    void setCompression(BuildCacheCompression compression);
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.operations;
+
+/**
+ * Reports that a batch of entries was evicted from the local directory build cache because it grew beyond its maximum size.
+ *
+ * Published as progress of the operation that evicts the entries, which runs in the background while the build runs.
+ *
+ * @since 4.11
+ */
+public interface BuildCacheLocalEvictionProgressDetails {
+
+    /**
+     * The number of entries evicted in the batch.
+     */
+    int getEvictedEntryCount();
+
+    /**
+     * The number of bytes evicted in the batch.
+     */
+    long getEvictedBytes();
+
+    /**
+     * The size of the build cache after evicting the batch, in bytes.
+     */
+    long getRemainingBytes();
+}
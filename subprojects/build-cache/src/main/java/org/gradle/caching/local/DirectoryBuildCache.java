@@ -30,6 +30,7 @@ import javax.annotation.Nullable;
 public class DirectoryBuildCache extends AbstractBuildCache {
     private Object directory;
     private int removeUnusedEntriesAfterDays = 7;
+    private long maximumSizeInMB;
 
     /**
      * Returns the directory to use to store the build cache.
@@ -72,4 +73,29 @@ public class DirectoryBuildCache extends AbstractBuildCache {
         }
         this.removeUnusedEntriesAfterDays = removeUnusedEntriesAfterDays;
     }
+
+    /**
+     * Returns the maximum size of the build cache in megabytes. Defaults to 0, which means that the size of the build cache is not limited.
+     *
+     * @since 4.11
+     */
+    @Incubating
+    public long getMaximumSizeInMB() {
+        return maximumSizeInMB;
+    }
+
+    /**
+     * Sets the maximum size of the build cache in megabytes. Defaults to 0, which means that the size of the build cache is not limited.
+     *
+     * When the build cache grows beyond this size, the least recently used entries are removed in the background while the build runs.
+     *
+     * @since 4.11
+     */
+    @Incubating
+    public void setMaximumSizeInMB(long maximumSizeInMB) {
+        if (maximumSizeInMB < 0) {
+            throw new IllegalArgumentException("Directory build cache size limit cannot be negative.");
+        }
+        this.maximumSizeInMB = maximumSizeInMB;
+    }
 }
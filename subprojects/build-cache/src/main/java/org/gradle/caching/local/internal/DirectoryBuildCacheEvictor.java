@@ -0,0 +1,264 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.cache.PersistentCache;
+import org.gradle.caching.internal.operations.BuildCacheLocalEvictionProgressDetails;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.resource.local.FileAccessTimeJournal;
+import org.gradle.internal.time.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Keeps the size of a directory build cache below a maximum by evicting the least recently used entries.
+ *
+ * Eviction runs on a background thread while the build runs, when the cache is opened and whenever a stored entry makes the cache grow beyond its maximum size.
+ * The cache is shrunk to {@value #TARGET_SIZE_PERCENT}% of its maximum size, so that eviction does not run after every store once the cache is full.
+ * Entries are deleted in batches, each of which holds the cache locks only briefly, so that loads and stores are not blocked for long.
+ */
+public class DirectoryBuildCacheEvictor implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryBuildCacheEvictor.class);
+    private static final int BATCH_SIZE = 100;
+    private static final int TARGET_SIZE_PERCENT = 90;
+
+    private final PersistentCache persistentCache;
+    private final Lock lock;
+    private final FileAccessTimeJournal journal;
+    private final long maximumSize;
+    private final long targetSize;
+    private final ManagedExecutor executor;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final BuildOperationListener listener;
+    private final CurrentBuildOperationRef currentBuildOperationRef;
+    private final Clock clock;
+    private final AtomicLong estimatedSize = new AtomicLong();
+    private final AtomicBoolean evictionScheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /**
+     * @param lock the lock that excludes loads and stores of the build cache in this process.
+     */
+    public DirectoryBuildCacheEvictor(PersistentCache persistentCache, Lock lock, FileAccessTimeJournal journal, long maximumSize, ManagedExecutor executor,
+                                      BuildOperationExecutor buildOperationExecutor, BuildOperationListener listener, CurrentBuildOperationRef currentBuildOperationRef, Clock clock) {
+        this.persistentCache = persistentCache;
+        this.lock = lock;
+        this.journal = journal;
+        this.maximumSize = maximumSize;
+        this.targetSize = maximumSize / 100 * TARGET_SIZE_PERCENT;
+        this.executor = executor;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.listener = listener;
+        this.currentBuildOperationRef = currentBuildOperationRef;
+        this.clock = clock;
+    }
+
+    /**
+     * Starts the first eviction pass, which determines the size of the cache.
+     */
+    public void start() {
+        scheduleEviction();
+    }
+
+    /**
+     * Called after an entry was stored in the cache.
+     */
+    public void stored(File entry) {
+        if (estimatedSize.addAndGet(entry.length()) > maximumSize) {
+            scheduleEviction();
+        }
+    }
+
+    private void scheduleEviction() {
+        if (closed || !evictionScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    buildOperationExecutor.run(new EvictOperation());
+                } catch (Exception e) {
+                    LOGGER.warn("Could not evict entries from local build cache.", e);
+                } finally {
+                    evictionScheduled.set(false);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        // Waits for the current batch to complete
+        executor.stop();
+    }
+
+    private List<Entry> findEntries() {
+        Collection<File> reservedFiles = new HashSet<File>(persistentCache.getReservedCacheFiles());
+        File[] files = persistentCache.getBaseDir().listFiles();
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        List<Entry> entries = new ArrayList<Entry>(files.length);
+        for (File file : files) {
+            if (file.isFile() && !reservedFiles.contains(file) && !file.getName().endsWith(BuildCacheTempFileStore.PARTIAL_FILE_SUFFIX)) {
+                entries.add(new Entry(file, file.length(), journal.getLastAccessTime(file)));
+            }
+        }
+        return entries;
+    }
+
+    private class EvictOperation implements RunnableBuildOperation {
+        @Override
+        public void run(BuildOperationContext context) {
+            List<Entry> entries = findEntries();
+            long size = 0;
+            for (Entry entry : entries) {
+                size += entry.length;
+            }
+            estimatedSize.set(size);
+            if (size <= maximumSize) {
+                return;
+            }
+
+            Collections.sort(entries, Entry.LEAST_RECENTLY_USED_FIRST);
+            int next = 0;
+            while (size > targetSize && next < entries.size() && !closed) {
+                List<Entry> batch = new ArrayList<Entry>(BATCH_SIZE);
+                long batchSize = 0;
+                while (batch.size() < BATCH_SIZE && size - batchSize > targetSize && next < entries.size()) {
+                    Entry entry = entries.get(next++);
+                    batch.add(entry);
+                    batchSize += entry.length;
+                }
+                EvictedBatch evicted = evict(batch);
+                size -= evicted.bytes;
+                estimatedSize.addAndGet(-evicted.bytes);
+                progress(evicted, size);
+            }
+        }
+
+        private EvictedBatch evict(final List<Entry> batch) {
+            final EvictedBatch evicted = new EvictedBatch();
+            // Lock other processes out, as they might be loading the entries
+            persistentCache.withFileLock(new Runnable() {
+                @Override
+                public void run() {
+                    lock.lock();
+                    try {
+                        for (Entry entry : batch) {
+                            // Skip entries used since the cache was scanned
+                            if (journal.getLastAccessTime(entry.file) == entry.lastAccessTime && FileUtils.deleteQuietly(entry.file)) {
+                                journal.deleteLastAccessTime(entry.file);
+                                evicted.entries++;
+                                evicted.bytes += entry.length;
+                            }
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+            return evicted;
+        }
+
+        private void progress(EvictedBatch evicted, long remainingBytes) {
+            OperationIdentifier id = currentBuildOperationRef.getId();
+            if (id != null) {
+                listener.progress(id, new OperationProgressEvent(clock.getCurrentTime(), new DefaultBuildCacheLocalEvictionProgressDetails(evicted.entries, evicted.bytes, remainingBytes)));
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Evict entries from local build cache");
+        }
+    }
+
+    private static class Entry {
+        static final Comparator<Entry> LEAST_RECENTLY_USED_FIRST = new Comparator<Entry>() {
+            @Override
+            public int compare(Entry left, Entry right) {
+                return left.lastAccessTime < right.lastAccessTime ? -1 : left.lastAccessTime == right.lastAccessTime ? 0 : 1;
+            }
+        };
+
+        final File file;
+        final long length;
+        final long lastAccessTime;
+
+        Entry(File file, long length, long lastAccessTime) {
+            this.file = file;
+            this.length = length;
+            this.lastAccessTime = lastAccessTime;
+        }
+    }
+
+    private static class EvictedBatch {
+        int entries;
+        long bytes;
+    }
+
+    private static class DefaultBuildCacheLocalEvictionProgressDetails implements BuildCacheLocalEvictionProgressDetails {
+        private final int evictedEntryCount;
+        private final long evictedBytes;
+        private final long remainingBytes;
+
+        DefaultBuildCacheLocalEvictionProgressDetails(int evictedEntryCount, long evictedBytes, long remainingBytes) {
+            this.evictedEntryCount = evictedEntryCount;
+            this.evictedBytes = evictedBytes;
+            this.remainingBytes = remainingBytes;
+        }
+
+        @Override
+        public int getEvictedEntryCount() {
+            return evictedEntryCount;
+        }
+
+        @Override
+        public long getEvictedBytes() {
+            return evictedBytes;
+        }
+
+        @Override
+        public long getRemainingBytes() {
+            return remainingBytes;
+        }
+    }
+}
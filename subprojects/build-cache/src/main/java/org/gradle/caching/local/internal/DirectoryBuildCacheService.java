@@ -32,6 +32,7 @@ import org.gradle.internal.resource.local.PathKeyFileStore;
 import org.gradle.util.GFileUtils;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -46,14 +47,26 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
     private final BuildCacheTempFileStore tempFileStore;
     private final FileAccessTracker fileAccessTracker;
     private final String failedFileSuffix;
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReadWriteLock lock;
+    private final DirectoryBuildCacheEvictor evictor;
 
     public DirectoryBuildCacheService(PathKeyFileStore fileStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, FileAccessTracker fileAccessTracker, String failedFileSuffix) {
+        this(fileStore, persistentCache, tempFileStore, fileAccessTracker, failedFileSuffix, new ReentrantReadWriteLock(), null);
+    }
+
+    /**
+     * @param lock the lock used to exclude loads and stores, which must be shared with the evictor.
+     * @param evictor keeps the size of the cache below its maximum size, or null when the size is not limited.
+     */
+    public DirectoryBuildCacheService(PathKeyFileStore fileStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, FileAccessTracker fileAccessTracker, String failedFileSuffix,
+                                      ReadWriteLock lock, @Nullable DirectoryBuildCacheEvictor evictor) {
         this.fileStore = fileStore;
         this.persistentCache = persistentCache;
         this.tempFileStore = tempFileStore;
         this.fileAccessTracker = fileAccessTracker;
         this.failedFileSuffix = failedFileSuffix;
+        this.lock = lock;
+        this.evictor = evictor;
     }
 
     private static class LoadAction implements Action<File> {
@@ -168,6 +181,9 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
     private void storeInsideLock(BuildCacheKey key, File file) {
         LocallyAvailableResource resource = fileStore.move(key.getHashCode(), file);
         fileAccessTracker.markAccessed(resource.getFile());
+        if (evictor != null) {
+            evictor.stored(resource.getFile());
+        }
     }
 
     @Override
@@ -182,6 +198,12 @@ public class DirectoryBuildCacheService implements LocalBuildCacheService, Build
 
     @Override
     public void close() {
-        persistentCache.close();
+        try {
+            if (evictor != null) {
+                evictor.close();
+            }
+        } finally {
+            persistentCache.close();
+        }
     }
 }
@@ -28,14 +28,21 @@ import org.gradle.cache.internal.VersionStrategy;
 import org.gradle.caching.BuildCacheService;
 import org.gradle.caching.BuildCacheServiceFactory;
 import org.gradle.caching.local.DirectoryBuildCache;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.file.PathToFileResolver;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationListenerManager;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
 import org.gradle.internal.resource.local.FileAccessTimeJournal;
 import org.gradle.internal.resource.local.FileAccessTracker;
 import org.gradle.internal.resource.local.PathKeyFileStore;
 import org.gradle.internal.resource.local.SingleDepthFileAccessTracker;
+import org.gradle.internal.time.Clock;
 
 import javax.inject.Inject;
 import java.io.File;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static org.gradle.cache.FileLockManager.LockMode.None;
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
@@ -54,16 +61,27 @@ public class DirectoryBuildCacheServiceFactory implements BuildCacheServiceFacto
     private final DirectoryBuildCacheFileStoreFactory fileStoreFactory;
     private final CleanupActionFactory cleanupActionFactory;
     private final FileAccessTimeJournal fileAccessTimeJournal;
+    private final ExecutorFactory executorFactory;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final BuildOperationListenerManager buildOperationListenerManager;
+    private final CurrentBuildOperationRef currentBuildOperationRef;
+    private final Clock clock;
 
     @Inject
     public DirectoryBuildCacheServiceFactory(CacheRepository cacheRepository, CacheScopeMapping cacheScopeMapping, PathToFileResolver resolver, DirectoryBuildCacheFileStoreFactory fileStoreFactory,
-                                             CleanupActionFactory cleanupActionFactory, FileAccessTimeJournal fileAccessTimeJournal) {
+                                             CleanupActionFactory cleanupActionFactory, FileAccessTimeJournal fileAccessTimeJournal, ExecutorFactory executorFactory,
+                                             BuildOperationExecutor buildOperationExecutor, BuildOperationListenerManager buildOperationListenerManager, CurrentBuildOperationRef currentBuildOperationRef, Clock clock) {
         this.cacheRepository = cacheRepository;
         this.cacheScopeMapping = cacheScopeMapping;
         this.resolver = resolver;
         this.fileStoreFactory = fileStoreFactory;
         this.cleanupActionFactory = cleanupActionFactory;
         this.fileAccessTimeJournal = fileAccessTimeJournal;
+        this.executorFactory = executorFactory;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.buildOperationListenerManager = buildOperationListenerManager;
+        this.currentBuildOperationRef = currentBuildOperationRef;
+        this.clock = clock;
     }
 
     @Override
@@ -78,9 +96,13 @@ public class DirectoryBuildCacheServiceFactory implements BuildCacheServiceFacto
         checkDirectory(target);
 
         int removeUnusedEntriesAfterDays = configuration.getRemoveUnusedEntriesAfterDays();
+        long maximumSizeInMB = configuration.getMaximumSizeInMB();
         describer.type(DIRECTORY_BUILD_CACHE_TYPE).
             config("location", target.getAbsolutePath()).
             config("removeUnusedEntriesAfter", String.valueOf(removeUnusedEntriesAfterDays) + " days");
+        if (maximumSizeInMB > 0) {
+            describer.config("maximumSize", String.valueOf(maximumSizeInMB) + " MB");
+        }
 
         PathKeyFileStore fileStore = fileStoreFactory.createFileStore(target);
         PersistentCache persistentCache = cacheRepository
@@ -93,7 +115,15 @@ public class DirectoryBuildCacheServiceFactory implements BuildCacheServiceFacto
         BuildCacheTempFileStore tempFileStore = new DefaultBuildCacheTempFileStore(target);
         FileAccessTracker fileAccessTracker = new SingleDepthFileAccessTracker(fileAccessTimeJournal, target, FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
 
-        return new DirectoryBuildCacheService(fileStore, persistentCache, tempFileStore, fileAccessTracker, FAILED_READ_SUFFIX);
+        ReadWriteLock lock = new ReentrantReadWriteLock();
+        DirectoryBuildCacheEvictor evictor = null;
+        if (maximumSizeInMB > 0) {
+            evictor = new DirectoryBuildCacheEvictor(persistentCache, lock.writeLock(), fileAccessTimeJournal, maximumSizeInMB * 1024 * 1024, executorFactory.create("Build cache eviction", 1),
+                buildOperationExecutor, buildOperationListenerManager.getBroadcaster(), currentBuildOperationRef, clock);
+            evictor.start();
+        }
+
+        return new DirectoryBuildCacheService(fileStore, persistentCache, tempFileStore, fileAccessTracker, FAILED_READ_SUFFIX, lock, evictor);
     }
 
     private static void checkDirectory(File directory) {
@@ -19,6 +19,7 @@ package org.gradle.caching.configuration.internal
 import org.gradle.caching.BuildCacheServiceFactory
 import org.gradle.caching.configuration.AbstractBuildCache
 import org.gradle.caching.configuration.BuildCache
+import org.gradle.caching.configuration.BuildCacheCompression
 import org.gradle.caching.local.DirectoryBuildCache
 import org.gradle.caching.local.internal.DirectoryBuildCacheServiceFactory
 import org.gradle.internal.reflect.Instantiator
@@ -101,6 +102,16 @@ class DefaultBuildCacheConfigurationTest extends Specification {
         ex.message == "A type for the remote build cache must be configured first."
     }
 
+    def 'compresses entries with gzip by default'() {
+        def buildCacheConfiguration = createConfig()
+        expect:
+        buildCacheConfiguration.compression == BuildCacheCompression.GZIP
+        when:
+        buildCacheConfiguration.compression = BuildCacheCompression.LZ4
+        then:
+        buildCacheConfiguration.compression == BuildCacheCompression.LZ4
+    }
+
     static class CustomBuildCache extends AbstractBuildCache {}
 
     static class OtherCustomBuildCache extends AbstractBuildCache {}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks
+
+import org.gradle.caching.configuration.BuildCacheCompression
+import org.gradle.caching.configuration.BuildCacheConfiguration
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CompressingTaskOutputPackerTest extends Specification {
+    def content = ("output " * 1000).bytes
+    BuildCacheCompression compression
+    def configuration = Stub(BuildCacheConfiguration) {
+        getCompression() >> { compression }
+    }
+    def delegate = new TaskOutputPacker() {
+        byte[] unpacked
+
+        @Override
+        TaskOutputPacker.PackResult pack(SortedSet propertySpecs, Map outputFingerprints, OutputStream output, TaskOutputOriginWriter writeOrigin) {
+            output.write(content)
+            return new TaskOutputPacker.PackResult(1)
+        }
+
+        @Override
+        TaskOutputPacker.UnpackResult unpack(SortedSet propertySpecs, InputStream input, TaskOutputOriginReader readOrigin) {
+            unpacked = input.bytes
+            return new TaskOutputPacker.UnpackResult(null, 1, [:])
+        }
+    }
+    def packer = new CompressingTaskOutputPacker(delegate, configuration)
+
+    @Unroll
+    def "can pack and unpack entry compressed with #entryCompression"() {
+        compression = entryCompression
+
+        when:
+        def packed = pack()
+        packer.unpack(new TreeSet(), new ByteArrayInputStream(packed), Stub(TaskOutputOriginReader))
+
+        then:
+        delegate.unpacked == content
+
+        where:
+        entryCompression << BuildCacheCompression.values()
+    }
+
+    def "writes gzip entries without a header"() {
+        compression = BuildCacheCompression.GZIP
+
+        expect:
+        def packed = pack()
+        packed[0] == (byte) 0x1f
+        packed[1] == (byte) 0x8b
+    }
+
+    @Unroll
+    def "can unpack entry compressed with #storedCompression when using #currentCompression"() {
+        compression = storedCompression
+        def packed = pack()
+
+        when:
+        compression = currentCompression
+        packer.unpack(new TreeSet(), new ByteArrayInputStream(packed), Stub(TaskOutputOriginReader))
+
+        then:
+        delegate.unpacked == content
+
+        where:
+        storedCompression          | currentCompression
+        BuildCacheCompression.GZIP | BuildCacheCompression.LZ4
+        BuildCacheCompression.LZ4  | BuildCacheCompression.NONE
+        BuildCacheCompression.NONE | BuildCacheCompression.GZIP
+    }
+
+    @Unroll
+    def "fails to unpack corrupted entry compressed with #entryCompression"() {
+        compression = entryCompression
+        def packed = pack()
+        packed[packed.length - 20] ^= 1
+
+        when:
+        packer.unpack(new TreeSet(), new ByteArrayInputStream(packed), Stub(TaskOutputOriginReader))
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Build cache entry is corrupt, its checksum does not match its content."
+
+        where:
+        entryCompression << [BuildCacheCompression.LZ4, BuildCacheCompression.NONE]
+    }
+
+    def "fails to unpack truncated entry"() {
+        compression = BuildCacheCompression.NONE
+        def packed = pack()
+
+        when:
+        packer.unpack(new TreeSet(), new ByteArrayInputStream(Arrays.copyOf(packed, 10)), Stub(TaskOutputOriginReader))
+
+        then:
+        thrown(IOException)
+    }
+
+    def "only entries that older versions cannot read have a packing format"() {
+        expect:
+        CompressingTaskOutputPacker.getPackingFormat(BuildCacheCompression.GZIP) == null
+        CompressingTaskOutputPacker.getPackingFormat(BuildCacheCompression.LZ4) == "LZ4"
+        CompressingTaskOutputPacker.getPackingFormat(BuildCacheCompression.NONE) == "NONE"
+    }
+
+    def "fails to unpack entry with unknown header"() {
+        when:
+        packer.unpack(new TreeSet(), new ByteArrayInputStream("unknown".bytes), Stub(TaskOutputOriginReader))
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Build cache entry does not start with a known header."
+    }
+
+    private byte[] pack() {
+        def output = new ByteArrayOutputStream()
+        packer.pack(new TreeSet(), [:], output, Stub(TaskOutputOriginWriter))
+        return output.toByteArray()
+    }
+}
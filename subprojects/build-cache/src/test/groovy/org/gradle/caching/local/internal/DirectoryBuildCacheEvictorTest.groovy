@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal
+
+import org.gradle.cache.PersistentCache
+import org.gradle.caching.internal.operations.BuildCacheLocalEvictionProgressDetails
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.operations.BuildOperationListener
+import org.gradle.internal.operations.CurrentBuildOperationRef
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationProgressEvent
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.internal.resource.local.FileAccessTimeJournal
+import org.gradle.internal.time.Clock
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.locks.ReentrantLock
+
+@CleanupTestDirectory
+class DirectoryBuildCacheEvictorTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    def cacheDir = temporaryFolder.createDir("cache")
+    def lockFile = cacheDir.file("cache.lock")
+    def persistentCache = Stub(PersistentCache) {
+        getBaseDir() >> cacheDir
+        getReservedCacheFiles() >> [lockFile]
+        withFileLock(_) >> { Runnable r -> r.run() }
+    }
+    Map<File, Long> accessTimes = [:]
+    Map<File, List<Long>> changingAccessTimes = [:]
+    def journal = Stub(FileAccessTimeJournal) {
+        getLastAccessTime(_) >> { File file ->
+            def sequence = changingAccessTimes[file]
+            sequence ? (sequence.size() > 1 ? sequence.remove(0) : sequence[0]) : accessTimes[file]
+        }
+        deleteLastAccessTime(_) >> { File file -> accessTimes.remove(file) }
+    }
+    def executor = Stub(ManagedExecutor) {
+        execute(_) >> { Runnable r -> r.run() }
+    }
+    def buildOperationExecutor = new TestBuildOperationExecutor()
+    def listener = Mock(BuildOperationListener)
+    def currentBuildOperationRef = Stub(CurrentBuildOperationRef) {
+        getId() >> new OperationIdentifier(1)
+    }
+    def evictor = new DirectoryBuildCacheEvictor(persistentCache, new ReentrantLock(), journal, 1000, executor, buildOperationExecutor, listener, currentBuildOperationRef, Stub(Clock))
+
+    def "evicts least recently used entries until the cache is below its target size when started"() {
+        def entries = (1..20).collect { entry("entry-$it", 100, it) }
+
+        when:
+        evictor.start()
+
+        then:
+        1 * listener.progress(_, { OperationProgressEvent event ->
+            def details = event.details as BuildCacheLocalEvictionProgressDetails
+            details.evictedEntryCount == 11 && details.evictedBytes == 1100 && details.remainingBytes == 900
+        })
+        0 * listener._
+        entries.findAll { it.exists() } == entries.drop(11)
+        buildOperationExecutor.log.descriptors*.displayName == ["Evict entries from local build cache"]
+    }
+
+    def "does not evict entries when the cache is below its maximum size"() {
+        def entries = (1..10).collect { entry("entry-$it", 100, it) }
+
+        when:
+        evictor.start()
+
+        then:
+        0 * listener._
+        entries.every { it.exists() }
+    }
+
+    def "evicts entries when a stored entry makes the cache grow beyond its maximum size"() {
+        def entries = (1..9).collect { entry("entry-$it", 100, it) }
+        evictor.start()
+
+        when:
+        def stored = entry("stored", 100, 10)
+        evictor.stored(stored)
+
+        then:
+        0 * listener._
+
+        when:
+        stored = entry("stored-2", 100, 11)
+        evictor.stored(stored)
+
+        then:
+        1 * listener.progress(_, { it.details.evictedEntryCount == 2 })
+        entries.findAll { !it.exists() } == entries.take(2)
+        stored.exists()
+    }
+
+    def "does not evict reserved files, partial files or entries used since the cache was scanned"() {
+        def entries = (1..20).collect { entry("entry-$it", 100, it) }
+        lockFile << "lock"
+        accessTimes[lockFile] = 0L
+        def partialFile = entry("entry-0" + BuildCacheTempFileStore.PARTIAL_FILE_SUFFIX, 100, 0)
+        def recentlyUsed = entries[0]
+        changingAccessTimes[recentlyUsed] = [1L, 100L]
+
+        when:
+        evictor.start()
+
+        then:
+        lockFile.exists()
+        partialFile.exists()
+        recentlyUsed.exists()
+        entries.findAll { !it.exists() } == entries[1..11]
+    }
+
+    private TestFile entry(String name, int length, long accessTime) {
+        def file = cacheDir.file(name)
+        file.bytes = new byte[length]
+        accessTimes[file] = accessTime
+        return file
+    }
+}
@@ -25,8 +25,14 @@ import org.gradle.cache.internal.CleanupActionFactory
 import org.gradle.cache.internal.VersionStrategy
 import org.gradle.caching.BuildCacheServiceFactory
 import org.gradle.caching.local.DirectoryBuildCache
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.BuildOperationListenerManager
+import org.gradle.internal.operations.CurrentBuildOperationRef
 import org.gradle.internal.resource.local.FileAccessTimeJournal
 import org.gradle.internal.resource.local.PathKeyFileStore
+import org.gradle.internal.time.Clock
 import org.gradle.test.fixtures.file.CleanupTestDirectory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.UsesNativeServices
@@ -42,7 +48,11 @@ class DirectoryBuildCacheServiceFactoryTest extends Specification {
     def fileStoreFactory = Mock(DirectoryBuildCacheFileStoreFactory)
     def cleanupActionFactory = Mock(CleanupActionFactory)
     def fileAccessTimeJournal = Mock(FileAccessTimeJournal)
-    def factory = new DirectoryBuildCacheServiceFactory(cacheRepository, cacheScopeMapping, resolver, fileStoreFactory, cleanupActionFactory, fileAccessTimeJournal)
+    def executorFactory = Mock(ExecutorFactory)
+    def buildOperationExecutor = Mock(BuildOperationExecutor)
+    def buildOperationListenerManager = Mock(BuildOperationListenerManager)
+    def factory = new DirectoryBuildCacheServiceFactory(cacheRepository, cacheScopeMapping, resolver, fileStoreFactory, cleanupActionFactory, fileAccessTimeJournal,
+        executorFactory, buildOperationExecutor, buildOperationListenerManager, CurrentBuildOperationRef.instance(), Mock(Clock))
     def cacheBuilder = Stub(CacheBuilder)
     def config = Mock(DirectoryBuildCache)
     def buildCacheDescriber = new NoopBuildCacheDescriber()
@@ -58,6 +68,7 @@ class DirectoryBuildCacheServiceFactoryTest extends Specification {
         service instanceof DirectoryBuildCacheService
         1 * config.getDirectory() >> null
         1 * config.getRemoveUnusedEntriesAfterDays() >> 10
+        1 * config.getMaximumSizeInMB() >> 0
         1 * cacheScopeMapping.getBaseDirectory(null, "build-cache-1", VersionStrategy.SharedCache) >> cacheDir
         1 * fileStoreFactory.createFileStore(cacheDir) >> Mock(PathKeyFileStore)
         1 * cacheRepository.cache(cacheDir) >> cacheBuilder
@@ -74,6 +85,7 @@ class DirectoryBuildCacheServiceFactoryTest extends Specification {
         service instanceof DirectoryBuildCacheService
         1 * config.getDirectory() >> cacheDir
         1 * config.getRemoveUnusedEntriesAfterDays() >> 10
+        1 * config.getMaximumSizeInMB() >> 0
         1 * resolver.resolve(cacheDir) >> cacheDir
         1 * fileStoreFactory.createFileStore(cacheDir) >> Mock(PathKeyFileStore)
         1 * cacheRepository.cache(cacheDir) >> cacheBuilder
@@ -81,6 +93,27 @@ class DirectoryBuildCacheServiceFactoryTest extends Specification {
         0 * _
     }
 
+    def "starts evicting entries in the background when the size of the cache is limited"() {
+        def cacheDir = temporaryFolder.file("cache-dir")
+        def executor = Mock(ManagedExecutor)
+
+        when:
+        def service = factory.createBuildCacheService(config, buildCacheDescriber)
+        then:
+        service instanceof DirectoryBuildCacheService
+        1 * config.getDirectory() >> cacheDir
+        1 * config.getRemoveUnusedEntriesAfterDays() >> 10
+        1 * config.getMaximumSizeInMB() >> 100
+        1 * resolver.resolve(cacheDir) >> cacheDir
+        1 * fileStoreFactory.createFileStore(cacheDir) >> Mock(PathKeyFileStore)
+        1 * cacheRepository.cache(cacheDir) >> cacheBuilder
+        1 * cleanupActionFactory.create(_) >> Mock(CleanupAction)
+        1 * buildOperationListenerManager.getBroadcaster()
+        1 * executorFactory.create("Build cache eviction", 1) >> executor
+        1 * executor.execute(_)
+        0 * _
+    }
+
     private class NoopBuildCacheDescriber implements BuildCacheServiceFactory.Describer {
 
         @Override
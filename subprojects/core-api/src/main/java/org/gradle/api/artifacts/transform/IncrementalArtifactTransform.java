@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.artifacts.transform;
+
+import org.gradle.api.Incubating;
+import org.gradle.api.tasks.incremental.InputFileDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Base class for artifact transformations that can update the outputs of an earlier transformation of the same input,
+ * rather than transforming the whole input again.
+ *
+ * <p>This is useful for inputs that are directories, such as the classes directory of a project, where a change usually touches only a few files.
+ * When the input is a directory that was transformed before with the same transform and configuration, {@link #isIncremental()} returns true,
+ * the output directory contains the outputs of that earlier transformation, and {@link #getInputFileChanges()} contains the files under the input
+ * that have been added, modified or removed since. The transform should update its outputs to match and return the complete list of outputs.</p>
+ *
+ * <p>Otherwise {@link #isIncremental()} returns false, the output directory is empty, and {@link #getInputFileChanges()} reports every
+ * file of the input as added. If the transformation fails, the next transformation of the input starts from an empty output directory.</p>
+ *
+ * @since 4.11
+ */
+@Incubating
+public abstract class IncrementalArtifactTransform extends ArtifactTransform {
+    private boolean incremental;
+    private Collection<InputFileDetails> inputFileChanges = Collections.emptyList();
+
+    /**
+     * Returns true when the output directory contains the outputs of an earlier transformation of the input.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Returns the regular files of the input that have changed since the earlier transformation, or all of them when the transformation is not incremental.
+     */
+    public Collection<InputFileDetails> getInputFileChanges() {
+        return inputFileChanges;
+    }
+
+    public void setInputFileChanges(Collection<InputFileDetails> inputFileChanges) {
+        this.inputFileChanges = inputFileChanges;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import com.google.common.base.Splitter;
+import com.google.common.io.Files;
+import org.gradle.api.Transformer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Simulates the execution of task graphs by a number of workers, to compare the wall clock time of a build when tasks are started in plan order with the time when the tasks on the critical path are started first.
+ *
+ * The simulated build time in milliseconds is reported by the {@code buildTime} counter. Like in a real build, each worker runs one task at a time and only one task of a project runs at a time.
+ *
+ * The {@code taskGraph} parameter is either {@code generated}, for a generated multi-project build with a few slow modules, or the path of a recorded task graph.
+ * A recorded task graph is a text file with one line per task, in the order of the execution plan: the task path, its execution time in milliseconds and the paths of the tasks it depends on, separated by whitespace.
+ */
+@Fork(1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@BenchmarkMode(Mode.SingleShotTime)
+@State(Scope.Benchmark)
+public class TaskSchedulingSimulationBenchmark {
+    private static final String GENERATED = "generated";
+
+    @Param({GENERATED})
+    String taskGraph;
+
+    @Param({"4", "8", "16"})
+    int workers;
+
+    List<SimulatedTask> plan;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class SimulatedBuild {
+        public long buildTime;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            buildTime = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void loadTaskGraph() throws IOException {
+        plan = GENERATED.equals(taskGraph) ? generateTaskGraph(new Random(1234L), 100) : readTaskGraph(new File(taskGraph));
+        Map<String, SimulatedTask> lastInProject = new HashMap<String, SimulatedTask>();
+        for (SimulatedTask task : plan) {
+            SimulatedTask previous = lastInProject.put(task.project, task);
+            if (previous != null) {
+                previous.nextInProject = task;
+            }
+        }
+    }
+
+    @Benchmark
+    public void planOrder(SimulatedBuild build) {
+        build.buildTime = simulate(plan, workers);
+    }
+
+    /**
+     * Uses the same estimates as {@link DefaultTaskExecutionPlan}, where each task also delays the next task of its project.
+     */
+    @Benchmark
+    public void criticalPathFirst(SimulatedBuild build) {
+        List<SimulatedTask> ordered = CriticalPathOrdering.order(plan, new Transformer<Long, SimulatedTask>() {
+            @Override
+            public Long transform(SimulatedTask task) {
+                return task.executionTime;
+            }
+        }, new Transformer<List<SimulatedTask>, SimulatedTask>() {
+            @Override
+            public List<SimulatedTask> transform(SimulatedTask task) {
+                if (task.nextInProject == null) {
+                    return task.dependents;
+                }
+                List<SimulatedTask> dependents = new ArrayList<SimulatedTask>(task.dependents);
+                dependents.add(task.nextInProject);
+                return dependents;
+            }
+        });
+        build.buildTime = simulate(ordered, workers);
+    }
+
+    /**
+     * Runs the tasks in the given order, always starting the first task whose dependencies have completed and whose project is not busy when a worker becomes available.
+     */
+    private static long simulate(List<SimulatedTask> queue, int workers) {
+        List<SimulatedTask> waiting = new ArrayList<SimulatedTask>(queue);
+        Set<SimulatedTask> completed = new HashSet<SimulatedTask>();
+        Set<String> busyProjects = new HashSet<String>();
+        PriorityQueue<RunningTask> running = new PriorityQueue<RunningTask>();
+        long now = 0;
+        while (!waiting.isEmpty() || !running.isEmpty()) {
+            for (int i = 0; i < waiting.size() && running.size() < workers; i++) {
+                SimulatedTask task = waiting.get(i);
+                if (!busyProjects.contains(task.project) && completed.containsAll(task.dependencies)) {
+                    waiting.remove(i--);
+                    busyProjects.add(task.project);
+                    running.add(new RunningTask(task, now + task.executionTime));
+                }
+            }
+            RunningTask next = running.poll();
+            if (next == null) {
+                throw new IllegalStateException("Task graph contains a cycle or a dependency on a task that is not part of the graph.");
+            }
+            now = next.finishTime;
+            completed.add(next.task);
+            busyProjects.remove(next.task.project);
+        }
+        return now;
+    }
+
+    /**
+     * Generates a multi-project build where each project compiles against some of the projects before it and then runs its tests. The tests of a few projects are much slower than the rest.
+     */
+    private static List<SimulatedTask> generateTaskGraph(Random random, int projectCount) {
+        List<SimulatedTask> plan = new ArrayList<SimulatedTask>();
+        List<SimulatedTask> jars = new ArrayList<SimulatedTask>();
+        for (int i = 0; i < projectCount; i++) {
+            String project = ":project" + i;
+            SimulatedTask compile = new SimulatedTask(project + ":compileJava", 500 + random.nextInt(5000));
+            for (int j = 0; j < 3 && !jars.isEmpty(); j++) {
+                compile.dependsOn(jars.get(random.nextInt(jars.size())));
+            }
+            SimulatedTask jar = new SimulatedTask(project + ":jar", 100 + random.nextInt(400)).dependsOn(compile);
+            SimulatedTask test = new SimulatedTask(project + ":test", random.nextInt(10) == 0 ? 60000 + random.nextInt(60000) : 1000 + random.nextInt(10000)).dependsOn(compile);
+            plan.add(compile);
+            plan.add(jar);
+            plan.add(test);
+            jars.add(jar);
+        }
+        return plan;
+    }
+
+    private static List<SimulatedTask> readTaskGraph(File file) throws IOException {
+        Map<String, SimulatedTask> tasks = new LinkedHashMap<String, SimulatedTask>();
+        for (String line : Files.readLines(file, Charset.forName("UTF-8"))) {
+            List<String> fields = Splitter.onPattern("\\s+").omitEmptyStrings().splitToList(line);
+            if (fields.isEmpty()) {
+                continue;
+            }
+            SimulatedTask task = new SimulatedTask(fields.get(0), Long.parseLong(fields.get(1)));
+            for (String dependency : fields.subList(2, fields.size())) {
+                SimulatedTask dependencyTask = tasks.get(dependency);
+                if (dependencyTask == null) {
+                    throw new IllegalArgumentException("Task " + task.path + " depends on " + dependency + ", which is not listed before it.");
+                }
+                task.dependsOn(dependencyTask);
+            }
+            tasks.put(task.path, task);
+        }
+        return new ArrayList<SimulatedTask>(tasks.values());
+    }
+
+    private static class SimulatedTask {
+        final String path;
+        final String project;
+        final long executionTime;
+        final List<SimulatedTask> dependencies = new ArrayList<SimulatedTask>();
+        final List<SimulatedTask> dependents = new ArrayList<SimulatedTask>();
+        SimulatedTask nextInProject;
+
+        SimulatedTask(String path, long executionTime) {
+            this.path = path;
+            this.project = path.substring(0, path.lastIndexOf(':') + 1);
+            this.executionTime = executionTime;
+        }
+
+        SimulatedTask dependsOn(SimulatedTask dependency) {
+            if (!dependencies.contains(dependency)) {
+                dependencies.add(dependency);
+                dependency.dependents.add(this);
+            }
+            return this;
+        }
+    }
+
+    private static class RunningTask implements Comparable<RunningTask> {
+        final SimulatedTask task;
+        final long finishTime;
+
+        RunningTask(SimulatedTask task, long finishTime) {
+            this.task = task;
+            this.finishTime = finishTime;
+        }
+
+        @Override
+        public int compareTo(RunningTask other) {
+            return finishTime < other.finishTime ? -1 : finishTime > other.finishTime ? 1 : 0;
+        }
+    }
+}
@@ -49,6 +49,7 @@ class NoOutputsArtifactState implements TaskArtifactState, TaskExecutionHistory
         null,
         null,
         null,
+        null,
         null
     );
 
@@ -45,6 +45,7 @@ import org.gradle.internal.fingerprint.impl.AbsolutePathFingerprintingStrategy;
 import org.gradle.internal.fingerprint.impl.DefaultCurrentFileCollectionFingerprint;
 import org.gradle.internal.fingerprint.impl.EmptyHistoricalFileCollectionFingerprint;
 import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.BaseSerializerFactory;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.internal.snapshot.DirectorySnapshot;
 import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
@@ -70,6 +71,7 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
     private static final Logger LOGGER = LoggerFactory.getLogger(CacheBackedTaskHistoryRepository.class);
 
     private final PersistentIndexedCache<String, HistoricalTaskExecution> taskHistoryCache;
+    private final PersistentIndexedCache<String, Long> executionTimeCache;
     private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
     private final ValueSnapshotter valueSnapshotter;
     private final FileCollectionFingerprinterRegistry fingerprinterRegistry;
@@ -86,6 +88,8 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         this.fingerprinterRegistry = fingerprinterRegistry;
         TaskExecutionFingerprintSerializer serializer = new TaskExecutionFingerprintSerializer(fileCollectionFingerprintSerializer);
         this.taskHistoryCache = cacheAccess.createCache("taskHistory", String.class, serializer, 10000, false);
+        // Kept separately from the task history, so that execution times can be looked up without decoding the history of each task
+        this.executionTimeCache = cacheAccess.createCache("taskExecutionTimes", String.class, BaseSerializerFactory.LONG_SERIALIZER, 10000, false);
     }
 
     @Override
@@ -126,12 +130,20 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
 
             @Override
             public void persist() {
-                taskHistoryCache.put(task.getPath(), getCurrentExecution().archive());
+                HistoricalTaskExecution execution = getCurrentExecution().archive();
+                taskHistoryCache.put(task.getPath(), execution);
+                executionTimeCache.put(task.getPath(), execution.getOriginExecutionMetadata().getExecutionTime());
             }
 
         };
     }
 
+    @Override
+    public long getPreviousExecutionTime(TaskInternal task) {
+        Long executionTime = executionTimeCache.get(task.getPath());
+        return executionTime == null ? 0 : executionTime;
+    }
+
     private CurrentTaskExecution createExecution(TaskInternal task, TaskProperties taskProperties, @Nullable HistoricalTaskExecution previousExecution, InputNormalizationStrategy normalizationStrategy) {
         Class<? extends TaskInternal> taskClass = task.getClass();
         List<ContextAwareTaskAction> taskActions = task.getTaskActions();
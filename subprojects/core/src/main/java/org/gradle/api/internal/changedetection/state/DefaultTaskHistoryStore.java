@@ -27,6 +27,10 @@ import java.io.Closeable;
 
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
+/**
+ * The store for the task history of a build. Most task executions rewrite their history, and only the last written entry for a task is
+ * ever read, so the caches of this store use {@link PersistentIndexedCacheParameters.Storage#APPEND_LOG} storage.
+ */
 public class DefaultTaskHistoryStore implements TaskHistoryStore, Closeable {
     private final InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory;
     private final PersistentCache cache;
@@ -47,14 +51,16 @@ public class DefaultTaskHistoryStore implements TaskHistoryStore, Closeable {
     @Override
     public <K, V> PersistentIndexedCache<K, V> createCache(String cacheName, Class<K> keyType, Serializer<V> valueSerializer, int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses) {
         PersistentIndexedCacheParameters<K, V> parameters = new PersistentIndexedCacheParameters<K, V>(cacheName, keyType, valueSerializer)
-                .cacheDecorator(inMemoryCacheDecoratorFactory.decorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses));
+                .cacheDecorator(inMemoryCacheDecoratorFactory.decorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses))
+                .storage(PersistentIndexedCacheParameters.Storage.APPEND_LOG);
         return cache.createCache(parameters);
     }
 
     @Override
     public <K, V> PersistentIndexedCache<K, V> createCache(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer, int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses) {
         PersistentIndexedCacheParameters<K, V> parameters = new PersistentIndexedCacheParameters<K, V>(cacheName, keySerializer, valueSerializer)
-            .cacheDecorator(inMemoryCacheDecoratorFactory.decorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses));
+            .cacheDecorator(inMemoryCacheDecoratorFactory.decorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses))
+            .storage(PersistentIndexedCacheParameters.Storage.APPEND_LOG);
         return cache.createCache(parameters);
     }
 }
@@ -25,6 +25,11 @@ import javax.annotation.Nullable;
 public interface TaskHistoryRepository {
     History getHistory(TaskInternal task, TaskProperties taskProperties);
 
+    /**
+     * Returns the time in milliseconds that the actions of the given task took when it was last executed, or 0 when this is not known.
+     */
+    long getPreviousExecutionTime(TaskInternal task);
+
     interface History {
         @Nullable
         HistoricalTaskExecution getPreviousExecution();
@@ -38,6 +38,7 @@ public class BuildCacheKeyInputs {
     private final ImmutableSortedMap<String, CurrentFileCollectionFingerprint> inputFiles;
     private final ImmutableSortedSet<String> inputPropertiesLoadedByUnknownClassLoader;
     private final ImmutableSortedSet<String> outputPropertyNames;
+    private final String packingFormat;
 
     public BuildCacheKeyInputs(
         @Nullable String taskClass,
@@ -47,7 +48,8 @@ public class BuildCacheKeyInputs {
         @Nullable ImmutableSortedMap<String, HashCode> inputValueHashes,
         @Nullable ImmutableSortedMap<String, CurrentFileCollectionFingerprint> inputFiles,
         @Nullable ImmutableSortedSet<String> inputPropertiesLoadedByUnknownClassLoader,
-        @Nullable ImmutableSortedSet<String> outputPropertyNames
+        @Nullable ImmutableSortedSet<String> outputPropertyNames,
+        @Nullable String packingFormat
     ) {
         this.taskClass = taskClass;
         this.inputValueHashes = inputValueHashes;
@@ -57,6 +59,7 @@ public class BuildCacheKeyInputs {
         this.actionClassLoaderHashes = actionClassLoaderHashes;
         this.actionClassNames = actionClassNames;
         this.outputPropertyNames = outputPropertyNames;
+        this.packingFormat = packingFormat;
     }
 
     @Nullable
@@ -99,6 +102,14 @@ public class BuildCacheKeyInputs {
         return outputPropertyNames;
     }
 
+    /**
+     * The packing format of the cache entry, when it is not the default format that all versions of Gradle can read.
+     */
+    @Nullable
+    public String getPackingFormat() {
+        return packingFormat;
+    }
+
     @Override
     public String toString() {
         return "BuildCacheKeyInputs{"
@@ -109,6 +120,7 @@ public class BuildCacheKeyInputs {
             + ", inputFiles=" + inputFiles
             + ", inputPropertyNamesLoadedByUnknownClassLoader=" + inputPropertiesLoadedByUnknownClassLoader
             + ", outputPropertyNames=" + outputPropertyNames
+            + ", packingFormat=" + packingFormat
             + '}';
     }
 }
@@ -55,8 +55,8 @@ public class BuildCacheTaskServices {
 
     private static final Path ROOT_BUILD_SRC_PATH = Path.path(":" + BuildSourceBuilder.BUILD_SRC);
 
-    TaskOutputPacker createTaskResultPacker(FileSystem fileSystem, StreamHasher fileHasher, StringInterner stringInterner) {
-        return new GZipTaskOutputPacker(new TarTaskOutputPacker(fileSystem, fileHasher, stringInterner));
+    TaskOutputPacker createTaskResultPacker(FileSystem fileSystem, StreamHasher fileHasher, StringInterner stringInterner, BuildCacheConfigurationInternal buildCacheConfiguration) {
+        return new CompressingTaskOutputPacker(new TarTaskOutputPacker(fileSystem, fileHasher, stringInterner), buildCacheConfiguration);
     }
 
     TaskOutputOriginFactory createTaskOutputOriginFactory(
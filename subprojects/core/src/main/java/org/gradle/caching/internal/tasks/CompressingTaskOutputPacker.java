@@ -0,0 +1,330 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.gradle.api.internal.tasks.ResolvedTaskOutputFilePropertySpec;
+import org.gradle.caching.configuration.BuildCacheCompression;
+import org.gradle.caching.configuration.BuildCacheConfiguration;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginReader;
+import org.gradle.caching.internal.tasks.origin.TaskOutputOriginWriter;
+import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
+import org.gradle.internal.io.Lz4BlockInputStream;
+import org.gradle.internal.io.Lz4BlockOutputStream;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Adds compression to the packed task output, using the compression configured for the build cache.
+ *
+ * Entries compressed with gzip are written without a header, so that they can be read by older versions of Gradle.
+ * Entries compressed in any other way start with a header that identifies the compression, and end with a trailer holding the CRC32
+ * checksum and the length of the uncompressed content, which is verified when unpacking, as gzip does.
+ * Older versions of Gradle cannot read these entries, so their compression is part of the build cache key, see {@link #getPackingFormat(BuildCacheCompression)}.
+ * The compression of an entry is detected when unpacking it, so that caches can contain entries with different compressions.
+ */
+public class CompressingTaskOutputPacker implements TaskOutputPacker {
+    private static final byte[] GZIP_MAGIC = {(byte) 0x1f, (byte) 0x8b};
+    private static final byte[] HEADER_MAGIC = {'G', 'B', 'C'};
+    private static final byte NONE_ID = 0;
+    private static final byte LZ4_ID = 1;
+    private static final int TRAILER_SIZE = 12;
+
+    private final TaskOutputPacker delegate;
+    private final BuildCacheConfiguration buildCacheConfiguration;
+
+    public CompressingTaskOutputPacker(TaskOutputPacker delegate, BuildCacheConfiguration buildCacheConfiguration) {
+        this.delegate = delegate;
+        this.buildCacheConfiguration = buildCacheConfiguration;
+    }
+
+    /**
+     * Returns the format of the entries written with the given compression, to be included in the build cache key, or null when the entries
+     * can be read by all versions of Gradle.
+     */
+    @Nullable
+    public static String getPackingFormat(BuildCacheCompression compression) {
+        return compression == BuildCacheCompression.GZIP ? null : compression.name();
+    }
+
+    @Override
+    public PackResult pack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, Map<String, CurrentFileCollectionFingerprint> outputFingerprints, OutputStream output, TaskOutputOriginWriter writeOrigin) throws IOException {
+        OutputStream compressedOutput = createCompressedOutputStream(buildCacheConfiguration.getCompression(), output);
+        try {
+            return delegate.pack(propertySpecs, outputFingerprints, compressedOutput, writeOrigin);
+        } finally {
+            IOUtils.closeQuietly(compressedOutput);
+        }
+    }
+
+    private static OutputStream createCompressedOutputStream(BuildCacheCompression compression, OutputStream output) throws IOException {
+        switch (compression) {
+            case GZIP:
+                return new GZIPOutputStream(output);
+            case LZ4:
+                writeHeader(output, LZ4_ID);
+                return new ChecksumTrailerOutputStream(new Lz4BlockOutputStream(new CloseShieldOutputStream(output)), output);
+            case NONE:
+                writeHeader(output, NONE_ID);
+                return new ChecksumTrailerOutputStream(new CloseShieldOutputStream(output), output);
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    private static void writeHeader(OutputStream output, byte compressionId) throws IOException {
+        output.write(HEADER_MAGIC);
+        output.write(compressionId);
+    }
+
+    @Override
+    public UnpackResult unpack(SortedSet<ResolvedTaskOutputFilePropertySpec> propertySpecs, InputStream input, TaskOutputOriginReader readOrigin) throws IOException {
+        InputStream decompressedInput = createDecompressedInputStream(input);
+        try {
+            UnpackResult result = delegate.unpack(propertySpecs, decompressedInput, readOrigin);
+            // Read up to the end of the entry, so that its checksum is verified
+            IOUtils.skip(decompressedInput, Long.MAX_VALUE);
+            return result;
+        } finally {
+            IOUtils.closeQuietly(decompressedInput);
+        }
+    }
+
+    private static InputStream createDecompressedInputStream(InputStream input) throws IOException {
+        PushbackInputStream pushbackInput = new PushbackInputStream(input, HEADER_MAGIC.length + 1);
+        byte[] header = new byte[HEADER_MAGIC.length + 1];
+        int headerLength = IOUtils.read(pushbackInput, header);
+        if (headerLength >= GZIP_MAGIC.length && header[0] == GZIP_MAGIC[0] && header[1] == GZIP_MAGIC[1]) {
+            pushbackInput.unread(header, 0, headerLength);
+            return new GZIPInputStream(pushbackInput);
+        }
+        if (headerLength == header.length && Arrays.equals(Arrays.copyOf(header, HEADER_MAGIC.length), HEADER_MAGIC)) {
+            TrailerHoldingInputStream compressedInput = new TrailerHoldingInputStream(pushbackInput);
+            switch (header[HEADER_MAGIC.length]) {
+                case NONE_ID:
+                    return new ChecksumVerifyingInputStream(compressedInput, compressedInput);
+                case LZ4_ID:
+                    return new ChecksumVerifyingInputStream(new Lz4BlockInputStream(compressedInput), compressedInput);
+                default:
+                    throw new IOException("Build cache entry uses an unknown compression with id " + header[HEADER_MAGIC.length] + ".");
+            }
+        }
+        throw new IOException("Build cache entry does not start with a known header.");
+    }
+
+    /**
+     * Writes the checksum and the length of the uncompressed content after the compressed content.
+     */
+    private static class ChecksumTrailerOutputStream extends OutputStream {
+        private final OutputStream compressedOutput;
+        private final OutputStream output;
+        private final CRC32 checksum = new CRC32();
+        private long length;
+        private boolean closed;
+
+        ChecksumTrailerOutputStream(OutputStream compressedOutput, OutputStream output) {
+            this.compressedOutput = compressedOutput;
+            this.output = output;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            compressedOutput.write(b);
+            checksum.update(b);
+            length++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int count) throws IOException {
+            compressedOutput.write(bytes, offset, count);
+            checksum.update(bytes, offset, count);
+            length += count;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            compressedOutput.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                compressedOutput.close();
+                byte[] trailer = new byte[TRAILER_SIZE];
+                writeLong(trailer, 0, checksum.getValue() & 0xffffffffL, 4);
+                writeLong(trailer, 4, length, 8);
+                output.write(trailer);
+            } finally {
+                output.close();
+            }
+        }
+
+        private static void writeLong(byte[] bytes, int offset, long value, int count) {
+            for (int i = count - 1; i >= 0; i--) {
+                bytes[offset + i] = (byte) value;
+                value >>>= 8;
+            }
+        }
+    }
+
+    /**
+     * Holds back the last {@value #TRAILER_SIZE} bytes of the entry, which are the trailer.
+     */
+    private static class TrailerHoldingInputStream extends InputStream {
+        private final InputStream input;
+        private final byte[] buffer = new byte[8192 + TRAILER_SIZE];
+        private int start;
+        private int end;
+        private boolean endOfInput;
+
+        TrailerHoldingInputStream(InputStream input) {
+            this.input = input;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int count = read(single, 0, 1);
+            return count < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (end - start <= TRAILER_SIZE && !endOfInput) {
+                if (end == buffer.length) {
+                    System.arraycopy(buffer, start, buffer, 0, end - start);
+                    end -= start;
+                    start = 0;
+                }
+                int count = input.read(buffer, end, buffer.length - end);
+                if (count < 0) {
+                    endOfInput = true;
+                } else {
+                    end += count;
+                }
+            }
+            int available = end - start - TRAILER_SIZE;
+            if (available <= 0) {
+                return -1;
+            }
+            int count = Math.min(length, available);
+            System.arraycopy(buffer, start, bytes, offset, count);
+            start += count;
+            return count;
+        }
+
+        /**
+         * Returns the trailer, once all other bytes have been read.
+         */
+        byte[] getTrailer() throws IOException {
+            if (read(new byte[1], 0, 1) >= 0) {
+                throw new IOException("Build cache entry has unexpected content after its compressed content.");
+            }
+            if (end - start != TRAILER_SIZE) {
+                throw new IOException("Build cache entry is truncated.");
+            }
+            return Arrays.copyOfRange(buffer, start, end);
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+    /**
+     * Verifies the checksum and length of the uncompressed content against the trailer once the end of the content is reached.
+     */
+    private static class ChecksumVerifyingInputStream extends InputStream {
+        private final InputStream decompressedInput;
+        private final TrailerHoldingInputStream compressedInput;
+        private final CRC32 checksum = new CRC32();
+        private long length;
+        private boolean verified;
+
+        ChecksumVerifyingInputStream(InputStream decompressedInput, TrailerHoldingInputStream compressedInput) {
+            this.decompressedInput = decompressedInput;
+            this.compressedInput = compressedInput;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = decompressedInput.read();
+            if (b < 0) {
+                verify();
+            } else {
+                checksum.update(b);
+                length++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int count) throws IOException {
+            int read = decompressedInput.read(bytes, offset, count);
+            if (read < 0) {
+                verify();
+            } else {
+                checksum.update(bytes, offset, read);
+                length += read;
+            }
+            return read;
+        }
+
+        private void verify() throws IOException {
+            if (verified) {
+                return;
+            }
+            byte[] trailer = compressedInput.getTrailer();
+            if (readLong(trailer, 0, 4) != (checksum.getValue() & 0xffffffffL) || readLong(trailer, 4, 8) != length) {
+                throw new IOException("Build cache entry is corrupt, its checksum does not match its content.");
+            }
+            verified = true;
+        }
+
+        private static long readLong(byte[] bytes, int offset, int count) {
+            long value = 0;
+            for (int i = 0; i < count; i++) {
+                value = (value << 8) | (bytes[offset + i] & 0xff);
+            }
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            decompressedInput.close();
+        }
+    }
+}
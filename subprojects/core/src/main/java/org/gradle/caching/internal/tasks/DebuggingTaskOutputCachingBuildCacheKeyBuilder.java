@@ -79,6 +79,12 @@ public class DebuggingTaskOutputCachingBuildCacheKeyBuilder implements TaskOutpu
         delegate.appendOutputPropertyName(propertyName);
     }
 
+    @Override
+    public void appendPackingFormat(String packingFormat) {
+        LOGGER.lifecycle("Appending packing format to build cache key: {}", packingFormat);
+        delegate.appendPackingFormat(packingFormat);
+    }
+
     @Override
     public TaskOutputCachingBuildCacheKey build() {
         return delegate.build();
@@ -48,6 +48,7 @@ public class DefaultTaskOutputCachingBuildCacheKeyBuilder implements TaskOutputC
     private final ImmutableSortedMap.Builder<String, CurrentFileCollectionFingerprint> inputFiles = ImmutableSortedMap.naturalOrder();
     private final ImmutableSortedSet.Builder<String> inputPropertiesLoadedByUnknownClassLoader = ImmutableSortedSet.naturalOrder();
     private final ImmutableSortedSet.Builder<String> outputPropertyNames = ImmutableSortedSet.naturalOrder();
+    private String packingFormat;
 
     public DefaultTaskOutputCachingBuildCacheKeyBuilder(Path taskPath) {
         this.taskPath = taskPath;
@@ -117,9 +118,15 @@ public class DefaultTaskOutputCachingBuildCacheKeyBuilder implements TaskOutputC
         hasher.putString(propertyName);
     }
 
+    @Override
+    public void appendPackingFormat(String packingFormat) {
+        this.packingFormat = packingFormat;
+        hasher.putString(packingFormat);
+    }
+
     @Override
     public TaskOutputCachingBuildCacheKey build() {
-        BuildCacheKeyInputs inputs = new BuildCacheKeyInputs(taskClass, classLoaderHash, actionClassLoaderHashes, actionTypes, inputValueHashes.build(), inputFiles.build(), inputPropertiesLoadedByUnknownClassLoader.build(), outputPropertyNames.build());
+        BuildCacheKeyInputs inputs = new BuildCacheKeyInputs(taskClass, classLoaderHash, actionClassLoaderHashes, actionTypes, inputValueHashes.build(), inputFiles.build(), inputPropertiesLoadedByUnknownClassLoader.build(), outputPropertyNames.build(), packingFormat);
         HashCode hash;
         if (!valid) {
             hash = null;
@@ -19,6 +19,7 @@ package org.gradle.caching.internal.tasks;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.changedetection.state.CurrentTaskExecution;
 import org.gradle.api.internal.changedetection.state.ValueSnapshot;
+import org.gradle.caching.configuration.BuildCacheConfiguration;
 import org.gradle.caching.internal.DefaultBuildCacheHasher;
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
 import org.gradle.internal.hash.HashCode;
@@ -30,9 +31,11 @@ import java.util.SortedSet;
 public class TaskCacheKeyCalculator {
 
     private final boolean buildCacheDebugLogging;
+    private final BuildCacheConfiguration buildCacheConfiguration;
 
-    public TaskCacheKeyCalculator(boolean buildCacheDebugLogging) {
+    public TaskCacheKeyCalculator(boolean buildCacheDebugLogging, BuildCacheConfiguration buildCacheConfiguration) {
         this.buildCacheDebugLogging = buildCacheDebugLogging;
+        this.buildCacheConfiguration = buildCacheConfiguration;
     }
 
     public TaskOutputCachingBuildCacheKey calculate(TaskInternal task, CurrentTaskExecution execution) {
@@ -65,6 +68,12 @@ public class TaskCacheKeyCalculator {
             builder.appendOutputPropertyName(cacheableOutputPropertyName);
         }
 
+        // Entries in a format that older versions of Gradle cannot read need a different key, so that those versions do not try to load them
+        String packingFormat = CompressingTaskOutputPacker.getPackingFormat(buildCacheConfiguration.getCompression());
+        if (packingFormat != null) {
+            builder.appendPackingFormat(packingFormat);
+        }
+
         return builder.build();
     }
 }
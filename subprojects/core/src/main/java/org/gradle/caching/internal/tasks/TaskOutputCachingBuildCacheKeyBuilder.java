@@ -33,6 +33,8 @@ public interface TaskOutputCachingBuildCacheKeyBuilder {
 
     void appendOutputPropertyName(String propertyName);
 
+    void appendPackingFormat(String packingFormat);
+
     TaskOutputCachingBuildCacheKey build();
 
     void inputPropertyLoadedByUnknownClassLoader(String propertyName);
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.Transformer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orders the nodes of a graph so that the nodes which start the longest chains of remaining work come first.
+ *
+ * The length of a chain is the sum of the estimated durations of the nodes on it. Nodes with chains of equal length keep their relative order.
+ */
+class CriticalPathOrdering {
+    private CriticalPathOrdering() {
+    }
+
+    /**
+     * Returns the given nodes ordered by the length of the longest chain of work that starts at each node, longest first.
+     *
+     * @param nodes the nodes in execution order, where each node comes after the nodes it depends on.
+     * @param durations the estimated duration of each node.
+     * @param dependents the nodes that cannot start before the given node has completed. Nodes that are not in {@code nodes} are ignored.
+     */
+    static <T> List<T> order(List<? extends T> nodes, Transformer<Long, ? super T> durations, Transformer<? extends Iterable<? extends T>, ? super T> dependents) {
+        final Map<T, Long> remainingWork = new IdentityHashMap<T, Long>(nodes.size());
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            T node = nodes.get(i);
+            long longestDependentChain = 0;
+            for (T dependent : dependents.transform(node)) {
+                Long dependentChain = remainingWork.get(dependent);
+                if (dependentChain != null && dependentChain > longestDependentChain) {
+                    longestDependentChain = dependentChain;
+                }
+            }
+            remainingWork.put(node, durations.transform(node) + longestDependentChain);
+        }
+
+        List<T> ordered = new ArrayList<T>(nodes);
+        // The sort is stable, so nodes with the same amount of remaining work keep their execution order
+        Collections.sort(ordered, new Comparator<T>() {
+            @Override
+            public int compare(T left, T right) {
+                long leftWork = remainingWork.get(left);
+                long rightWork = remainingWork.get(right);
+                return leftWork > rightWork ? -1 : leftWork < rightWork ? 1 : 0;
+            }
+        });
+        return ordered;
+    }
+}
@@ -87,6 +87,7 @@ public class DefaultTaskExecutionGraph implements TaskExecutionGraphInternal {
         GradleInternal gradleInternal,
         TaskInfoFactory taskInfoFactory,
         TaskDependencyResolver dependencyResolver,
+        TaskExecutionTimeHistory executionTimeHistory,
         ListenerBroadcast<TaskExecutionGraphListener> graphListeners,
         ListenerBroadcast<TaskExecutionListener> taskListeners
     ) {
@@ -98,7 +99,7 @@ public class DefaultTaskExecutionGraph implements TaskExecutionGraphInternal {
         this.gradleInternal = gradleInternal;
         this.graphListeners = graphListeners;
         this.taskListeners = taskListeners;
-        this.taskExecutionPlan = new DefaultTaskExecutionPlan(workerLeaseService, gradleInternal, taskInfoFactory, dependencyResolver);
+        this.taskExecutionPlan = new DefaultTaskExecutionPlan(workerLeaseService, gradleInternal, taskInfoFactory, dependencyResolver, executionTimeHistory);
     }
 
     @Override
@@ -80,6 +80,12 @@ import java.util.Set;
  */
 @NonNullApi
 public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
+    /**
+     * When set to true, parallel builds start the work with the longest chain of dependent work first, using the execution times recorded by previous builds.
+     * Otherwise work is started in the order of the plan.
+     */
+    public static final String CRITICAL_PATH_SCHEDULING_PROPERTY = "org.gradle.internal.tasks.criticalPathScheduling";
+
     private final Set<WorkInfo> workInUnknownState = Sets.newLinkedHashSet();
     private final Set<TaskInfo> entryTasks = new LinkedHashSet<TaskInfo>();
     private final WorkInfoMapping workInfoMapping = new WorkInfoMapping();
@@ -88,6 +94,7 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private final TaskFailureCollector failureCollector = new TaskFailureCollector();
     private final TaskInfoFactory nodeFactory;
     private final TaskDependencyResolver dependencyResolver;
+    private final TaskExecutionTimeHistory executionTimeHistory;
     private Spec<? super Task> filter = Specs.satisfyAll();
 
     private boolean continueOnFailure;
@@ -104,10 +111,15 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
     private boolean tasksCancelled;
 
     public DefaultTaskExecutionPlan(WorkerLeaseService workerLeaseService, GradleInternal gradle, TaskInfoFactory taskInfoFactory, TaskDependencyResolver dependencyResolver) {
+        this(workerLeaseService, gradle, taskInfoFactory, dependencyResolver, TaskExecutionTimeHistory.NONE);
+    }
+
+    public DefaultTaskExecutionPlan(WorkerLeaseService workerLeaseService, GradleInternal gradle, TaskInfoFactory taskInfoFactory, TaskDependencyResolver dependencyResolver, TaskExecutionTimeHistory executionTimeHistory) {
         this.workerLeaseService = workerLeaseService;
         this.gradle = gradle;
         this.nodeFactory = taskInfoFactory;
         this.dependencyResolver = dependencyResolver;
+        this.executionTimeHistory = executionTimeHistory;
     }
 
     @Override
@@ -329,7 +341,52 @@ public class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             }
         }
         executionQueue.clear();
-        Iterables.addAll(executionQueue, workInfoMapping);
+        if (isCriticalPathSchedulingEnabled()) {
+            executionQueue.addAll(orderByCriticalPath(Lists.newArrayList(workInfoMapping)));
+        } else {
+            Iterables.addAll(executionQueue, workInfoMapping);
+        }
+    }
+
+    private boolean isCriticalPathSchedulingEnabled() {
+        return gradle.getStartParameter().isParallelProjectExecutionEnabled() && Boolean.getBoolean(CRITICAL_PATH_SCHEDULING_PROPERTY);
+    }
+
+    /**
+     * Orders the plan so that {@link #selectNext(WorkerLeaseRegistry.WorkerLease, ResourceLockState)} starts the ready work with the longest chain of dependent work first.
+     * The chains are estimated using the execution times of the tasks in previous builds. Work without a recorded execution time does not add to the length of a chain.
+     */
+    private List<WorkInfo> orderByCriticalPath(List<WorkInfo> plan) {
+        // The tasks of a project usually run one at a time, so each task also delays the next task of its project
+        final Map<WorkInfo, WorkInfo> nextInProject = Maps.newIdentityHashMap();
+        Map<Project, WorkInfo> lastInProject = Maps.newHashMap();
+        for (WorkInfo workInfo : plan) {
+            if (workInfo instanceof LocalTaskInfo) {
+                WorkInfo previous = lastInProject.put(((LocalTaskInfo) workInfo).getTask().getProject(), workInfo);
+                if (previous != null) {
+                    nextInProject.put(previous, workInfo);
+                }
+            }
+        }
+        return CriticalPathOrdering.order(plan, new Transformer<Long, WorkInfo>() {
+            @Override
+            public Long transform(WorkInfo workInfo) {
+                if (workInfo instanceof LocalTaskInfo && workInfo.isReady()) {
+                    return executionTimeHistory.getPreviousExecutionTime(((LocalTaskInfo) workInfo).getTask());
+                }
+                return 0L;
+            }
+        }, new Transformer<Iterable<WorkInfo>, WorkInfo>() {
+            @Override
+            public Iterable<WorkInfo> transform(WorkInfo workInfo) {
+                WorkInfo next = nextInProject.get(workInfo);
+                Iterable<WorkInfo> dependents = next == null ? workInfo.getDependencyPredecessors() : Iterables.concat(workInfo.getDependencyPredecessors(), Collections.singleton(next));
+                if (workInfo instanceof TaskInfo) {
+                    return Iterables.concat(dependents, ((TaskInfo) workInfo).getFinalizers());
+                }
+                return dependents;
+            }
+        });
     }
 
     @Override
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.internal.TaskInternal;
+
+/**
+ * Provides the execution times recorded for tasks by previous builds.
+ */
+public interface TaskExecutionTimeHistory {
+    TaskExecutionTimeHistory NONE = new TaskExecutionTimeHistory() {
+        @Override
+        public long getPreviousExecutionTime(TaskInternal task) {
+            return 0;
+        }
+    };
+
+    /**
+     * Returns the time in milliseconds that the actions of the given task took when it was last executed, or 0 when this is not known.
+     */
+    long getPreviousExecutionTime(TaskInternal task);
+}
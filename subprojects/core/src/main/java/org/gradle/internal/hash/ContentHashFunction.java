@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+/**
+ * The hash functions that can be used to hash the content of files.
+ *
+ * The function is selected with the {@value #HASH_FUNCTION_PROPERTY} system property.
+ * Content hashes are only used to detect changes, so they do not need to come from a cryptographic hash function.
+ */
+public enum ContentHashFunction {
+    MD5("md5", Hashing.md5()),
+    MURMUR3("murmur3", Hashing.murmur3_128());
+
+    public static final String HASH_FUNCTION_PROPERTY = "org.gradle.internal.hash.contentHashFunction";
+
+    private final String id;
+    private final HashFunction hashFunction;
+
+    ContentHashFunction(String id, HashFunction hashFunction) {
+        this.id = id;
+        this.hashFunction = hashFunction;
+    }
+
+    public static ContentHashFunction fromSystemProperties() {
+        String id = System.getProperty(HASH_FUNCTION_PROPERTY);
+        if (id == null) {
+            return MD5;
+        }
+        for (ContentHashFunction function : values()) {
+            if (function.id.equals(id)) {
+                return function;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown content hash function '%s' set by system property '%s'.", id, HASH_FUNCTION_PROPERTY));
+    }
+
+    public HashFunction getHashFunction() {
+        return hashFunction;
+    }
+
+    /**
+     * Returns the name to use for a persistent cache that stores content hashes, so that caches never mix hashes produced by different functions.
+     */
+    public String cacheName(String baseName) {
+        return this == MD5 ? baseName : baseName + "-" + id;
+    }
+}
@@ -17,12 +17,22 @@
 package org.gradle.internal.hash;
 
 public class DefaultContentHasherFactory implements ContentHasherFactory {
-    private static final HashCode SIGNATURE = Hashing.md5().hashString(DefaultContentHasherFactory.class.getName());
+    private final HashFunction hashFunction;
+    private final HashCode signature;
+
+    public DefaultContentHasherFactory() {
+        this(ContentHashFunction.MD5);
+    }
+
+    public DefaultContentHasherFactory(ContentHashFunction contentHashFunction) {
+        this.hashFunction = contentHashFunction.getHashFunction();
+        this.signature = hashFunction.hashString(DefaultContentHasherFactory.class.getName());
+    }
 
     @Override
     public Hasher create() {
-        Hasher hasher = Hashing.md5().newHasher();
-        hasher.putHash(SIGNATURE);
+        Hasher hasher = hashFunction.newHasher();
+        hasher.putHash(signature);
         return hasher;
     }
 }
@@ -37,7 +37,7 @@ public class DefaultStreamHasher implements StreamHasher {
         try {
             return doHash(inputStream, NullOutputStream.INSTANCE);
         } catch (IOException e) {
-            throw new UncheckedIOException("Failed to create MD5 hash for file content.", e);
+            throw new UncheckedIOException("Failed to create hash for file content.", e);
         }
     }
 
@@ -74,6 +74,7 @@ import org.gradle.internal.environment.GradleBuildEnvironment;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.filewatch.DefaultFileWatcherFactory;
 import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.hash.ContentHashFunction;
 import org.gradle.internal.hash.ContentHasherFactory;
 import org.gradle.internal.hash.DefaultContentHasherFactory;
 import org.gradle.internal.hash.DefaultStreamHasher;
@@ -350,8 +351,12 @@ public class GlobalScopeServices extends BasicGlobalScopeServices {
         return new DefaultProgressLoggerFactory(new ProgressLoggingBridge(outputEventListener), clock, buildOperationIdFactory);
     }
 
-    ContentHasherFactory createHasherFactory() {
-        return new DefaultContentHasherFactory();
+    ContentHashFunction createContentHashFunction() {
+        return ContentHashFunction.fromSystemProperties();
+    }
+
+    ContentHasherFactory createHasherFactory(ContentHashFunction contentHashFunction) {
+        return new DefaultContentHasherFactory(contentHashFunction);
     }
 
     StreamHasher createStreamHasher(ContentHasherFactory hasherFactory) {
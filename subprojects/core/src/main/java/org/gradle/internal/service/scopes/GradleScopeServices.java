@@ -59,6 +59,7 @@ import org.gradle.execution.commandline.CommandLineTaskParser;
 import org.gradle.execution.taskgraph.DefaultTaskExecutionGraph;
 import org.gradle.execution.taskgraph.LocalTaskInfoExecutor;
 import org.gradle.execution.taskgraph.TaskDependencyResolver;
+import org.gradle.execution.taskgraph.TaskExecutionTimeHistory;
 import org.gradle.execution.taskgraph.TaskInfoFactory;
 import org.gradle.execution.taskgraph.TaskInfoWorkDependencyResolver;
 import org.gradle.execution.taskgraph.TaskPlanExecutor;
@@ -208,10 +209,11 @@ public class GradleScopeServices extends DefaultServiceRegistry {
         GradleInternal gradleInternal,
         TaskInfoFactory taskInfoFactory,
         TaskDependencyResolver dependencyResolver,
+        TaskExecutionTimeHistory executionTimeHistory,
         ListenerBroadcast<TaskExecutionListener> taskListeners,
         ListenerBroadcast<TaskExecutionGraphListener> graphListeners
     ) {
-        return new DefaultTaskExecutionGraph(taskPlanExecutor, workInfoExecutors, buildOperationExecutor, listenerBuildOperationDecorator, workerLeaseService, coordinationService, gradleInternal, taskInfoFactory, dependencyResolver, graphListeners, taskListeners);
+        return new DefaultTaskExecutionGraph(taskPlanExecutor, workInfoExecutors, buildOperationExecutor, listenerBuildOperationDecorator, workerLeaseService, coordinationService, gradleInternal, taskInfoFactory, dependencyResolver, executionTimeHistory, graphListeners, taskListeners);
     }
 
     ServiceRegistryFactory createServiceRegistryFactory(final ServiceRegistry services) {
@@ -61,10 +61,13 @@ import org.gradle.internal.classloader.HashingClassLoaderFactory;
 import org.gradle.internal.classpath.CachedClasspathTransformer;
 import org.gradle.internal.classpath.CachedJarFileStore;
 import org.gradle.internal.classpath.DefaultCachedClasspathTransformer;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.file.JarCache;
+import org.gradle.internal.filewatch.FileWatcherFactory;
 import org.gradle.internal.fingerprint.ClasspathFingerprinter;
 import org.gradle.internal.fingerprint.impl.DefaultClasspathFingerprinter;
+import org.gradle.internal.hash.ContentHashFunction;
 import org.gradle.internal.hash.ContentHasherFactory;
 import org.gradle.internal.hash.DefaultFileHasher;
 import org.gradle.internal.hash.FileHasher;
@@ -75,6 +78,8 @@ import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.logging.events.OutputEventListener;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.internal.operations.BuildOperationListenerManager;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
 import org.gradle.internal.remote.MessagingServer;
 import org.gradle.internal.resource.local.FileAccessTimeJournal;
 import org.gradle.internal.serialize.HashCodeSerializer;
@@ -84,6 +89,10 @@ import org.gradle.internal.snapshot.FileSystemMirror;
 import org.gradle.internal.snapshot.FileSystemSnapshotter;
 import org.gradle.internal.snapshot.impl.DefaultFileSystemMirror;
 import org.gradle.internal.snapshot.impl.DefaultFileSystemSnapshotter;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotProgressBroadcaster;
+import org.gradle.internal.snapshot.impl.FileHashingPool;
+import org.gradle.internal.snapshot.impl.FileWatchingFileSystemMirror;
+import org.gradle.internal.time.Clock;
 import org.gradle.process.internal.JavaExecHandleFactory;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.worker.DefaultWorkerProcessFactory;
@@ -127,8 +136,8 @@ public class GradleUserHomeScopeServices {
         return timeStampInspector;
     }
 
-    FileHasher createCachingFileHasher(StringInterner stringInterner, CrossBuildFileHashCache fileStore, FileSystem fileSystem, GlobalScopeFileTimeStampInspector fileTimeStampInspector, StreamHasher streamHasher) {
-        CachingFileHasher fileHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), fileStore, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem);
+    FileHasher createCachingFileHasher(StringInterner stringInterner, CrossBuildFileHashCache fileStore, FileSystem fileSystem, GlobalScopeFileTimeStampInspector fileTimeStampInspector, StreamHasher streamHasher, ContentHashFunction contentHashFunction) {
+        CachingFileHasher fileHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), fileStore, stringInterner, fileTimeStampInspector, contentHashFunction.cacheName("fileHashes"), fileSystem);
         fileTimeStampInspector.attach(fileHasher);
         return fileHasher;
     }
@@ -153,14 +162,27 @@ public class GradleUserHomeScopeServices {
         return new DefaultWellKnownFileLocations(fileStores);
     }
 
-    FileSystemMirror createFileSystemMirror(ListenerManager listenerManager, WellKnownFileLocations wellKnownFileLocations) {
-        DefaultFileSystemMirror fileSystemMirror = new DefaultFileSystemMirror(wellKnownFileLocations);
-        listenerManager.addListener(fileSystemMirror);
-        return fileSystemMirror;
+    FileSystemMirror createFileSystemMirror(ListenerManager listenerManager, WellKnownFileLocations wellKnownFileLocations, FileWatcherFactory fileWatcherFactory, TemporaryFileProvider temporaryFileProvider) {
+        DefaultFileSystemMirror defaultFileSystemMirror = new DefaultFileSystemMirror(wellKnownFileLocations);
+        if (FileWatchingFileSystemMirror.isEnabled()) {
+            FileWatchingFileSystemMirror fileSystemMirror = new FileWatchingFileSystemMirror(defaultFileSystemMirror, wellKnownFileLocations, fileWatcherFactory, temporaryFileProvider);
+            listenerManager.addListener(fileSystemMirror);
+            return fileSystemMirror;
+        }
+        listenerManager.addListener(defaultFileSystemMirror);
+        return defaultFileSystemMirror;
+    }
+
+    FileHashingPool createFileHashingPool(ExecutorFactory executorFactory) {
+        return FileHashingPool.create(executorFactory);
+    }
+
+    DirectorySnapshotProgressBroadcaster createDirectorySnapshotProgressBroadcaster(Clock clock, BuildOperationListenerManager buildOperationListenerManager, CurrentBuildOperationRef currentBuildOperationRef) {
+        return new DirectorySnapshotProgressBroadcaster(clock, buildOperationListenerManager.getBroadcaster(), currentBuildOperationRef);
     }
 
-    FileSystemSnapshotter createFileSystemSnapshotter(FileHasher hasher, StringInterner stringInterner, FileSystem fileSystem, FileSystemMirror fileSystemMirror) {
-        return new DefaultFileSystemSnapshotter(hasher, stringInterner, fileSystem, fileSystemMirror);
+    FileSystemSnapshotter createFileSystemSnapshotter(FileHasher hasher, StringInterner stringInterner, FileSystem fileSystem, FileSystemMirror fileSystemMirror, FileHashingPool fileHashingPool, DirectorySnapshotProgressBroadcaster progressBroadcaster) {
+        return new DefaultFileSystemSnapshotter(hasher, stringInterner, fileSystem, fileSystemMirror, fileHashingPool, progressBroadcaster);
     }
 
     ResourceSnapshotterCacheService createResourceSnapshotterCacheService(TaskHistoryStore store) {
@@ -34,6 +34,10 @@ public class DirectorySnapshot extends AbstractFileSystemLocationSnapshot implem
         this.contentHash = contentHash;
     }
 
+    public List<FileSystemLocationSnapshot> getChildren() {
+        return children;
+    }
+
     @Override
     public HashCode getHash() {
         return contentHash;
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot;
+
+/**
+ * Reports that a directory was walked and the content of its files hashed.
+ *
+ * Published as progress of the build operation that requested the snapshot. Snapshots served from the {@link FileSystemMirror} are not reported.
+ *
+ * @since 4.11
+ */
+public interface DirectorySnapshotProgressDetails {
+
+    /**
+     * The absolute path of the directory.
+     */
+    String getPath();
+
+    /**
+     * The number of regular files that were hashed.
+     */
+    int getFileCount();
+
+    /**
+     * The time spent walking the directory and hashing its files, in milliseconds.
+     */
+    long getDurationMillis();
+}
@@ -24,19 +24,14 @@ import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.FileSystemMirror;
 
 import javax.annotation.Nullable;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * See {@link DefaultFileSystemSnapshotter} for some more details
  */
 public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputChangesListener, RootBuildLifecycleListener {
-    // Maps from interned absolute path for a file to metadata for the file.
-    private final Map<String, FileMetadataSnapshot> metadata = new ConcurrentHashMap<String, FileMetadataSnapshot>();
-    private final Map<String, FileMetadataSnapshot> cacheMetadata = new ConcurrentHashMap<String, FileMetadataSnapshot>();
-    // Maps from interned absolute path for a file to snapshot for the file.
-    private final Map<String, FileSystemLocationSnapshot> files = new ConcurrentHashMap<String, FileSystemLocationSnapshot>();
-    private final Map<String, FileSystemLocationSnapshot> cacheFiles = new ConcurrentHashMap<String, FileSystemLocationSnapshot>();
+    // Snapshots and metadata for files, keyed by the segments of the absolute path of the file.
+    private final FileSystemStateTree files = new FileSystemStateTree();
+    private final FileSystemStateTree cacheFiles = new FileSystemStateTree();
 
     private final WellKnownFileLocations wellKnownFileLocations;
 
@@ -47,46 +42,50 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputChan
     @Nullable
     @Override
     public FileSystemLocationSnapshot getSnapshot(String absolutePath) {
-        // Could potentially also look whether we have the details for an ancestor directory tree
         // Could possibly infer that the path refers to a directory, if we have details for a descendant path (and it's not a missing file)
-        if (wellKnownFileLocations.isImmutable(absolutePath)) {
-            return cacheFiles.get(absolutePath);
-        }
-        return files.get(absolutePath);
+        return treeFor(absolutePath).getSnapshot(absolutePath);
     }
 
     @Override
     public void putSnapshot(FileSystemLocationSnapshot snapshot) {
         String absolutePath = snapshot.getAbsolutePath();
-        if (wellKnownFileLocations.isImmutable(absolutePath)) {
-            cacheFiles.put(absolutePath, snapshot);
-        } else {
-            files.put(absolutePath, snapshot);
-        }
+        treeFor(absolutePath).putSnapshot(snapshot);
     }
 
     @Override
     public FileMetadataSnapshot getMetadata(String absolutePath) {
-        if (wellKnownFileLocations.isImmutable(absolutePath)) {
-            return cacheMetadata.get(absolutePath);
-        }
-        return metadata.get(absolutePath);
+        return treeFor(absolutePath).getMetadata(absolutePath);
     }
 
     @Override
     public void putMetadata(String absolutePath, FileMetadataSnapshot metadata) {
-        if (wellKnownFileLocations.isImmutable(absolutePath)) {
-            cacheMetadata.put(absolutePath, metadata);
-        } else {
-            this.metadata.put(absolutePath, metadata);
-        }
+        treeFor(absolutePath).putMetadata(absolutePath, metadata);
+    }
+
+    private FileSystemStateTree treeFor(String absolutePath) {
+        return wellKnownFileLocations.isImmutable(absolutePath) ? cacheFiles : files;
+    }
+
+    /**
+     * Discards any state for the given path and its descendants, and the snapshots of its ancestors, as the snapshots of the ancestor directories include the given path.
+     */
+    public void invalidate(String absolutePath) {
+        files.invalidate(absolutePath);
+        cacheFiles.invalidate(absolutePath);
+    }
+
+    /**
+     * Discards all state.
+     */
+    public void invalidateAll() {
+        files.clear();
+        cacheFiles.clear();
     }
 
     @Override
     public void beforeTaskOutputChanged() {
         // When the task outputs are generated, throw away all state for files that do not live in an append-only cache.
         // This is intentionally very simple, to be improved later
-        metadata.clear();
         files.clear();
     }
 
@@ -97,9 +96,6 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputChan
     @Override
     public void beforeComplete() {
         // We throw away all state between builds
-        metadata.clear();
-        cacheMetadata.clear();
-        files.clear();
-        cacheFiles.clear();
+        invalidateAll();
     }
 }
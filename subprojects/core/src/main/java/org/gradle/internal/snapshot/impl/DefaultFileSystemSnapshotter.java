@@ -69,11 +69,15 @@ public class DefaultFileSystemSnapshotter implements FileSystemSnapshotter {
     private final DirectorySnapshotter directorySnapshotter;
 
     public DefaultFileSystemSnapshotter(FileHasher hasher, StringInterner stringInterner, FileSystem fileSystem, FileSystemMirror fileSystemMirror) {
+        this(hasher, stringInterner, fileSystem, fileSystemMirror, FileHashingPool.inline(), null);
+    }
+
+    public DefaultFileSystemSnapshotter(FileHasher hasher, StringInterner stringInterner, FileSystem fileSystem, FileSystemMirror fileSystemMirror, FileHashingPool hashingPool, @Nullable DirectorySnapshotProgressBroadcaster progressBroadcaster) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.fileSystem = fileSystem;
         this.fileSystemMirror = fileSystemMirror;
-        this.directorySnapshotter = new DirectorySnapshotter(hasher, fileSystem, stringInterner);
+        this.directorySnapshotter = new DirectorySnapshotter(hasher, fileSystem, stringInterner, hashingPool, progressBroadcaster);
     }
 
     @Override
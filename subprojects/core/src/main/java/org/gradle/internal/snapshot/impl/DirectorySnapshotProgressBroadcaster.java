@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl;
+
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.snapshot.DirectorySnapshotProgressDetails;
+import org.gradle.internal.time.Clock;
+
+public class DirectorySnapshotProgressBroadcaster {
+    private final Clock clock;
+    private final BuildOperationListener listener;
+    private final CurrentBuildOperationRef currentBuildOperationRef;
+
+    public DirectorySnapshotProgressBroadcaster(Clock clock, BuildOperationListener listener, CurrentBuildOperationRef currentBuildOperationRef) {
+        this.clock = clock;
+        this.listener = listener;
+        this.currentBuildOperationRef = currentBuildOperationRef;
+    }
+
+    public long getCurrentTime() {
+        return clock.getCurrentTime();
+    }
+
+    public void snapshotted(String path, int fileCount, long startTime) {
+        OperationIdentifier id = currentBuildOperationRef.getId();
+        if (id != null) {
+            long currentTime = clock.getCurrentTime();
+            listener.progress(id, new OperationProgressEvent(currentTime, new DefaultDirectorySnapshotProgressDetails(path, fileCount, currentTime - startTime)));
+        }
+    }
+
+    private static class DefaultDirectorySnapshotProgressDetails implements DirectorySnapshotProgressDetails {
+        private final String path;
+        private final int fileCount;
+        private final long durationMillis;
+
+        DefaultDirectorySnapshotProgressDetails(String path, int fileCount, long durationMillis) {
+            this.path = path;
+            this.fileCount = fileCount;
+            this.durationMillis = durationMillis;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public int getFileCount() {
+            return fileCount;
+        }
+
+        @Override
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
+}
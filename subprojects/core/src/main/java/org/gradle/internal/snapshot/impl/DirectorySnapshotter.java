@@ -40,6 +40,7 @@ import org.gradle.internal.nativeintegration.filesystem.Stat;
 import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.MerkleDirectorySnapshotBuilder;
 import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.RelativePathSegmentsTracker;
 
 import javax.annotation.Nullable;
 import java.io.File;
@@ -53,8 +54,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 @SuppressWarnings("Since15")
 public class DirectorySnapshotter {
@@ -62,18 +67,31 @@ public class DirectorySnapshotter {
     private final FileSystem fileSystem;
     private final StringInterner stringInterner;
     private final DefaultExcludes defaultExcludes;
+    private final FileHashingPool hashingPool;
+    private final DirectorySnapshotProgressBroadcaster progressBroadcaster;
 
     public DirectorySnapshotter(FileHasher hasher, FileSystem fileSystem, StringInterner stringInterner) {
+        this(hasher, fileSystem, stringInterner, FileHashingPool.inline(), null);
+    }
+
+    public DirectorySnapshotter(FileHasher hasher, FileSystem fileSystem, StringInterner stringInterner, FileHashingPool hashingPool, @Nullable DirectorySnapshotProgressBroadcaster progressBroadcaster) {
         this.hasher = hasher;
         this.fileSystem = fileSystem;
         this.stringInterner = stringInterner;
+        this.hashingPool = hashingPool;
+        this.progressBroadcaster = progressBroadcaster;
         this.defaultExcludes = new DefaultExcludes(DirectoryScanner.getDefaultExcludes());
     }
 
+    /**
+     * Walks the directory on the calling thread and hashes the files it finds on the {@link FileHashingPool}.
+     * The directory snapshots are assembled once all files are hashed, in the order in which they were visited.
+     */
     public FileSystemLocationSnapshot snapshot(String absolutePath, @Nullable PatternSet patterns, final MutableBoolean hasBeenFiltered) {
+        long startTime = progressBroadcaster == null ? 0 : progressBroadcaster.getCurrentTime();
         Path rootPath = Paths.get(absolutePath);
         final Spec<FileTreeElement> spec = (patterns == null || patterns.isEmpty()) ? null : patterns.getAsSpec();
-        final MerkleDirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.sortingRequired();
+        final PendingSnapshotBuilder builder = new PendingSnapshotBuilder();
 
         try {
             Files.walkFileTree(rootPath, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new java.nio.file.FileVisitor<Path>() {
@@ -131,12 +149,18 @@ public class DirectorySnapshotter {
                     return e != null && !(e instanceof FileSystemLoopException);
                 }
 
-                private void addFileSnapshot(Path file, String name, BasicFileAttributes attrs) {
+                private void addFileSnapshot(Path file, final String name, BasicFileAttributes attrs) {
                     Preconditions.checkNotNull(attrs, "Unauthorized access to %", file);
-                    DefaultFileMetadata metadata = new DefaultFileMetadata(FileType.RegularFile, attrs.lastModifiedTime().toMillis(), attrs.size());
-                    HashCode hash = hasher.hash(file.toFile(), metadata);
-                    RegularFileSnapshot fileSnapshot = new RegularFileSnapshot(internedAbsolutePath(file), name, hash, metadata.getLastModified());
-                    builder.visit(fileSnapshot);
+                    final DefaultFileMetadata metadata = new DefaultFileMetadata(FileType.RegularFile, attrs.lastModifiedTime().toMillis(), attrs.size());
+                    final File fileToHash = file.toFile();
+                    final String fileAbsolutePath = internedAbsolutePath(file);
+                    builder.visitFile(hashingPool.submit(new Callable<RegularFileSnapshot>() {
+                        @Override
+                        public RegularFileSnapshot call() {
+                            HashCode hash = hasher.hash(fileToHash, metadata);
+                            return new RegularFileSnapshot(fileAbsolutePath, name, hash, metadata.getLastModified());
+                        }
+                    }));
                 }
 
                 private String internedAbsolutePath(Path file) {
@@ -162,9 +186,117 @@ public class DirectorySnapshotter {
                 }
             });
         } catch (IOException e) {
+            builder.cancel();
             throw new GradleException(String.format("Could not list contents of directory '%s'.", rootPath), e);
+        } catch (RuntimeException e) {
+            builder.cancel();
+            throw e;
+        }
+        FileSystemLocationSnapshot result = builder.getResult();
+        if (progressBroadcaster != null) {
+            progressBroadcaster.snapshotted(absolutePath, builder.getFileCount(), startTime);
+        }
+        return result;
+    }
+
+    /**
+     * Records the visited directories and the pending file hashes, and replays them into a {@link MerkleDirectorySnapshotBuilder} once all files are hashed.
+     */
+    private static class PendingSnapshotBuilder {
+        private final RelativePathSegmentsTracker relativePathSegmentsTracker = new RelativePathSegmentsTracker();
+        private final List<PendingEntry> entries = new ArrayList<PendingEntry>();
+        private final List<Future<RegularFileSnapshot>> pendingFiles = new ArrayList<Future<RegularFileSnapshot>>();
+
+        public void preVisitDirectory(String absolutePath, String name) {
+            relativePathSegmentsTracker.enter(name);
+            entries.add(new DirectoryEntry(absolutePath, name));
+        }
+
+        public void visitFile(Future<RegularFileSnapshot> fileSnapshot) {
+            entries.add(new FileEntry(fileSnapshot));
+            pendingFiles.add(fileSnapshot);
+        }
+
+        public void postVisitDirectory() {
+            relativePathSegmentsTracker.leave();
+            entries.add(END_OF_DIRECTORY);
+        }
+
+        public boolean isRoot() {
+            return relativePathSegmentsTracker.isRoot();
+        }
+
+        public Iterable<String> getRelativePath() {
+            return relativePathSegmentsTracker.getRelativePath();
+        }
+
+        public int getFileCount() {
+            return pendingFiles.size();
+        }
+
+        public void cancel() {
+            for (Future<RegularFileSnapshot> pendingFile : pendingFiles) {
+                pendingFile.cancel(false);
+            }
+        }
+
+        public FileSystemLocationSnapshot getResult() {
+            MerkleDirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.sortingRequired();
+            try {
+                for (PendingEntry entry : entries) {
+                    entry.replay(builder);
+                }
+            } catch (RuntimeException e) {
+                cancel();
+                throw e;
+            }
+            return builder.getResult();
+        }
+    }
+
+    private interface PendingEntry {
+        void replay(MerkleDirectorySnapshotBuilder builder);
+    }
+
+    private static final PendingEntry END_OF_DIRECTORY = new PendingEntry() {
+        @Override
+        public void replay(MerkleDirectorySnapshotBuilder builder) {
+            builder.postVisitDirectory();
+        }
+    };
+
+    private static class DirectoryEntry implements PendingEntry {
+        private final String absolutePath;
+        private final String name;
+
+        DirectoryEntry(String absolutePath, String name) {
+            this.absolutePath = absolutePath;
+            this.name = name;
+        }
+
+        @Override
+        public void replay(MerkleDirectorySnapshotBuilder builder) {
+            builder.preVisitDirectory(absolutePath, name);
+        }
+    }
+
+    private static class FileEntry implements PendingEntry {
+        private final Future<RegularFileSnapshot> fileSnapshot;
+
+        FileEntry(Future<RegularFileSnapshot> fileSnapshot) {
+            this.fileSnapshot = fileSnapshot;
+        }
+
+        @Override
+        public void replay(MerkleDirectorySnapshotBuilder builder) {
+            try {
+                builder.visit(fileSnapshot.get());
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } catch (ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            }
         }
-        return builder.getResult();
     }
 
     @VisibleForTesting
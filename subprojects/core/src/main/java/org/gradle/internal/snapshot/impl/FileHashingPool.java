@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl;
+
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.concurrent.Stoppable;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Runs file hashing work on a bounded pool of worker threads shared by all snapshotters.
+ *
+ * When a single worker is configured, the work runs on the calling thread instead.
+ */
+public class FileHashingPool implements Stoppable {
+    public static final String WORKERS_PROPERTY = "org.gradle.internal.snapshot.hashingWorkers";
+
+    private final ManagedExecutor executor;
+
+    private FileHashingPool(@Nullable ManagedExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Creates a pool with the number of workers given by the {@value #WORKERS_PROPERTY} system property, defaulting to the number of processors.
+     */
+    public static FileHashingPool create(ExecutorFactory executorFactory) {
+        return create(executorFactory, Integer.getInteger(WORKERS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public static FileHashingPool create(ExecutorFactory executorFactory, int workers) {
+        if (workers <= 1) {
+            return inline();
+        }
+        return new FileHashingPool(executorFactory.create("File hashing", workers));
+    }
+
+    public static FileHashingPool inline() {
+        return new FileHashingPool(null);
+    }
+
+    public boolean isParallel() {
+        return executor != null;
+    }
+
+    public <T> Future<T> submit(Callable<T> action) {
+        FutureTask<T> task = new FutureTask<T>(action);
+        if (executor == null) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+        return task;
+    }
+
+    @Override
+    public void stop() {
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl;
+
+import org.gradle.internal.file.FileMetadataSnapshot;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores snapshots and metadata in a tree keyed by the segments of the absolute path.
+ *
+ * A snapshot for a location below a directory which has a {@link DirectorySnapshot} is served from the children of the directory snapshot.
+ * Invalidating a location drops the state of the whole subtree below the location.
+ */
+class FileSystemStateTree {
+    private final Node root = new Node();
+
+    @Nullable
+    public FileSystemLocationSnapshot getSnapshot(String absolutePath) {
+        List<String> segments = segments(absolutePath);
+        Node node = root;
+        DirectorySnapshot ancestorSnapshot = null;
+        int ancestorDepth = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            FileSystemLocationSnapshot snapshot = node.snapshot;
+            if (snapshot instanceof DirectorySnapshot) {
+                ancestorSnapshot = (DirectorySnapshot) snapshot;
+                ancestorDepth = i;
+            }
+            node = node.getChild(segments.get(i));
+            if (node == null) {
+                break;
+            }
+        }
+        if (node != null && node.snapshot != null) {
+            return node.snapshot;
+        }
+        return ancestorSnapshot == null ? null : findDescendant(ancestorSnapshot, segments, ancestorDepth);
+    }
+
+    @Nullable
+    private static FileSystemLocationSnapshot findDescendant(DirectorySnapshot directory, List<String> segments, int depth) {
+        FileSystemLocationSnapshot current = directory;
+        for (int i = depth; i < segments.size(); i++) {
+            if (!(current instanceof DirectorySnapshot)) {
+                return null;
+            }
+            current = findChild((DirectorySnapshot) current, segments.get(i));
+            if (current == null) {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Finds the child with the given name, relying on the children of a directory snapshot being sorted by name.
+     */
+    @Nullable
+    private static FileSystemLocationSnapshot findChild(DirectorySnapshot directory, String name) {
+        List<FileSystemLocationSnapshot> children = directory.getChildren();
+        int low = 0;
+        int high = children.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            FileSystemLocationSnapshot child = children.get(middle);
+            int comparison = child.getName().compareTo(name);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    public void putSnapshot(FileSystemLocationSnapshot snapshot) {
+        getOrCreateNode(snapshot.getAbsolutePath()).snapshot = snapshot;
+    }
+
+    @Nullable
+    public FileMetadataSnapshot getMetadata(String absolutePath) {
+        Node node = root;
+        for (String segment : segments(absolutePath)) {
+            node = node.getChild(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node.metadata;
+    }
+
+    public void putMetadata(String absolutePath, FileMetadataSnapshot metadata) {
+        getOrCreateNode(absolutePath).metadata = metadata;
+    }
+
+    private Node getOrCreateNode(String absolutePath) {
+        Node node = root;
+        for (String segment : segments(absolutePath)) {
+            node = node.getOrCreateChild(segment);
+        }
+        return node;
+    }
+
+    /**
+     * Drops the state for the given location and all of its descendants, and the snapshots of all of its ancestors.
+     */
+    public void invalidate(String absolutePath) {
+        List<String> segments = segments(absolutePath);
+        if (segments.isEmpty()) {
+            clear();
+            return;
+        }
+        Node node = root;
+        for (int i = 0; i < segments.size() - 1; i++) {
+            node.snapshot = null;
+            node = node.getChild(segments.get(i));
+            if (node == null) {
+                return;
+            }
+        }
+        node.snapshot = null;
+        node.removeChild(segments.get(segments.size() - 1));
+    }
+
+    public void clear() {
+        root.clear();
+    }
+
+    /**
+     * Splits the given path into its segments. The server and share of a UNC path, such as {@code \\server\share}, are kept together
+     * as the first segment, so that the path does not share nodes with a path that starts with the same names.
+     */
+    private static List<String> segments(String absolutePath) {
+        List<String> segments = new ArrayList<String>();
+        int length = absolutePath.length();
+        int start = 0;
+        if (length > 2 && absolutePath.charAt(0) == File.separatorChar && absolutePath.charAt(1) == File.separatorChar) {
+            int endOfServer = absolutePath.indexOf(File.separatorChar, 2);
+            int endOfShare = endOfServer < 0 ? -1 : absolutePath.indexOf(File.separatorChar, endOfServer + 1);
+            start = endOfShare < 0 ? length : endOfShare;
+            segments.add(absolutePath.substring(0, start));
+        }
+        while (start < length) {
+            int end = absolutePath.indexOf(File.separatorChar, start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end > start) {
+                segments.add(absolutePath.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return segments;
+    }
+
+    private static class Node {
+        private volatile Map<String, Node> children;
+        private volatile FileSystemLocationSnapshot snapshot;
+        private volatile FileMetadataSnapshot metadata;
+
+        @Nullable
+        Node getChild(String name) {
+            Map<String, Node> children = this.children;
+            return children == null ? null : children.get(name);
+        }
+
+        synchronized Node getOrCreateChild(String name) {
+            if (children == null) {
+                children = new ConcurrentHashMap<String, Node>(4);
+            }
+            Node child = children.get(name);
+            if (child == null) {
+                child = new Node();
+                children.put(name, child);
+            }
+            return child;
+        }
+
+        synchronized void removeChild(String name) {
+            if (children != null) {
+                children.remove(name);
+            }
+        }
+
+        synchronized void clear() {
+            children = null;
+            snapshot = null;
+            metadata = null;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.api.internal.changedetection.state.WellKnownFileLocations;
+import org.gradle.api.internal.file.TemporaryFileProvider;
+import org.gradle.api.internal.tasks.execution.TaskOutputChangesListener;
+import org.gradle.initialization.RootBuildLifecycleListener;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.file.FileMetadataSnapshot;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.filewatch.FileWatcher;
+import org.gradle.internal.filewatch.FileWatcherEvent;
+import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.filewatch.FileWatcherListener;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.FileSystemMirror;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link FileSystemMirror} that retains its state across builds, and relies on file system events to discard the state of the locations that have changed.
+ *
+ * Every location that is looked up in the mirror is watched before its state is calculated, so that no change made while the state is being calculated is missed.
+ * When the watcher reports a change, the state for the changed location is discarded.
+ * At the start of each build, the mirror waits until the watcher has delivered all of the events queued before the build started. If this does not happen in time, all state is discarded.
+ * When the watcher cannot tell what has changed (for example, because its event queue overflowed) or when watching fails, all state is discarded.
+ * After a watching failure, the mirror falls back to the behaviour of {@link DefaultFileSystemMirror} and discards all state at the end of each build.
+ * Locations that are known to be immutable, such as the caches in the Gradle user home, are not watched, as their state is retained regardless.
+ */
+public class FileWatchingFileSystemMirror implements FileSystemMirror, TaskOutputChangesListener, RootBuildLifecycleListener, FileWatcherListener, Stoppable {
+    public static final String WATCH_FILE_SYSTEM_PROPERTY = "org.gradle.internal.filesystem.watch";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileWatchingFileSystemMirror.class);
+    private static final long DEFAULT_BARRIER_TIMEOUT_MILLIS = 5000;
+
+    private final DefaultFileSystemMirror delegate;
+    private final WellKnownFileLocations wellKnownFileLocations;
+    private final TemporaryFileProvider temporaryFileProvider;
+    private final long barrierTimeoutMillis;
+    private final FileWatcher fileWatcher;
+    // The existing directories which have been registered with the watcher, watching a directory also watches all of its descendants
+    private final Set<String> watchedDirectories = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private volatile boolean watching = true;
+    // A file in a watched directory that is touched at the start of each build. Once the watcher reports the change, all earlier events have been delivered
+    private File barrierFile;
+    private int barrierGeneration;
+    private volatile CountDownLatch barrier;
+
+    public FileWatchingFileSystemMirror(DefaultFileSystemMirror delegate, WellKnownFileLocations wellKnownFileLocations, FileWatcherFactory fileWatcherFactory, TemporaryFileProvider temporaryFileProvider) {
+        this(delegate, wellKnownFileLocations, fileWatcherFactory, temporaryFileProvider, DEFAULT_BARRIER_TIMEOUT_MILLIS);
+    }
+
+    FileWatchingFileSystemMirror(DefaultFileSystemMirror delegate, WellKnownFileLocations wellKnownFileLocations, FileWatcherFactory fileWatcherFactory, TemporaryFileProvider temporaryFileProvider, long barrierTimeoutMillis) {
+        this.delegate = delegate;
+        this.wellKnownFileLocations = wellKnownFileLocations;
+        this.temporaryFileProvider = temporaryFileProvider;
+        this.barrierTimeoutMillis = barrierTimeoutMillis;
+        this.fileWatcher = fileWatcherFactory.watch(new Action<Throwable>() {
+            @Override
+            public void execute(Throwable throwable) {
+                stopWatching(throwable);
+            }
+        }, this);
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(WATCH_FILE_SYSTEM_PROPERTY);
+    }
+
+    @Nullable
+    @Override
+    public FileSystemLocationSnapshot getSnapshot(String absolutePath) {
+        FileSystemLocationSnapshot snapshot = delegate.getSnapshot(absolutePath);
+        if (snapshot == null) {
+            // The caller is about to calculate the state, start watching first so that changes made in the meantime are not missed
+            File file = new File(absolutePath);
+            watch(file.isDirectory() ? absolutePath : file.getParent());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void putSnapshot(FileSystemLocationSnapshot snapshot) {
+        String absolutePath = snapshot.getAbsolutePath();
+        watch(snapshot.getType() == FileType.Directory ? absolutePath : new File(absolutePath).getParent());
+        delegate.putSnapshot(snapshot);
+    }
+
+    @Nullable
+    @Override
+    public FileMetadataSnapshot getMetadata(String absolutePath) {
+        FileMetadataSnapshot metadata = delegate.getMetadata(absolutePath);
+        if (metadata == null) {
+            watch(new File(absolutePath).getParent());
+        }
+        return metadata;
+    }
+
+    @Override
+    public void putMetadata(String absolutePath, FileMetadataSnapshot metadata) {
+        watch(new File(absolutePath).getParent());
+        delegate.putMetadata(absolutePath, metadata);
+    }
+
+    private void watch(@Nullable String directory) {
+        if (!watching || directory == null || wellKnownFileLocations.isImmutable(directory) || isWatched(directory)) {
+            return;
+        }
+        // The watcher cannot watch a directory that does not exist, so watch the closest existing ancestor instead
+        File existingDirectory = new File(directory);
+        while (existingDirectory != null && !existingDirectory.isDirectory()) {
+            existingDirectory = existingDirectory.getParentFile();
+        }
+        if (existingDirectory == null) {
+            return;
+        }
+        String path = existingDirectory.getAbsolutePath();
+        if (isWatched(path)) {
+            return;
+        }
+        try {
+            fileWatcher.watch(FileSystemSubset.builder().add(existingDirectory).build());
+        } catch (IOException e) {
+            stopWatching(e);
+            return;
+        }
+        // The watcher silently ignores a directory that was removed before it could be registered
+        if (existingDirectory.isDirectory()) {
+            watchedDirectories.add(path);
+        }
+    }
+
+    private boolean isWatched(String directory) {
+        for (String path = directory; path != null; path = new File(path).getParent()) {
+            if (watchedDirectories.contains(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void onChange(FileWatcher watcher, FileWatcherEvent event) {
+        File file = event.getFile();
+        CountDownLatch currentBarrier = barrier;
+        if (currentBarrier != null && file != null && file.equals(barrierFile)) {
+            currentBarrier.countDown();
+            return;
+        }
+        if (event.getType() == FileWatcherEvent.Type.UNDEFINED || file == null) {
+            // The watcher lost track of what changed, most likely because of an overflow
+            LOGGER.debug("File system watcher reported an undefined change, discarding all file system state.");
+            delegate.invalidateAll();
+            return;
+        }
+        delegate.invalidate(file.getAbsolutePath());
+    }
+
+    private void stopWatching(Throwable failure) {
+        LOGGER.info("Watching the file system failed, file system state will not be retained between builds.", failure);
+        watching = false;
+        delegate.invalidateAll();
+        fileWatcher.stop();
+    }
+
+    @Override
+    public void beforeTaskOutputChanged() {
+        // File system events are delivered asynchronously, so we cannot rely on them for changes made by the build itself
+        delegate.beforeTaskOutputChanged();
+    }
+
+    @Override
+    public void afterStart() {
+        delegate.afterStart();
+        if (watching && !watchedDirectories.isEmpty()) {
+            awaitPendingEvents();
+        }
+    }
+
+    /**
+     * Touches the barrier file and waits for the watcher to report the change, so that all events for changes made before the build started have been applied.
+     */
+    private void awaitPendingEvents() {
+        if (barrierFile == null) {
+            File barrierDir = temporaryFileProvider.createTemporaryDirectory("file-watch", "barrier");
+            watch(barrierDir.getAbsolutePath());
+            barrierFile = new File(barrierDir.getAbsoluteFile(), "barrier");
+        }
+        CountDownLatch currentBarrier = new CountDownLatch(1);
+        barrier = currentBarrier;
+        try {
+            GFileUtils.writeFile(String.valueOf(++barrierGeneration), barrierFile);
+            if (!currentBarrier.await(barrierTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                LOGGER.debug("File system watcher did not catch up with changes made before the build started, discarding all file system state.");
+                delegate.invalidateAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            delegate.invalidateAll();
+        } catch (RuntimeException e) {
+            stopWatching(e);
+        } finally {
+            barrier = null;
+        }
+    }
+
+    @Override
+    public void beforeComplete() {
+        if (!watching) {
+            delegate.beforeComplete();
+        }
+    }
+
+    @Override
+    public void stop() {
+        watching = false;
+        fileWatcher.stop();
+        delegate.invalidateAll();
+    }
+}
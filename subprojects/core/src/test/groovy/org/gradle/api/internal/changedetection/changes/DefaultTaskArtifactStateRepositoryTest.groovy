@@ -43,6 +43,8 @@ import org.gradle.cache.CacheRepository
 import org.gradle.cache.internal.CacheScopeMapping
 import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory
 import org.gradle.cache.internal.DefaultCacheRepository
+import org.gradle.caching.configuration.BuildCacheCompression
+import org.gradle.caching.configuration.BuildCacheConfiguration
 import org.gradle.caching.internal.tasks.TaskCacheKeyCalculator
 import org.gradle.internal.classloader.ConfigurableClassLoaderHierarchyHasher
 import org.gradle.internal.event.DefaultListenerManager
@@ -91,12 +93,15 @@ class DefaultTaskArtifactStateRepositoryTest extends AbstractProjectBuilderSpec
             return temporaryFolder.createDir("history-cache")
         }
     }
+    TaskHistoryRepository taskHistoryRepository
     DefaultTaskArtifactStateRepository repository
     DefaultFileSystemMirror fileSystemMirror
     TaskOutputFilesRepository taskOutputFilesRepository = Stub(TaskOutputFilesRepository)
     final originMetadata = new OriginTaskExecutionMetadata(buildScopeId.id, 1)
     def taskExecutionContext = Mock(TaskExecutionContext)
-    def taskCacheKeyCalculator = new TaskCacheKeyCalculator(false)
+    def taskCacheKeyCalculator = new TaskCacheKeyCalculator(false, Stub(BuildCacheConfiguration) {
+        getCompression() >> BuildCacheCompression.GZIP
+    })
 
     def setup() {
         gradle = project.getGradle()
@@ -115,7 +120,7 @@ class DefaultTaskArtifactStateRepositoryTest extends AbstractProjectBuilderSpec
         SerializerRegistry serializerRegistry = new DefaultSerializerRegistry()
         inputFileCollectionFingerprinter.registerSerializers(serializerRegistry)
         def fingerprinterRegistry = new DefaultFileCollectionFingerprinterRegistry([inputFileCollectionFingerprinter, outputFileCollectionFingerprinter])
-        TaskHistoryRepository taskHistoryRepository = new CacheBackedTaskHistoryRepository(
+        taskHistoryRepository = new CacheBackedTaskHistoryRepository(
             cacheAccess,
             serializerRegistry.build(HistoricalFileCollectionFingerprint),
             classLoaderHierarchyHasher,
@@ -643,6 +648,20 @@ class DefaultTaskArtifactStateRepositoryTest extends AbstractProjectBuilderSpec
         getStateFor(task).executionHistory.originExecutionMetadata == originMetadata
     }
 
+    def "records execution time of task"() {
+        given:
+        taskExecutionContext.markExecutionTime() >> 123
+
+        expect:
+        taskHistoryRepository.getPreviousExecutionTime(task) == 0
+
+        when:
+        execute(task)
+
+        then:
+        taskHistoryRepository.getPreviousExecutionTime(task) == 123
+    }
+
     private void outOfDate(TaskInternal task) {
         final state = getStateFor(task)
         assert !state.isUpToDate([])
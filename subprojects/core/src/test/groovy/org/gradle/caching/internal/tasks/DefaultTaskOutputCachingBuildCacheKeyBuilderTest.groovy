@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks
+
+import org.gradle.util.Path
+import spock.lang.Specification
+
+class DefaultTaskOutputCachingBuildCacheKeyBuilderTest extends Specification {
+    def "packing format is part of the key and recorded in its inputs"() {
+        def builder = new DefaultTaskOutputCachingBuildCacheKeyBuilder(Path.path(":task"))
+        builder.appendPackingFormat("LZ4")
+        def withFormat = builder.build()
+        def withoutFormat = new DefaultTaskOutputCachingBuildCacheKeyBuilder(Path.path(":task")).build()
+
+        expect:
+        withFormat.hashCode != withoutFormat.hashCode
+        withFormat.inputs.packingFormat == "LZ4"
+        withoutFormat.inputs.packingFormat == null
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import org.gradle.api.Transformer
+import spock.lang.Specification
+
+class CriticalPathOrderingTest extends Specification {
+    def durations = [:]
+    def dependents = [:]
+
+    def "orders nodes by the length of the longest chain of work that starts at them"() {
+        given:
+        node("compileA", 10, "testA")
+        node("testA", 20)
+        node("compileB", 100, "testB", "jarB")
+        node("testB", 500)
+        node("jarB", 5)
+
+        expect:
+        order("compileA", "testA", "compileB", "testB", "jarB") == ["compileB", "testB", "compileA", "testA", "jarB"]
+    }
+
+    def "keeps execution order for nodes with chains of the same length"() {
+        given:
+        node("a", 0, "c")
+        node("b", 0)
+        node("c", 0)
+
+        expect:
+        order("a", "b", "c") == ["a", "b", "c"]
+    }
+
+    def "uses the longest chain when a node has several dependents"() {
+        given:
+        node("lib", 1, "short", "long")
+        node("short", 1, "end")
+        node("long", 50, "end")
+        node("end", 1)
+        node("other", 40)
+
+        expect:
+        order("lib", "short", "long", "end", "other") == ["lib", "long", "other", "short", "end"]
+    }
+
+    def "ignores dependents that are not part of the graph"() {
+        given:
+        node("a", 1, "missing")
+        node("b", 2)
+
+        expect:
+        order("a", "b") == ["b", "a"]
+    }
+
+    private void node(String name, long duration, String... dependentNodes) {
+        durations[name] = duration
+        dependents[name] = dependentNodes as List
+    }
+
+    private List<String> order(String... nodes) {
+        CriticalPathOrdering.order(nodes as List, { String node -> durations[node] as Long } as Transformer<Long, String>, { String node -> dependents[node] } as Transformer<Iterable<String>, String>)
+    }
+}
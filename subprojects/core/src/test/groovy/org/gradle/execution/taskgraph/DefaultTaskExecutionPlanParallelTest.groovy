@@ -38,12 +38,16 @@ import org.gradle.test.fixtures.AbstractProjectBuilderSpec
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.testfixtures.internal.NativeServicesTestFixture
 import org.gradle.util.Requires
+import org.gradle.util.SetSystemProperties
 import org.gradle.util.TestPrecondition
+import org.junit.Rule
 import spock.lang.Unroll
 
 import static org.gradle.util.TestUtil.createChildProject
 
 class DefaultTaskExecutionPlanParallelTest extends AbstractProjectBuilderSpec {
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
 
     FileSystem fs = NativeServicesTestFixture.instance.get(FileSystem)
 
@@ -650,6 +654,66 @@ class DefaultTaskExecutionPlanParallelTest extends AbstractProjectBuilderSpec {
         executionPlan.getNode(finalizer).state == WorkInfo.ExecutionState.SKIPPED
     }
 
+    def "starts the task with the longest chain of remaining work first when critical path scheduling is enabled"() {
+        given:
+        def fast = createChildProject(project, "a").task("fast")
+        def projectB = createChildProject(project, "b")
+        def compile = projectB.task("compile")
+        def test = projectB.task("test", type: Async)
+        test.dependsOn(compile)
+        useExecutionTimes(fast: 10, compile: 100, test: 500)
+        project.gradle.startParameter.parallelProjectExecutionEnabled = true
+        System.setProperty(DefaultTaskExecutionPlan.CRITICAL_PATH_SCHEDULING_PROPERTY, "true")
+
+        when:
+        addToGraphAndPopulate(fast, test)
+        def compileInfo = selectNextTaskInfo()
+
+        then:
+        compileInfo.task == compile
+        selectNextTask() == fast
+        selectNextTask() == null
+
+        when:
+        executionPlan.workComplete(compileInfo)
+
+        then:
+        selectNextTask() == test
+    }
+
+    def "starts tasks in plan order when critical path scheduling is #description"() {
+        given:
+        def fast = createChildProject(project, "a").task("fast")
+        def projectB = createChildProject(project, "b")
+        def compile = projectB.task("compile")
+        def test = projectB.task("test")
+        test.dependsOn(compile)
+        useExecutionTimes(fast: 10, compile: 100, test: 500)
+        project.gradle.startParameter.parallelProjectExecutionEnabled = parallel
+        System.setProperty(DefaultTaskExecutionPlan.CRITICAL_PATH_SCHEDULING_PROPERTY, enabled)
+
+        when:
+        addToGraphAndPopulate(fast, test)
+
+        then:
+        selectNextTask() == fast
+        selectNextTask() == compile
+
+        where:
+        description                  | parallel | enabled
+        "disabled"                   | true     | "false"
+        "enabled for a serial build" | false    | "true"
+    }
+
+    private void useExecutionTimes(Map<String, Long> executionTimes) {
+        def taskInfoFactory = new TaskInfoFactory(project.gradle, Stub(IncludedBuildTaskGraph))
+        def dependencyResolver = new TaskDependencyResolver([new TaskInfoWorkDependencyResolver(taskInfoFactory)])
+        def executionTimeHistory = Stub(TaskExecutionTimeHistory) {
+            getPreviousExecutionTime(_) >> { TaskInternal task -> executionTimes[task.name] as long }
+        }
+        executionPlan = new DefaultTaskExecutionPlan(lockSetup.workerLeaseService, project.gradle, taskInfoFactory, dependencyResolver, executionTimeHistory)
+    }
+
     private void addToGraphAndPopulate(Task... tasks) {
         executionPlan.addToTaskGraph(Arrays.asList(tasks))
         executionPlan.determineExecutionPlan()
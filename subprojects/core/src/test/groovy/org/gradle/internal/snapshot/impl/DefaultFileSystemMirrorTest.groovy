@@ -22,6 +22,7 @@ import org.gradle.api.internal.changedetection.state.DefaultWellKnownFileLocatio
 import org.gradle.internal.classpath.CachedJarFileStore
 import org.gradle.internal.file.FileMetadataSnapshot
 import org.gradle.internal.hash.HashCode
+import org.gradle.internal.snapshot.DirectorySnapshot
 import org.gradle.internal.snapshot.FileSystemLocationSnapshot
 import org.gradle.internal.snapshot.RegularFileSnapshot
 import org.gradle.test.fixtures.file.TestFile
@@ -132,4 +133,54 @@ class DefaultFileSystemMirrorTest extends Specification {
         mirror.getMetadata(file.path) == null
         mirror.getSnapshot(file.path) == null
     }
+
+    def "discards state about a location, its ancestors and its descendants when invalidated"() {
+        def dir = tmpDir.file("dir")
+        def file = dir.file("a")
+        def child = file.file("child")
+        def sibling = tmpDir.file("dir-sibling")
+        def paths = [dir, file, child, sibling]*.path
+        def snapshots = paths.collectEntries { path ->
+            [path, Stub(FileSystemLocationSnapshot) { getAbsolutePath() >> path }]
+        }
+
+        given:
+        snapshots.values().each { mirror.putSnapshot(it) }
+
+        when:
+        mirror.invalidate(file.path)
+
+        then:
+        mirror.getSnapshot(dir.path) == null
+        mirror.getSnapshot(file.path) == null
+        mirror.getSnapshot(child.path) == null
+        mirror.getSnapshot(sibling.path) == snapshots[sibling.path]
+    }
+
+    def "serves snapshots for descendants of a directory from the directory snapshot"() {
+        def dir = tmpDir.file("dir")
+        def subDir = dir.file("sub")
+        def file = subDir.file("a")
+        def fileSnapshot = new RegularFileSnapshot(file.path, file.name, HashCode.fromInt(1), 0)
+        def subDirSnapshot = new DirectorySnapshot(subDir.path, subDir.name, [fileSnapshot], HashCode.fromInt(2))
+        def dirSnapshot = new DirectorySnapshot(dir.path, dir.name, [subDirSnapshot], HashCode.fromInt(3))
+
+        when:
+        mirror.putSnapshot(dirSnapshot)
+
+        then:
+        mirror.getSnapshot(dir.path) == dirSnapshot
+        mirror.getSnapshot(subDir.path) == subDirSnapshot
+        mirror.getSnapshot(file.path) == fileSnapshot
+        mirror.getSnapshot(subDir.file("missing").path) == null
+        mirror.getSnapshot(file.file("child").path) == null
+
+        when:
+        mirror.invalidate(subDir.path)
+
+        then:
+        mirror.getSnapshot(dir.path) == null
+        mirror.getSnapshot(subDir.path) == null
+        mirror.getSnapshot(file.path) == null
+    }
 }
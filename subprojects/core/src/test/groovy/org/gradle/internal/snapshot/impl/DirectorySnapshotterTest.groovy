@@ -21,10 +21,17 @@ import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.tasks.util.PatternSet
 import org.gradle.internal.MutableBoolean
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.hash.TestFileHasher
+import org.gradle.internal.operations.BuildOperationListener
+import org.gradle.internal.operations.CurrentBuildOperationRef
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationProgressEvent
 import org.gradle.internal.snapshot.DirectorySnapshot
+import org.gradle.internal.snapshot.DirectorySnapshotProgressDetails
 import org.gradle.internal.snapshot.FileSystemLocationSnapshot
 import org.gradle.internal.snapshot.FileSystemSnapshotVisitor
+import org.gradle.internal.time.Time
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.UsesNativeServices
 import org.junit.Rule
@@ -132,6 +139,34 @@ class DirectorySnapshotterTest extends Specification {
         ] as Set
     }
 
+    def "hashes files in parallel and produces the same snapshot as hashing inline"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        (1..20).each {
+            rootDir.file("dir${it % 3}/sub${it % 2}/file${it}.txt").text = "content ${it}"
+        }
+        def hashingPool = FileHashingPool.create(new DefaultExecutorFactory(), 4)
+        def progressListener = Mock(BuildOperationListener)
+        def currentBuildOperationRef = Stub(CurrentBuildOperationRef) {
+            getId() >> new OperationIdentifier(1)
+        }
+        def parallelSnapshotter = new DirectorySnapshotter(fileHasher, TestFiles.fileSystem(), new StringInterner(), hashingPool, new DirectorySnapshotProgressBroadcaster(Time.clock(), progressListener, currentBuildOperationRef))
+
+        when:
+        def expected = directorySnapshotter.snapshot(rootDir.absolutePath, null, new MutableBoolean(false))
+        def snapshot = parallelSnapshotter.snapshot(rootDir.absolutePath, null, new MutableBoolean(false))
+
+        then:
+        snapshot.hash == expected.hash
+        1 * progressListener.progress(new OperationIdentifier(1), { OperationProgressEvent event ->
+            def details = event.details as DirectorySnapshotProgressDetails
+            details.path == rootDir.absolutePath && details.fileCount == 20
+        })
+
+        cleanup:
+        hashingPool?.stop()
+    }
+
     def "default excludes are correctly parsed"() {
         def defaultExcludes = new DirectorySnapshotter.DefaultExcludes(DirectoryScanner.getDefaultExcludes())
 
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl
+
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.snapshot.DirectorySnapshot
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.snapshot.RegularFileSnapshot
+import spock.lang.Specification
+
+class FileSystemStateTreeTest extends Specification {
+    static final String SEPARATOR = File.separator
+
+    def tree = new FileSystemStateTree()
+
+    def "serves snapshots of descendants from the snapshot of a directory"() {
+        def root = path("", "root")
+        def files = ["a", "b", "c", "d", "e"].collect { file(path(root, it)) }
+        tree.putSnapshot(directory(root, files))
+
+        expect:
+        files.each { assert tree.getSnapshot(it.absolutePath).is(it) }
+        tree.getSnapshot(path(root, "0")) == null
+        tree.getSnapshot(path(root, "bb")) == null
+        tree.getSnapshot(path(root, "f")) == null
+        tree.getSnapshot(path(path(root, "a"), "child")) == null
+    }
+
+    def "serves snapshots of nested descendants from the snapshot of a directory"() {
+        def root = path("", "root")
+        def sub = path(root, "sub")
+        def file = file(path(sub, "file"))
+        tree.putSnapshot(directory(root, [file(path(root, "a")), directory(sub, [file]), file(path(root, "z"))]))
+
+        expect:
+        tree.getSnapshot(path(sub, "file")).is(file)
+        tree.getSnapshot(path(sub, "other")) == null
+    }
+
+    def "keeps the server and share of a UNC path together"() {
+        def uncPath = SEPARATOR + SEPARATOR + "server" + SEPARATOR + "share" + SEPARATOR + "file"
+        def localPath = SEPARATOR + "server" + SEPARATOR + "share" + SEPARATOR + "file"
+        def uncFile = file(uncPath)
+        def localFile = file(localPath)
+
+        when:
+        tree.putSnapshot(uncFile)
+
+        then:
+        tree.getSnapshot(uncPath).is(uncFile)
+        tree.getSnapshot(localPath) == null
+
+        when:
+        tree.putSnapshot(localFile)
+        tree.invalidate(localPath)
+
+        then:
+        tree.getSnapshot(uncPath).is(uncFile)
+        tree.getSnapshot(localPath) == null
+
+        when:
+        tree.invalidate(SEPARATOR + SEPARATOR + "server" + SEPARATOR + "share")
+
+        then:
+        tree.getSnapshot(uncPath) == null
+    }
+
+    private static String path(String parent, String name) {
+        return parent + SEPARATOR + name
+    }
+
+    private static RegularFileSnapshot file(String absolutePath) {
+        return new RegularFileSnapshot(absolutePath, absolutePath.substring(absolutePath.lastIndexOf(SEPARATOR) + 1), HashCode.fromInt(absolutePath.hashCode()), 0)
+    }
+
+    private static DirectorySnapshot directory(String absolutePath, List<FileSystemLocationSnapshot> children) {
+        return new DirectorySnapshot(absolutePath, absolutePath.substring(absolutePath.lastIndexOf(SEPARATOR) + 1), children, HashCode.fromInt(absolutePath.hashCode()))
+    }
+}
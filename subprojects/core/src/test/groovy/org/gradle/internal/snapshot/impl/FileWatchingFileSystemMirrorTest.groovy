@@ -0,0 +1,255 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl
+
+import org.gradle.api.Action
+import org.gradle.api.internal.changedetection.state.DefaultWellKnownFileLocations
+import org.gradle.api.internal.file.TemporaryFileProvider
+import org.gradle.internal.classpath.CachedJarFileStore
+import org.gradle.internal.file.FileType
+import org.gradle.internal.filewatch.FileWatcher
+import org.gradle.internal.filewatch.FileWatcherEvent
+import org.gradle.internal.filewatch.FileWatcherFactory
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class FileWatchingFileSystemMirrorTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def fileWatcher = Mock(FileWatcher)
+    def fileWatcherFactory = Mock(FileWatcherFactory)
+    def temporaryFileProvider = Mock(TemporaryFileProvider)
+    Action<Throwable> onError
+    TestFile cacheDir
+    FileWatchingFileSystemMirror mirror
+
+    def setup() {
+        _ * fileWatcherFactory.watch(_, _) >> { Action<Throwable> action, listener ->
+            onError = action
+            fileWatcher
+        }
+        _ * temporaryFileProvider.createTemporaryDirectory(*_) >> { tmpDir.createDir("barrier") }
+        cacheDir = tmpDir.createDir("cache")
+        def fileStore = Stub(CachedJarFileStore)
+        fileStore.fileStoreRoots >> [cacheDir]
+        def wellKnownFileLocations = new DefaultWellKnownFileLocations([fileStore])
+        mirror = new FileWatchingFileSystemMirror(new DefaultFileSystemMirror(wellKnownFileLocations), wellKnownFileLocations, fileWatcherFactory, temporaryFileProvider, 200)
+    }
+
+    def "retains state across builds until a change is reported"() {
+        def dir = tmpDir.createDir("dir")
+        def file = dir.file("a")
+        def snapshot = snapshot(file.path, FileType.RegularFile)
+
+        when:
+        mirror.putSnapshot(snapshot)
+
+        then:
+        1 * fileWatcher.watch({ it.roots as List == [dir] })
+
+        when:
+        mirror.beforeComplete()
+
+        then:
+        mirror.getSnapshot(file.path) == snapshot
+
+        when:
+        mirror.onChange(fileWatcher, FileWatcherEvent.modify(file))
+
+        then:
+        mirror.getSnapshot(file.path) == null
+    }
+
+    def "starts watching a location before its state is calculated"() {
+        def dir = tmpDir.createDir("dir")
+        def file = dir.file("a")
+
+        when:
+        def result = mirror.getSnapshot(file.path)
+
+        then:
+        result == null
+        1 * fileWatcher.watch({ it.roots as List == [dir] })
+
+        when:
+        mirror.putSnapshot(snapshot(file.path, FileType.RegularFile))
+
+        then:
+        0 * fileWatcher.watch(_)
+    }
+
+    def "watches the closest existing ancestor of a directory that does not exist"() {
+        def dir = tmpDir.createDir("dir")
+        def missing = dir.file("missing/sub/a")
+
+        when:
+        mirror.putSnapshot(snapshot(missing.path, FileType.Missing))
+
+        then:
+        1 * fileWatcher.watch({ it.roots as List == [dir] })
+
+        when:
+        mirror.putSnapshot(snapshot(dir.file("missing/b").path, FileType.Missing))
+
+        then:
+        0 * fileWatcher.watch(_)
+    }
+
+    def "does not consider a directory watched when it is removed while being registered"() {
+        def dir = tmpDir.createDir("dir")
+        def file = dir.file("a")
+
+        when:
+        mirror.putSnapshot(snapshot(file.path, FileType.RegularFile))
+
+        then:
+        1 * fileWatcher.watch({ it.roots as List == [dir] }) >> { dir.deleteDir() }
+
+        when:
+        mirror.putSnapshot(snapshot(file.path, FileType.RegularFile))
+
+        then:
+        1 * fileWatcher.watch({ it.roots as List == [tmpDir.testDirectory] })
+    }
+
+    def "retains state at the start of the build once the watcher has delivered pending events"() {
+        def dir = tmpDir.createDir("dir")
+        def file = dir.file("a")
+        def snapshot = snapshot(file.path, FileType.RegularFile)
+        mirror.putSnapshot(snapshot)
+        mirror.beforeComplete()
+        reportBarrierChange()
+
+        when:
+        mirror.afterStart()
+
+        then:
+        1 * fileWatcher.watch({ it.roots as List == [tmpDir.file("barrier")] })
+        mirror.getSnapshot(file.path) == snapshot
+    }
+
+    def "discards all state at the start of the build when the watcher does not deliver pending events in time"() {
+        def dir = tmpDir.createDir("dir")
+        def file = dir.file("a")
+        mirror.putSnapshot(snapshot(file.path, FileType.RegularFile))
+        mirror.beforeComplete()
+
+        when:
+        mirror.afterStart()
+
+        then:
+        tmpDir.file("barrier/barrier").file
+        mirror.getSnapshot(file.path) == null
+    }
+
+    def "does not watch immutable locations and retains their state"() {
+        def dir = cacheDir.createDir("dir")
+        def file = dir.file("a")
+        def fileSnapshot = snapshot(file.path, FileType.RegularFile)
+
+        when:
+        mirror.getSnapshot(file.path)
+        mirror.putSnapshot(snapshot(dir.path, FileType.Directory))
+        mirror.putSnapshot(fileSnapshot)
+        mirror.beforeComplete()
+
+        then:
+        0 * fileWatcher.watch(_)
+        mirror.getSnapshot(file.path) == fileSnapshot
+    }
+
+    def "does not watch a directory more than once"() {
+        def dir = tmpDir.createDir("dir")
+
+        when:
+        mirror.putSnapshot(snapshot(dir.path, FileType.Directory))
+        mirror.putSnapshot(snapshot(dir.file("a").path, FileType.RegularFile))
+        mirror.putSnapshot(snapshot(dir.file("sub/b").path, FileType.Missing))
+
+        then:
+        1 * fileWatcher.watch(_)
+    }
+
+    def "discards all state when the watcher overflows"() {
+        def file = tmpDir.file("a")
+        def snapshot = snapshot(file.path, FileType.RegularFile)
+
+        given:
+        mirror.putSnapshot(snapshot)
+
+        when:
+        mirror.onChange(fileWatcher, FileWatcherEvent.undefined())
+
+        then:
+        mirror.getSnapshot(file.path) == null
+    }
+
+    def "falls back to discarding state at the end of the build when watching fails"() {
+        def file = tmpDir.file("a")
+
+        when:
+        mirror.putSnapshot(snapshot(file.path, FileType.RegularFile))
+
+        then:
+        1 * fileWatcher.watch(_) >> { throw new IOException("broken") }
+        1 * fileWatcher.stop()
+
+        when:
+        mirror.putSnapshot(snapshot(file.path, FileType.RegularFile))
+        mirror.beforeComplete()
+
+        then:
+        0 * fileWatcher.watch(_)
+        mirror.getSnapshot(file.path) == null
+    }
+
+    def "discards state when the watcher reports an error"() {
+        def file = tmpDir.file("a")
+
+        given:
+        mirror.putSnapshot(snapshot(file.path, FileType.RegularFile))
+
+        when:
+        onError.execute(new RuntimeException("broken"))
+
+        then:
+        1 * fileWatcher.stop()
+        mirror.getSnapshot(file.path) == null
+    }
+
+    // Reports the change to the barrier file from another thread, as the watcher would
+    private void reportBarrierChange() {
+        def barrierFile = tmpDir.file("barrier/barrier")
+        Thread.start {
+            while (!barrierFile.file) {
+                Thread.sleep(10)
+            }
+            mirror.onChange(fileWatcher, FileWatcherEvent.modify(barrierFile))
+        }
+    }
+
+    private FileSystemLocationSnapshot snapshot(String path, FileType type) {
+        Stub(FileSystemLocationSnapshot) {
+            getAbsolutePath() >> path
+            getType() >> type
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests.resolve.caching
+
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultArtifactDependencyResolver
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+
+/**
+ * Checks that a graph replayed from the resolved graph cache gives the same results as a fresh resolution of the graph.
+ */
+class ResolvedGraphCacheIntegrationTest extends AbstractIntegrationSpec {
+    def setup() {
+        def g = mavenRepo.module("org", "g", "1.0").publish()
+        def f = mavenRepo.module("org", "f", "1.0").dependsOn(g).publish()
+        def e = mavenRepo.module("org", "e", "1.0").publish()
+        def c1 = mavenRepo.module("org", "c", "1.0").publish()
+        def c2 = mavenRepo.module("org", "c", "2.0").dependsOn(e).publish()
+        def d = mavenRepo.module("org", "d", "1.0").publish()
+        mavenRepo.module("org", "a", "1.0").dependsOn(c1).dependsOn(d).publish()
+        mavenRepo.module("org", "b", "1.0").dependsOn(c2).dependsOn(f, exclusions: [[group: 'org', module: 'g']]).publish()
+
+        buildFile << """
+            repositories {
+                maven { url "${mavenRepo.uri}" }
+            }
+            configurations {
+                conf
+                broken
+            }
+            dependencies {
+                // org:c is a conflict between 1.0 and 2.0, org:g is excluded by the POM of org:b and org:d is excluded below org:b only
+                conf 'org:a:1.0'
+                conf('org:b:1.0') {
+                    exclude module: 'd'
+                }
+                conf 'org:e:1.0'
+                broken 'org:a:1.0'
+                broken 'org:missing:1.0'
+            }
+
+            def describe(Configuration configuration) {
+                def lines = []
+                configuration.incoming.resolutionResult.allComponents.sort { it.id.displayName }.each { component ->
+                    lines << "component \${component.id} reason: \${component.selectionReason.descriptions*.description} variant: \${component.variant.displayName}"
+                    component.dependencies.each { dependency ->
+                        def target = dependency instanceof ResolvedDependencyResult ? dependency.selected.id : "failed \${dependency.attempted}"
+                        lines << "  dependency \${dependency.requested} -> \${target}"
+                    }
+                    component.dependents.each { dependent ->
+                        lines << "  dependent \${dependent.from.id}"
+                    }
+                }
+                def lenient = configuration.resolvedConfiguration.lenientConfiguration
+                def visit
+                visit = { dependency, indent ->
+                    lines << "\${indent}resolved \${dependency.name} \${dependency.moduleArtifacts*.file*.name}"
+                    dependency.children.each { visit(it, indent + '  ') }
+                }
+                lenient.firstLevelModuleDependencies.each { visit(it, '') }
+                lenient.unresolvedModuleDependencies.each { lines << "unresolved \${it.selector}" }
+                lenient.artifacts.each { lines << "artifact \${it.id} \${it.file.name}" }
+                configuration.incoming.artifacts.each { lines << "incoming artifact \${it.id} \${it.file.name}" }
+                return lines.join('\\n')
+            }
+
+            task describe {
+                doLast {
+                    file('conf.txt').text = describe(configurations.conf)
+                    file('broken.txt').text = describe(configurations.broken)
+                }
+            }
+        """
+    }
+
+    def "replayed graph gives the same results as a fresh resolution"() {
+        when:
+        succeeds 'describe'
+        def freshConf = file('conf.txt').text
+        def freshBroken = file('broken.txt').text
+
+        then:
+        freshConf.contains("component org:c:2.0 reason: [requested, conflict resolution]")
+        !freshConf.contains("component org:g:1.0")
+        freshBroken.contains("unresolved org:missing:1.0")
+
+        when:
+        enableGraphCache()
+        succeeds 'describe'
+
+        then:
+        file('conf.txt').text == freshConf
+        file('broken.txt').text == freshBroken
+
+        when:
+        enableGraphCache()
+        executer.withArgument("--debug")
+        succeeds 'describe'
+
+        then:
+        file('conf.txt').text == freshConf
+        file('broken.txt').text == freshBroken
+
+        and:
+        output.readLines().any { it.contains("Reused resolved graph of") && it.contains("':conf'") }
+        // Graphs with failures are not cached
+        !output.readLines().any { it.contains("Reused resolved graph of") && it.contains("':broken'") }
+    }
+
+    private void enableGraphCache() {
+        executer.withArgument("-D${DefaultArtifactDependencyResolver.CACHE_RESOLVED_GRAPHS_PROPERTY}=true")
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the DOM and StAX POM parsers over a corpus of published POMs, including BOMs that mostly consist of dependency management.
+ */
+@Fork(1)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class PomParserBenchmark {
+    private static final String[] CORPUS = {
+        "ant-1.10.13.pom",
+        "ant-parent-1.10.13.pom",
+        "jackson-bom-2.9.6.pom",
+        "junit-4.12.pom",
+        "spring-framework-bom-5.0.8.RELEASE.pom"
+    };
+
+    @Param({"dom", "stax"})
+    String parser;
+
+    private final List<byte[]> poms = new ArrayList<byte[]>();
+
+    @Setup
+    public void loadCorpus() throws Exception {
+        for (String name : CORPUS) {
+            InputStream stream = getClass().getResourceAsStream("corpus/" + name);
+            try {
+                poms.add(IOUtils.toByteArray(stream));
+            } finally {
+                stream.close();
+            }
+        }
+    }
+
+    @Benchmark
+    public void parseCorpus(Blackhole bh) throws Exception {
+        boolean dom = "dom".equals(parser);
+        for (byte[] pom : poms) {
+            InputStream stream = new ByteArrayInputStream(pom);
+            bh.consume(dom ? PomDomParser.parsePom(stream, "file:/corpus.pom") : PomStaxParser.parsePom(stream, "file:/corpus.pom"));
+        }
+    }
+}
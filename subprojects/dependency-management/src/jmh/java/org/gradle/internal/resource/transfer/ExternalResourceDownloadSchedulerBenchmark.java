@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transfer;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Downloads a dependency set with a few large artifacts and many small ones from a local stand-in for a remote repository,
+ * which adds latency to each request and caps the bandwidth of each connection.
+ */
+@Fork(1)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class ExternalResourceDownloadSchedulerBenchmark {
+    private static final int LATENCY_MILLIS = 20;
+    private static final int BYTES_PER_SECOND = 8 * 1024 * 1024;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int WORKERS = 8;
+
+    @Param({"2", "4", "2147483647"})
+    int maxConcurrentDownloads;
+
+    @Param({"true", "false"})
+    boolean sizesKnown;
+
+    private final List<Integer> sizes = new ArrayList<Integer>();
+    private byte[] content;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService workers;
+    private ExternalResourceDownloadScheduler scheduler;
+
+    @Setup
+    public void startRepository() throws IOException {
+        for (int i = 0; i < 32; i++) {
+            sizes.add(16 * 1024);
+        }
+        for (int i = 0; i < 6; i++) {
+            sizes.add(512 * 1024);
+        }
+        sizes.add(4 * 1024 * 1024);
+        sizes.add(4 * 1024 * 1024);
+        content = new byte[4 * 1024 * 1024];
+
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                serve(exchange);
+            }
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        workers = Executors.newFixedThreadPool(WORKERS);
+        scheduler = new ExternalResourceDownloadScheduler(maxConcurrentDownloads);
+    }
+
+    @TearDown
+    public void stopRepository() {
+        workers.shutdownNow();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public long downloadDependencySet() throws Exception {
+        List<Future<Long>> downloads = new ArrayList<Future<Long>>();
+        for (int i = 0; i < sizes.size(); i++) {
+            final int size = sizes.get(i);
+            final URI uri = new URI("http://127.0.0.1:" + server.getAddress().getPort() + "/artifact-" + i + "?size=" + size);
+            downloads.add(workers.submit(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    return scheduler.download(uri, sizesKnown ? size : ExternalResourceDownloadScheduler.UNKNOWN_SIZE, new Factory<Long>() {
+                        @Override
+                        public Long create() {
+                            return fetch(uri);
+                        }
+                    });
+                }
+            }));
+        }
+        long total = 0;
+        for (Future<Long> download : downloads) {
+            total += download.get();
+        }
+        return total;
+    }
+
+    private static Long fetch(URI uri) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+            InputStream content = connection.getInputStream();
+            try {
+                byte[] buffer = new byte[CHUNK_SIZE];
+                long count = 0;
+                for (int read = content.read(buffer); read >= 0; read = content.read(buffer)) {
+                    count += read;
+                }
+                return count;
+            } finally {
+                content.close();
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        int size = Integer.parseInt(query.substring("size=".length()));
+        try {
+            Thread.sleep(LATENCY_MILLIS);
+            exchange.sendResponseHeaders(200, size);
+            OutputStream body = exchange.getResponseBody();
+            for (int offset = 0; offset < size; offset += CHUNK_SIZE) {
+                int length = Math.min(CHUNK_SIZE, size - offset);
+                body.write(content, offset, length);
+                Thread.sleep(length * 1000L / BYTES_PER_SECOND);
+            }
+            body.close();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
@@ -34,4 +34,9 @@ public interface ComponentMetadataProcessorFactory {
      * @return a {@code ComponentMetadataProcessor}
      */
     ComponentMetadataProcessor createComponentMetadataProcessor(MetadataResolutionContext resolutionContext);
+
+    /**
+     * Returns true if any component metadata rule has been registered, in which case the processed metadata may differ from the published metadata.
+     */
+    boolean hasRules();
 }
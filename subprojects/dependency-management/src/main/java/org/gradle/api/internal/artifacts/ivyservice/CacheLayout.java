@@ -50,7 +50,8 @@ public enum CacheLayout {
         .changedTo(53, "4.6-rc-1")
         .changedTo(56, "4.7-rc-1")
         .changedTo(58, "4.8-rc-1")
-        .changedTo(63, "4.10-rc-1")),
+        .changedTo(63, "4.10-rc-1")
+        .changedTo(64, "4.11-rc-1")),
 
     RESOURCES(ROOT, "resources", introducedIn("1.9-rc-1")),
 
@@ -22,8 +22,11 @@ import org.gradle.api.attributes.AttributesSchema;
 import org.gradle.api.internal.artifacts.ComponentSelectionInternal;
 import org.gradle.api.internal.artifacts.ComponentSelectionRulesInternal;
 import org.gradle.api.internal.artifacts.DefaultComponentSelection;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.SortedVersionIndex;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.SubVersionSelector;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionComparator;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionRangeSelector;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelector;
 import org.gradle.api.internal.attributes.AttributeContainerInternal;
 import org.gradle.api.internal.attributes.AttributesSchemaInternal;
@@ -79,7 +82,13 @@ class DefaultVersionedComponentChooser implements VersionedComponentChooser {
         Collection<SpecRuleAction<? super ComponentSelection>> rules = componentSelectionRules.getRules();
 
         // Loop over all listed versions, sorted by LATEST first
-        for (ModuleComponentResolveState candidate : sortLatestFirst(versions)) {
+        List<? extends ModuleComponentResolveState> candidates = sortLatestFirst(versions);
+        int notMatching = countLatestNotMatching(candidates, requestedVersionMatcher);
+        if (notMatching > 0) {
+            result.latestNotMatched(((SortedCandidateList<?>) candidates).getVersionIndex(), notMatching, requestedVersionMatcher);
+        }
+        for (int i = notMatching; i < candidates.size(); i++) {
+            ModuleComponentResolveState candidate = candidates.get(i);
             DefaultMetadataProvider metadataProvider = createMetadataProvider(candidate);
 
             boolean versionMatches = versionMatches(requestedVersionMatcher, candidate, metadataProvider);
@@ -205,7 +214,29 @@ class DefaultVersionedComponentChooser implements VersionedComponentChooser {
         return rejectedVersionSelector != null && rejectedVersionSelector.accept(candidateIdentifier.getVersion());
     }
 
-    private List<ModuleComponentResolveState> sortLatestFirst(Collection<? extends ModuleComponentResolveState> listing) {
+    private List<? extends ModuleComponentResolveState> sortLatestFirst(Collection<? extends ModuleComponentResolveState> listing) {
+        if (listing instanceof SortedCandidateList) {
+            return (SortedCandidateList<?>) listing;
+        }
         return CollectionUtils.sort(listing, Collections.reverseOrder(versionComparator));
     }
+
+    /**
+     * Returns the number of latest candidates that the selector cannot accept, when these can be found with a binary search of the version index.
+     */
+    private int countLatestNotMatching(List<? extends ModuleComponentResolveState> candidates, VersionSelector selector) {
+        if (!(candidates instanceof SortedCandidateList)) {
+            return 0;
+        }
+        SortedVersionIndex versionIndex = ((SortedCandidateList<?>) candidates).getVersionIndex();
+        if (selector instanceof VersionRangeSelector) {
+            VersionRangeSelector rangeSelector = (VersionRangeSelector) selector;
+            if (rangeSelector.getUpperBound() != null) {
+                return versionIndex.countAbove(rangeSelector.getUpperBoundVersion(), rangeSelector.isUpperInclusive());
+            }
+        } else if (selector instanceof SubVersionSelector) {
+            return versionIndex.countAbovePrefix(((SubVersionSelector) selector).getPrefix(), versionParser);
+        }
+        return 0;
+    }
 }
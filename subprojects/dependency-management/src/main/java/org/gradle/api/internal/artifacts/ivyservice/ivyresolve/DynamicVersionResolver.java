@@ -28,6 +28,7 @@ import org.gradle.api.internal.artifacts.ComponentMetadataProcessorFactory;
 import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
 import org.gradle.api.internal.artifacts.configurations.dynamicversion.CachePolicy;
 import org.gradle.api.internal.artifacts.dependencies.DefaultImmutableVersionConstraint;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.SortedVersionIndex;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.Version;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelector;
@@ -258,6 +259,9 @@ public class DynamicVersionResolver {
         private final ComponentMetadataSupplierRuleExecutor metadataSupplierRuleExecutor;
         private final CachePolicy cachePolicy;
         private ModuleComponentIdentifier firstRejected = null;
+        private SortedVersionIndex latestNotMatchedVersions;
+        private int latestNotMatchedCount;
+        private VersionSelector latestNotMatchedSelector;
 
 
         public RepositoryResolveState(VersionedComponentChooser versionedComponentChooser, ModuleDependencyMetadata dependency, ModuleComponentRepository repository, VersionSelector versionSelector, VersionSelector rejectedVersionSelector, VersionParser versionParser, AttributeContainer consumerAttributes, ImmutableAttributesFactory attributesFactory, ComponentMetadataProcessorFactory componentMetadataProcessorFactory, ComponentMetadataSupplierRuleExecutor metadataSupplierRuleExecutor, CachePolicy cachePolicy) {
@@ -329,6 +333,14 @@ public class DynamicVersionResolver {
             unmatchedVersions.add(new RejectedBySelectorVersion(id, requestedVersionMatcher));
         }
 
+        @Override
+        public void latestNotMatched(SortedVersionIndex versions, int count, VersionSelector requestedVersionMatcher) {
+            // Only the range is kept, the ids are created when the attempts are registered
+            latestNotMatchedVersions = versions;
+            latestNotMatchedCount = count;
+            latestNotMatchedSelector = requestedVersionMatcher;
+        }
+
         @Override
         public void rejectedByRule(RejectedByRuleVersion id) {
             rejectedVersions.add(id);
@@ -348,16 +360,20 @@ public class DynamicVersionResolver {
         }
 
         private List<CandidateResult> candidates() {
-            List<CandidateResult> candidates = new ArrayList<CandidateResult>();
-            for (String version : versionListingResult.result.getVersions()) {
-                CandidateResult candidateResult = candidateComponents.get(version);
-                if (candidateResult == null) {
-                    candidateResult = new CandidateResult(dependency, version, repository, attemptCollector, versionParser, componentMetadataProcessorFactory, attributesFactory, metadataSupplierRuleExecutor, cachePolicy);
-                    candidateComponents.put(version, candidateResult);
+            // Candidates are created as the chooser reaches them, as it usually stops well before the oldest version
+            final SortedVersionIndex versionIndex = versionParser.transformListing(versionListingResult.result.getVersions());
+            return new SortedCandidateList<CandidateResult>(versionIndex) {
+                @Override
+                public CandidateResult get(int position) {
+                    Version version = versionIndex.get(position);
+                    CandidateResult candidateResult = candidateComponents.get(version.getSource());
+                    if (candidateResult == null) {
+                        candidateResult = new CandidateResult(dependency, version, repository, attemptCollector, componentMetadataProcessorFactory, attributesFactory, metadataSupplierRuleExecutor, cachePolicy);
+                        candidateComponents.put(version.getSource(), candidateResult);
+                    }
+                    return candidateResult;
                 }
-                candidates.add(candidateResult);
-            }
-            return candidates;
+            };
         }
 
         protected void applyTo(BuildableComponentIdResolveResult target) {
@@ -371,9 +387,22 @@ public class DynamicVersionResolver {
         private void registerAttempts(BuildableComponentIdResolveResult target) {
             versionListingResult.applyTo(target);
             attemptCollector.applyTo(target);
-            target.unmatched(unmatchedVersions);
+            target.unmatched(getUnmatchedVersions());
             target.rejections(rejectedVersions);
         }
+
+        private Collection<RejectedBySelectorVersion> getUnmatchedVersions() {
+            if (latestNotMatchedCount == 0) {
+                return unmatchedVersions;
+            }
+            Set<RejectedBySelectorVersion> versions = Sets.newLinkedHashSet();
+            for (int i = 0; i < latestNotMatchedCount; i++) {
+                ModuleComponentIdentifier id = DefaultModuleComponentIdentifier.newId(dependency.getSelector().getModuleIdentifier(), latestNotMatchedVersions.get(i).getSource());
+                versions.add(new RejectedBySelectorVersion(id, latestNotMatchedSelector));
+            }
+            versions.addAll(unmatchedVersions);
+            return versions;
+        }
     }
 
     private static class CandidateResult implements ModuleComponentResolveState {
@@ -390,17 +419,17 @@ public class DynamicVersionResolver {
         private final DefaultBuildableModuleComponentMetaDataResolveResult result = new DefaultBuildableModuleComponentMetaDataResolveResult();
         private final CachePolicy cachePolicy;
 
-        public CandidateResult(ModuleDependencyMetadata dependencyMetadata, String version, ModuleComponentRepository repository, AttemptCollector attemptCollector, VersionParser versionParser, ComponentMetadataProcessorFactory componentMetadataProcessorFactory, ImmutableAttributesFactory attributesFactory, ComponentMetadataSupplierRuleExecutor supplierRuleExecutor, CachePolicy cachePolicy) {
+        public CandidateResult(ModuleDependencyMetadata dependencyMetadata, Version version, ModuleComponentRepository repository, AttemptCollector attemptCollector, ComponentMetadataProcessorFactory componentMetadataProcessorFactory, ImmutableAttributesFactory attributesFactory, ComponentMetadataSupplierRuleExecutor supplierRuleExecutor, CachePolicy cachePolicy) {
             this.dependencyMetadata = dependencyMetadata;
             this.componentMetadataProcessorFactory = componentMetadataProcessorFactory;
             this.attributesFactory = attributesFactory;
             this.supplierRuleExecutor = supplierRuleExecutor;
             this.cachePolicy = cachePolicy;
-            this.version = versionParser.transform(version);
+            this.version = version;
             this.repository = repository;
             this.attemptCollector = attemptCollector;
             ModuleComponentSelector requested = dependencyMetadata.getSelector();
-            this.identifier = DefaultModuleComponentIdentifier.newId(requested.getModuleIdentifier(), version);
+            this.identifier = DefaultModuleComponentIdentifier.newId(requested.getModuleIdentifier(), version.getSource());
         }
 
         @Override
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.SortedVersionIndex;
+
+import java.util.AbstractList;
+
+/**
+ * The candidates for a listing of versions, already sorted latest first by the index of the listing.
+ * The candidate at each position is for the version at the same position in the index.
+ */
+abstract class SortedCandidateList<T extends ModuleComponentResolveState> extends AbstractList<T> {
+    private final SortedVersionIndex versionIndex;
+
+    SortedCandidateList(SortedVersionIndex versionIndex) {
+        this.versionIndex = versionIndex;
+    }
+
+    public SortedVersionIndex getVersionIndex() {
+        return versionIndex;
+    }
+
+    @Override
+    public int size() {
+        return versionIndex.size();
+    }
+}
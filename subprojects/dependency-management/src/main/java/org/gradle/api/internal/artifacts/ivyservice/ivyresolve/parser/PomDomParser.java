@@ -16,17 +16,197 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
 
+import org.apache.commons.io.IOUtils;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 public final class PomDomParser {
+    static final String M2_ENTITIES = "m2-entities.ent";
+    private static final byte[] M2_ENTITIES_RESOURCE;
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY;
+
+    static {
+        byte[] bytes;
+        try {
+            bytes = IOUtils.toByteArray(org.apache.ivy.plugins.parser.m2.PomReader.class.getResourceAsStream(M2_ENTITIES));
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        M2_ENTITIES_RESOURCE = bytes;
+
+        // Set the context classloader the bootstrap classloader, to work around the way that JAXP locates implementation classes
+        // This should ensure that the JAXP classes provided by the JVM are used, rather than some other implementation
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(ClassLoaderUtils.getPlatformClassLoader());
+        try {
+            DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+            DOCUMENT_BUILDER_FACTORY.setValidating(false);
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+    }
+
+    private static final EntityResolver M2_ENTITY_RESOLVER = new EntityResolver() {
+        public InputSource resolveEntity(String publicId, String systemId)
+            throws SAXException, IOException {
+            if ((systemId != null) && systemId.endsWith(M2_ENTITIES)) {
+                return new InputSource(openM2Entities());
+            }
+            return null;
+        }
+    };
+
     private PomDomParser() {}
 
+    /**
+     * Returns the Maven 2 entity definitions that are made available to every POM.
+     */
+    static InputStream openM2Entities() {
+        return new ByteArrayInputStream(M2_ENTITIES_RESOURCE);
+    }
+
+    /**
+     * Parses the given POM into a DOM, then reads the model from the DOM.
+     */
+    public static PomModel parsePom(InputStream stream, String systemId) throws IOException, SAXException {
+        Element projectElement = parseToDom(stream, systemId).getDocumentElement();
+        PomModel model = new PomModel(systemId, projectElement.getNodeName());
+        model.setGroupId(getFirstChildText(projectElement, "groupId"));
+        model.setArtifactId(getFirstChildText(projectElement, "artifactId"));
+        model.setVersion(getFirstChildText(projectElement, "version"));
+        model.setPackaging(getFirstChildText(projectElement, "packaging"));
+        Element parentElement = getFirstChildElement(projectElement, "parent");
+        if (parentElement != null) {
+            model.setParent(readCoordinates(parentElement, new PomModel.Coordinates()));
+        }
+        Element relocationElement = getFirstChildElement(getFirstChildElement(projectElement, "distributionManagement"), "relocation");
+        if (relocationElement != null) {
+            model.setRelocation(readCoordinates(relocationElement, new PomModel.Coordinates()));
+        }
+        readDeclarations(projectElement, model.getDeclarations());
+        for (Element profileElement : getAllChilds(getFirstChildElement(projectElement, "profiles"))) {
+            if ("profile".equals(profileElement.getNodeName())) {
+                model.getProfiles().add(readProfile(profileElement));
+            }
+        }
+        return model;
+    }
+
+    private static Document parseToDom(InputStream stream, String systemId) throws IOException, SAXException {
+        // Set the context classloader the bootstrap classloader, to work around the way that JAXP locates implementation classes
+        // This should ensure that the JAXP classes provided by the JVM are used, rather than some other implementation
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(ClassLoaderUtils.getPlatformClassLoader());
+        try {
+            InputStream dtdStream = new AddDTDFilterInputStream(stream);
+            return getDocBuilder(M2_ENTITY_RESOLVER).parse(dtdStream, systemId);
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+    }
+
+    private static DocumentBuilder getDocBuilder(EntityResolver entityResolver) {
+        try {
+            DocumentBuilder docBuilder = DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+            if (entityResolver != null) {
+                docBuilder.setEntityResolver(entityResolver);
+            }
+            return docBuilder;
+        } catch (ParserConfigurationException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static <T extends PomModel.Coordinates> T readCoordinates(Element element, T coordinates) {
+        coordinates.setGroupId(getFirstChildText(element, "groupId"));
+        coordinates.setArtifactId(getFirstChildText(element, "artifactId"));
+        coordinates.setVersion(getFirstChildText(element, "version"));
+        return coordinates;
+    }
+
+    private static void readDeclarations(Element parentElement, PomModel.Declarations declarations) {
+        Element propertiesElement = getFirstChildElement(parentElement, "properties");
+        if (propertiesElement != null) {
+            propertiesElement.normalize();
+            Map<String, String> properties = new HashMap<String, String>();
+            for (Element prop : getAllChilds(propertiesElement)) {
+                properties.put(prop.getNodeName(), getTextContent(prop));
+            }
+            declarations.setProperties(properties);
+        }
+        Element dependenciesElement = getFirstChildElement(parentElement, "dependencies");
+        if (dependenciesElement != null) {
+            declarations.setDependencies(readDependencies(dependenciesElement));
+        }
+        Element dependencyMgtElement = getFirstChildElement(getFirstChildElement(parentElement, "dependencyManagement"), "dependencies");
+        if (dependencyMgtElement != null) {
+            declarations.setDependencyManagement(readDependencies(dependencyMgtElement));
+        }
+    }
+
+    private static List<PomModel.Dependency> readDependencies(Element dependenciesElement) {
+        List<PomModel.Dependency> dependencies = new ArrayList<PomModel.Dependency>();
+        for (Element dependencyElement : getAllChilds(dependenciesElement)) {
+            if (!"dependency".equals(dependencyElement.getNodeName())) {
+                continue;
+            }
+            PomModel.Dependency dependency = readCoordinates(dependencyElement, new PomModel.Dependency());
+            dependency.setScope(getFirstChildText(dependencyElement, "scope"));
+            dependency.setType(getFirstChildText(dependencyElement, "type"));
+            dependency.setClassifier(getFirstChildText(dependencyElement, "classifier"));
+            dependency.setOptional(getFirstChildText(dependencyElement, "optional"));
+            Element exclusionsElement = getFirstChildElement(dependencyElement, "exclusions");
+            if (exclusionsElement != null) {
+                List<PomModel.Coordinates> exclusions = new ArrayList<PomModel.Coordinates>();
+                for (Element exclusionElement : getAllChilds(exclusionsElement)) {
+                    if ("exclusion".equals(exclusionElement.getNodeName())) {
+                        PomModel.Coordinates exclusion = readCoordinates(exclusionElement, new PomModel.Coordinates());
+                        if (exclusion.getGroupId() != null || exclusion.getArtifactId() != null) {
+                            exclusions.add(exclusion);
+                        }
+                    }
+                }
+                dependency.setExclusions(exclusions);
+            }
+            dependencies.add(dependency);
+        }
+        return dependencies;
+    }
+
+    private static PomModel.Profile readProfile(Element profileElement) {
+        PomModel.Profile profile = new PomModel.Profile();
+        profile.setId(getFirstChildText(profileElement, "id"));
+        Element activationElement = getFirstChildElement(profileElement, "activation");
+        if (activationElement != null) {
+            profile.setHasActivation(true);
+            profile.setActiveByDefault(getFirstChildText(activationElement, "activeByDefault"));
+            Element propertyElement = getFirstChildElement(activationElement, "property");
+            if (propertyElement != null) {
+                profile.setHasActivationProperty(true);
+                profile.setActivationPropertyName(getFirstChildText(propertyElement, "name"));
+            }
+        }
+        readDeclarations(profileElement, profile.getDeclarations());
+        return profile;
+    }
+
     public static String getTextContent(Element element) {
         StringBuilder result = new StringBuilder();
 
@@ -86,7 +266,7 @@ public final class PomDomParser {
 
     public static final class AddDTDFilterInputStream extends FilterInputStream {
         private static final int MARK = 10000;
-        private static final String DOCTYPE = "<!DOCTYPE project SYSTEM \"m2-entities.ent\">\n";
+        private static final String DOCTYPE = "<!DOCTYPE project SYSTEM \"" + M2_ENTITIES + "\">\n";
 
         private int count;
         private byte[] prefix = DOCTYPE.getBytes();
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of a single POM file that are relevant to dependency resolution, as declared in the file.
+ * Values are raw element text: no property substitution or inheritance is applied.
+ *
+ * <p>Where an element may be declared more than once, only the first declaration is kept, as Maven does.</p>
+ */
+public class PomModel {
+    private final String systemId;
+    private final String rootElementName;
+    private final PomModel.Declarations declarations = new PomModel.Declarations();
+    private final List<Profile> profiles = new ArrayList<Profile>();
+    private String groupId;
+    private String artifactId;
+    private String version;
+    private String packaging;
+    private Coordinates parent;
+    private Coordinates relocation;
+
+    public PomModel(String systemId, String rootElementName) {
+        this.systemId = systemId;
+        this.rootElementName = rootElementName;
+    }
+
+    public String getSystemId() {
+        return systemId;
+    }
+
+    public String getRootElementName() {
+        return rootElementName;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(String groupId) {
+        if (this.groupId == null) {
+            this.groupId = groupId;
+        }
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    public void setArtifactId(String artifactId) {
+        if (this.artifactId == null) {
+            this.artifactId = artifactId;
+        }
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        if (this.version == null) {
+            this.version = version;
+        }
+    }
+
+    public String getPackaging() {
+        return packaging;
+    }
+
+    public void setPackaging(String packaging) {
+        if (this.packaging == null) {
+            this.packaging = packaging;
+        }
+    }
+
+    /**
+     * Returns the {@code <parent>} coordinates, or null if this POM does not declare a parent.
+     */
+    public Coordinates getParent() {
+        return parent;
+    }
+
+    public void setParent(Coordinates parent) {
+        if (this.parent == null) {
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * Returns the {@code <distributionManagement><relocation>} coordinates, or null if this POM is not relocated.
+     */
+    public Coordinates getRelocation() {
+        return relocation;
+    }
+
+    public void setRelocation(Coordinates relocation) {
+        if (this.relocation == null) {
+            this.relocation = relocation;
+        }
+    }
+
+    public Declarations getDeclarations() {
+        return declarations;
+    }
+
+    public List<Profile> getProfiles() {
+        return profiles;
+    }
+
+    /**
+     * The properties, dependencies and dependency management entries declared by a POM or by one of its profiles.
+     */
+    public static class Declarations {
+        private Map<String, String> properties;
+        private List<Dependency> dependencies;
+        private List<Dependency> dependencyManagement;
+
+        public Map<String, String> getProperties() {
+            return properties == null ? new HashMap<String, String>() : properties;
+        }
+
+        public boolean hasProperties() {
+            return properties != null;
+        }
+
+        public void setProperties(Map<String, String> properties) {
+            if (this.properties == null) {
+                this.properties = properties;
+            }
+        }
+
+        public List<Dependency> getDependencies() {
+            return dependencies == null ? new ArrayList<Dependency>() : dependencies;
+        }
+
+        public boolean hasDependencies() {
+            return dependencies != null;
+        }
+
+        public void setDependencies(List<Dependency> dependencies) {
+            if (this.dependencies == null) {
+                this.dependencies = dependencies;
+            }
+        }
+
+        public List<Dependency> getDependencyManagement() {
+            return dependencyManagement == null ? new ArrayList<Dependency>() : dependencyManagement;
+        }
+
+        public boolean hasDependencyManagement() {
+            return dependencyManagement != null;
+        }
+
+        public void setDependencyManagement(List<Dependency> dependencyManagement) {
+            if (this.dependencyManagement == null) {
+                this.dependencyManagement = dependencyManagement;
+            }
+        }
+    }
+
+    public static class Coordinates {
+        private String groupId;
+        private String artifactId;
+        private String version;
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public void setGroupId(String groupId) {
+            if (this.groupId == null) {
+                this.groupId = groupId;
+            }
+        }
+
+        public String getArtifactId() {
+            return artifactId;
+        }
+
+        public void setArtifactId(String artifactId) {
+            if (this.artifactId == null) {
+                this.artifactId = artifactId;
+            }
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public void setVersion(String version) {
+            if (this.version == null) {
+                this.version = version;
+            }
+        }
+    }
+
+    public static class Dependency extends Coordinates {
+        private String scope;
+        private String type;
+        private String classifier;
+        private String optional;
+        private List<Coordinates> exclusions;
+
+        public String getScope() {
+            return scope;
+        }
+
+        public void setScope(String scope) {
+            if (this.scope == null) {
+                this.scope = scope;
+            }
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            if (this.type == null) {
+                this.type = type;
+            }
+        }
+
+        public String getClassifier() {
+            return classifier;
+        }
+
+        public void setClassifier(String classifier) {
+            if (this.classifier == null) {
+                this.classifier = classifier;
+            }
+        }
+
+        /**
+         * Returns the text of the {@code <optional>} element, or null if there is none.
+         */
+        public String getOptional() {
+            return optional;
+        }
+
+        public void setOptional(String optional) {
+            if (this.optional == null) {
+                this.optional = optional;
+            }
+        }
+
+        /**
+         * Returns the declared exclusions, or null if there is no {@code <exclusions>} element. Exclusions that declare neither a group nor an artifact are not included.
+         */
+        public List<Coordinates> getExclusions() {
+            return exclusions;
+        }
+
+        public void setExclusions(List<Coordinates> exclusions) {
+            if (this.exclusions == null) {
+                this.exclusions = exclusions;
+            }
+        }
+    }
+
+    public static class Profile {
+        private final PomModel.Declarations declarations = new PomModel.Declarations();
+        private String id;
+        private boolean hasActivation;
+        private String activeByDefault;
+        private boolean hasActivationProperty;
+        private String activationPropertyName;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            if (this.id == null) {
+                this.id = id;
+            }
+        }
+
+        public boolean hasActivation() {
+            return hasActivation;
+        }
+
+        public void setHasActivation(boolean hasActivation) {
+            this.hasActivation = hasActivation;
+        }
+
+        public String getActiveByDefault() {
+            return activeByDefault;
+        }
+
+        public void setActiveByDefault(String activeByDefault) {
+            if (this.activeByDefault == null) {
+                this.activeByDefault = activeByDefault;
+            }
+        }
+
+        public boolean hasActivationProperty() {
+            return hasActivationProperty;
+        }
+
+        public void setHasActivationProperty(boolean hasActivationProperty) {
+            this.hasActivationProperty = hasActivationProperty;
+        }
+
+        public String getActivationPropertyName() {
+            return activationPropertyName;
+        }
+
+        public void setActivationPropertyName(String activationPropertyName) {
+            if (this.activationPropertyName == null) {
+                this.activationPropertyName = activationPropertyName;
+            }
+        }
+
+        public Declarations getDeclarations() {
+            return declarations;
+        }
+    }
+}
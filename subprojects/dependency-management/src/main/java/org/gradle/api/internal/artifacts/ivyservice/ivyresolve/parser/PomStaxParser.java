@@ -0,0 +1,354 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+/**
+ * Reads a {@link PomModel} from a POM in a single streaming pass, without building a DOM.
+ * Elements that are not part of the model are skipped, and the text of the elements that are kept is interned,
+ * as the same coordinates, versions and property names recur across the POMs of a dependency graph.
+ *
+ * <p>Produces the same model as {@link PomDomParser#parsePom(InputStream, String)}.</p>
+ */
+public final class PomStaxParser {
+    private static final XMLInputFactory XML_INPUT_FACTORY;
+    private static final StringInterner STRING_INTERNER = new StringInterner();
+
+    static {
+        // Set the context classloader the bootstrap classloader, to work around the way that JAXP locates implementation classes
+        // This should ensure that the JAXP classes provided by the JVM are used, rather than some other implementation
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(ClassLoaderUtils.getPlatformClassLoader());
+        try {
+            XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+        // Match the DOM parser: element names are not namespace aware, and the m2 entities are expanded
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_VALIDATING, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, true);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+        XML_INPUT_FACTORY.setXMLResolver(new XMLResolver() {
+            @Override
+            public Object resolveEntity(String publicId, String systemId, String baseUri, String namespace) {
+                if ((systemId != null) && systemId.endsWith(PomDomParser.M2_ENTITIES)) {
+                    return PomDomParser.openM2Entities();
+                }
+                return null;
+            }
+        });
+    }
+
+    private PomStaxParser() {
+    }
+
+    public static PomModel parsePom(InputStream stream, String systemId) throws IOException, XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(systemId, new PomDomParser.AddDTDFilterInputStream(stream));
+        try {
+            while (reader.next() != START_ELEMENT) {
+                // Skip the prolog
+            }
+            PomModel model = new PomModel(systemId, reader.getLocalName());
+            readProject(reader, model);
+            while (reader.hasNext()) {
+                // Check that the remainder of the document is well-formed
+                reader.next();
+            }
+            return model;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static void readProject(XMLStreamReader reader, PomModel model) throws XMLStreamException {
+        boolean seenProfiles = false;
+        boolean seenDistributionManagement = false;
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if ("groupId".equals(name)) {
+                model.setGroupId(readText(reader));
+            } else if ("artifactId".equals(name)) {
+                model.setArtifactId(readText(reader));
+            } else if ("version".equals(name)) {
+                model.setVersion(readText(reader));
+            } else if ("packaging".equals(name)) {
+                model.setPackaging(readText(reader));
+            } else if ("parent".equals(name) && model.getParent() == null) {
+                model.setParent(readCoordinates(reader, new PomModel.Coordinates()));
+            } else if ("distributionManagement".equals(name) && !seenDistributionManagement) {
+                seenDistributionManagement = true;
+                readDistributionManagement(reader, model);
+            } else if ("profiles".equals(name) && !seenProfiles) {
+                seenProfiles = true;
+                readProfiles(reader, model);
+            } else if (!readDeclaration(reader, name, model.getDeclarations())) {
+                skipElement(reader);
+            }
+        }
+    }
+
+    private static void readDistributionManagement(XMLStreamReader reader, PomModel model) throws XMLStreamException {
+        while (nextChild(reader)) {
+            if ("relocation".equals(reader.getLocalName()) && model.getRelocation() == null) {
+                model.setRelocation(readCoordinates(reader, new PomModel.Coordinates()));
+            } else {
+                skipElement(reader);
+            }
+        }
+    }
+
+    private static void readProfiles(XMLStreamReader reader, PomModel model) throws XMLStreamException {
+        while (nextChild(reader)) {
+            if ("profile".equals(reader.getLocalName())) {
+                model.getProfiles().add(readProfile(reader));
+            } else {
+                skipElement(reader);
+            }
+        }
+    }
+
+    private static PomModel.Profile readProfile(XMLStreamReader reader) throws XMLStreamException {
+        PomModel.Profile profile = new PomModel.Profile();
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if ("id".equals(name)) {
+                profile.setId(readText(reader));
+            } else if ("activation".equals(name) && !profile.hasActivation()) {
+                profile.setHasActivation(true);
+                readActivation(reader, profile);
+            } else if (!readDeclaration(reader, name, profile.getDeclarations())) {
+                skipElement(reader);
+            }
+        }
+        return profile;
+    }
+
+    private static void readActivation(XMLStreamReader reader, PomModel.Profile profile) throws XMLStreamException {
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if ("activeByDefault".equals(name)) {
+                profile.setActiveByDefault(readText(reader));
+            } else if ("property".equals(name) && !profile.hasActivationProperty()) {
+                profile.setHasActivationProperty(true);
+                while (nextChild(reader)) {
+                    if ("name".equals(reader.getLocalName())) {
+                        profile.setActivationPropertyName(readText(reader));
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+            } else {
+                skipElement(reader);
+            }
+        }
+    }
+
+    /**
+     * Reads the current element if it is one of the declarations shared by a project and its profiles.
+     *
+     * @return true if the element was read, false if it should be skipped by the caller.
+     */
+    private static boolean readDeclaration(XMLStreamReader reader, String name, PomModel.Declarations declarations) throws XMLStreamException {
+        if ("properties".equals(name) && !declarations.hasProperties()) {
+            declarations.setProperties(readProperties(reader));
+            return true;
+        }
+        if ("dependencies".equals(name) && !declarations.hasDependencies()) {
+            declarations.setDependencies(readDependencies(reader));
+            return true;
+        }
+        if ("dependencyManagement".equals(name) && !declarations.hasDependencyManagement()) {
+            List<PomModel.Dependency> dependencyManagement = null;
+            while (nextChild(reader)) {
+                if ("dependencies".equals(reader.getLocalName()) && dependencyManagement == null) {
+                    dependencyManagement = readDependencies(reader);
+                } else {
+                    skipElement(reader);
+                }
+            }
+            declarations.setDependencyManagement(dependencyManagement == null ? new ArrayList<PomModel.Dependency>() : dependencyManagement);
+            return true;
+        }
+        return false;
+    }
+
+    private static Map<String, String> readProperties(XMLStreamReader reader) throws XMLStreamException {
+        Map<String, String> properties = new HashMap<String, String>();
+        while (nextChild(reader)) {
+            String name = intern(reader.getLocalName());
+            properties.put(name, readText(reader));
+        }
+        return properties;
+    }
+
+    private static List<PomModel.Dependency> readDependencies(XMLStreamReader reader) throws XMLStreamException {
+        List<PomModel.Dependency> dependencies = new ArrayList<PomModel.Dependency>();
+        while (nextChild(reader)) {
+            if ("dependency".equals(reader.getLocalName())) {
+                dependencies.add(readDependency(reader));
+            } else {
+                skipElement(reader);
+            }
+        }
+        return dependencies;
+    }
+
+    private static PomModel.Dependency readDependency(XMLStreamReader reader) throws XMLStreamException {
+        PomModel.Dependency dependency = new PomModel.Dependency();
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if (!readCoordinate(reader, name, dependency)) {
+                if ("scope".equals(name)) {
+                    dependency.setScope(readText(reader));
+                } else if ("type".equals(name)) {
+                    dependency.setType(readText(reader));
+                } else if ("classifier".equals(name)) {
+                    dependency.setClassifier(readText(reader));
+                } else if ("optional".equals(name)) {
+                    dependency.setOptional(readText(reader));
+                } else if ("exclusions".equals(name) && dependency.getExclusions() == null) {
+                    dependency.setExclusions(readExclusions(reader));
+                } else {
+                    skipElement(reader);
+                }
+            }
+        }
+        return dependency;
+    }
+
+    private static List<PomModel.Coordinates> readExclusions(XMLStreamReader reader) throws XMLStreamException {
+        List<PomModel.Coordinates> exclusions = new ArrayList<PomModel.Coordinates>();
+        while (nextChild(reader)) {
+            if ("exclusion".equals(reader.getLocalName())) {
+                PomModel.Coordinates exclusion = readCoordinates(reader, new PomModel.Coordinates());
+                if (exclusion.getGroupId() != null || exclusion.getArtifactId() != null) {
+                    exclusions.add(exclusion);
+                }
+            } else {
+                skipElement(reader);
+            }
+        }
+        return exclusions;
+    }
+
+    private static PomModel.Coordinates readCoordinates(XMLStreamReader reader, PomModel.Coordinates coordinates) throws XMLStreamException {
+        while (nextChild(reader)) {
+            if (!readCoordinate(reader, reader.getLocalName(), coordinates)) {
+                skipElement(reader);
+            }
+        }
+        return coordinates;
+    }
+
+    private static boolean readCoordinate(XMLStreamReader reader, String name, PomModel.Coordinates coordinates) throws XMLStreamException {
+        if ("groupId".equals(name)) {
+            coordinates.setGroupId(readText(reader));
+        } else if ("artifactId".equals(name)) {
+            coordinates.setArtifactId(readText(reader));
+        } else if ("version".equals(name)) {
+            coordinates.setVersion(readText(reader));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Moves to the start of the next child of the current element.
+     *
+     * @return true if positioned on a child element, false if the end of the current element was reached.
+     */
+    private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (true) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+                return true;
+            }
+            if (event == END_ELEMENT) {
+                return false;
+            }
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == START_ELEMENT) {
+                depth++;
+            } else if (event == END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Reads the text directly contained by the current element, ignoring the content of any child elements,
+     * and moves to the end of the element.
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        String text = null;
+        StringBuilder builder = null;
+        while (true) {
+            int event = reader.next();
+            if (event == CHARACTERS || event == CDATA || event == SPACE) {
+                if (text == null) {
+                    text = reader.getText();
+                } else {
+                    if (builder == null) {
+                        builder = new StringBuilder(text);
+                    }
+                    builder.append(reader.getText());
+                }
+            } else if (event == START_ELEMENT) {
+                skipElement(reader);
+            } else if (event == END_ELEMENT) {
+                break;
+            }
+        }
+        if (builder != null) {
+            return intern(builder.toString());
+        }
+        return text == null ? "" : intern(text);
+    }
+
+    private static String intern(String value) {
+        return STRING_INTERNER.intern(value);
+    }
+}
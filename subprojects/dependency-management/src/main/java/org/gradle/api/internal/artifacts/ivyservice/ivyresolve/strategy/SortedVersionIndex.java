@@ -0,0 +1,300 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * An immutable listing of versions, parsed once and sorted latest first in the order defined by {@link DefaultVersionComparator}.
+ *
+ * <p>The parts of each version are kept in primitive arrays: numeric parts as their value, and other parts as a rank that orders them
+ * the same way the comparator does. This makes comparing 2 versions of the listing cheap and allocation free, which matters when the
+ * same listing of thousands of versions is searched for many dynamic selectors.</p>
+ *
+ * <p>When the listing is totally ordered, the versions that are known not to match a range or prefix selector can be skipped
+ * with a binary search. This is not the case when some versions have parts that compare equal while being spelled differently,
+ * such as {@code 1.01} and {@code 1.1}, as the comparator then stops comparing at the first such part.</p>
+ */
+public class SortedVersionIndex {
+    private static final long NUMERIC = 0;
+
+    private final Version[] versions;
+    private final Encoded encoded;
+    private final boolean totallyOrdered;
+    private final StaticVersionComparator comparator = new StaticVersionComparator();
+
+    public SortedVersionIndex(Collection<String> listing, VersionParser versionParser) {
+        Version[] parsed = new Version[listing.size()];
+        int partCount = 0;
+        int i = 0;
+        for (String version : listing) {
+            parsed[i] = versionParser.transform(version);
+            partCount += parsed[i].getParts().length;
+            i++;
+        }
+
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        TreeSet<String> qualifiers = new TreeSet<String>();
+        boolean canonical = true;
+        for (Version version : parsed) {
+            canonical &= isCanonical(version);
+            Long[] numericParts = version.getNumericParts();
+            String[] parts = version.getParts();
+            for (int j = 0; j < parts.length; j++) {
+                if (!ids.containsKey(parts[j])) {
+                    ids.put(parts[j], ids.size());
+                    if (numericParts[j] == null && specialMeaning(parts[j]) == null) {
+                        qualifiers.add(parts[j]);
+                    }
+                }
+            }
+        }
+        Map<String, Long> ranks = rankQualifiers(qualifiers);
+
+        // Encode in listing order, then sort and copy into latest first order
+        int[] unsortedStart = new int[parsed.length + 1];
+        int[] unsortedIds = new int[partCount];
+        long[] unsortedNumbers = new long[partCount];
+        long[] unsortedRanks = new long[partCount];
+        int pos = 0;
+        for (i = 0; i < parsed.length; i++) {
+            unsortedStart[i] = pos;
+            pos = encode(parsed[i], ids, ranks, unsortedIds, unsortedNumbers, unsortedRanks, pos);
+        }
+        unsortedStart[parsed.length] = pos;
+        final Encoded unsorted = new Encoded(unsortedStart, unsortedIds, unsortedNumbers, unsortedRanks);
+
+        // A stable sort, so that versions comparing equal keep their listing order, as when sorting the listing with the comparator
+        Integer[] order = new Integer[parsed.length];
+        for (i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return unsorted.compare(o2, o1);
+            }
+        });
+
+        versions = new Version[parsed.length];
+        int[] partStart = new int[parsed.length + 1];
+        int[] partIds = new int[partCount];
+        long[] numbers = new long[partCount];
+        long[] qualifierRanks = new long[partCount];
+        pos = 0;
+        for (i = 0; i < order.length; i++) {
+            int from = unsortedStart[order[i]];
+            int length = unsortedStart[order[i] + 1] - from;
+            versions[i] = parsed[order[i]];
+            partStart[i] = pos;
+            System.arraycopy(unsortedIds, from, partIds, pos, length);
+            System.arraycopy(unsortedNumbers, from, numbers, pos, length);
+            System.arraycopy(unsortedRanks, from, qualifierRanks, pos, length);
+            pos += length;
+        }
+        partStart[parsed.length] = pos;
+        encoded = new Encoded(partStart, partIds, numbers, qualifierRanks);
+        totallyOrdered = canonical;
+    }
+
+    public int size() {
+        return versions.length;
+    }
+
+    /**
+     * Returns the version at the given position, where position 0 holds the latest version.
+     */
+    public Version get(int position) {
+        return versions[position];
+    }
+
+    /**
+     * Compares the versions at the given positions, as {@link DefaultVersionComparator} would.
+     */
+    public int compare(int position1, int position2) {
+        return encoded.compare(position1, position2);
+    }
+
+    /**
+     * Returns the number of latest versions that are higher than the given bound, or only those that are known to be higher
+     * when the listing or the bound are not totally ordered.
+     */
+    public int countAbove(Version bound, boolean inclusive) {
+        if (!totallyOrdered || !isCanonical(bound)) {
+            return 0;
+        }
+        int low = 0;
+        int high = versions.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int comparison = comparator.compare(versions[mid], bound);
+            if (comparison > 0 || (comparison == 0 && !inclusive)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the number of latest versions that cannot start with the given prefix, because their leading parts are
+     * higher than those of any version that starts with the prefix. Returns 0 when this cannot be determined with a binary search.
+     */
+    public int countAbovePrefix(String prefix, VersionParser versionParser) {
+        Version prefixVersion = versionParser.transform(prefix);
+        int completeParts = prefixVersion.getParts().length;
+        if (prefix.length() > 0 && !isSeparator(prefix.charAt(prefix.length() - 1))) {
+            // The last part may be continued by the versions that start with the prefix
+            completeParts--;
+        }
+        if (completeParts <= 0 || !totallyOrdered || !isCanonical(prefixVersion)) {
+            return 0;
+        }
+        int low = 0;
+        int high = versions.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (comparator.compareLeadingParts(versions[mid], prefixVersion, completeParts) > 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isSeparator(char ch) {
+        return ch == '.' || ch == '_' || ch == '-' || ch == '+';
+    }
+
+    /**
+     * Returns true when each part of the version has a single spelling among the parts that compare equal to it.
+     */
+    private static boolean isCanonical(Version version) {
+        String[] parts = version.getParts();
+        Long[] numericParts = version.getNumericParts();
+        for (int i = 0; i < parts.length; i++) {
+            if (numericParts[i] != null) {
+                if (!parts[i].equals(numericParts[i].toString())) {
+                    return false;
+                }
+            } else if (specialMeaning(parts[i]) != null && !parts[i].equals(parts[i].toLowerCase(Locale.US))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Integer specialMeaning(String part) {
+        return StaticVersionComparator.SPECIAL_MEANINGS.get(part.toLowerCase(Locale.US));
+    }
+
+    /**
+     * Ranks the non-numeric parts: parts with a special meaning by that meaning, with all other parts ranked lexicographically
+     * in between "dev" and "rc". Ranks are never 0, which marks numeric parts.
+     */
+    private static Map<String, Long> rankQualifiers(TreeSet<String> qualifiers) {
+        Map<String, Long> ranks = new HashMap<String, Long>();
+        long ordinal = 0;
+        for (String qualifier : qualifiers) {
+            ranks.put(qualifier, rank(0, ordinal++));
+        }
+        return ranks;
+    }
+
+    private static long rank(int specialMeaning, long ordinal) {
+        return ((long) (specialMeaning + 2) << 32) | ordinal;
+    }
+
+    private static int encode(Version version, Map<String, Integer> ids, Map<String, Long> ranks, int[] partIds, long[] numbers, long[] qualifierRanks, int pos) {
+        String[] parts = version.getParts();
+        Long[] numericParts = version.getNumericParts();
+        for (int i = 0; i < parts.length; i++, pos++) {
+            partIds[pos] = ids.get(parts[i]);
+            if (numericParts[i] != null) {
+                numbers[pos] = numericParts[i];
+                qualifierRanks[pos] = NUMERIC;
+            } else {
+                Integer specialMeaning = specialMeaning(parts[i]);
+                qualifierRanks[pos] = specialMeaning != null ? rank(specialMeaning, 0) : ranks.get(parts[i]);
+            }
+        }
+        return pos;
+    }
+
+    private static int compareLongs(long value1, long value2) {
+        return value1 < value2 ? -1 : (value1 == value2 ? 0 : 1);
+    }
+
+    /**
+     * Versions encoded as runs of parts, with the parts of version {@code i} at positions {@code start[i]} to {@code start[i + 1]}.
+     */
+    private static class Encoded {
+        private final int[] start;
+        private final int[] ids;
+        private final long[] numbers;
+        private final long[] ranks;
+
+        Encoded(int[] start, int[] ids, long[] numbers, long[] ranks) {
+            this.start = start;
+            this.ids = ids;
+            this.numbers = numbers;
+            this.ranks = ranks;
+        }
+
+        /**
+         * Follows {@link StaticVersionComparator#compare(Version, Version)}, part by part.
+         */
+        int compare(int version1, int version2) {
+            int i = start[version1];
+            int j = start[version2];
+            int end1 = start[version1 + 1];
+            int end2 = start[version2 + 1];
+            for (; i < end1 && j < end2; i++, j++) {
+                if (ids[i] == ids[j]) {
+                    continue;
+                }
+                boolean is1Number = ranks[i] == NUMERIC;
+                boolean is2Number = ranks[j] == NUMERIC;
+                if (is1Number && !is2Number) {
+                    return 1;
+                }
+                if (is2Number && !is1Number) {
+                    return -1;
+                }
+                if (is1Number) {
+                    return compareLongs(numbers[i], numbers[j]);
+                }
+                return compareLongs(ranks[i], ranks[j]);
+            }
+            if (i < end1) {
+                return ranks[i] == NUMERIC ? 1 : -1;
+            }
+            if (j < end2) {
+                return ranks[j] == NUMERIC ? -1 : 1;
+            }
+            return 0;
+        }
+    }
+}
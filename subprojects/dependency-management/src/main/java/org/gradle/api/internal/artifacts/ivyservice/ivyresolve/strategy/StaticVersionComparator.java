@@ -29,7 +29,7 @@ import java.util.Map;
  * One example where this comparator is inappropriate is if versions should be retained in a TreeMap/TreeSet.
  */
 class StaticVersionComparator implements Comparator<Version> {
-    private static final Map<String, Integer> SPECIAL_MEANINGS =
+    static final Map<String, Integer> SPECIAL_MEANINGS =
             ImmutableMap.of("dev", -1, "rc", 1, "release", 2, "final", 3);
 
     /**
@@ -39,14 +39,20 @@ class StaticVersionComparator implements Comparator<Version> {
         if (version1.equals(version2)) {
             return 0;
         }
+        return compareLeadingParts(version1, version2, Integer.MAX_VALUE);
+    }
 
+    /**
+     * Compares the first {@code maxParts} parts of 2 versions, as if any further parts were not present.
+     */
+    int compareLeadingParts(Version version1, Version version2, int maxParts) {
         String[] parts1 = version1.getParts();
         String[] parts2 = version2.getParts();
         Long[] numericParts1 = version1.getNumericParts();
         Long[] numericParts2 = version2.getNumericParts();
 
         int i = 0;
-        for (; i < parts1.length && i < parts2.length; i++) {
+        for (; i < parts1.length && i < parts2.length && i < maxParts; i++) {
             String part1 = parts1[i];
             String part2 = parts2[i];
 
@@ -80,6 +86,9 @@ class StaticVersionComparator implements Comparator<Version> {
             }
             return part1.compareTo(part2);
         }
+        if (i == maxParts) {
+            return 0;
+        }
         if (i < parts1.length) {
             return numericParts1[i] == null ? -1 : 1;
         }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.primitives.Longs;
 import org.gradle.api.Transformer;
@@ -23,9 +24,11 @@ import org.gradle.api.Transformer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class VersionParser implements Transformer<Version, String> {
     private final Map<String, Version> cache = Maps.newConcurrentMap();
+    private final Map<Set<String>, SortedVersionIndex> indexes = Maps.newConcurrentMap();
 
     public VersionParser() {
     }
@@ -39,6 +42,18 @@ public class VersionParser implements Transformer<Version, String> {
         return parseAndCache(original);
     }
 
+    /**
+     * Returns the given listing of versions parsed and sorted, reusing the index built for an earlier lookup of the same listing.
+     */
+    public SortedVersionIndex transformListing(Set<String> versions) {
+        SortedVersionIndex index = indexes.get(versions);
+        if (index == null) {
+            index = new SortedVersionIndex(versions, this);
+            indexes.put(ImmutableSet.copyOf(versions), index);
+        }
+        return index;
+    }
+
     private Version parseAndCache(String original) {
         Version version = parse(original);
         cache.put(original, version);
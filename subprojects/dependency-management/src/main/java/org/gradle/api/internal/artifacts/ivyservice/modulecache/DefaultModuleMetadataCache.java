@@ -16,7 +16,6 @@
 package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 
 import com.google.common.base.Objects;
-import com.google.common.collect.Interner;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheMetadata;
@@ -35,11 +34,14 @@ import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.util.BuildCommencedTimeProvider;
 
+import javax.annotation.Nullable;
+
 public class DefaultModuleMetadataCache extends InMemoryModuleMetadataCache {
 
     private PersistentIndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCacheEntry> cache;
     private final ModuleMetadataStore moduleMetadataStore;
     private final ArtifactCacheLockingManager artifactCacheLockingManager;
+    private final SharedModuleCacheIndex.Cache<ModuleComponentAtRepositoryKey, SharedEntry> sharedCache;
 
     public DefaultModuleMetadataCache(BuildCommencedTimeProvider timeProvider,
                                       ArtifactCacheLockingManager artifactCacheLockingManager,
@@ -48,10 +50,13 @@ public class DefaultModuleMetadataCache extends InMemoryModuleMetadataCache {
                                       AttributeContainerSerializer attributeContainerSerializer,
                                       MavenMutableModuleMetadataFactory mavenMetadataFactory,
                                       IvyMutableModuleMetadataFactory ivyMetadataFactory,
-                                      Interner<String> stringInterner) {
+                                      ModuleMetadataStringTable stringTable,
+                                      SharedModuleCacheIndex sharedIndex) {
         super(timeProvider);
-        moduleMetadataStore = new ModuleMetadataStore(new DefaultPathKeyFileStore(artifactCacheMetadata.getMetaDataStoreDirectory()), new ModuleMetadataSerializer(attributeContainerSerializer, mavenMetadataFactory, ivyMetadataFactory), moduleIdentifierFactory, stringInterner);
+        ModuleMetadataSerializer metadataSerializer = new ModuleMetadataSerializer(attributeContainerSerializer, mavenMetadataFactory, ivyMetadataFactory);
+        moduleMetadataStore = new ModuleMetadataStore(new DefaultPathKeyFileStore(artifactCacheMetadata.getMetaDataStoreDirectory()), metadataSerializer, moduleIdentifierFactory, stringTable);
         this.artifactCacheLockingManager = artifactCacheLockingManager;
+        this.sharedCache = sharedIndex.cache("module-metadata", new RevisionKeySerializer(), new SharedEntrySerializer(metadataSerializer, moduleIdentifierFactory));
     }
 
     private PersistentIndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCacheEntry> getCache() {
@@ -72,8 +77,16 @@ public class DefaultModuleMetadataCache extends InMemoryModuleMetadataCache {
             return inMemory;
         }
 
-        CachedMetadata cachedMetadata = loadCachedMetadata(key);
-        if (cachedMetadata != null) {
+        // The shared index holds the descriptor itself, so can be read without locking the artifact cache
+        SharedEntry shared = sharedCache.get(key);
+        if (shared == null) {
+            shared = loadCachedMetadata(key);
+            if (shared != null) {
+                sharedCache.putLater(key, shared);
+            }
+        }
+        if (shared != null) {
+            CachedMetadata cachedMetadata = new DefaultCachedMetadata(shared.entry, shared.metadata, timeProvider);
             // Entry is not required for caching in-memory
             super.store(key, null, cachedMetadata);
             return cachedMetadata;
@@ -82,25 +95,26 @@ public class DefaultModuleMetadataCache extends InMemoryModuleMetadataCache {
         return null;
     }
 
-    private CachedMetadata loadCachedMetadata(final ModuleComponentAtRepositoryKey key) {
+    private SharedEntry loadCachedMetadata(final ModuleComponentAtRepositoryKey key) {
         final PersistentIndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCacheEntry> cache = getCache();
-        return artifactCacheLockingManager.useCache(new Factory<CachedMetadata>() {
+        return artifactCacheLockingManager.useCache(new Factory<SharedEntry>() {
             @Override
-            public CachedMetadata create() {
+            public SharedEntry create() {
                 ModuleMetadataCacheEntry entry = cache.get(key);
                 if (entry == null) {
                     return null;
                 }
                 if (entry.isMissing()) {
-                    return new DefaultCachedMetadata(entry, null, timeProvider);
+                    return new SharedEntry(entry, null);
                 }
                 MutableModuleComponentResolveMetadata metadata = moduleMetadataStore.getModuleDescriptor(key);
                 if (metadata == null) {
                     // Descriptor file has been deleted - ignore the entry
                     cache.remove(key);
+                    sharedCache.remove(key);
                     return null;
                 }
-                return new DefaultCachedMetadata(entry, entry.configure(metadata), timeProvider);
+                return new SharedEntry(entry, entry.configure(metadata));
             }
         });
     }
@@ -110,6 +124,7 @@ public class DefaultModuleMetadataCache extends InMemoryModuleMetadataCache {
         super.store(key, entry, cachedMetadata);
         if (entry.isMissing()) {
             getCache().put(key, entry);
+            sharedCache.put(key, new SharedEntry(entry, null));
         } else {
             // Need to lock the cache in order to write to the module metadata store
             artifactCacheLockingManager.useCache(new Runnable() {
@@ -120,6 +135,46 @@ public class DefaultModuleMetadataCache extends InMemoryModuleMetadataCache {
                     getCache().put(key, entry);
                 }
             });
+            sharedCache.put(key, new SharedEntry(entry, cachedMetadata.getMetadata()));
+        }
+    }
+
+    private static class SharedEntry {
+        private final ModuleMetadataCacheEntry entry;
+        private final ModuleComponentResolveMetadata metadata;
+
+        SharedEntry(ModuleMetadataCacheEntry entry, @Nullable ModuleComponentResolveMetadata metadata) {
+            this.entry = entry;
+            this.metadata = metadata;
+        }
+    }
+
+    /**
+     * Writes the descriptor along with the cache entry, with its strings inline rather than in the string table.
+     */
+    private static class SharedEntrySerializer extends AbstractSerializer<SharedEntry> {
+        private final ModuleMetadataCacheEntrySerializer entrySerializer = new ModuleMetadataCacheEntrySerializer();
+        private final ModuleMetadataSerializer metadataSerializer;
+        private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+
+        SharedEntrySerializer(ModuleMetadataSerializer metadataSerializer, ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+            this.metadataSerializer = metadataSerializer;
+            this.moduleIdentifierFactory = moduleIdentifierFactory;
+        }
+
+        public void write(Encoder encoder, SharedEntry value) throws Exception {
+            entrySerializer.write(encoder, value.entry);
+            if (!value.entry.isMissing()) {
+                metadataSerializer.write(encoder, value.metadata);
+            }
+        }
+
+        public SharedEntry read(Decoder decoder) throws Exception {
+            ModuleMetadataCacheEntry entry = entrySerializer.read(decoder);
+            if (entry.isMissing()) {
+                return new SharedEntry(entry, null);
+            }
+            return new SharedEntry(entry, entry.configure(metadataSerializer.read(decoder, moduleIdentifierFactory)));
         }
     }
 
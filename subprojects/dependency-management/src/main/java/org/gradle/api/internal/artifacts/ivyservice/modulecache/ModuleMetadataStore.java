@@ -15,7 +15,6 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 
-import com.google.common.collect.Interner;
 import org.gradle.api.Action;
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
@@ -27,6 +26,7 @@ import org.gradle.internal.resource.local.PathKeyFileStore;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -36,13 +36,13 @@ public class ModuleMetadataStore {
     private final PathKeyFileStore metaDataStore;
     private final ModuleMetadataSerializer moduleMetadataSerializer;
     private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
-    private final Interner<String> stringInterner;
+    private final ModuleMetadataStringTable stringTable;
 
-    public ModuleMetadataStore(PathKeyFileStore metaDataStore, ModuleMetadataSerializer moduleMetadataSerializer, ImmutableModuleIdentifierFactory moduleIdentifierFactory, Interner<String> stringInterner) {
+    public ModuleMetadataStore(PathKeyFileStore metaDataStore, ModuleMetadataSerializer moduleMetadataSerializer, ImmutableModuleIdentifierFactory moduleIdentifierFactory, ModuleMetadataStringTable stringTable) {
         this.metaDataStore = metaDataStore;
         this.moduleMetadataSerializer = moduleMetadataSerializer;
         this.moduleIdentifierFactory = moduleIdentifierFactory;
-        this.stringInterner = stringInterner;
+        this.stringTable = stringTable;
     }
 
     public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponentAtRepositoryKey component) {
@@ -50,8 +50,12 @@ public class ModuleMetadataStore {
         final LocallyAvailableResource resource = metaDataStore.get(filePath);
         if (resource != null) {
             try {
-                StringDeduplicatingDecoder decoder = new StringDeduplicatingDecoder(new KryoBackedDecoder(new FileInputStream(resource.getFile())), stringInterner);
+                StringTableDecoder decoder = new StringTableDecoder(new KryoBackedDecoder(new FileInputStream(resource.getFile())), stringTable);
                 try {
+                    if (decoder.readLong() != stringTable.getId() || !stringTable.hasLength(decoder.readSmallLong())) {
+                        // Written against a string table that has since been replaced, or that lost the strings the descriptor refers to
+                        return null;
+                    }
                     return moduleMetadataSerializer.read(decoder, moduleIdentifierFactory);
                 } finally {
                     decoder.close();
@@ -68,9 +72,21 @@ public class ModuleMetadataStore {
         return metaDataStore.add(filePath, new Action<File>() {
             public void execute(File moduleDescriptorFile) {
                 try {
+                    ByteArrayOutputStream content = new ByteArrayOutputStream();
+                    StringTableEncoder contentEncoder = new StringTableEncoder(new KryoBackedEncoder(content), stringTable);
+                    try {
+                        moduleMetadataSerializer.write(contentEncoder, metadata);
+                    } finally {
+                        contentEncoder.close();
+                    }
+                    // The strings must be on disk before the descriptor that refers to them
+                    stringTable.flush();
+
                     KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(moduleDescriptorFile));
                     try {
-                        moduleMetadataSerializer.write(encoder, metadata);
+                        encoder.writeLong(stringTable.getId());
+                        encoder.writeSmallLong(stringTable.getLength());
+                        encoder.writeBytes(content.toByteArray());
                     } finally {
                         encoder.close();
                     }
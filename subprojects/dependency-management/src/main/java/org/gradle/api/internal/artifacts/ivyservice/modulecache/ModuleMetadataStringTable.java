@@ -0,0 +1,316 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Interner;
+import org.gradle.internal.UncheckedException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only table of the strings used by all module descriptors in the metadata store. Descriptors refer to strings
+ * by their index in this table, so each distinct group, module, version and attribute value is stored once for the whole
+ * store rather than once per descriptor.
+ *
+ * <p>The table file is memory mapped, and each string is decoded and interned the first time it is requested.
+ * Entries are never modified or removed once written, so it is safe for several processes to append to the file
+ * while holding the artifact cache lock. Each entry carries a checksum, so that an entry that was only partly written,
+ * and everything after it, is ignored and later overwritten rather than shifting the indices of the entries that follow.
+ * The checksum also serves to look up the index of a string without decoding the table.</p>
+ *
+ * <p>The table does not grow beyond a maximum size. Once it is full, {@link #add(String)} no longer adds strings, and
+ * descriptors store the strings that are not in the table inline.</p>
+ *
+ * <p>File format: an int format version and a long table id, followed by entries of an int length, an int CRC32 checksum
+ * and that many UTF-8 bytes. The table id is chosen when the file is created, and is recorded by each descriptor so that
+ * descriptors written against a table that has since been deleted are not decoded against a new one.</p>
+ */
+public class ModuleMetadataStringTable implements Closeable {
+    /**
+     * Returned by {@link #add(String)} when the string cannot be added because the table is full.
+     */
+    public static final int NOT_STORED = -1;
+
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 12;
+    private static final int ENTRY_HEADER_SIZE = 8;
+    private static final int DEFAULT_MAX_SIZE = 64 * 1024 * 1024;
+
+    private final File file;
+    private final Interner<String> stringInterner;
+    private final int maxSize;
+    private RandomAccessFile randomAccessFile;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private long id;
+    private int[] offsets = new int[1024];
+    private String[] strings = new String[1024];
+    // Chains the indices of the strings with the same checksum, starting from the index in firstIndexByChecksum
+    private int[] nextWithSameChecksum = new int[1024];
+    private final Map<Integer, Integer> firstIndexByChecksum = new HashMap<Integer, Integer>();
+    private int count;
+    private int end = HEADER_SIZE;
+    private boolean unflushed;
+
+    public ModuleMetadataStringTable(File file, Interner<String> stringInterner) {
+        this(file, stringInterner, DEFAULT_MAX_SIZE);
+    }
+
+    ModuleMetadataStringTable(File file, Interner<String> stringInterner, int maxSize) {
+        this.file = file;
+        this.stringInterner = stringInterner;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the id of this table. Should be called while holding the artifact cache lock.
+     */
+    public synchronized long getId() {
+        open();
+        return id;
+    }
+
+    /**
+     * Returns the length of the valid entries of this table. A descriptor records the length of the table it was written against,
+     * see {@link #hasLength(long)}. Should be called while holding the artifact cache lock.
+     */
+    public synchronized long getLength() {
+        open();
+        return end;
+    }
+
+    /**
+     * Returns true when the valid entries of this table cover at least the given length, so that all strings written up to that length
+     * can be found at the same indices. Should be called while holding the artifact cache lock.
+     */
+    public synchronized boolean hasLength(long length) {
+        open();
+        if (end < length) {
+            // Appended by another process
+            scan();
+        }
+        return end >= length;
+    }
+
+    /**
+     * Returns the string with the given index. Should be called while holding the artifact cache lock.
+     */
+    public synchronized String get(int index) {
+        open();
+        if (index >= count) {
+            // Appended by another process
+            scan();
+            if (index >= count) {
+                throw new IllegalStateException("String " + index + " not found in " + file + ", which contains " + count + " strings.");
+            }
+        }
+        String string = strings[index];
+        if (string == null) {
+            string = decode(index);
+            strings[index] = string;
+        }
+        return string;
+    }
+
+    /**
+     * Returns the index of the given string, adding it to the table if required, or {@link #NOT_STORED} when the table is full.
+     * Should be called while holding the artifact cache lock.
+     */
+    public synchronized int add(String string) {
+        open();
+        scan();
+        byte[] bytes = string.getBytes(Charsets.UTF_8);
+        int checksum = checksum(bytes, 0, bytes.length);
+        Integer candidate = firstIndexByChecksum.get(checksum);
+        for (int index = candidate == null ? -1 : candidate; index >= 0; index = nextWithSameChecksum[index]) {
+            if (matches(index, string, bytes)) {
+                return index;
+            }
+        }
+        int size = ENTRY_HEADER_SIZE + bytes.length;
+        if (size > maxSize - end) {
+            return NOT_STORED;
+        }
+        ByteBuffer entry = ByteBuffer.allocate(size);
+        entry.putInt(bytes.length).putInt(checksum).put(bytes).flip();
+        try {
+            int position = end;
+            while (entry.hasRemaining()) {
+                position += channel.write(entry, position);
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        unflushed = true;
+        int index = count;
+        record(end, checksum, stringInterner.intern(string));
+        end += size;
+        return index;
+    }
+
+    /**
+     * Writes the strings added to this table to the storage device. Must be called before writing a descriptor that refers to them.
+     */
+    public synchronized void flush() {
+        if (unflushed) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            unflushed = false;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (randomAccessFile != null) {
+            randomAccessFile.close();
+            randomAccessFile = null;
+            channel = null;
+            mapped = null;
+            Arrays.fill(strings, 0, count, null);
+            firstIndexByChecksum.clear();
+            count = 0;
+            end = HEADER_SIZE;
+        }
+    }
+
+    private void open() {
+        if (randomAccessFile != null) {
+            return;
+        }
+        try {
+            file.getParentFile().mkdirs();
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            channel = randomAccessFile.getChannel();
+            if (randomAccessFile.length() < HEADER_SIZE) {
+                id = UUID.randomUUID().getLeastSignificantBits();
+                randomAccessFile.setLength(0);
+                randomAccessFile.writeInt(FORMAT_VERSION);
+                randomAccessFile.writeLong(id);
+                channel.force(false);
+            } else {
+                int formatVersion = randomAccessFile.readInt();
+                if (formatVersion != FORMAT_VERSION) {
+                    throw new IllegalStateException("Unexpected format version " + formatVersion + " found in " + file + ".");
+                }
+                id = randomAccessFile.readLong();
+            }
+            scan();
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    /**
+     * Finds the entries that have been appended since the last scan. Stops at an incomplete or corrupt entry, which is overwritten by the next append.
+     */
+    private void scan() {
+        try {
+            long length = channel.size();
+            if (length <= end) {
+                return;
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalStateException("String table " + file + " is too large.");
+            }
+            if (mapped == null || mapped.capacity() < length) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            }
+            int limit = (int) length;
+            byte[] bytes = new byte[256];
+            while (end + ENTRY_HEADER_SIZE <= limit) {
+                int size = mapped.getInt(end);
+                if (size < 0 || size > limit - end - ENTRY_HEADER_SIZE) {
+                    break;
+                }
+                if (bytes.length < size) {
+                    bytes = new byte[Math.max(size, bytes.length * 2)];
+                }
+                ByteBuffer entry = mapped.duplicate();
+                entry.position(end + ENTRY_HEADER_SIZE);
+                entry.get(bytes, 0, size);
+                int checksum = mapped.getInt(end + 4);
+                if (checksum != checksum(bytes, 0, size)) {
+                    break;
+                }
+                record(end, checksum, null);
+                end += ENTRY_HEADER_SIZE + size;
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private void record(int offset, int checksum, String string) {
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+            strings = Arrays.copyOf(strings, count * 2);
+            nextWithSameChecksum = Arrays.copyOf(nextWithSameChecksum, count * 2);
+        }
+        offsets[count] = offset;
+        strings[count] = string;
+        Integer previous = firstIndexByChecksum.put(checksum, count);
+        nextWithSameChecksum[count] = previous == null ? -1 : previous;
+        count++;
+    }
+
+    private boolean matches(int index, String string, byte[] bytes) {
+        if (strings[index] != null) {
+            return strings[index].equals(string);
+        }
+        // Only entries found by a scan have no string yet, and these are within the mapped region
+        int offset = offsets[index];
+        if (mapped.getInt(offset) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (mapped.get(offset + ENTRY_HEADER_SIZE + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decode(int index) {
+        int offset = offsets[index];
+        byte[] bytes = new byte[mapped.getInt(offset)];
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.position(offset + ENTRY_HEADER_SIZE);
+        buffer.get(bytes);
+        return stringInterner.intern(new String(bytes, Charsets.UTF_8));
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
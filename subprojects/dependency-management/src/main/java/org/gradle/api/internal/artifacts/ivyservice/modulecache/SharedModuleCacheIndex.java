@@ -0,0 +1,599 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.hash.Hashing;
+import org.gradle.cache.FileLock;
+import org.gradle.cache.FileLockManager;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * An index of module cache entries that is shared by all Gradle processes using the same Gradle user home, so that a new
+ * daemon can find the metadata and artifacts that another daemon has already loaded without querying the persistent caches.
+ *
+ * <p>The index is a hash table held in a memory mapped file. Readers do not take any lock. Writers take an exclusive lock
+ * on the index, through the {@link FileLockManager}, for the duration of a single write. Entries are appended to a data region
+ * and then published by storing their offset in a slot, so a reader sees either the previous entry for a key or the new one.
+ * Each entry carries a checksum, and an entry that a reader sees only partially written is treated as absent.
+ * An entry is removed by flagging it in place, so a removal never needs space.</p>
+ *
+ * <p>The index has a fixed size. Replaced and removed entries are reclaimed by compacting the data region in place once enough
+ * of it is unused. The compaction increments a generation counter before and after it runs, and a reader that sees the counter
+ * change or an odd value treats the entry as absent. A writer that finds an odd value while holding the lock knows that a process
+ * died part way through a compaction, and clears the index. When a new entry does not fit, it is dropped and lookups of it fall back to
+ * the persistent caches. When a new value for an existing entry does not fit, the existing entry is removed, so that a stale
+ * value is never served.</p>
+ *
+ * <p>Values that a process finds in the persistent caches after missing them in the index are added in batches, so that a build
+ * reading many entries does not take the index lock once for each of them. Such a value is only added when the index still has
+ * no entry for its key.</p>
+ *
+ * <p>File format: a header of an int format version, int slot count, int data region size, int end of data, int entry count,
+ * int generation, int unused data size and int removed entry count, padded to {@value #HEADER_SIZE} bytes. Then the slots, each
+ * a long key hash and an int entry offset, padded to {@value #SLOT_SIZE} bytes, where an offset of 0 marks an empty slot.
+ * Then the data region, where each entry is an int key length, an int value length, an int checksum, an int flags, the key
+ * bytes and the value bytes.</p>
+ */
+public class SharedModuleCacheIndex implements Closeable {
+    /**
+     * Enables the shared index. When not set, the module caches only use the persistent caches.
+     */
+    public static final String SHARED_INDEX_PROPERTY = "org.gradle.internal.repository.sharedIndex";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedModuleCacheIndex.class);
+    private static final int DEFAULT_SLOT_COUNT = 1 << 17;
+    private static final int DEFAULT_DATA_SIZE = 128 * 1024 * 1024;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_COUNT_OFFSET = 4;
+    private static final int DATA_SIZE_OFFSET = 8;
+    private static final int DATA_END_OFFSET = 12;
+    private static final int ENTRY_COUNT_OFFSET = 16;
+    private static final int GENERATION_OFFSET = 20;
+    private static final int UNUSED_SIZE_OFFSET = 24;
+    private static final int REMOVED_COUNT_OFFSET = 28;
+    private static final int SLOT_SIZE = 16;
+    private static final int ENTRY_HEADER_SIZE = 16;
+    private static final int REMOVED = 1;
+    // Compact once this fraction of the data region or of the slots is taken by replaced or removed entries
+    private static final int COMPACTION_THRESHOLD_DIVISOR = 16;
+    private static final int NO_GENERATION = -1;
+    // The number of values found in the persistent caches that are added to the index under a single lock
+    private static final int PENDING_ADDS_BATCH_SIZE = 64;
+
+    private final File file;
+    private final FileLockManager lockManager;
+    private final int initialSlotCount;
+    private final int initialDataSize;
+    private final boolean enabled;
+    private RandomAccessFile randomAccessFile;
+    private volatile MappedByteBuffer mapped;
+    private int slotCount;
+    private int dataStart;
+    private int limit;
+    // The generation in which the index was found to have no space for new entries
+    private volatile int fullGeneration = NO_GENERATION;
+    private final Map<ByteBuffer, byte[]> pendingAdds = new LinkedHashMap<ByteBuffer, byte[]>();
+
+    public SharedModuleCacheIndex(File file, FileLockManager lockManager, int slotCount, int dataSize, boolean enabled) {
+        if (Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("The slot count must be a power of two, but was " + slotCount + ".");
+        }
+        this.file = file;
+        this.lockManager = lockManager;
+        this.initialSlotCount = slotCount;
+        this.initialDataSize = dataSize;
+        this.enabled = enabled;
+    }
+
+    public static SharedModuleCacheIndex fromSystemProperties(File file, FileLockManager lockManager) {
+        return new SharedModuleCacheIndex(file, lockManager, DEFAULT_SLOT_COUNT, DEFAULT_DATA_SIZE, Boolean.getBoolean(SHARED_INDEX_PROPERTY));
+    }
+
+    /**
+     * Returns a view of the entries of this index with the given name. Each view has its own key space.
+     */
+    public <K, V> Cache<K, V> cache(String name, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        return new Cache<K, V>(name, keySerializer, valueSerializer);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        addPending();
+        if (randomAccessFile != null) {
+            randomAccessFile.close();
+            randomAccessFile = null;
+            mapped = null;
+        }
+    }
+
+    /**
+     * Returns the value for the given key, or null when there is no complete entry for the key. Does not take any lock.
+     */
+    @Nullable
+    private byte[] get(byte[] key) {
+        ByteBuffer buffer = mapped;
+        if (buffer == null) {
+            buffer = open(false);
+            if (buffer == null) {
+                return null;
+            }
+        }
+        int generation = buffer.getInt(GENERATION_OFFSET);
+        if ((generation & 1) != 0) {
+            // Being compacted
+            return null;
+        }
+        int slotOffset = findSlot(buffer, key);
+        int entryOffset = slotOffset < 0 ? 0 : buffer.getInt(slotOffset + 8);
+        byte[] value = entryOffset == 0 ? null : readValue(buffer, entryOffset, key);
+        // An entry read while the index was compacted may be the wrong one
+        return buffer.getInt(GENERATION_OFFSET) == generation ? value : null;
+    }
+
+    /**
+     * Replaces the value for the given key, or removes it when the value is null. Takes the index lock.
+     */
+    private synchronized void put(byte[] key, @Nullable byte[] value) {
+        // This value supersedes any value found in the persistent caches earlier
+        pendingAdds.remove(ByteBuffer.wrap(key));
+        if (value != null && isUpToDateOrFull(key, value)) {
+            return;
+        }
+        FileLock lock = lockManager.lock(file, mode(FileLockManager.LockMode.Exclusive), "shared module cache index");
+        try {
+            ByteBuffer buffer = open(true);
+            clearIfCompactionWasInterrupted(buffer);
+            write(buffer, key, value, false);
+        } finally {
+            lock.close();
+        }
+    }
+
+    /**
+     * Adds the given value for the given key, unless the index has an entry for the key by then. The value is added along with
+     * other pending values once there are enough of them, or when the index is closed.
+     */
+    private synchronized void putLater(byte[] key, byte[] value) {
+        if (isUpToDateOrFull(key, value)) {
+            return;
+        }
+        pendingAdds.put(ByteBuffer.wrap(key), value);
+        if (pendingAdds.size() >= PENDING_ADDS_BATCH_SIZE) {
+            addPending();
+        }
+    }
+
+    private synchronized void addPending() {
+        if (pendingAdds.isEmpty()) {
+            return;
+        }
+        FileLock lock = lockManager.lock(file, mode(FileLockManager.LockMode.Exclusive), "shared module cache index");
+        try {
+            ByteBuffer buffer = open(true);
+            clearIfCompactionWasInterrupted(buffer);
+            for (Map.Entry<ByteBuffer, byte[]> entry : pendingAdds.entrySet()) {
+                write(buffer, entry.getKey().array(), entry.getValue(), true);
+            }
+        } finally {
+            pendingAdds.clear();
+            lock.close();
+        }
+    }
+
+    /**
+     * Returns true when the index already holds the given value for the given key, or has neither an entry for the key nor space for a new one.
+     */
+    private boolean isUpToDateOrFull(byte[] key, byte[] value) {
+        ByteBuffer buffer = mapped;
+        int generation = buffer == null ? NO_GENERATION : buffer.getInt(GENERATION_OFFSET);
+        byte[] current = get(key);
+        if (Arrays.equals(current, value)) {
+            return true;
+        }
+        // There is no entry for the key and no space for a new one. Dropping the entry is safe, lookups fall back to the persistent caches
+        return current == null && generation != NO_GENERATION && generation == fullGeneration && buffer.getInt(GENERATION_OFFSET) == generation;
+    }
+
+    /**
+     * Writes or removes the entry for the given key. The caller must hold the index lock.
+     */
+    private void write(ByteBuffer buffer, byte[] key, @Nullable byte[] value, boolean onlyIfAbsent) {
+        int slotOffset = findSlot(buffer, key);
+        int entryOffset = slotOffset < 0 ? 0 : buffer.getInt(slotOffset + 8);
+        if (value == null) {
+            if (entryOffset != 0) {
+                markRemoved(buffer, entryOffset);
+            }
+            return;
+        }
+        if (onlyIfAbsent && entryOffset != 0 && readValue(buffer, entryOffset, key) != null) {
+            return;
+        }
+        int entrySize = ENTRY_HEADER_SIZE + key.length + value.length;
+        if (!hasSpace(buffer, entryOffset != 0, entrySize) && shouldCompact(buffer)) {
+            compact(buffer);
+            slotOffset = findSlot(buffer, key);
+            entryOffset = slotOffset < 0 ? 0 : buffer.getInt(slotOffset + 8);
+        }
+        if (slotOffset < 0 || !hasSpace(buffer, entryOffset != 0, entrySize)) {
+            LOGGER.debug("Shared module cache index {} is full, no longer adding entries.", file);
+            fullGeneration = buffer.getInt(GENERATION_OFFSET);
+            if (entryOffset != 0) {
+                // Cannot record the new value, so stop serving the old one
+                markRemoved(buffer, entryOffset);
+            }
+            return;
+        }
+
+        int dataEnd = buffer.getInt(DATA_END_OFFSET);
+        writeEntry(buffer, dataEnd, key, value);
+        buffer.putInt(DATA_END_OFFSET, dataEnd + entrySize);
+
+        // Publish the entry
+        if (entryOffset == 0) {
+            buffer.putLong(slotOffset, hash(key));
+            buffer.putInt(ENTRY_COUNT_OFFSET, buffer.getInt(ENTRY_COUNT_OFFSET) + 1);
+        } else {
+            if ((buffer.getInt(entryOffset + 12) & REMOVED) != 0) {
+                buffer.putInt(REMOVED_COUNT_OFFSET, buffer.getInt(REMOVED_COUNT_OFFSET) - 1);
+            } else {
+                buffer.putInt(UNUSED_SIZE_OFFSET, buffer.getInt(UNUSED_SIZE_OFFSET) + entrySize(buffer, entryOffset));
+            }
+        }
+        buffer.putInt(slotOffset + 8, dataEnd);
+    }
+
+    /**
+     * Clears the index when a process died while compacting it, as its entries may have been partly moved. Readers treat the index
+     * as being compacted until then. The caller must hold the index lock.
+     */
+    private void clearIfCompactionWasInterrupted(ByteBuffer buffer) {
+        int generation = buffer.getInt(GENERATION_OFFSET);
+        if ((generation & 1) == 0) {
+            return;
+        }
+        LOGGER.debug("Compaction of shared module cache index {} was interrupted, clearing the index.", file);
+        clearSlots(buffer);
+        buffer.putInt(DATA_END_OFFSET, dataStart);
+        buffer.putInt(ENTRY_COUNT_OFFSET, 0);
+        buffer.putInt(UNUSED_SIZE_OFFSET, 0);
+        buffer.putInt(REMOVED_COUNT_OFFSET, 0);
+        buffer.putInt(GENERATION_OFFSET, generation + 1);
+    }
+
+    /**
+     * Returns the offset of the slot holding the given key, or of the empty slot where the key would be added, or -1 when there is neither.
+     */
+    private int findSlot(ByteBuffer buffer, byte[] key) {
+        long hash = hash(key);
+        int mask = slotCount - 1;
+        for (int probe = 0, slot = (int) hash & mask; probe < slotCount; probe++, slot = (slot + 1) & mask) {
+            int slotOffset = HEADER_SIZE + slot * SLOT_SIZE;
+            int entryOffset = buffer.getInt(slotOffset + 8);
+            if (entryOffset == 0 || (buffer.getLong(slotOffset) == hash && hasKey(buffer, entryOffset, key))) {
+                return slotOffset;
+            }
+        }
+        return -1;
+    }
+
+    private boolean hasSpace(ByteBuffer buffer, boolean exists, int entrySize) {
+        return (exists || buffer.getInt(ENTRY_COUNT_OFFSET) < slotCount / 4 * 3) && entrySize <= limit - buffer.getInt(DATA_END_OFFSET);
+    }
+
+    private boolean shouldCompact(ByteBuffer buffer) {
+        return buffer.getInt(UNUSED_SIZE_OFFSET) >= (limit - dataStart) / COMPACTION_THRESHOLD_DIVISOR
+            || buffer.getInt(REMOVED_COUNT_OFFSET) >= slotCount / COMPACTION_THRESHOLD_DIVISOR;
+    }
+
+    /**
+     * Flags the given entry as removed. The entry keeps its slot until the next compaction, so that lookups of other keys still find their slots.
+     */
+    private void markRemoved(ByteBuffer buffer, int entryOffset) {
+        int flags = buffer.getInt(entryOffset + 12);
+        if ((flags & REMOVED) != 0) {
+            return;
+        }
+        buffer.putInt(entryOffset + 12, flags | REMOVED);
+        buffer.putInt(UNUSED_SIZE_OFFSET, buffer.getInt(UNUSED_SIZE_OFFSET) + entrySize(buffer, entryOffset));
+        buffer.putInt(REMOVED_COUNT_OFFSET, buffer.getInt(REMOVED_COUNT_OFFSET) + 1);
+    }
+
+    /**
+     * Moves the live entries to the start of the data region and rebuilds the slots. The caller must hold the index lock.
+     */
+    private void compact(ByteBuffer buffer) {
+        int generation = buffer.getInt(GENERATION_OFFSET);
+        buffer.putInt(GENERATION_OFFSET, generation + 1);
+
+        int dataEnd = buffer.getInt(DATA_END_OFFSET);
+        int read = dataStart;
+        int write = dataStart;
+        while (read < dataEnd) {
+            int keyLength = buffer.getInt(read);
+            int valueLength = buffer.getInt(read + 4);
+            int size = ENTRY_HEADER_SIZE + keyLength + valueLength;
+            if (keyLength < 0 || valueLength < 0 || size > dataEnd - read) {
+                LOGGER.debug("Shared module cache index {} has a corrupt entry at offset {}, discarding the following entries.", file, read);
+                break;
+            }
+            byte[] entry = new byte[size];
+            ByteBuffer source = buffer.duplicate();
+            source.position(read);
+            source.get(entry);
+            byte[] key = Arrays.copyOfRange(entry, ENTRY_HEADER_SIZE, ENTRY_HEADER_SIZE + keyLength);
+            int slotOffset = findSlot(buffer, key);
+            boolean live = slotOffset >= 0 && buffer.getInt(slotOffset + 8) == read && (buffer.getInt(read + 12) & REMOVED) == 0;
+            if (live) {
+                if (write != read) {
+                    ByteBuffer target = buffer.duplicate();
+                    target.position(write);
+                    target.put(entry);
+                }
+                write += size;
+            }
+            read += size;
+        }
+
+        // Rebuild the slots from the live entries
+        clearSlots(buffer);
+        int entryCount = 0;
+        for (int offset = dataStart; offset < write; offset += entrySize(buffer, offset)) {
+            byte[] key = new byte[buffer.getInt(offset)];
+            ByteBuffer source = buffer.duplicate();
+            source.position(offset + ENTRY_HEADER_SIZE);
+            source.get(key);
+            int slotOffset = findSlot(buffer, key);
+            buffer.putLong(slotOffset, hash(key));
+            buffer.putInt(slotOffset + 8, offset);
+            entryCount++;
+        }
+        buffer.putInt(DATA_END_OFFSET, write);
+        buffer.putInt(ENTRY_COUNT_OFFSET, entryCount);
+        buffer.putInt(UNUSED_SIZE_OFFSET, 0);
+        buffer.putInt(REMOVED_COUNT_OFFSET, 0);
+        buffer.putInt(GENERATION_OFFSET, generation + 2);
+        LOGGER.debug("Compacted shared module cache index {}, {} entries remain.", file, entryCount);
+    }
+
+    private void clearSlots(ByteBuffer buffer) {
+        for (int slotOffset = HEADER_SIZE; slotOffset < dataStart; slotOffset += SLOT_SIZE) {
+            buffer.putLong(slotOffset, 0);
+            buffer.putInt(slotOffset + 8, 0);
+        }
+    }
+
+    private static void writeEntry(ByteBuffer buffer, int offset, byte[] key, byte[] value) {
+        buffer.putInt(offset, key.length);
+        buffer.putInt(offset + 4, value.length);
+        buffer.putInt(offset + 8, checksum(key, value));
+        buffer.putInt(offset + 12, 0);
+        ByteBuffer entry = buffer.duplicate();
+        entry.position(offset + ENTRY_HEADER_SIZE);
+        entry.put(key);
+        entry.put(value);
+    }
+
+    private static int entrySize(ByteBuffer buffer, int entryOffset) {
+        return ENTRY_HEADER_SIZE + buffer.getInt(entryOffset) + buffer.getInt(entryOffset + 4);
+    }
+
+    /**
+     * Maps the index file, creating it when requested. The caller must hold the index lock when creating the file.
+     */
+    @Nullable
+    private synchronized ByteBuffer open(boolean create) {
+        if (mapped != null) {
+            return mapped;
+        }
+        if (!create && !file.isFile()) {
+            return null;
+        }
+        try {
+            file.getParentFile().mkdirs();
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            try {
+                int formatVersion = randomAccessFile.length() < HEADER_SIZE ? 0 : randomAccessFile.readInt();
+                if (formatVersion == 0) {
+                    if (!create) {
+                        // Not created yet, or being created by another process
+                        return null;
+                    }
+                    randomAccessFile.setLength(HEADER_SIZE + (long) initialSlotCount * SLOT_SIZE + initialDataSize);
+                    MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length());
+                    buffer.putInt(SLOT_COUNT_OFFSET, initialSlotCount);
+                    buffer.putInt(DATA_SIZE_OFFSET, initialDataSize);
+                    buffer.putInt(DATA_END_OFFSET, HEADER_SIZE + initialSlotCount * SLOT_SIZE);
+                    // The format version marks the index as ready to use
+                    buffer.putInt(0, FORMAT_VERSION);
+                    formatVersion = FORMAT_VERSION;
+                }
+                if (formatVersion != FORMAT_VERSION) {
+                    throw new IllegalStateException("Unexpected format version " + formatVersion + " found in " + file + ".");
+                }
+                MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length());
+                slotCount = buffer.getInt(SLOT_COUNT_OFFSET);
+                dataStart = HEADER_SIZE + slotCount * SLOT_SIZE;
+                limit = dataStart + buffer.getInt(DATA_SIZE_OFFSET);
+                if (Integer.bitCount(slotCount) != 1 || limit > buffer.capacity()) {
+                    throw new IllegalStateException("Shared module cache index " + file + " is corrupt.");
+                }
+                this.randomAccessFile = randomAccessFile;
+                mapped = buffer;
+                return buffer;
+            } finally {
+                if (this.randomAccessFile != randomAccessFile) {
+                    randomAccessFile.close();
+                }
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private boolean hasKey(ByteBuffer buffer, int entryOffset, byte[] key) {
+        if (entryOffset < dataStart || entryOffset > limit - ENTRY_HEADER_SIZE - key.length || buffer.getInt(entryOffset) != key.length) {
+            return false;
+        }
+        int keyOffset = entryOffset + ENTRY_HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(keyOffset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    private byte[] readValue(ByteBuffer buffer, int entryOffset, byte[] key) {
+        if (!hasKey(buffer, entryOffset, key)) {
+            return null;
+        }
+        int valueLength = buffer.getInt(entryOffset + 4);
+        int checksum = buffer.getInt(entryOffset + 8);
+        int flags = buffer.getInt(entryOffset + 12);
+        int valueOffset = entryOffset + ENTRY_HEADER_SIZE + key.length;
+        if ((flags & REMOVED) != 0 || valueLength < 0 || valueLength > limit - valueOffset) {
+            return null;
+        }
+        byte[] value = new byte[valueLength];
+        ByteBuffer entry = buffer.duplicate();
+        entry.position(valueOffset);
+        entry.get(value);
+        return checksum == checksum(key, value) ? value : null;
+    }
+
+    private static long hash(byte[] key) {
+        return Hashing.murmur3_128().hashBytes(key).asLong();
+    }
+
+    private static int checksum(byte[] key, byte[] value) {
+        CRC32 crc = new CRC32();
+        crc.update(key);
+        crc.update(value);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A typed view of the entries of the index with a given name.
+     */
+    public class Cache<K, V> {
+        private final String name;
+        private final Serializer<K> keySerializer;
+        private final Serializer<V> valueSerializer;
+
+        private Cache(String name, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+            this.name = name;
+            this.keySerializer = keySerializer;
+            this.valueSerializer = valueSerializer;
+        }
+
+        @Nullable
+        public V get(K key) {
+            if (!enabled) {
+                return null;
+            }
+            byte[] value = SharedModuleCacheIndex.this.get(encodeKey(key));
+            if (value == null) {
+                return null;
+            }
+            try {
+                KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(value));
+                try {
+                    return valueSerializer.read(decoder);
+                } finally {
+                    decoder.close();
+                }
+            } catch (Exception e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        public void put(K key, V value) {
+            if (!enabled) {
+                return;
+            }
+            SharedModuleCacheIndex.this.put(encodeKey(key), encodeValue(value));
+        }
+
+        /**
+         * Adds a value that was found in the persistent caches after a lookup in this index missed. The value is added in a batch
+         * with other such values, and only when the index has no entry for the key by then.
+         */
+        public void putLater(K key, V value) {
+            if (!enabled) {
+                return;
+            }
+            SharedModuleCacheIndex.this.putLater(encodeKey(key), encodeValue(value));
+        }
+
+        public void remove(K key) {
+            if (!enabled) {
+                return;
+            }
+            SharedModuleCacheIndex.this.put(encodeKey(key), null);
+        }
+
+        private byte[] encodeValue(V value) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            KryoBackedEncoder encoder = new KryoBackedEncoder(bytes);
+            try {
+                valueSerializer.write(encoder, value);
+                encoder.flush();
+            } catch (Exception e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        private byte[] encodeKey(K key) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            KryoBackedEncoder encoder = new KryoBackedEncoder(bytes);
+            try {
+                encoder.writeString(name);
+                keySerializer.write(encoder, key);
+                encoder.flush();
+            } catch (Exception e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -15,7 +15,6 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.modulecache;
 
-import com.google.common.collect.Interner;
 import org.gradle.internal.serialize.Decoder;
 
 import javax.annotation.Nullable;
@@ -24,13 +23,16 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 
-class StringDeduplicatingDecoder implements Decoder, Closeable {
+/**
+ * Reads strings written by {@link StringTableEncoder} from a {@link ModuleMetadataStringTable}.
+ */
+class StringTableDecoder implements Decoder, Closeable {
     private final Decoder delegate;
-    private final Interner<String> stringInterner;
+    private final ModuleMetadataStringTable stringTable;
 
-    StringDeduplicatingDecoder(Decoder delegate, Interner<String> stringInterner) {
+    StringTableDecoder(Decoder delegate, ModuleMetadataStringTable stringTable) {
         this.delegate = delegate;
-        this.stringInterner = stringInterner;
+        this.stringTable = stringTable;
     }
 
     @Override
@@ -65,17 +67,18 @@ class StringDeduplicatingDecoder implements Decoder, Closeable {
 
     @Override
     public String readString() throws EOFException, IOException {
-        return stringInterner.intern(delegate.readString());
+        int index = delegate.readSmallInt();
+        return index == 0 ? delegate.readString() : stringTable.get(index - 1);
     }
 
     @Override
     @Nullable
     public String readNullableString() throws EOFException, IOException {
-        String str = delegate.readNullableString();
-        if (str != null) {
-            str = stringInterner.intern(str);
+        int index = delegate.readSmallInt();
+        if (index == 0) {
+            return null;
         }
-        return str;
+        return index == 1 ? delegate.readString() : stringTable.get(index - 2);
     }
 
     @Override
@@ -19,6 +19,7 @@ package org.gradle.api.internal.artifacts.ivyservice.modulecache.artifacts;
 import com.google.common.collect.Maps;
 import org.gradle.api.artifacts.component.ComponentArtifactIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.SharedModuleCacheIndex;
 import org.gradle.api.internal.artifacts.metadata.ComponentArtifactIdentifierSerializer;
 import org.gradle.api.internal.artifacts.metadata.ModuleComponentFileArtifactIdentifierSerializer;
 import org.gradle.internal.component.external.model.DefaultModuleComponentArtifactIdentifier;
@@ -42,10 +43,14 @@ public class DefaultModuleArtifactCache extends AbstractCachedIndex<ArtifactAtRe
     private static final CachedArtifactSerializer VALUE_SERIALIZER = new CachedArtifactSerializer();
     private final BuildCommencedTimeProvider timeProvider;
     private final Map<ArtifactAtRepositoryKey, CachedArtifact> inMemoryCache = Maps.newConcurrentMap();
+    private final SharedModuleCacheIndex.Cache<ArtifactAtRepositoryKey, CachedArtifact> sharedCache;
+    private final FileAccessTracker fileAccessTracker;
 
-    public DefaultModuleArtifactCache(String persistentCacheFile, BuildCommencedTimeProvider timeProvider, ArtifactCacheLockingManager artifactCacheLockingManager, FileAccessTracker fileAccessTracker) {
+    public DefaultModuleArtifactCache(String persistentCacheFile, BuildCommencedTimeProvider timeProvider, ArtifactCacheLockingManager artifactCacheLockingManager, FileAccessTracker fileAccessTracker, SharedModuleCacheIndex sharedIndex) {
         super(persistentCacheFile, KEY_SERIALIZER, VALUE_SERIALIZER, artifactCacheLockingManager, fileAccessTracker);
         this.timeProvider = timeProvider;
+        this.fileAccessTracker = fileAccessTracker;
+        this.sharedCache = sharedIndex.cache(persistentCacheFile, KEY_SERIALIZER, VALUE_SERIALIZER);
     }
 
     protected static ArtifactAtRepositoryKeySerializer keySerializer() {
@@ -77,6 +82,7 @@ public class DefaultModuleArtifactCache extends AbstractCachedIndex<ArtifactAtRe
     protected void storeInternal(ArtifactAtRepositoryKey key, CachedArtifact entry) {
         inMemoryCache.put(key, entry);
         super.storeInternal(key, entry);
+        sharedCache.put(key, entry);
     }
 
     @Override
@@ -88,9 +94,19 @@ public class DefaultModuleArtifactCache extends AbstractCachedIndex<ArtifactAtRe
             return inMemoryCachedArtifact;
         }
 
+        CachedArtifact sharedCachedArtifact = sharedCache.get(key);
+        if (sharedCachedArtifact != null && (sharedCachedArtifact.isMissing() || sharedCachedArtifact.getCachedFile().exists())) {
+            if (!sharedCachedArtifact.isMissing()) {
+                fileAccessTracker.markAccessed(sharedCachedArtifact.getCachedFile());
+            }
+            inMemoryCache.put(key, sharedCachedArtifact);
+            return sharedCachedArtifact;
+        }
+
         CachedArtifact cachedArtifact = super.lookup(key);
         if (cachedArtifact != null) {
             inMemoryCache.put(key, cachedArtifact);
+            sharedCache.putLater(key, cachedArtifact);
             return cachedArtifact;
         }
 
@@ -101,6 +117,7 @@ public class DefaultModuleArtifactCache extends AbstractCachedIndex<ArtifactAtRe
     public void clear(ArtifactAtRepositoryKey key) {
         super.clear(key);
         inMemoryCache.remove(key);
+        sharedCache.remove(key);
     }
 
     private static class ArtifactAtRepositoryKeySerializer implements Serializer<ArtifactAtRepositoryKey> {
@@ -25,6 +25,7 @@ import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
 import org.gradle.api.internal.artifacts.ResolveContext;
 import org.gradle.api.internal.artifacts.configurations.ConflictResolution;
 import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
 import org.gradle.api.internal.artifacts.ivyservice.clientmodule.ClientModuleResolver;
 import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.CachingDependencySubstitutionApplicator;
 import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DefaultDependencySubstitutionApplicator;
@@ -45,6 +46,11 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.Modul
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder.DependencyGraphBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache.CachedResolvedGraph;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache.ResolvedGraphCache;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache.ResolvedGraphFingerprinter;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache.ResolvedGraphRecorder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache.ResolvedGraphReplayer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.DefaultCapabilitiesConflictHandler;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.DefaultConflictHandler;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.LastCandidateCapabilityResolver;
@@ -55,8 +61,11 @@ import org.gradle.api.internal.artifacts.type.ArtifactTypeRegistry;
 import org.gradle.api.internal.attributes.AttributesSchemaInternal;
 import org.gradle.api.internal.attributes.ImmutableAttributesFactory;
 import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
 import org.gradle.internal.Actions;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
 import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.resolve.caching.ComponentMetadataSupplierRuleExecutor;
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
@@ -71,6 +80,12 @@ import java.util.List;
 import static org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionApplicator.NO_OP;
 
 public class DefaultArtifactDependencyResolver implements ArtifactDependencyResolver {
+    /**
+     * Enables the persistent cache of resolved graphs. When the inputs of a resolution match those of a graph resolved by an earlier build,
+     * and the module metadata that graph was resolved from is unchanged, the graph is replayed from the cache rather than traversed again.
+     */
+    public static final String CACHE_RESOLVED_GRAPHS_PROPERTY = "org.gradle.internal.resolution.cacheResolvedGraphs";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultArtifactDependencyResolver.class);
     private final DependencyDescriptorFactory dependencyDescriptorFactory;
     private final List<ResolverProviderFactory> resolverFactories;
@@ -84,6 +99,8 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
     private final VersionSelectorScheme versionSelectorScheme;
     private final VersionParser versionParser;
     private final ComponentMetadataSupplierRuleExecutor componentMetadataSupplierRuleExecutor;
+    private final ResolvedGraphCache resolvedGraphCache;
+    private final ResolvedGraphFingerprinter graphFingerprinter = new ResolvedGraphFingerprinter();
 
     public DefaultArtifactDependencyResolver(BuildOperationExecutor buildOperationExecutor,
                                              List<ResolverProviderFactory> resolverFactories,
@@ -96,7 +113,8 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
                                              ImmutableAttributesFactory attributesFactory,
                                              VersionSelectorScheme versionSelectorScheme,
                                              VersionParser versionParser,
-                                             ComponentMetadataSupplierRuleExecutor componentMetadataSupplierRuleExecutor) {
+                                             ComponentMetadataSupplierRuleExecutor componentMetadataSupplierRuleExecutor,
+                                             ResolvedGraphCache resolvedGraphCache) {
         this.resolverFactories = resolverFactories;
         this.projectDependencyResolver = projectDependencyResolver;
         this.ivyFactory = ivyFactory;
@@ -109,6 +127,7 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
         this.versionSelectorScheme = versionSelectorScheme;
         this.versionParser = versionParser;
         this.componentMetadataSupplierRuleExecutor = componentMetadataSupplierRuleExecutor;
+        this.resolvedGraphCache = resolvedGraphCache;
     }
 
     @Override
@@ -118,9 +137,44 @@ public class DefaultArtifactDependencyResolver implements ArtifactDependencyReso
         DependencyGraphBuilder builder = createDependencyGraphBuilder(resolvers, resolveContext.getResolutionStrategy(), metadataHandler, edgeFilter, consumerSchema, moduleExclusions, buildOperationExecutor);
 
         DependencyGraphVisitor artifactsGraphVisitor = new ResolvedArtifactsGraphVisitor(artifactsVisitor, resolvers.getArtifactSelector());
+        DependencyGraphVisitor visitor = new CompositeDependencyGraphVisitor(graphVisitor, artifactsGraphVisitor);
+
+        if (Boolean.getBoolean(CACHE_RESOLVED_GRAPHS_PROPERTY) && edgeFilter == Specs.SATISFIES_ALL) {
+            resolveWithGraphCache(resolveContext, repositories, metadataHandler, resolvers, builder, visitor);
+            return;
+        }
 
         // Resolve the dependency graph
-        builder.resolve(resolveContext, new CompositeDependencyGraphVisitor(graphVisitor, artifactsGraphVisitor));
+        builder.resolve(resolveContext, visitor);
+    }
+
+    /**
+     * Replays the graph from the resolved graph cache when possible. Otherwise resolves the graph and stores it in the cache for later builds.
+     */
+    private void resolveWithGraphCache(ResolveContext resolveContext, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler, ComponentResolversChain resolvers, DependencyGraphBuilder builder, DependencyGraphVisitor visitor) {
+        ComponentResolveMetadata rootMetadata = resolveContext.toRootComponentMetaData();
+        HashCode key = graphFingerprinter.fingerprint(resolveContext, rootMetadata, repositories, metadataHandler);
+        if (key == null) {
+            builder.resolve(resolveContext, visitor);
+            return;
+        }
+
+        ModuleReplacementsData moduleReplacements = metadataHandler.getModuleMetadataProcessor().getModuleReplacements();
+        CachedResolvedGraph cachedGraph = resolvedGraphCache.get(key);
+        if (cachedGraph != null) {
+            ResolvedGraphReplayer replayer = new ResolvedGraphReplayer(resolvers.getComponentResolver(), moduleReplacements);
+            if (replayer.replay(cachedGraph, rootMetadata, resolveContext.getName(), visitor)) {
+                LOGGER.debug("Reused resolved graph of {} from cache", resolveContext);
+                return;
+            }
+            LOGGER.debug("Cached graph of {} is out of date", resolveContext);
+        }
+
+        ResolvedGraphRecorder recorder = new ResolvedGraphRecorder(versionSelectorScheme, moduleReplacements);
+        builder.resolve(resolveContext, new CompositeDependencyGraphVisitor(visitor, recorder));
+        if (recorder.getGraph() != null) {
+            resolvedGraphCache.store(key, recorder.getGraph());
+        }
     }
 
     private DependencyGraphBuilder createDependencyGraphBuilder(ComponentResolversChain componentSource, ResolutionStrategyInternal resolutionStrategy, GlobalDependencyResolutionRules globalRules, Spec<? super DependencyMetadata> edgeFilter, AttributesSchemaInternal attributesSchema, ModuleExclusions moduleExclusions, BuildOperationExecutor buildOperationExecutor) {
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+
+import java.util.BitSet;
+
+/**
+ * Excludes any module that matches one of a set of group, module name or group + module name exclude rules, or every module.
+ * The rules are held as bit sets over the indexes of a {@link ModuleIdentifierIndex}, in a canonical form:
+ * a module id is never present when its group or module name is, and nothing else is present when every module is excluded.
+ * This means that two instances exclude the same modules exactly when they are equal.
+ * Does not exclude artifacts.
+ */
+class IndexedModuleExclusion extends AbstractModuleExclusion {
+    private static final BitSet EMPTY = new BitSet();
+
+    private final ModuleIdentifierIndex index;
+    private final boolean all;
+    private final BitSet groups;
+    private final BitSet names;
+    private final BitSet modules;
+
+    /**
+     * Creates an exclusion from the given bit sets, which are owned by the new instance from then on.
+     */
+    IndexedModuleExclusion(ModuleIdentifierIndex index, boolean all, BitSet groups, BitSet names, BitSet modules) {
+        this.index = index;
+        this.all = all;
+        if (all) {
+            this.groups = EMPTY;
+            this.names = EMPTY;
+            this.modules = EMPTY;
+        } else {
+            this.groups = groups;
+            this.names = names;
+            this.modules = modules;
+            index.removeMatchingModules(modules, groups, names);
+        }
+    }
+
+    boolean isEmpty() {
+        return !all && groups.isEmpty() && names.isEmpty() && modules.isEmpty();
+    }
+
+    /**
+     * Returns an exclusion that excludes the modules that are excluded by either this or the other exclusion.
+     */
+    IndexedModuleExclusion or(IndexedModuleExclusion other) {
+        if (all || other.all) {
+            return new IndexedModuleExclusion(index, true, EMPTY, EMPTY, EMPTY);
+        }
+        return new IndexedModuleExclusion(index, false, or(groups, other.groups), or(names, other.names), or(modules, other.modules));
+    }
+
+    /**
+     * Returns an exclusion that excludes the modules that are excluded by both this and the other exclusion.
+     */
+    IndexedModuleExclusion and(IndexedModuleExclusion other) {
+        if (all) {
+            return other;
+        }
+        if (other.all) {
+            return this;
+        }
+        BitSet modules = and(this.modules, other.modules);
+        index.addModules(groups, other.names, modules);
+        index.addModules(other.groups, names, modules);
+        index.addMatchingModules(this.modules, other.groups, other.names, modules);
+        index.addMatchingModules(other.modules, groups, names, modules);
+        return new IndexedModuleExclusion(index, false, and(groups, other.groups), and(names, other.names), modules);
+    }
+
+    private static BitSet or(BitSet one, BitSet two) {
+        BitSet result = (BitSet) one.clone();
+        result.or(two);
+        return result;
+    }
+
+    private static BitSet and(BitSet one, BitSet two) {
+        BitSet result = (BitSet) one.clone();
+        result.and(two);
+        return result;
+    }
+
+    @Override
+    public boolean excludeModule(ModuleIdentifier id) {
+        if (all) {
+            return true;
+        }
+        return index.matches(id, groups, names, modules);
+    }
+
+    @Override
+    protected boolean excludesNoModules() {
+        return isEmpty();
+    }
+
+    @Override
+    protected boolean doExcludesSameModulesAs(AbstractModuleExclusion other) {
+        return equals(other);
+    }
+
+    @Override
+    protected boolean doEquals(Object obj) {
+        IndexedModuleExclusion other = (IndexedModuleExclusion) obj;
+        return index == other.index && all == other.all && groups.equals(other.groups) && names.equals(other.names) && modules.equals(other.modules);
+    }
+
+    @Override
+    protected int doHashCode() {
+        int result = all ? 1 : 0;
+        result = 31 * result + groups.hashCode();
+        result = 31 * result + names.hashCode();
+        result = 31 * result + modules.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return all ? "{indexed exclude-all}" : "{indexed groups " + groups + " names " + names + " modules " + modules + "}";
+    }
+}
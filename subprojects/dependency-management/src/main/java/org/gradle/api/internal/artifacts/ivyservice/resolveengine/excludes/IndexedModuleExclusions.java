@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.internal.component.model.ExcludeMetadata;
+
+import java.util.BitSet;
+import java.util.Map;
+
+import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.AbstractModuleExclusion.isWildcard;
+
+/**
+ * Exclusions for a single resolution, which represent the group, module name and module id exclude rules as bit sets of interned ids.
+ *
+ * <p>Exclude rules that use the exact matcher and no artifact are collected into an {@link IndexedModuleExclusion}, so that the union and intersection
+ * of such exclusions are bitwise operations and checking a module is a couple of lookups, regardless of the number of rules. Artifact exclude rules and rules
+ * that use other pattern matchers are handled as in {@link ModuleExclusions}, which then treats the indexed exclusion as one more rule.</p>
+ */
+class IndexedModuleExclusions extends ModuleExclusions {
+    private final ModuleIdentifierIndex index = new ModuleIdentifierIndex();
+    private final Map<ImmutableList<ExcludeMetadata>, ModuleExclusion> excludeAnyCache = Maps.newConcurrentMap();
+    private final Map<IndexedModuleExclusion, IndexedModuleExclusion> indexedExclusions = Maps.newConcurrentMap();
+
+    IndexedModuleExclusions(ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
+        super(moduleIdentifierFactory);
+    }
+
+    @Override
+    public ModuleExclusions forResolution() {
+        return this;
+    }
+
+    @Override
+    public ModuleExclusion excludeAny(ImmutableList<ExcludeMetadata> excludes) {
+        if (excludes.isEmpty()) {
+            return excludeNone();
+        }
+        ModuleExclusion exclusion = excludeAnyCache.get(excludes);
+        if (exclusion != null) {
+            return exclusion;
+        }
+        boolean all = false;
+        BitSet groups = new BitSet();
+        BitSet names = new BitSet();
+        BitSet modules = new BitSet();
+        ImmutableList.Builder<ExcludeMetadata> otherExcludes = ImmutableList.builder();
+        for (ExcludeMetadata exclude : excludes) {
+            if (exclude.getArtifact() != null || !PatternMatchers.isExactMatcher(exclude.getMatcher())) {
+                otherExcludes.add(exclude);
+                continue;
+            }
+            ModuleIdentifier moduleId = exclude.getModuleId();
+            boolean anyOrganisation = isWildcard(moduleId.getGroup());
+            boolean anyModule = isWildcard(moduleId.getName());
+            if (anyOrganisation && anyModule) {
+                all = true;
+            } else if (anyOrganisation) {
+                names.set(index.name(moduleId.getName()));
+            } else if (anyModule) {
+                groups.set(index.group(moduleId.getGroup()));
+            } else {
+                modules.set(index.module(moduleId));
+            }
+        }
+        exclusion = intersect(indexed(new IndexedModuleExclusion(index, all, groups, names, modules)), super.excludeAny(otherExcludes.build()));
+        excludeAnyCache.put(excludes, exclusion);
+        return exclusion;
+    }
+
+    @Override
+    public ModuleExclusion intersect(ModuleExclusion one, ModuleExclusion two) {
+        if (one instanceof IndexedModuleExclusion && two instanceof IndexedModuleExclusion) {
+            if (one == two) {
+                return one;
+            }
+            return indexed(((IndexedModuleExclusion) one).or((IndexedModuleExclusion) two));
+        }
+        return super.intersect(one, two);
+    }
+
+    @Override
+    public ModuleExclusion union(ModuleExclusion one, ModuleExclusion two) {
+        if (one instanceof IndexedModuleExclusion && two instanceof IndexedModuleExclusion) {
+            if (one == two) {
+                return one;
+            }
+            return indexed(((IndexedModuleExclusion) one).and((IndexedModuleExclusion) two));
+        }
+        return super.union(asMergeable(one), asMergeable(two));
+    }
+
+    /**
+     * Wraps an indexed exclusion into an intersection, which is what {@link ModuleExclusions} merges when calculating a union.
+     */
+    private ModuleExclusion asMergeable(ModuleExclusion exclusion) {
+        if (exclusion instanceof IndexedModuleExclusion) {
+            return asIntersection(ImmutableSet.<AbstractModuleExclusion>of((IndexedModuleExclusion) exclusion));
+        }
+        return exclusion;
+    }
+
+    /**
+     * Returns a shared instance equal to the given exclusion, so that equal exclusions are most often identical.
+     */
+    private ModuleExclusion indexed(IndexedModuleExclusion exclusion) {
+        if (exclusion.isEmpty()) {
+            return excludeNone();
+        }
+        IndexedModuleExclusion existing = indexedExclusions.get(exclusion);
+        if (existing != null) {
+            return existing;
+        }
+        indexedExclusions.put(exclusion, exclusion);
+        return exclusion;
+    }
+}
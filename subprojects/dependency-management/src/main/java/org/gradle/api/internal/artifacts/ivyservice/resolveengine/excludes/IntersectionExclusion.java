@@ -101,7 +101,8 @@ class IntersectionExclusion extends AbstractCompositeExclusion {
             || excludeSpec instanceof ArtifactExcludeSpec
             || excludeSpec instanceof GroupNameExcludeSpec
             || excludeSpec instanceof ModuleNameExcludeSpec
-            || excludeSpec instanceof ModuleIdExcludeSpec;
+            || excludeSpec instanceof ModuleIdExcludeSpec
+            || excludeSpec instanceof IndexedModuleExclusion;
     }
 
 }
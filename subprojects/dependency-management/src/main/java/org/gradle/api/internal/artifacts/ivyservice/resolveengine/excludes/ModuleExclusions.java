@@ -52,6 +52,12 @@ import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.exclude
  * is depended on via multiple paths in the graph, then the resulting exclusion is the _union_ of the exclusions on each of those paths (module is excluded if excluded by _all_).</li> </ul>
  */
 public class ModuleExclusions {
+    /**
+     * When set to true, each resolution evaluates the exclude rules using {@link IndexedModuleExclusions}, which represents group, module name and module id
+     * exclude rules as bit sets rather than as sets of rule objects.
+     */
+    public static final String INDEXED_EXCLUSIONS_PROPERTY = "org.gradle.internal.resolution.indexedExcludes";
+
     private static final ExcludeNone EXCLUDE_NONE = new ExcludeNone();
     private static final ExcludeAllModulesSpec EXCLUDE_ALL_MODULES_SPEC = new ExcludeAllModulesSpec();
 
@@ -71,6 +77,16 @@ public class ModuleExclusions {
         this.moduleIdentifierFactory = moduleIdentifierFactory;
     }
 
+    /**
+     * Returns the exclusions to use for a single resolution.
+     */
+    public ModuleExclusions forResolution() {
+        if (Boolean.getBoolean(INDEXED_EXCLUSIONS_PROPERTY)) {
+            return new IndexedModuleExclusions(moduleIdentifierFactory);
+        }
+        return this;
+    }
+
     /**
      * Returns a spec that excludes nothing.
      */
@@ -321,7 +337,7 @@ public class ModuleExclusions {
         return exclusion;
     }
 
-    private IntersectionExclusion asIntersection(ImmutableSet<AbstractModuleExclusion> excludes) {
+    IntersectionExclusion asIntersection(ImmutableSet<AbstractModuleExclusion> excludes) {
         IntersectionExclusion cached = intersectionCache.get(excludes);
         if (cached == null) {
             cached = new IntersectionExclusion(new ImmutableModuleExclusionSet(excludes));
@@ -349,6 +365,12 @@ public class ModuleExclusions {
             // Excludes _no_ modules, may exclude some artifacts.
             // This isn't right: We are losing the artifacts excluded by spec2
             merged.add(spec2);
+        } else if (spec1 instanceof IndexedModuleExclusion && spec2 instanceof IndexedModuleExclusion) {
+            // Merge into a single exclusion for the modules excluded by both
+            IndexedModuleExclusion intersection = ((IndexedModuleExclusion) spec1).and((IndexedModuleExclusion) spec2);
+            if (!intersection.isEmpty()) {
+                merged.add(intersection);
+            }
         } else if (spec1 instanceof GroupNameExcludeSpec) {
             // Merge into a single exclusion for Group + Module
             mergeExcludeRules((GroupNameExcludeSpec) spec1, spec2, merged);
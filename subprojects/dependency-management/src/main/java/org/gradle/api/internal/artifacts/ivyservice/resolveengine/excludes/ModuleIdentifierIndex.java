@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.ModuleIdentifier;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Assigns a dense integer index to every group, module name and group + module name pair used by the exclude rules of a single resolution,
+ * so that sets of them can be represented as bit sets.
+ *
+ * <p>Indexes are only assigned while exclusions are created. Checking whether a module matches, which happens for every edge of the graph,
+ * only looks up the existing indexes and does not lock: a group, module name or module that has no index is not used by any rule.</p>
+ */
+class ModuleIdentifierIndex {
+    private final Object lock = new Object();
+    private final Map<String, Integer> groups = Maps.newConcurrentMap();
+    private final Map<String, Integer> names = Maps.newConcurrentMap();
+    private final Map<Long, Integer> modules = Maps.newConcurrentMap();
+    // Guarded by lock
+    private int[] moduleGroups = new int[64];
+    private int[] moduleNames = new int[64];
+
+    int group(String group) {
+        Integer index = groups.get(group);
+        if (index != null) {
+            return index;
+        }
+        synchronized (lock) {
+            return intern(groups, group);
+        }
+    }
+
+    int name(String name) {
+        Integer index = names.get(name);
+        if (index != null) {
+            return index;
+        }
+        synchronized (lock) {
+            return intern(names, name);
+        }
+    }
+
+    /**
+     * Returns the index of the module with the given group and module name indexes.
+     */
+    int module(int group, int name) {
+        Long key = key(group, name);
+        Integer index = modules.get(key);
+        if (index != null) {
+            return index;
+        }
+        synchronized (lock) {
+            index = modules.get(key);
+            if (index == null) {
+                index = modules.size();
+                if (index == moduleGroups.length) {
+                    moduleGroups = Arrays.copyOf(moduleGroups, index * 2);
+                    moduleNames = Arrays.copyOf(moduleNames, index * 2);
+                }
+                moduleGroups[index] = group;
+                moduleNames[index] = name;
+                modules.put(key, index);
+            }
+            return index;
+        }
+    }
+
+    int module(ModuleIdentifier id) {
+        return module(group(id.getGroup()), name(id.getName()));
+    }
+
+    /**
+     * Returns true when the given module has one of the given groups, one of the given module names, or is one of the given modules.
+     * Does not assign any index.
+     */
+    boolean matches(ModuleIdentifier id, BitSet groups, BitSet names, BitSet modules) {
+        Integer group = this.groups.get(id.getGroup());
+        if (group != null && groups.get(group)) {
+            return true;
+        }
+        Integer name = this.names.get(id.getName());
+        if (name != null && names.get(name)) {
+            return true;
+        }
+        if (group == null || name == null || modules.isEmpty()) {
+            return false;
+        }
+        Integer module = this.modules.get(key(group, name));
+        return module != null && modules.get(module);
+    }
+
+    /**
+     * Adds every pair of the given groups and module names to the result.
+     */
+    void addModules(BitSet groups, BitSet names, BitSet result) {
+        for (int group = groups.nextSetBit(0); group >= 0; group = groups.nextSetBit(group + 1)) {
+            for (int name = names.nextSetBit(0); name >= 0; name = names.nextSetBit(name + 1)) {
+                result.set(module(group, name));
+            }
+        }
+    }
+
+    /**
+     * Adds every one of the given modules that has one of the given groups or module names to the result.
+     */
+    void addMatchingModules(BitSet modules, BitSet groups, BitSet names, BitSet result) {
+        synchronized (lock) {
+            for (int module = modules.nextSetBit(0); module >= 0; module = modules.nextSetBit(module + 1)) {
+                if (groups.get(moduleGroups[module]) || names.get(moduleNames[module])) {
+                    result.set(module);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every module that has one of the given groups or module names from the given modules.
+     */
+    void removeMatchingModules(BitSet modules, BitSet groups, BitSet names) {
+        if (groups.isEmpty() && names.isEmpty()) {
+            return;
+        }
+        synchronized (lock) {
+            for (int module = modules.nextSetBit(0); module >= 0; module = modules.nextSetBit(module + 1)) {
+                if (groups.get(moduleGroups[module]) || names.get(moduleNames[module])) {
+                    modules.clear(module);
+                }
+            }
+        }
+    }
+
+    private static Long key(int group, int name) {
+        return ((long) group << 32) | (name & 0xffffffffL);
+    }
+
+    /**
+     * Must be called while holding the lock, so that indexes are assigned one at a time.
+     */
+    private static int intern(Map<String, Integer> indexes, String value) {
+        Integer index = indexes.get(value);
+        if (index == null) {
+            index = indexes.size();
+            indexes.put(value, index);
+        }
+        return index;
+    }
+}
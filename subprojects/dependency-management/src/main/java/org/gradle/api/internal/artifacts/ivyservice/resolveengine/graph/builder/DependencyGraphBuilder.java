@@ -41,6 +41,7 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.selector
 import org.gradle.api.internal.attributes.AttributesSchemaInternal;
 import org.gradle.api.internal.attributes.ImmutableAttributesFactory;
 import org.gradle.api.specs.Spec;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
 import org.gradle.internal.component.model.DependencyMetadata;
 import org.gradle.internal.id.IdGenerator;
@@ -61,8 +62,15 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class DependencyGraphBuilder {
+    /**
+     * When set to true, the metadata of transitive dependencies is fetched speculatively as soon as the metadata of the component that declares them has been resolved.
+     * See {@link PrefetchingComponentMetaDataResolver}.
+     */
+    public static final String PREFETCH_METADATA_PROPERTY = "org.gradle.internal.resolution.prefetchMetadata";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(DependencyGraphBuilder.class);
     private final ModuleConflictHandler moduleConflictHandler;
     private final Spec<? super DependencyMetadata> edgeFilter;
@@ -116,12 +124,43 @@ public class DependencyGraphBuilder {
     }
 
     public void resolve(final ResolveContext resolveContext, final DependencyGraphVisitor modelVisitor) {
+        if (Boolean.getBoolean(PREFETCH_METADATA_PROPERTY)) {
+            resolveWithPrefetching(resolveContext, modelVisitor);
+        } else {
+            resolve(resolveContext, modelVisitor, metaDataResolver);
+        }
+    }
+
+    /**
+     * Resolves the graph while fetching metadata speculatively on the build operation queue. Fetches that have not started when the graph is complete are discarded.
+     */
+    private void resolveWithPrefetching(final ResolveContext resolveContext, final DependencyGraphVisitor modelVisitor) {
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<RunnableBuildOperation>>() {
+            @Override
+            public void execute(BuildOperationQueue<RunnableBuildOperation> buildOperationQueue) {
+                PrefetchingComponentMetaDataResolver prefetchingResolver = new PrefetchingComponentMetaDataResolver(metaDataResolver, versionSelectorScheme, buildOperationQueue);
+                try {
+                    resolve(resolveContext, modelVisitor, prefetchingResolver);
+                } catch (Throwable t) {
+                    // Rethrow resolution failures as they are, rather than as a failure of the queue
+                    failure.set(t);
+                } finally {
+                    prefetchingResolver.stop();
+                }
+            }
+        });
+        if (failure.get() != null) {
+            throw UncheckedException.throwAsUncheckedException(failure.get());
+        }
+    }
 
+    private void resolve(ResolveContext resolveContext, DependencyGraphVisitor modelVisitor, ComponentMetaDataResolver componentMetaDataResolver) {
         IdGenerator<Long> idGenerator = new LongIdGenerator();
         DefaultBuildableComponentResolveResult rootModule = new DefaultBuildableComponentResolveResult();
         moduleResolver.resolve(resolveContext, rootModule);
 
-        final ResolveState resolveState = new ResolveState(idGenerator, rootModule, resolveContext.getName(), idResolver, metaDataResolver, edgeFilter, attributesSchema, moduleExclusions, moduleReplacementsData, componentSelectorConverter, attributesFactory, dependencySubstitutionApplicator, versionSelectorScheme, versionComparator, versionParser);
+        final ResolveState resolveState = new ResolveState(idGenerator, rootModule, resolveContext.getName(), idResolver, componentMetaDataResolver, edgeFilter, attributesSchema, moduleExclusions.forResolution(), moduleReplacementsData, componentSelectorConverter, attributesFactory, dependencySubstitutionApplicator, versionSelectorScheme, versionComparator, versionParser);
 
         traverseGraph(resolveState);
 
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.model.ComponentOverrideMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ComponentMetaDataResolver} that speculatively fetches the metadata of the dependencies of each component as soon as the metadata of the component has been resolved,
+ * so that the metadata of a deep graph is not fetched one level at a time.
+ *
+ * Only dependencies with a static version are fetched, using the dependencies of the variants of the component or else of its {@code default} configuration.
+ * The fetched metadata is not used directly. The fetch populates the metadata caches of the repositories, which are then used when the component is resolved as part of the graph.
+ * Metadata of components that do not end up in the graph is simply discarded.
+ */
+class PrefetchingComponentMetaDataResolver implements ComponentMetaDataResolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrefetchingComponentMetaDataResolver.class);
+    private static final String DEFAULT_CONFIGURATION = "default";
+    private static final int MAX_PENDING_FETCHES = 100;
+
+    private final ComponentMetaDataResolver delegate;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final BuildOperationQueue<RunnableBuildOperation> queue;
+    private final Set<ComponentIdentifier> requested = Sets.newConcurrentHashSet();
+    private final ConcurrentMap<ComponentIdentifier, CountDownLatch> fetchesInProgress = new ConcurrentHashMap<ComponentIdentifier, CountDownLatch>();
+    private final AtomicInteger pendingFetches = new AtomicInteger();
+    private volatile boolean stopped;
+
+    PrefetchingComponentMetaDataResolver(ComponentMetaDataResolver delegate, VersionSelectorScheme versionSelectorScheme, BuildOperationQueue<RunnableBuildOperation> queue) {
+        this.delegate = delegate;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.queue = queue;
+    }
+
+    @Override
+    public void resolve(ComponentIdentifier identifier, ComponentOverrideMetadata componentOverrideMetadata, BuildableComponentResolveResult result) {
+        requested.add(identifier);
+        // Wait for a fetch of the same component, rather than fetching it a second time
+        CountDownLatch fetchInProgress = fetchesInProgress.get(identifier);
+        if (fetchInProgress != null) {
+            try {
+                fetchInProgress.await();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        delegate.resolve(identifier, componentOverrideMetadata, result);
+        if (result.hasResult() && result.getFailure() == null) {
+            prefetchDependenciesOf(result.getMetadata());
+        }
+    }
+
+    @Override
+    public boolean isFetchingMetadataCheap(ComponentIdentifier identifier) {
+        return delegate.isFetchingMetadataCheap(identifier);
+    }
+
+    /**
+     * Stops scheduling fetches and discards the fetches that have not started yet.
+     */
+    public void stop() {
+        stopped = true;
+        queue.cancel();
+    }
+
+    private void prefetchDependenciesOf(ComponentResolveMetadata metadata) {
+        Optional<ImmutableList<? extends ConfigurationMetadata>> variants = metadata.getVariantsForGraphTraversal();
+        if (variants.isPresent()) {
+            for (ConfigurationMetadata variant : variants.get()) {
+                prefetchDependenciesOf(variant);
+            }
+        } else {
+            ConfigurationMetadata defaultConfiguration = metadata.getConfiguration(DEFAULT_CONFIGURATION);
+            if (defaultConfiguration != null) {
+                prefetchDependenciesOf(defaultConfiguration);
+            }
+        }
+    }
+
+    private void prefetchDependenciesOf(ConfigurationMetadata configuration) {
+        for (DependencyMetadata dependency : configuration.getDependencies()) {
+            if (stopped) {
+                return;
+            }
+            ComponentIdentifier identifier = toStaticComponentId(dependency.getSelector());
+            if (identifier != null && pendingFetches.get() < MAX_PENDING_FETCHES && requested.add(identifier)) {
+                pendingFetches.incrementAndGet();
+                queue.add(new PrefetchMetadataOperation(identifier, DefaultComponentOverrideMetadata.forDependency(dependency)));
+            }
+        }
+    }
+
+    private ComponentIdentifier toStaticComponentId(ComponentSelector selector) {
+        if (!(selector instanceof ModuleComponentSelector)) {
+            return null;
+        }
+        ModuleComponentSelector moduleSelector = (ModuleComponentSelector) selector;
+        VersionConstraint versionConstraint = moduleSelector.getVersionConstraint();
+        String version = versionConstraint.getPreferredVersion();
+        if (version == null || version.isEmpty() || versionSelectorScheme.parseSelector(version).isDynamic()) {
+            return null;
+        }
+        return DefaultModuleComponentIdentifier.newId(moduleSelector.getModuleIdentifier(), version);
+    }
+
+    private class PrefetchMetadataOperation implements RunnableBuildOperation {
+        private final ComponentIdentifier identifier;
+        private final ComponentOverrideMetadata overrideMetadata;
+
+        PrefetchMetadataOperation(ComponentIdentifier identifier, ComponentOverrideMetadata overrideMetadata) {
+            this.identifier = identifier;
+            this.overrideMetadata = overrideMetadata;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            CountDownLatch fetchInProgress = new CountDownLatch(1);
+            fetchesInProgress.put(identifier, fetchInProgress);
+            try {
+                if (stopped || delegate.isFetchingMetadataCheap(identifier)) {
+                    return;
+                }
+                DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+                delegate.resolve(identifier, overrideMetadata, result);
+                if (result.hasResult() && result.getFailure() == null) {
+                    prefetchDependenciesOf(result.getMetadata());
+                }
+            } catch (Exception e) {
+                // The component is resolved again if it is part of the graph, which reports the failure
+                LOGGER.debug("Could not prefetch metadata for {}.", identifier, e);
+            } finally {
+                fetchesInProgress.remove(identifier);
+                fetchInProgress.countDown();
+                pendingFetches.decrementAndGet();
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Prefetch metadata of " + identifier);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
+import org.gradle.internal.hash.HashValue;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * A resolved dependency graph, detached from the resolution state so that it can be kept in the {@link ResolvedGraphCache} and replayed in a later build.
+ *
+ * <p>Nodes, selectors and edges are kept in the order in which they were visited, so that a replay produces the same results as the original traversal.</p>
+ */
+public class CachedResolvedGraph {
+    private final long rootNodeId;
+    private final List<Component> components;
+    private final List<Selector> selectors;
+    private final List<Node> nodes;
+    private final List<Edge> edges;
+    private final List<Long> edgeVisitOrder;
+
+    public CachedResolvedGraph(long rootNodeId, List<Component> components, List<Selector> selectors, List<Node> nodes, List<Edge> edges, List<Long> edgeVisitOrder) {
+        this.rootNodeId = rootNodeId;
+        this.components = components;
+        this.selectors = selectors;
+        this.nodes = nodes;
+        this.edges = edges;
+        this.edgeVisitOrder = edgeVisitOrder;
+    }
+
+    public long getRootNodeId() {
+        return rootNodeId;
+    }
+
+    public List<Component> getComponents() {
+        return components;
+    }
+
+    public List<Selector> getSelectors() {
+        return selectors;
+    }
+
+    /**
+     * The selected nodes, in the order in which they were visited.
+     */
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * The edges, indexed by the position used in {@link Node#getIncomingEdges()} and {@link Node#getOutgoingEdges()}.
+     */
+    public List<Edge> getEdges() {
+        return edges;
+    }
+
+    /**
+     * The ids of the nodes, in consumer-first order in which their edges were visited.
+     */
+    public List<Long> getEdgeVisitOrder() {
+        return edgeVisitOrder;
+    }
+
+    public static class Component {
+        private final ComponentResult result;
+        private final HashValue metadataHash;
+
+        public Component(ComponentResult result, @Nullable HashValue metadataHash) {
+            this.result = result;
+            this.metadataHash = metadataHash;
+        }
+
+        public ComponentResult getResult() {
+            return result;
+        }
+
+        /**
+         * The hash of the metadata file the component was resolved from, or {@code null} for the root component.
+         */
+        @Nullable
+        public HashValue getMetadataHash() {
+            return metadataHash;
+        }
+    }
+
+    public static class Selector {
+        private final long id;
+        private final ComponentSelector requested;
+
+        public Selector(long id, ComponentSelector requested) {
+            this.id = id;
+            this.requested = requested;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public ComponentSelector getRequested() {
+            return requested;
+        }
+    }
+
+    public static class Node {
+        private final long id;
+        private final long componentId;
+        private final String configurationName;
+        private final int[] incomingEdges;
+        private final int[] outgoingEdges;
+
+        public Node(long id, long componentId, String configurationName, int[] incomingEdges, int[] outgoingEdges) {
+            this.id = id;
+            this.componentId = componentId;
+            this.configurationName = configurationName;
+            this.incomingEdges = incomingEdges;
+            this.outgoingEdges = outgoingEdges;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public long getComponentId() {
+            return componentId;
+        }
+
+        public String getConfigurationName() {
+            return configurationName;
+        }
+
+        public int[] getIncomingEdges() {
+            return incomingEdges;
+        }
+
+        public int[] getOutgoingEdges() {
+            return outgoingEdges;
+        }
+    }
+
+    public static class Edge {
+        private final long fromNodeId;
+        private final long selectorId;
+        private final ComponentSelector requested;
+        private final long selected;
+        private final boolean contributesArtifacts;
+        private final int originalDependency;
+
+        public Edge(long fromNodeId, long selectorId, ComponentSelector requested, long selected, boolean contributesArtifacts, int originalDependency) {
+            this.fromNodeId = fromNodeId;
+            this.selectorId = selectorId;
+            this.requested = requested;
+            this.selected = selected;
+            this.contributesArtifacts = contributesArtifacts;
+            this.originalDependency = originalDependency;
+        }
+
+        public long getFromNodeId() {
+            return fromNodeId;
+        }
+
+        public long getSelectorId() {
+            return selectorId;
+        }
+
+        public ComponentSelector getRequested() {
+            return requested;
+        }
+
+        public long getSelected() {
+            return selected;
+        }
+
+        public boolean isContributesArtifacts() {
+            return contributesArtifacts;
+        }
+
+        /**
+         * The index of the declared dependency this edge was created from in the dependencies of the root configuration, or -1 if the edge is not a first level dependency.
+         */
+        public int getOriginalDependency() {
+            return originalDependency;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentResultSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectorSerializer;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CachedResolvedGraphSerializer extends AbstractSerializer<CachedResolvedGraph> {
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+    private final AttributeContainerSerializer attributeContainerSerializer;
+
+    public CachedResolvedGraphSerializer(ImmutableModuleIdentifierFactory moduleIdentifierFactory, AttributeContainerSerializer attributeContainerSerializer) {
+        this.moduleIdentifierFactory = moduleIdentifierFactory;
+        this.attributeContainerSerializer = attributeContainerSerializer;
+    }
+
+    @Override
+    public CachedResolvedGraph read(Decoder decoder) throws IOException {
+        // The component serializer de-duplicates selection reasons, so use a fresh one for each entry
+        ComponentResultSerializer componentResultSerializer = new ComponentResultSerializer(moduleIdentifierFactory, attributeContainerSerializer);
+        ComponentSelectorSerializer componentSelectorSerializer = new ComponentSelectorSerializer(attributeContainerSerializer);
+
+        long rootNodeId = decoder.readSmallLong();
+
+        int componentCount = decoder.readSmallInt();
+        List<CachedResolvedGraph.Component> components = new ArrayList<CachedResolvedGraph.Component>(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            ComponentResult result = componentResultSerializer.read(decoder);
+            HashValue metadataHash = decoder.readBoolean() ? new HashValue(decoder.readBinary()) : null;
+            components.add(new CachedResolvedGraph.Component(result, metadataHash));
+        }
+
+        int selectorCount = decoder.readSmallInt();
+        List<CachedResolvedGraph.Selector> selectors = new ArrayList<CachedResolvedGraph.Selector>(selectorCount);
+        for (int i = 0; i < selectorCount; i++) {
+            long id = decoder.readSmallLong();
+            ComponentSelector requested = componentSelectorSerializer.read(decoder);
+            selectors.add(new CachedResolvedGraph.Selector(id, requested));
+        }
+
+        int nodeCount = decoder.readSmallInt();
+        List<CachedResolvedGraph.Node> nodes = new ArrayList<CachedResolvedGraph.Node>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            long id = decoder.readSmallLong();
+            long componentId = decoder.readSmallLong();
+            String configurationName = decoder.readString();
+            int[] incomingEdges = readEdgeIndexes(decoder);
+            int[] outgoingEdges = readEdgeIndexes(decoder);
+            nodes.add(new CachedResolvedGraph.Node(id, componentId, configurationName, incomingEdges, outgoingEdges));
+        }
+
+        int edgeCount = decoder.readSmallInt();
+        List<CachedResolvedGraph.Edge> edges = new ArrayList<CachedResolvedGraph.Edge>(edgeCount);
+        for (int i = 0; i < edgeCount; i++) {
+            long fromNodeId = decoder.readSmallLong();
+            long selectorId = decoder.readSmallLong();
+            ComponentSelector requested = componentSelectorSerializer.read(decoder);
+            long selected = decoder.readSmallLong();
+            boolean contributesArtifacts = decoder.readBoolean();
+            int originalDependency = decoder.readInt();
+            edges.add(new CachedResolvedGraph.Edge(fromNodeId, selectorId, requested, selected, contributesArtifacts, originalDependency));
+        }
+
+        int visitCount = decoder.readSmallInt();
+        List<Long> edgeVisitOrder = new ArrayList<Long>(visitCount);
+        for (int i = 0; i < visitCount; i++) {
+            edgeVisitOrder.add(decoder.readSmallLong());
+        }
+
+        return new CachedResolvedGraph(rootNodeId, components, selectors, nodes, edges, edgeVisitOrder);
+    }
+
+    @Override
+    public void write(Encoder encoder, CachedResolvedGraph value) throws IOException {
+        ComponentResultSerializer componentResultSerializer = new ComponentResultSerializer(moduleIdentifierFactory, attributeContainerSerializer);
+        ComponentSelectorSerializer componentSelectorSerializer = new ComponentSelectorSerializer(attributeContainerSerializer);
+
+        encoder.writeSmallLong(value.getRootNodeId());
+
+        encoder.writeSmallInt(value.getComponents().size());
+        for (CachedResolvedGraph.Component component : value.getComponents()) {
+            componentResultSerializer.write(encoder, component.getResult());
+            HashValue metadataHash = component.getMetadataHash();
+            encoder.writeBoolean(metadataHash != null);
+            if (metadataHash != null) {
+                encoder.writeBinary(metadataHash.asByteArray());
+            }
+        }
+
+        encoder.writeSmallInt(value.getSelectors().size());
+        for (CachedResolvedGraph.Selector selector : value.getSelectors()) {
+            encoder.writeSmallLong(selector.getId());
+            componentSelectorSerializer.write(encoder, selector.getRequested());
+        }
+
+        encoder.writeSmallInt(value.getNodes().size());
+        for (CachedResolvedGraph.Node node : value.getNodes()) {
+            encoder.writeSmallLong(node.getId());
+            encoder.writeSmallLong(node.getComponentId());
+            encoder.writeString(node.getConfigurationName());
+            writeEdgeIndexes(encoder, node.getIncomingEdges());
+            writeEdgeIndexes(encoder, node.getOutgoingEdges());
+        }
+
+        encoder.writeSmallInt(value.getEdges().size());
+        for (CachedResolvedGraph.Edge edge : value.getEdges()) {
+            encoder.writeSmallLong(edge.getFromNodeId());
+            encoder.writeSmallLong(edge.getSelectorId());
+            componentSelectorSerializer.write(encoder, edge.getRequested());
+            encoder.writeSmallLong(edge.getSelected());
+            encoder.writeBoolean(edge.isContributesArtifacts());
+            encoder.writeInt(edge.getOriginalDependency());
+        }
+
+        encoder.writeSmallInt(value.getEdgeVisitOrder().size());
+        for (Long nodeId : value.getEdgeVisitOrder()) {
+            encoder.writeSmallLong(nodeId);
+        }
+    }
+
+    private static int[] readEdgeIndexes(Decoder decoder) throws IOException {
+        int[] indexes = new int[decoder.readSmallInt()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = decoder.readSmallInt();
+        }
+        return indexes;
+    }
+
+    private static void writeEdgeIndexes(Encoder encoder, int[] indexes) throws IOException {
+        encoder.writeSmallInt(indexes.length);
+        for (int index : indexes) {
+            encoder.writeSmallInt(index);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheLockingManager;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+
+import javax.annotation.Nullable;
+
+/**
+ * A persistent cache of resolved dependency graphs, shared by the builds that use the same Gradle user home.
+ * Entries are keyed by the fingerprint calculated by {@link ResolvedGraphFingerprinter}.
+ */
+public class ResolvedGraphCache {
+    private final ArtifactCacheLockingManager artifactCacheLockingManager;
+    private final CachedResolvedGraphSerializer graphSerializer;
+    private PersistentIndexedCache<HashCode, CachedResolvedGraph> cache;
+
+    public ResolvedGraphCache(ArtifactCacheLockingManager artifactCacheLockingManager, CachedResolvedGraphSerializer graphSerializer) {
+        this.artifactCacheLockingManager = artifactCacheLockingManager;
+        this.graphSerializer = graphSerializer;
+    }
+
+    private synchronized PersistentIndexedCache<HashCode, CachedResolvedGraph> getCache() {
+        if (cache == null) {
+            cache = artifactCacheLockingManager.createCache("resolved-graphs", BaseSerializerFactory.HASHCODE_SERIALIZER, graphSerializer);
+        }
+        return cache;
+    }
+
+    @Nullable
+    public CachedResolvedGraph get(HashCode key) {
+        return getCache().get(key);
+    }
+
+    public void store(HashCode key, CachedResolvedGraph graph) {
+        getCache().put(key, graph);
+    }
+}
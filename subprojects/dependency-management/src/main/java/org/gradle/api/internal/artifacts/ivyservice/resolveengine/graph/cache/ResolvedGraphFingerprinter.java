@@ -0,0 +1,190 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import com.google.common.collect.Ordering;
+import org.gradle.api.artifacts.ClientModule;
+import org.gradle.api.artifacts.DependencySubstitution;
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.attributes.Attribute;
+import org.gradle.api.attributes.AttributeContainer;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.ResolveContext;
+import org.gradle.api.internal.artifacts.configurations.ConflictResolution;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.api.internal.artifacts.repositories.descriptor.RepositoryDescriptor;
+import org.gradle.internal.Actions;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetadata;
+import org.gradle.internal.component.local.model.LocalConfigurationMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.ExcludeMetadata;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.component.model.LocalOriginDependencyMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.util.GradleVersion;
+
+import javax.annotation.Nullable;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calculates the key of a resolved graph in the {@link ResolvedGraphCache}, from the declared dependencies, resolution strategy, attributes and repositories of a configuration.
+ *
+ * <p>The metadata files the graph was resolved from are not part of the key, as they are only known after resolution. They are checked when the graph is replayed instead,
+ * see {@link ResolvedGraphReplayer}.</p>
+ */
+public class ResolvedGraphFingerprinter {
+    private static final Comparator<Attribute<?>> ATTRIBUTE_ORDER = new Comparator<Attribute<?>>() {
+        @Override
+        public int compare(Attribute<?> o1, Attribute<?> o2) {
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+
+    /**
+     * Returns the key for the graph of the given configuration, or {@code null} when the graph depends on inputs that cannot be fingerprinted,
+     * such as rules, file dependencies or client modules.
+     */
+    @Nullable
+    public HashCode fingerprint(ResolveContext resolveContext, ComponentResolveMetadata rootMetadata, List<? extends ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler) {
+        ResolutionStrategyInternal resolutionStrategy = resolveContext.getResolutionStrategy();
+        if (resolutionStrategy.getConflictResolution() == ConflictResolution.strict
+            || resolutionStrategy.isDependencyLockingEnabled()
+            || resolutionStrategy.getDependencySubstitutionRule() != Actions.<DependencySubstitution>doNothing()
+            || !resolutionStrategy.getComponentSelection().getRules().isEmpty()
+            || metadataHandler.getComponentMetadataProcessorFactory().hasRules()) {
+            return null;
+        }
+        ConfigurationMetadata rootConfiguration = rootMetadata.getConfiguration(resolveContext.getName());
+        if (!(rootConfiguration instanceof LocalConfigurationMetadata) || !((LocalConfigurationMetadata) rootConfiguration).getFiles().isEmpty()) {
+            return null;
+        }
+
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(GradleVersion.current().getVersion());
+        hasher.putString(rootMetadata.getId().getDisplayName());
+        hasher.putString(rootMetadata.getModuleVersionId().toString());
+        hasher.putString(resolveContext.getName());
+        hasher.putString(resolutionStrategy.getConflictResolution().name());
+        putAttributes(hasher, resolveContext.getAttributes());
+
+        List<? extends DependencyMetadata> dependencies = rootConfiguration.getDependencies();
+        hasher.putInt(dependencies.size());
+        for (DependencyMetadata dependency : dependencies) {
+            if (!putDependency(hasher, dependency)) {
+                return null;
+            }
+        }
+        putExcludes(hasher, rootConfiguration.getExcludes());
+
+        hasher.putInt(repositories.size());
+        for (ResolutionAwareRepository repository : repositories) {
+            RepositoryDescriptor descriptor = repository.getDescriptor();
+            hasher.putString(descriptor.name);
+            hasher.putString(descriptor.getType().name());
+            for (Map.Entry<String, ?> property : descriptor.getProperties().entrySet()) {
+                hasher.putString(property.getKey());
+                hasher.putString(String.valueOf(property.getValue()));
+            }
+        }
+        return hasher.hash();
+    }
+
+    private static boolean putDependency(Hasher hasher, DependencyMetadata dependency) {
+        ComponentSelector selector = dependency.getSelector();
+        if (!(selector instanceof ModuleComponentSelector) || dependency.isChanging()) {
+            return false;
+        }
+        if (dependency instanceof DslOriginDependencyMetadata && ((DslOriginDependencyMetadata) dependency).getSource() instanceof ClientModule) {
+            return false;
+        }
+        ModuleComponentSelector moduleSelector = (ModuleComponentSelector) selector;
+        hasher.putString(moduleSelector.getGroup());
+        hasher.putString(moduleSelector.getModule());
+        VersionConstraint versionConstraint = moduleSelector.getVersionConstraint();
+        putNullableString(hasher, versionConstraint.getBranch());
+        putNullableString(hasher, versionConstraint.getRequiredVersion());
+        putNullableString(hasher, versionConstraint.getPreferredVersion());
+        putNullableString(hasher, versionConstraint.getStrictVersion());
+        hasher.putInt(versionConstraint.getRejectedVersions().size());
+        for (String rejectedVersion : versionConstraint.getRejectedVersions()) {
+            hasher.putString(rejectedVersion);
+        }
+        putAttributes(hasher, selector.getAttributes());
+
+        hasher.putBoolean(dependency.isTransitive());
+        hasher.putBoolean(dependency.isPending());
+        putNullableString(hasher, dependency.getReason());
+        if (dependency instanceof LocalOriginDependencyMetadata) {
+            LocalOriginDependencyMetadata localDependency = (LocalOriginDependencyMetadata) dependency;
+            putNullableString(hasher, localDependency.getModuleConfiguration());
+            putNullableString(hasher, localDependency.getDependencyConfiguration());
+            hasher.putBoolean(localDependency.isForce());
+        }
+        putExcludes(hasher, dependency.getExcludes());
+        hasher.putInt(dependency.getArtifacts().size());
+        for (IvyArtifactName artifact : dependency.getArtifacts()) {
+            putArtifact(hasher, artifact);
+        }
+        return true;
+    }
+
+    private static void putExcludes(Hasher hasher, List<ExcludeMetadata> excludes) {
+        hasher.putInt(excludes.size());
+        for (ExcludeMetadata exclude : excludes) {
+            hasher.putString(exclude.getModuleId().getGroup());
+            hasher.putString(exclude.getModuleId().getName());
+            hasher.putBoolean(exclude.getArtifact() != null);
+            if (exclude.getArtifact() != null) {
+                putArtifact(hasher, exclude.getArtifact());
+            }
+            putNullableString(hasher, exclude.getMatcher());
+        }
+    }
+
+    private static void putArtifact(Hasher hasher, IvyArtifactName artifact) {
+        hasher.putString(artifact.getName());
+        putNullableString(hasher, artifact.getType());
+        putNullableString(hasher, artifact.getExtension());
+        putNullableString(hasher, artifact.getClassifier());
+    }
+
+    private static void putAttributes(Hasher hasher, AttributeContainer attributes) {
+        List<Attribute<?>> keys = Ordering.from(ATTRIBUTE_ORDER).sortedCopy(attributes.keySet());
+        hasher.putInt(keys.size());
+        for (Attribute<?> key : keys) {
+            hasher.putString(key.getName());
+            hasher.putString(key.getType().getName());
+            hasher.putString(String.valueOf(attributes.getAttribute(key)));
+        }
+    }
+
+    private static void putNullableString(Hasher hasher, @Nullable String value) {
+        hasher.putBoolean(value != null);
+        if (value != null) {
+            hasher.putString(value);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DetachedComponentResult;
+import org.gradle.api.internal.artifacts.repositories.resolver.MavenUniqueSnapshotComponentIdentifier;
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.hash.HashValue;
+
+import javax.annotation.Nullable;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records the result of a graph traversal so that it can be stored in the {@link ResolvedGraphCache}.
+ *
+ * <p>A graph is only recorded when it can be restored from the cache key and the module metadata alone. It is discarded when it contains failures,
+ * project or file dependencies, dynamic or changing versions, variant-aware components, or dependencies that declare artifacts, attributes or artifact exclusions.</p>
+ */
+public class ResolvedGraphRecorder implements DependencyGraphVisitor {
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final ModuleReplacementsData moduleReplacements;
+    private final List<CachedResolvedGraph.Component> components = Lists.newArrayList();
+    private final Set<Long> visitedComponents = Sets.newHashSet();
+    private final List<CachedResolvedGraph.Selector> selectors = Lists.newArrayList();
+    private final List<DependencyGraphNode> nodes = Lists.newArrayList();
+    private final List<DependencyGraphEdge> edges = Lists.newArrayList();
+    private final Map<DependencyGraphEdge, Integer> edgeIndexes = new IdentityHashMap<DependencyGraphEdge, Integer>();
+    private final Map<Long, int[]> incomingEdges = Maps.newHashMap();
+    private final Map<Long, int[]> outgoingEdges = Maps.newHashMap();
+    private final List<Long> edgeVisitOrder = Lists.newArrayList();
+    private List<? extends DependencyMetadata> rootDependencies;
+    private boolean cacheable = true;
+    private CachedResolvedGraph graph;
+
+    public ResolvedGraphRecorder(VersionSelectorScheme versionSelectorScheme, ModuleReplacementsData moduleReplacements) {
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.moduleReplacements = moduleReplacements;
+    }
+
+    /**
+     * Returns the recorded graph, or {@code null} if the graph cannot be cached.
+     */
+    @Nullable
+    public CachedResolvedGraph getGraph() {
+        return graph;
+    }
+
+    @Override
+    public void start(RootGraphNode root) {
+        rootDependencies = root.getMetadata().getDependencies();
+        if (!root.getOutgoingFileEdges().isEmpty()) {
+            cacheable = false;
+        }
+    }
+
+    @Override
+    public void visitSelector(DependencyGraphSelector selector) {
+        if (!cacheable) {
+            return;
+        }
+        if (!isStatic(selector.getRequested())) {
+            cacheable = false;
+            return;
+        }
+        selectors.add(new CachedResolvedGraph.Selector(selector.getResultId(), selector.getRequested()));
+    }
+
+    @Override
+    public void visitNode(DependencyGraphNode node) {
+        if (!cacheable) {
+            return;
+        }
+        DependencyGraphComponent component = node.getOwner();
+        if (visitedComponents.add(component.getResultId())) {
+            HashValue metadataHash = null;
+            if (!node.isRoot()) {
+                metadataHash = getMetadataHash(component);
+                if (metadataHash == null) {
+                    cacheable = false;
+                    return;
+                }
+            }
+            components.add(new CachedResolvedGraph.Component(detach(component), metadataHash));
+        }
+        nodes.add(node);
+    }
+
+    @Override
+    public void visitEdges(DependencyGraphNode node) {
+        if (!cacheable) {
+            return;
+        }
+        int[] incoming = new int[node.getIncomingEdges().size()];
+        int i = 0;
+        for (DependencyGraphEdge edge : node.getIncomingEdges()) {
+            if (!isCacheable(edge, node)) {
+                cacheable = false;
+                return;
+            }
+            incoming[i++] = indexOf(edge);
+        }
+        int[] outgoing = new int[node.getOutgoingEdges().size()];
+        i = 0;
+        for (DependencyGraphEdge edge : node.getOutgoingEdges()) {
+            if (edge.getFailure() != null) {
+                cacheable = false;
+                return;
+            }
+            outgoing[i++] = indexOf(edge);
+        }
+        incomingEdges.put(node.getNodeId(), incoming);
+        outgoingEdges.put(node.getNodeId(), outgoing);
+        edgeVisitOrder.add(node.getNodeId());
+    }
+
+    @Override
+    public void finish(DependencyGraphNode root) {
+        if (!cacheable) {
+            return;
+        }
+        List<CachedResolvedGraph.Node> cachedNodes = Lists.newArrayListWithCapacity(nodes.size());
+        for (DependencyGraphNode node : nodes) {
+            int[] incoming = incomingEdges.get(node.getNodeId());
+            int[] outgoing = outgoingEdges.get(node.getNodeId());
+            if (incoming == null || outgoing == null) {
+                // Edges of every visited node should have been visited as well
+                return;
+            }
+            cachedNodes.add(new CachedResolvedGraph.Node(node.getNodeId(), node.getOwner().getResultId(), node.getMetadata().getName(), incoming, outgoing));
+        }
+        List<CachedResolvedGraph.Edge> cachedEdges = Lists.newArrayListWithCapacity(edges.size());
+        for (DependencyGraphEdge edge : edges) {
+            int originalDependency = edge.getFrom().isRoot() ? indexOfOriginalDependency(edge.getOriginalDependency()) : -1;
+            cachedEdges.add(new CachedResolvedGraph.Edge(edge.getFrom().getNodeId(), edge.getSelector().getResultId(), edge.getRequested(), edge.getSelected(), edge.contributesArtifacts(), originalDependency));
+        }
+        graph = new CachedResolvedGraph(root.getNodeId(), components, selectors, cachedNodes, cachedEdges, edgeVisitOrder);
+    }
+
+    private int indexOf(DependencyGraphEdge edge) {
+        Integer index = edgeIndexes.get(edge);
+        if (index == null) {
+            index = edges.size();
+            edges.add(edge);
+            edgeIndexes.put(edge, index);
+        }
+        return index;
+    }
+
+    private int indexOfOriginalDependency(@Nullable Dependency originalDependency) {
+        if (originalDependency == null) {
+            return -1;
+        }
+        for (int i = 0; i < rootDependencies.size(); i++) {
+            DependencyMetadata dependency = rootDependencies.get(i);
+            if (dependency instanceof DslOriginDependencyMetadata && ((DslOriginDependencyMetadata) dependency).getSource() == originalDependency) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isStatic(ComponentSelector requested) {
+        if (!(requested instanceof ModuleComponentSelector)) {
+            return false;
+        }
+        VersionConstraint versionConstraint = ((ModuleComponentSelector) requested).getVersionConstraint();
+        return versionConstraint.getBranch() == null
+            && isStatic(versionConstraint.getPreferredVersion())
+            && isStatic(versionConstraint.getRequiredVersion())
+            && isStatic(versionConstraint.getStrictVersion());
+    }
+
+    private boolean isStatic(@Nullable String version) {
+        return version == null || version.isEmpty() || !versionSelectorScheme.parseSelector(version).isDynamic();
+    }
+
+    private static boolean isCacheable(DependencyGraphEdge edge, DependencyGraphNode target) {
+        if (edge.getFailure() != null || !edge.getAttributes().isEmpty()) {
+            return false;
+        }
+        if (edge.contributesArtifacts()) {
+            return edge.getArtifacts(target.getMetadata()).isEmpty() && !edge.getExclusions().mayExcludeArtifacts();
+        }
+        return true;
+    }
+
+    @Nullable
+    private HashValue getMetadataHash(DependencyGraphComponent component) {
+        ComponentIdentifier componentId = component.getComponentId();
+        if (!(componentId instanceof ModuleComponentIdentifier) || componentId instanceof MavenUniqueSnapshotComponentIdentifier) {
+            return null;
+        }
+        if (moduleReplacements.participatesInReplacements(((ModuleComponentIdentifier) componentId).getModuleIdentifier())) {
+            return null;
+        }
+        ComponentResolveMetadata metadata = component.getMetadata();
+        if (!(metadata instanceof ModuleComponentResolveMetadata)
+            || metadata.isChanging()
+            || !metadata.getPlatformOwners().isEmpty()
+            || metadata.getVariantsForGraphTraversal().isPresent()) {
+            return null;
+        }
+        return ((ModuleComponentResolveMetadata) metadata).getOriginalContentHash();
+    }
+
+    private static DetachedComponentResult detach(DependencyGraphComponent component) {
+        return new DetachedComponentResult(component.getResultId(), component.getModuleVersion(), component.getSelectionReason(), component.getComponentId(), component.getVariantName().getDisplayName(), component.getVariantAttributes(), component.getRepositoryName());
+    }
+}
@@ -0,0 +1,432 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.attributes.AttributeContainer;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.dsl.ModuleReplacementsData;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusion;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode;
+import org.gradle.api.internal.attributes.ImmutableAttributes;
+import org.gradle.internal.DisplayName;
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
+import org.gradle.internal.component.local.model.DslOriginDependencyMetadata;
+import org.gradle.internal.component.local.model.LocalFileDependencyMetadata;
+import org.gradle.internal.component.local.model.RootConfigurationMetadata;
+import org.gradle.internal.component.model.ComponentArtifactMetadata;
+import org.gradle.internal.component.model.ComponentResolveMetadata;
+import org.gradle.internal.component.model.ConfigurationMetadata;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.resolve.ModuleVersionResolveException;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replays a {@link CachedResolvedGraph} to a {@link DependencyGraphVisitor}, in the same order as the traversal that recorded it.
+ *
+ * <p>The metadata of each component is resolved again, as it is needed to select artifacts. The graph is rejected without visiting anything
+ * when the metadata is no longer the metadata the graph was resolved from.</p>
+ */
+public class ResolvedGraphReplayer {
+    private final ComponentMetaDataResolver metaDataResolver;
+    private final ModuleReplacementsData moduleReplacements;
+
+    public ResolvedGraphReplayer(ComponentMetaDataResolver metaDataResolver, ModuleReplacementsData moduleReplacements) {
+        this.metaDataResolver = metaDataResolver;
+        this.moduleReplacements = moduleReplacements;
+    }
+
+    /**
+     * Replays the given graph.
+     *
+     * @return true if the graph has been visited, false if it is out of date.
+     */
+    public boolean replay(CachedResolvedGraph graph, ComponentResolveMetadata rootMetadata, String rootConfigurationName, DependencyGraphVisitor visitor) {
+        Map<Long, ReplayedComponent> components = Maps.newHashMap();
+        for (CachedResolvedGraph.Component component : graph.getComponents()) {
+            ComponentResult result = component.getResult();
+            ComponentResolveMetadata metadata;
+            if (component.getMetadataHash() == null) {
+                metadata = rootMetadata;
+            } else {
+                metadata = resolveMetadata(result.getComponentId());
+                if (!(metadata instanceof ModuleComponentResolveMetadata) || !component.getMetadataHash().equals(((ModuleComponentResolveMetadata) metadata).getOriginalContentHash())) {
+                    return false;
+                }
+            }
+            components.put(result.getResultId(), new ReplayedComponent(result, metadata));
+        }
+
+        Map<Long, ReplayedSelector> selectors = Maps.newHashMap();
+        for (CachedResolvedGraph.Selector selector : graph.getSelectors()) {
+            selectors.put(selector.getId(), new ReplayedSelector(selector.getId(), selector.getRequested()));
+        }
+
+        ReplayedRootNode root = null;
+        Map<Long, ReplayedNode> nodes = Maps.newLinkedHashMap();
+        for (CachedResolvedGraph.Node node : graph.getNodes()) {
+            ReplayedComponent component = components.get(node.getComponentId());
+            if (component == null) {
+                return false;
+            }
+            if (node.getId() == graph.getRootNodeId()) {
+                root = new ReplayedRootNode(node.getId(), component, (RootConfigurationMetadata) rootMetadata.getConfiguration(rootConfigurationName));
+                nodes.put(node.getId(), root);
+            } else {
+                ConfigurationMetadata configuration = component.getMetadata().getConfiguration(node.getConfigurationName());
+                if (configuration == null) {
+                    return false;
+                }
+                nodes.put(node.getId(), new ReplayedNode(node.getId(), component, configuration));
+            }
+        }
+        if (root == null || !root.getOutgoingFileEdges().isEmpty()) {
+            return false;
+        }
+
+        List<? extends DependencyMetadata> rootDependencies = root.getMetadata().getDependencies();
+        List<ReplayedEdge> edges = Lists.newArrayListWithCapacity(graph.getEdges().size());
+        for (CachedResolvedGraph.Edge edge : graph.getEdges()) {
+            ReplayedNode from = nodes.get(edge.getFromNodeId());
+            ReplayedSelector selector = selectors.get(edge.getSelectorId());
+            if (from == null || selector == null) {
+                return false;
+            }
+            Dependency originalDependency = null;
+            if (edge.getOriginalDependency() >= 0) {
+                if (edge.getOriginalDependency() >= rootDependencies.size() || !(rootDependencies.get(edge.getOriginalDependency()) instanceof DslOriginDependencyMetadata)) {
+                    return false;
+                }
+                originalDependency = ((DslOriginDependencyMetadata) rootDependencies.get(edge.getOriginalDependency())).getSource();
+            }
+            edges.add(new ReplayedEdge(from, selector, edge.getRequested(), edge.getSelected(), edge.isContributesArtifacts(), originalDependency));
+        }
+
+        for (CachedResolvedGraph.Node node : graph.getNodes()) {
+            ReplayedNode replayedNode = nodes.get(node.getId());
+            for (int index : node.getIncomingEdges()) {
+                replayedNode.incomingEdges.add(edges.get(index));
+            }
+            for (int index : node.getOutgoingEdges()) {
+                replayedNode.outgoingEdges.add(edges.get(index));
+            }
+            replayedNode.getOwner().nodes.add(replayedNode);
+        }
+
+        visitor.start(root);
+        for (CachedResolvedGraph.Selector selector : graph.getSelectors()) {
+            visitor.visitSelector(selectors.get(selector.getId()));
+        }
+        for (ReplayedNode node : nodes.values()) {
+            visitor.visitNode(node);
+        }
+        for (Long nodeId : graph.getEdgeVisitOrder()) {
+            visitor.visitEdges(nodes.get(nodeId));
+        }
+        visitor.finish(root);
+        return true;
+    }
+
+    @Nullable
+    private ComponentResolveMetadata resolveMetadata(ComponentIdentifier componentId) {
+        if (!(componentId instanceof ModuleComponentIdentifier) || moduleReplacements.participatesInReplacements(((ModuleComponentIdentifier) componentId).getModuleIdentifier())) {
+            return null;
+        }
+        DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+        metaDataResolver.resolve(componentId, new DefaultComponentOverrideMetadata(), result);
+        if (result.getFailure() != null) {
+            return null;
+        }
+        return result.getMetadata();
+    }
+
+    private static class ReplayedComponent implements DependencyGraphComponent {
+        private final ComponentResult result;
+        private final ComponentResolveMetadata metadata;
+        private final List<ReplayedNode> nodes = Lists.newArrayList();
+
+        ReplayedComponent(ComponentResult result, ComponentResolveMetadata metadata) {
+            this.result = result;
+            this.metadata = metadata;
+        }
+
+        @Override
+        public Long getResultId() {
+            return result.getResultId();
+        }
+
+        @Override
+        public ComponentIdentifier getComponentId() {
+            return result.getComponentId();
+        }
+
+        @Override
+        public ModuleVersionIdentifier getModuleVersion() {
+            return result.getModuleVersion();
+        }
+
+        @Override
+        public ComponentSelectionReason getSelectionReason() {
+            return result.getSelectionReason();
+        }
+
+        @Override
+        public DisplayName getVariantName() {
+            return result.getVariantName();
+        }
+
+        @Override
+        public AttributeContainer getVariantAttributes() {
+            return result.getVariantAttributes();
+        }
+
+        @Nullable
+        @Override
+        public String getRepositoryName() {
+            return result.getRepositoryName();
+        }
+
+        @Override
+        public ComponentResolveMetadata getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public Collection<? extends DependencyGraphComponent> getDependents() {
+            List<DependencyGraphComponent> dependents = Lists.newArrayList();
+            for (ReplayedNode node : nodes) {
+                for (ReplayedEdge edge : node.incomingEdges) {
+                    dependents.add(edge.getFrom().getOwner());
+                }
+            }
+            return dependents;
+        }
+
+        @Override
+        public Collection<? extends ModuleVersionIdentifier> getAllVersions() {
+            return Collections.singleton(result.getModuleVersion());
+        }
+
+        @Override
+        public String toString() {
+            return result.getComponentId().getDisplayName();
+        }
+    }
+
+    private static class ReplayedSelector implements DependencyGraphSelector {
+        private final Long resultId;
+        private final ComponentSelector requested;
+
+        ReplayedSelector(Long resultId, ComponentSelector requested) {
+            this.resultId = resultId;
+            this.requested = requested;
+        }
+
+        @Override
+        public Long getResultId() {
+            return resultId;
+        }
+
+        @Override
+        public ComponentSelector getRequested() {
+            return requested;
+        }
+    }
+
+    private static class ReplayedNode implements DependencyGraphNode {
+        private final Long nodeId;
+        private final ReplayedComponent owner;
+        private final ConfigurationMetadata metadata;
+        private final ResolvedConfigurationIdentifier id;
+        final List<ReplayedEdge> incomingEdges = Lists.newArrayList();
+        final List<ReplayedEdge> outgoingEdges = Lists.newArrayList();
+
+        ReplayedNode(Long nodeId, ReplayedComponent owner, ConfigurationMetadata metadata) {
+            this.nodeId = nodeId;
+            this.owner = owner;
+            this.metadata = metadata;
+            this.id = new ResolvedConfigurationIdentifier(owner.getModuleVersion(), metadata.getName());
+        }
+
+        @Override
+        public Long getNodeId() {
+            return nodeId;
+        }
+
+        @Override
+        public boolean isRoot() {
+            return false;
+        }
+
+        @Override
+        public ResolvedConfigurationIdentifier getResolvedConfigurationId() {
+            return id;
+        }
+
+        @Override
+        public ReplayedComponent getOwner() {
+            return owner;
+        }
+
+        @Override
+        public Collection<? extends DependencyGraphEdge> getIncomingEdges() {
+            return incomingEdges;
+        }
+
+        @Override
+        public Collection<? extends DependencyGraphEdge> getOutgoingEdges() {
+            return outgoingEdges;
+        }
+
+        @Override
+        public Set<? extends LocalFileDependencyMetadata> getOutgoingFileEdges() {
+            return ImmutableSet.of();
+        }
+
+        @Override
+        public ConfigurationMetadata getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public String toString() {
+            return id.toString();
+        }
+    }
+
+    private static class ReplayedRootNode extends ReplayedNode implements RootGraphNode {
+        ReplayedRootNode(Long nodeId, ReplayedComponent owner, RootConfigurationMetadata metadata) {
+            super(nodeId, owner, metadata);
+        }
+
+        @Override
+        public boolean isRoot() {
+            return true;
+        }
+
+        @Override
+        public Set<? extends LocalFileDependencyMetadata> getOutgoingFileEdges() {
+            return getMetadata().getFiles();
+        }
+
+        @Override
+        public RootConfigurationMetadata getMetadata() {
+            return (RootConfigurationMetadata) super.getMetadata();
+        }
+    }
+
+    private static class ReplayedEdge implements DependencyGraphEdge {
+        private final ReplayedNode from;
+        private final ReplayedSelector selector;
+        private final ComponentSelector requested;
+        private final Long selected;
+        private final boolean contributesArtifacts;
+        private final Dependency originalDependency;
+
+        ReplayedEdge(ReplayedNode from, ReplayedSelector selector, ComponentSelector requested, Long selected, boolean contributesArtifacts, @Nullable Dependency originalDependency) {
+            this.from = from;
+            this.selector = selector;
+            this.requested = requested;
+            this.selected = selected;
+            this.contributesArtifacts = contributesArtifacts;
+            this.originalDependency = originalDependency;
+        }
+
+        @Override
+        public ReplayedNode getFrom() {
+            return from;
+        }
+
+        @Override
+        public DependencyGraphSelector getSelector() {
+            return selector;
+        }
+
+        @Override
+        public ModuleExclusion getExclusions() {
+            // Only graphs where no exclusion applies to artifacts are cached
+            return ModuleExclusions.excludeNone();
+        }
+
+        @Override
+        public boolean contributesArtifacts() {
+            return contributesArtifacts;
+        }
+
+        @Override
+        public List<ComponentArtifactMetadata> getArtifacts(ConfigurationMetadata targetConfiguration) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public ImmutableAttributes getAttributes() {
+            return ImmutableAttributes.EMPTY;
+        }
+
+        @Nullable
+        @Override
+        public Dependency getOriginalDependency() {
+            return originalDependency;
+        }
+
+        @Override
+        public ComponentSelector getRequested() {
+            return requested;
+        }
+
+        @Nullable
+        @Override
+        public ModuleVersionResolveException getFailure() {
+            return null;
+        }
+
+        @Override
+        public Long getSelected() {
+            return selected;
+        }
+
+        @Nullable
+        @Override
+        public ComponentSelectionReason getReason() {
+            return null;
+        }
+    }
+}
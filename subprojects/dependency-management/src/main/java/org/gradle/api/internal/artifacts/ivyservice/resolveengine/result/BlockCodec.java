@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Encodes values into standalone blocks of bytes. Unlike values written to a shared stream, a block does not
+ * depend on anything written before it, so blocks can be decoded individually and in any order.
+ * Serializers that deduplicate values must be reset before each block is encoded or decoded.
+ */
+@NotThreadSafe
+class BlockCodec {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final KryoBackedEncoder encoder = new KryoBackedEncoder(bytes);
+
+    <T> byte[] encode(Serializer<T> serializer, T value) throws IOException {
+        bytes.reset();
+        try {
+            serializer.write(encoder, value);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        encoder.flush();
+        return bytes.toByteArray();
+    }
+
+    static <T> T decode(Serializer<T> serializer, byte[] block) throws IOException {
+        KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(block), Math.max(block.length, 16));
+        try {
+            return serializer.read(decoder);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
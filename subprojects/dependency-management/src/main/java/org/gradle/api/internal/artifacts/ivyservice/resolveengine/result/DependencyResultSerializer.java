@@ -27,10 +27,15 @@ import org.gradle.internal.serialize.Encoder;
 import java.io.IOException;
 import java.util.Map;
 
+/**
+ * Serializes the outgoing edges of a node. The selection reason of a failed edge is written as a standalone block,
+ * so that it can be decoded independently of the other values in the stream.
+ */
 public class DependencyResultSerializer {
-    private final static byte SUCCESSFUL = 0;
-    private final static byte FAILED = 1;
+    final static byte SUCCESSFUL = 0;
+    final static byte FAILED = 1;
     private final ComponentSelectionReasonSerializer componentSelectionReasonSerializer = new ComponentSelectionReasonSerializer();
+    private final BlockCodec blockCodec = new BlockCodec();
 
     public DependencyResult read(Decoder decoder, Map<Long, ComponentSelector> selectors, Map<ComponentSelector, ModuleVersionResolveException> failures) throws IOException {
         Long selectorId = decoder.readSmallLong();
@@ -41,7 +46,7 @@ public class DependencyResultSerializer {
             Long selectedId = decoder.readSmallLong();
             return new DefaultDependencyResult(requested, selectedId, null, null);
         } else if (resultByte == FAILED) {
-            ComponentSelectionReason reason = componentSelectionReasonSerializer.read(decoder);
+            ComponentSelectionReason reason = readReason(decoder.readBinary());
             ModuleVersionResolveException failure = failures.get(requested);
             return new DefaultDependencyResult(requested, null, reason, failure);
         } else {
@@ -56,11 +61,16 @@ public class DependencyResultSerializer {
             encoder.writeSmallLong(value.getSelected());
         } else {
             encoder.writeByte(FAILED);
-            componentSelectionReasonSerializer.write(encoder, value.getReason());
+            componentSelectionReasonSerializer.reset();
+            encoder.writeBinary(blockCodec.encode(componentSelectionReasonSerializer, value.getReason()));
         }
     }
 
-    public void reset() {
+    /**
+     * Decodes the selection reason block of a failed edge.
+     */
+    public ComponentSelectionReason readReason(byte[] block) throws IOException {
         componentSelectionReasonSerializer.reset();
+        return BlockCodec.decode(componentSelectionReasonSerializer, block);
     }
 }
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result;
+
+import com.google.common.collect.MapMaker;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.artifacts.result.DependencyResult;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+import org.gradle.api.artifacts.result.ResolvedVariantResult;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
+import org.gradle.api.internal.artifacts.result.DefaultResolvedDependencyResult;
+import org.gradle.api.internal.artifacts.result.DefaultResolvedVariantResult;
+import org.gradle.api.internal.artifacts.result.DefaultUnresolvedDependencyResult;
+import org.gradle.api.internal.artifacts.result.ResolvedComponentResultInternal;
+import org.gradle.cache.internal.BinaryStore;
+import org.gradle.internal.resolve.ModuleVersionResolveException;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
+
+/**
+ * A resolved dependency graph whose components, selectors and selection reasons are left encoded in the
+ * {@link BinaryStore} they were written to, and read back from it on demand. Only the shape of the graph (which
+ * component depends on which, through which selector) and the location of each encoded block are held on the heap.
+ *
+ * <p>Components are exposed as lightweight views that decode their details, dependencies and dependents on first
+ * access and keep them. Walking part of the graph therefore only decodes the components and edges that are actually
+ * visited. Each selector is decoded once, and an edge is the same dependency result object whether it is reached
+ * from the component it starts at or from the component it selects. Views are equal when they represent the same
+ * component of the same graph.</p>
+ *
+ * <p>The graph is populated from a single thread and must be fully populated before any view is requested.</p>
+ */
+class StoredResolutionResultGraph {
+    private static final long[] NO_EDGES = new long[0];
+
+    private final BinaryStore.BinaryData data;
+    private final Map<Long, ComponentEntry> components = new HashMap<Long, ComponentEntry>();
+    private final Map<Long, Long> selectors = new HashMap<Long, Long>();
+    private final ConcurrentMap<Long, ComponentView> views = new MapMaker().weakValues().makeMap();
+    private final ConcurrentMap<Long, ComponentSelector> decodedSelectors = new ConcurrentHashMap<Long, ComponentSelector>();
+    private final ConcurrentMap<List<Object>, ResolvedDependencyResult> resolvedEdges = new MapMaker().weakValues().makeMap();
+    private final Map<ComponentSelector, ModuleVersionResolveException> failures;
+    private final ComponentResultSerializer componentResultSerializer;
+    private final ComponentSelectorSerializer componentSelectorSerializer;
+    private final DependencyResultSerializer dependencyResultSerializer;
+
+    StoredResolutionResultGraph(BinaryStore.BinaryData data, Map<ComponentSelector, ModuleVersionResolveException> failures, ComponentResultSerializer componentResultSerializer, ComponentSelectorSerializer componentSelectorSerializer, DependencyResultSerializer dependencyResultSerializer) {
+        this.data = data;
+        this.failures = failures;
+        this.componentResultSerializer = componentResultSerializer;
+        this.componentSelectorSerializer = componentSelectorSerializer;
+        this.dependencyResultSerializer = dependencyResultSerializer;
+    }
+
+    /**
+     * Returns the location of a block of the given length, starting at the given read position of the data. Locations are never negative.
+     */
+    static long block(long position, int length) {
+        if (position > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Resolution result is too large to be read lazily.");
+        }
+        return (position << 32) | length;
+    }
+
+    void addComponent(long id, long block) {
+        ComponentEntry entry = entry(id);
+        if (entry.block < 0) {
+            entry.block = block;
+        }
+    }
+
+    void addSelector(long id, long block) {
+        selectors.put(id, block);
+    }
+
+    void addDependency(long fromId, long selectorId, long selectedId) {
+        entry(fromId).addDependency(selectorId, selectedId);
+        entry(selectedId).addDependent(fromId, selectorId);
+    }
+
+    void addUnresolvedDependency(long fromId, long selectorId, long reasonBlock) {
+        // Result ids are never negative, so a negative target marks a failed edge and encodes the location of its reason
+        entry(fromId).addDependency(selectorId, -1 - reasonBlock);
+    }
+
+    ResolvedComponentResult getComponent(long id) {
+        ComponentEntry entry = components.get(id);
+        if (entry == null || entry.block < 0) {
+            throw new IllegalStateException("No component with id " + id + " in the resolution result.");
+        }
+        return view(id);
+    }
+
+    private ComponentEntry entry(long id) {
+        ComponentEntry entry = components.get(id);
+        if (entry == null) {
+            entry = new ComponentEntry();
+            components.put(id, entry);
+        }
+        return entry;
+    }
+
+    private ComponentView view(long id) {
+        ComponentView view = views.get(id);
+        if (view == null) {
+            view = new ComponentView(id);
+            ComponentView existing = views.putIfAbsent(id, view);
+            if (existing != null) {
+                view = existing;
+            }
+        }
+        return view;
+    }
+
+    private synchronized ComponentResult decodeComponent(long id) {
+        try {
+            componentResultSerializer.reset();
+            return BlockCodec.decode(componentResultSerializer, read(components.get(id).block));
+        } catch (IOException e) {
+            throw throwAsUncheckedException(e);
+        }
+    }
+
+    private ComponentSelector selector(long id) {
+        ComponentSelector selector = decodedSelectors.get(id);
+        if (selector == null) {
+            selector = decodeSelector(id);
+            ComponentSelector existing = decodedSelectors.putIfAbsent(id, selector);
+            if (existing != null) {
+                selector = existing;
+            }
+        }
+        return selector;
+    }
+
+    private synchronized ComponentSelector decodeSelector(long id) {
+        try {
+            return BlockCodec.decode(componentSelectorSerializer, read(selectors.get(id)));
+        } catch (IOException e) {
+            throw throwAsUncheckedException(e);
+        }
+    }
+
+    private synchronized ComponentSelectionReason decodeReason(long block) {
+        try {
+            return dependencyResultSerializer.readReason(read(block));
+        } catch (IOException e) {
+            throw throwAsUncheckedException(e);
+        }
+    }
+
+    private byte[] read(long block) {
+        return data.readBytes(block >>> 32, (int) block);
+    }
+
+    private Set<DependencyResult> dependencies(ComponentView from) {
+        ComponentEntry entry = components.get(from.id);
+        // Deduplicate the same way as CachingDependencyResultFactory, as a component may have several nodes with the same edges
+        Map<List<Object>, DependencyResult> results = new LinkedHashMap<List<Object>, DependencyResult>();
+        for (int i = 0; i < entry.dependencyCount; i += 2) {
+            ComponentSelector requested = selector(entry.dependencies[i]);
+            long target = entry.dependencies[i + 1];
+            if (target >= 0) {
+                List<Object> key = Arrays.<Object>asList(requested, target);
+                if (!results.containsKey(key)) {
+                    results.put(key, resolvedEdge(requested, from, view(target)));
+                }
+            } else {
+                List<Object> key = Collections.<Object>singletonList(requested);
+                if (!results.containsKey(key)) {
+                    results.put(key, new DefaultUnresolvedDependencyResult(requested, decodeReason(-1 - target), from, failures.get(requested)));
+                }
+            }
+        }
+        return Collections.unmodifiableSet(new LinkedHashSet<DependencyResult>(results.values()));
+    }
+
+    private Set<ResolvedDependencyResult> dependents(ComponentView selected) {
+        ComponentEntry entry = components.get(selected.id);
+        Map<List<Object>, ResolvedDependencyResult> results = new LinkedHashMap<List<Object>, ResolvedDependencyResult>();
+        for (int i = 0; i < entry.dependentCount; i += 2) {
+            long fromId = entry.dependents[i];
+            ComponentSelector requested = selector(entry.dependents[i + 1]);
+            List<Object> key = Arrays.<Object>asList(requested, fromId);
+            if (!results.containsKey(key)) {
+                results.put(key, resolvedEdge(requested, view(fromId), selected));
+            }
+        }
+        return Collections.unmodifiableSet(new LinkedHashSet<ResolvedDependencyResult>(results.values()));
+    }
+
+    /**
+     * Returns the result for the given edge, shared between the component it starts at and the component it selects.
+     */
+    private ResolvedDependencyResult resolvedEdge(ComponentSelector requested, ComponentView from, ComponentView selected) {
+        List<Object> key = Arrays.<Object>asList(requested, from.id, selected.id);
+        ResolvedDependencyResult result = resolvedEdges.get(key);
+        if (result == null) {
+            result = new DefaultResolvedDependencyResult(requested, selected, from);
+            ResolvedDependencyResult existing = resolvedEdges.putIfAbsent(key, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+        return result;
+    }
+
+    private static class ComponentEntry {
+        long block = -1;
+        long[] dependencies = NO_EDGES;
+        int dependencyCount;
+        long[] dependents = NO_EDGES;
+        int dependentCount;
+
+        void addDependency(long selectorId, long target) {
+            dependencies = append(dependencies, dependencyCount, selectorId, target);
+            dependencyCount += 2;
+        }
+
+        void addDependent(long fromId, long selectorId) {
+            dependents = append(dependents, dependentCount, fromId, selectorId);
+            dependentCount += 2;
+        }
+
+        private static long[] append(long[] edges, int count, long first, long second) {
+            long[] result = edges;
+            if (count + 2 > edges.length) {
+                result = Arrays.copyOf(edges, Math.max(4, edges.length * 2));
+            }
+            result[count] = first;
+            result[count + 1] = second;
+            return result;
+        }
+    }
+
+    private class ComponentView implements ResolvedComponentResultInternal {
+        private final long id;
+        private volatile ComponentResult details;
+        private volatile Set<DependencyResult> dependencies;
+        private volatile Set<ResolvedDependencyResult> dependents;
+
+        ComponentView(long id) {
+            this.id = id;
+        }
+
+        private ComponentResult getDetails() {
+            ComponentResult result = details;
+            if (result == null) {
+                result = decodeComponent(id);
+                details = result;
+            }
+            return result;
+        }
+
+        private StoredResolutionResultGraph getGraph() {
+            return StoredResolutionResultGraph.this;
+        }
+
+        @Override
+        public ComponentIdentifier getId() {
+            return getDetails().getComponentId();
+        }
+
+        @Nullable
+        @Override
+        public String getRepositoryName() {
+            return getDetails().getRepositoryName();
+        }
+
+        @Override
+        public Set<DependencyResult> getDependencies() {
+            Set<DependencyResult> result = dependencies;
+            if (result == null) {
+                result = dependencies(this);
+                dependencies = result;
+            }
+            return result;
+        }
+
+        @Override
+        public Set<ResolvedDependencyResult> getDependents() {
+            Set<ResolvedDependencyResult> result = dependents;
+            if (result == null) {
+                result = dependents(this);
+                dependents = result;
+            }
+            return result;
+        }
+
+        @Override
+        public ComponentSelectionReason getSelectionReason() {
+            return getDetails().getSelectionReason();
+        }
+
+        @Override
+        public ModuleVersionIdentifier getModuleVersion() {
+            return getDetails().getModuleVersion();
+        }
+
+        @Override
+        public ResolvedVariantResult getVariant() {
+            ComponentResult component = getDetails();
+            return new DefaultResolvedVariantResult(component.getVariantName(), component.getVariantAttributes());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof ComponentView)) {
+                return false;
+            }
+            ComponentView other = (ComponentView) obj;
+            return other.getGraph() == getGraph() && other.id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (id ^ (id >>> 32));
+        }
+
+        @Override
+        public String toString() {
+            return getId().getDisplayName();
+        }
+    }
+}
@@ -20,13 +20,11 @@ import org.gradle.api.artifacts.component.ComponentSelector;
 import org.gradle.api.artifacts.result.ResolutionResult;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
 import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
-import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ComponentResult;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
-import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyResult;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode;
 import org.gradle.api.internal.artifacts.result.DefaultResolutionResult;
 import org.gradle.api.logging.Logger;
@@ -41,16 +39,18 @@ import org.gradle.internal.time.Time;
 import org.gradle.internal.time.Timer;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
+/**
+ * Streams the resolved dependency graph to a {@link BinaryStore}. Each component, selector and failure reason is written as a
+ * standalone block, so that the result can later be navigated lazily, decoding only the parts of the graph that are visited.
+ */
 public class StreamingResolutionResultBuilder implements DependencyGraphVisitor {
     private final static byte ROOT = 1;
     private final static byte COMPONENT = 2;
@@ -64,6 +64,7 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
     private final ComponentSelectorSerializer componentSelectorSerializer;
     private final DependencyResultSerializer dependencyResultSerializer = new DependencyResultSerializer();
     private final Set<Long> visitedComponents = new HashSet<Long>();
+    private final BlockCodec blockCodec = new BlockCodec();
 
     public StreamingResolutionResultBuilder(BinaryStore store, Store<ResolvedComponentResult> cache, ImmutableModuleIdentifierFactory moduleIdentifierFactory, AttributeContainerSerializer attributeContainerSerializer) {
         this.componentResultSerializer = new ComponentResultSerializer(moduleIdentifierFactory, attributeContainerSerializer);
@@ -80,8 +81,6 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
 
     @Override
     public void start(final RootGraphNode root) {
-        componentResultSerializer.reset();
-        dependencyResultSerializer.reset();
     }
 
     @Override
@@ -101,7 +100,9 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
             store.write(new BinaryStore.WriteAction() {
                 public void write(Encoder encoder) throws IOException {
                     encoder.writeByte(COMPONENT);
-                    componentResultSerializer.write(encoder, component);
+                    encoder.writeSmallLong(component.getResultId());
+                    componentResultSerializer.reset();
+                    encoder.writeBinary(blockCodec.encode(componentResultSerializer, component));
                 }
             });
         }
@@ -114,7 +115,7 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
             public void write(Encoder encoder) throws IOException {
                 encoder.writeByte(SELECTOR);
                 encoder.writeSmallLong(selector.getResultId());
-                componentSelectorSerializer.write(encoder, selector.getRequested());
+                encoder.writeBinary(blockCodec.encode(componentSelectorSerializer, selector.getRequested()));
             }
         });
     }
@@ -190,37 +191,32 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
             byte type = -1;
             Timer clock = Time.startTimer();
             try {
-                DefaultResolutionResultBuilder builder = new DefaultResolutionResultBuilder();
-                Map<Long, ComponentSelector> selectors = new HashMap<Long, ComponentSelector>();
-                componentResultSerializer.reset();
-                dependencyResultSerializer.reset();
+                // Only index the records here, the content of each record is read back and decoded when the graph is navigated
+                StoredResolutionResultGraph graph = new StoredResolutionResultGraph(data, failures, componentResultSerializer, componentSelectorSerializer, dependencyResultSerializer);
                 while (true) {
                     type = decoder.readByte();
                     valuesRead++;
                     switch (type) {
                         case ROOT:
                             // Last entry, complete the result
-                            Long rootId = decoder.readSmallLong();
-                            ResolvedComponentResult root = builder.complete(rootId).getRoot();
+                            long rootId = decoder.readSmallLong();
+                            ResolvedComponentResult root = graph.getComponent(rootId);
                             LOG.debug("Loaded resolution results ({}) from {}", clock.getElapsed(), data);
                             return root;
                         case COMPONENT:
-                            ComponentResult component = componentResultSerializer.read(decoder);
-                            builder.visitComponent(component);
+                            long componentId = decoder.readSmallLong();
+                            graph.addComponent(componentId, skipBlock(decoder));
                             break;
                         case SELECTOR:
-                            Long id = decoder.readSmallLong();
-                            ComponentSelector selector = componentSelectorSerializer.read(decoder);
-                            selectors.put(id, selector);
+                            long selectorId = decoder.readSmallLong();
+                            graph.addSelector(selectorId, skipBlock(decoder));
                             break;
                         case DEPENDENCY:
-                            Long fromId = decoder.readSmallLong();
+                            long fromId = decoder.readSmallLong();
                             int size = decoder.readSmallInt();
-                            List<DependencyResult> deps = new ArrayList<DependencyResult>(size);
                             for (int i = 0; i < size; i++) {
-                                deps.add(dependencyResultSerializer.read(decoder, selectors, failures));
+                                readDependency(decoder, fromId, graph);
                             }
-                            builder.visitOutgoingEdges(fromId, deps);
                             break;
                         default:
                             throw new IOException("Unknown value type read from stream: " + type);
@@ -231,5 +227,26 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
                         + "Read " + valuesRead + " values, last was: " + type, e);
             }
         }
+
+        private long skipBlock(Decoder decoder) throws IOException {
+            // Mirrors Decoder.readBinary(), but only records where the bytes are
+            int length = decoder.readSmallInt();
+            long position = data.getReadPosition();
+            decoder.skipBytes(length);
+            return StoredResolutionResultGraph.block(position, length);
+        }
+
+        private void readDependency(Decoder decoder, long fromId, StoredResolutionResultGraph graph) throws IOException {
+            // Mirrors DependencyResultSerializer, without decoding the reason of failed edges
+            long selectorId = decoder.readSmallLong();
+            byte resultByte = decoder.readByte();
+            if (resultByte == DependencyResultSerializer.SUCCESSFUL) {
+                graph.addDependency(fromId, selectorId, decoder.readSmallLong());
+            } else if (resultByte == DependencyResultSerializer.FAILED) {
+                graph.addUnresolvedDependency(fromId, selectorId, skipBlock(decoder));
+            } else {
+                throw new IOException("Unknown result type: " + resultByte);
+            }
+        }
     }
 }
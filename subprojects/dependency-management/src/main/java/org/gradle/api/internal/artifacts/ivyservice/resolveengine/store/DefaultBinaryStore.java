@@ -18,15 +18,18 @@ package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
 import org.gradle.cache.internal.BinaryStore;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.io.RandomAccessFileInputStream;
-import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedEncoder;
 
 import java.io.Closeable;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import static org.gradle.internal.UncheckedException.throwAsUncheckedException;
 
@@ -34,6 +37,7 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
     private File file;
     private StringDeduplicatingKryoBackedEncoder encoder;
     private int offset = -1;
+    private FileChannel reader;
 
     public DefaultBinaryStore(File file) {
         this.file = file;
@@ -75,26 +79,44 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
                 encoder.done();
                 encoder.flush();
             }
-            return new SimpleBinaryData(file, offset, diagnose());
+            return new SimpleBinaryData(this, file, offset, diagnose());
         } finally {
             offset = -1;
         }
     }
 
-    public void close() {
+    public synchronized void close() {
         try {
-            if (encoder != null) {
-                encoder.close();
-            }
+            new CompositeStoppable().add(encoder, reader).stop();
         } finally {
             if (file != null) {
                 file.delete();
             }
             encoder = null;
+            reader = null;
             file = null;
         }
     }
 
+    /**
+     * Reads bytes at the given absolute position, using a single channel shared by all data read from this store.
+     */
+    synchronized byte[] readBytes(long position, int length) throws IOException {
+        if (reader == null) {
+            if (file == null) {
+                throw new IllegalStateException(this + " has been closed.");
+            }
+            reader = new RandomAccessFile(file, "r").getChannel();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (reader.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer.array();
+    }
+
     File getFile() {
         return file;
     }
@@ -104,14 +126,16 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
     }
 
     private static class SimpleBinaryData implements BinaryStore.BinaryData {
+        private final DefaultBinaryStore store;
         private final int offset;
         private final File inputFile;
         private final String sourceDescription;
 
-        private Decoder decoder;
+        private StringDeduplicatingKryoBackedDecoder decoder;
         private CompositeStoppable resources;
 
-        public SimpleBinaryData(File inputFile, int offset, String sourceDescription) {
+        public SimpleBinaryData(DefaultBinaryStore store, File inputFile, int offset, String sourceDescription) {
+            this.store = store;
             this.inputFile = inputFile;
             this.offset = offset;
             this.sourceDescription = sourceDescription;
@@ -131,6 +155,18 @@ class DefaultBinaryStore implements BinaryStore, Closeable {
             }
         }
 
+        public long getReadPosition() {
+            return decoder == null ? 0 : decoder.getReadPosition();
+        }
+
+        public byte[] readBytes(long position, int length) {
+            try {
+                return store.readBytes(offset + position, length);
+            } catch (Exception e) {
+                throw new RuntimeException("Problems reading data from " + sourceDescription, e);
+            }
+        }
+
         public void close() {
             try {
                 if (resources != null) {
@@ -19,7 +19,9 @@ package org.gradle.api.internal.artifacts.transform;
 import com.google.common.collect.ImmutableList;
 import org.gradle.api.Action;
 import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheMetadata;
+import org.gradle.api.internal.changedetection.rules.FileChange;
 import org.gradle.api.internal.changedetection.state.InMemoryCacheDecoratorFactory;
+import org.gradle.api.tasks.incremental.InputFileDetails;
 import org.gradle.cache.CacheBuilder;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.CleanupAction;
@@ -36,6 +38,7 @@ import org.gradle.initialization.RootBuildLifecycleListener;
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.file.FileType;
 import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.resource.local.DefaultPathKeyFileStore;
 import org.gradle.internal.resource.local.FileAccessTimeJournal;
@@ -43,14 +46,26 @@ import org.gradle.internal.resource.local.FileAccessTracker;
 import org.gradle.internal.resource.local.FileStore;
 import org.gradle.internal.resource.local.FileStoreAddActionException;
 import org.gradle.internal.resource.local.SingleDepthFileAccessTracker;
+import org.gradle.internal.serialize.AbstractSerializer;
 import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.serialize.ListSerializer;
+import org.gradle.internal.serialize.MapSerializer;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.snapshot.DirectorySnapshot;
 import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.FileSystemSnapshotVisitor;
 import org.gradle.internal.snapshot.FileSystemSnapshotter;
+import org.gradle.internal.snapshot.RelativePathStringTracker;
 import org.gradle.internal.util.BiFunction;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -67,6 +82,7 @@ public class DefaultTransformedFileCache implements TransformedFileCache, Stoppa
 
     private final PersistentCache cache;
     private final PersistentIndexedCache<HashCode, List<File>> indexedCache;
+    private final PersistentIndexedCache<HashCode, WorkspaceState> workspaceCache;
     private final FileStore<String> fileStore;
     private final ProducerGuard<CacheKey> producing = ProducerGuard.adaptive();
     private final Map<CacheKey, List<File>> resultHashToResult = new ConcurrentHashMap<CacheKey, List<File>>();
@@ -88,6 +104,7 @@ public class DefaultTransformedFileCache implements TransformedFileCache, Stoppa
             .open();
         indexedCache = cache.createCache(PersistentIndexedCacheParameters.of(CACHE_PREFIX + "results", new HashCodeSerializer(), new ListSerializer<File>(BaseSerializerFactory.FILE_SERIALIZER))
             .cacheDecorator(cacheDecoratorFactory.decorator(1000, true)));
+        workspaceCache = cache.createCache(PersistentIndexedCacheParameters.of(CACHE_PREFIX + "workspaces", new HashCodeSerializer(), new WorkspaceStateSerializer()));
         fileAccessTracker = new SingleDepthFileAccessTracker(fileAccessTimeJournal, filesOutputDirectory, FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
     }
 
@@ -142,19 +159,13 @@ public class DefaultTransformedFileCache implements TransformedFileCache, Stoppa
                 files = cache.withFileLock(new Factory<List<File>>() {
                     @Override
                     public List<File> create() {
+                        if (transformer instanceof IncrementalTransformer && ((IncrementalTransformer) transformer).isIncremental()) {
+                            return transformInWorkspace(inputFile, cacheKey, (IncrementalTransformer) transformer);
+                        }
                         HashCode persistentCacheKey = cacheKey.getPersistentCacheKey();
                         List<File> files = indexedCache.get(persistentCacheKey);
-                        if (files != null) {
-                            boolean allExist = true;
-                            for (File file : files) {
-                                if (!file.exists()) {
-                                    allExist = false;
-                                    break;
-                                }
-                            }
-                            if (allExist) {
-                                return files;
-                            }
+                        if (files != null && allExist(files)) {
+                            return files;
                         }
 
                         String key = inputFile.getName() + "/" + persistentCacheKey;
@@ -177,6 +188,102 @@ public class DefaultTransformedFileCache implements TransformedFileCache, Stoppa
         });
     }
 
+    /*
+     * Transforms the input in a workspace that is kept for each input location, so that the transform can update the outputs
+     * of its previous run when the input is a directory. Must be called while holding the cache lock.
+     */
+    private List<File> transformInWorkspace(File inputFile, CacheKey cacheKey, IncrementalTransformer transformer) {
+        HashCode workspaceKey = cacheKey.getWorkspaceKey();
+        FileSystemLocationSnapshot snapshot = fileSystemSnapshotter.snapshot(inputFile);
+        Map<String, HashCode> inputFiles = snapshot.getType() == FileType.Directory ? regularFilesIn(snapshot) : Collections.<String, HashCode>emptyMap();
+
+        WorkspaceState previous = workspaceCache.get(workspaceKey);
+        if (previous != null && previous.workspace.isDirectory() && allExist(previous.result)) {
+            if (previous.inputHash.equals(snapshot.getHash())) {
+                return previous.result;
+            }
+            if (snapshot.getType() == FileType.Directory) {
+                // Forget the workspace while it is being updated, so that it is not used if the transform fails part way through
+                workspaceCache.remove(workspaceKey);
+                List<File> result = ImmutableList.copyOf(transformer.apply(inputFile, previous.workspace, true, changesBetween(inputFile, previous.inputFiles, inputFiles)));
+                workspaceCache.put(workspaceKey, new WorkspaceState(snapshot.getHash(), inputFiles, previous.workspace, result));
+                return result;
+            }
+        }
+
+        workspaceCache.remove(workspaceKey);
+        Collection<InputFileDetails> changes = snapshot.getType() == FileType.Directory
+            ? changesBetween(inputFile, Collections.<String, HashCode>emptyMap(), inputFiles)
+            : Collections.<InputFileDetails>singletonList(FileChange.added(inputFile.getPath(), "Input", snapshot.getType()));
+        TransformAction action = new TransformAction(transformer, inputFile, changes);
+        try {
+            fileStore.add(inputFile.getName() + "/" + workspaceKey, action);
+        } catch (FileStoreAddActionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+        workspaceCache.put(workspaceKey, new WorkspaceState(snapshot.getHash(), inputFiles, action.outputDir, action.result));
+        return action.result;
+    }
+
+    private static boolean allExist(List<File> files) {
+        for (File file : files) {
+            if (!file.exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the content hashes of the regular files in the given directory, by path relative to the directory.
+     */
+    private static Map<String, HashCode> regularFilesIn(FileSystemLocationSnapshot directory) {
+        final Map<String, HashCode> files = new LinkedHashMap<String, HashCode>();
+        directory.accept(new FileSystemSnapshotVisitor() {
+            private final RelativePathStringTracker relativePath = new RelativePathStringTracker();
+
+            @Override
+            public boolean preVisitDirectory(DirectorySnapshot directorySnapshot) {
+                relativePath.enter(directorySnapshot);
+                return true;
+            }
+
+            @Override
+            public void visit(FileSystemLocationSnapshot fileSnapshot) {
+                relativePath.enter(fileSnapshot);
+                if (fileSnapshot.getType() == FileType.RegularFile) {
+                    files.put(relativePath.getRelativePathString(), fileSnapshot.getHash());
+                }
+                relativePath.leave();
+            }
+
+            @Override
+            public void postVisitDirectory(DirectorySnapshot directorySnapshot) {
+                relativePath.leave();
+            }
+        });
+        return files;
+    }
+
+    private static List<InputFileDetails> changesBetween(File inputDir, Map<String, HashCode> previous, Map<String, HashCode> current) {
+        List<InputFileDetails> changes = new ArrayList<InputFileDetails>();
+        for (Map.Entry<String, HashCode> entry : current.entrySet()) {
+            HashCode previousHash = previous.get(entry.getKey());
+            String path = new File(inputDir, entry.getKey()).getPath();
+            if (previousHash == null) {
+                changes.add(FileChange.added(path, "Input", FileType.RegularFile));
+            } else if (!previousHash.equals(entry.getValue())) {
+                changes.add(FileChange.modified(path, "Input", FileType.RegularFile, FileType.RegularFile));
+            }
+        }
+        for (String relativePath : previous.keySet()) {
+            if (!current.containsKey(relativePath)) {
+                changes.add(FileChange.removed(new File(inputDir, relativePath).getPath(), "Input", FileType.RegularFile));
+            }
+        }
+        return changes;
+    }
+
     private CacheKey getCacheKey(File inputFile, HashCode inputsHash) {
         FileSystemLocationSnapshot snapshot = fileSystemSnapshotter.snapshot(inputFile);
         return new CacheKey(inputsHash, snapshot.getAbsolutePath(), snapshot.getHash());
@@ -206,6 +313,17 @@ public class DefaultTransformedFileCache implements TransformedFileCache, Stoppa
             return hasher.hash();
         }
 
+        /**
+         * Identifies the workspace for the input location, regardless of the content of the input.
+         */
+        public HashCode getWorkspaceKey() {
+            DefaultBuildCacheHasher hasher = new DefaultBuildCacheHasher();
+            hasher.putString("workspace");
+            hasher.putHash(inputHash);
+            hasher.putString(absolutePath);
+            return hasher.hash();
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) {
@@ -238,17 +356,69 @@ public class DefaultTransformedFileCache implements TransformedFileCache, Stoppa
     private static class TransformAction implements Action<File> {
         private final BiFunction<List<File>, File, File> transformer;
         private final File inputFile;
+        private final Collection<InputFileDetails> inputFileChanges;
+        private File outputDir;
         private ImmutableList<File> result;
 
         TransformAction(BiFunction<List<File>, File, File> transformer, File inputFile) {
+            this(transformer, inputFile, null);
+        }
+
+        TransformAction(BiFunction<List<File>, File, File> transformer, File inputFile, Collection<InputFileDetails> inputFileChanges) {
             this.transformer = transformer;
             this.inputFile = inputFile;
+            this.inputFileChanges = inputFileChanges;
         }
 
         @Override
         public void execute(File outputDir) {
             outputDir.mkdirs();
-            result = ImmutableList.copyOf(transformer.apply(inputFile, outputDir));
+            this.outputDir = outputDir;
+            if (inputFileChanges != null) {
+                result = ImmutableList.copyOf(((IncrementalTransformer) transformer).apply(inputFile, outputDir, false, inputFileChanges));
+            } else {
+                result = ImmutableList.copyOf(transformer.apply(inputFile, outputDir));
+            }
+        }
+    }
+
+    /**
+     * The outputs of the last transformation in a workspace, along with the input they were produced from.
+     */
+    private static class WorkspaceState {
+        private final HashCode inputHash;
+        private final Map<String, HashCode> inputFiles;
+        private final File workspace;
+        private final List<File> result;
+
+        WorkspaceState(HashCode inputHash, Map<String, HashCode> inputFiles, File workspace, List<File> result) {
+            this.inputHash = inputHash;
+            this.inputFiles = inputFiles;
+            this.workspace = workspace;
+            this.result = result;
+        }
+    }
+
+    private static class WorkspaceStateSerializer extends AbstractSerializer<WorkspaceState> {
+        private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
+        private final Serializer<Map<String, HashCode>> inputFilesSerializer = new MapSerializer<String, HashCode>(BaseSerializerFactory.STRING_SERIALIZER, hashCodeSerializer);
+        private final Serializer<List<File>> resultSerializer = new ListSerializer<File>(BaseSerializerFactory.FILE_SERIALIZER);
+
+        @Override
+        public WorkspaceState read(Decoder decoder) throws Exception {
+            HashCode inputHash = hashCodeSerializer.read(decoder);
+            Map<String, HashCode> inputFiles = inputFilesSerializer.read(decoder);
+            File workspace = BaseSerializerFactory.FILE_SERIALIZER.read(decoder);
+            List<File> result = resultSerializer.read(decoder);
+            return new WorkspaceState(inputHash, inputFiles, workspace, result);
+        }
+
+        @Override
+        public void write(Encoder encoder, WorkspaceState value) throws Exception {
+            hashCodeSerializer.write(encoder, value.inputHash);
+            inputFilesSerializer.write(encoder, value.inputFiles);
+            BaseSerializerFactory.FILE_SERIALIZER.write(encoder, value.workspace);
+            resultSerializer.write(encoder, value.result);
         }
     }
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.transform;
+
+import org.gradle.api.tasks.incremental.InputFileDetails;
+import org.gradle.internal.util.BiFunction;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A transformer that may be able to update the outputs of an earlier transformation of its input.
+ */
+interface IncrementalTransformer extends BiFunction<List<File>, File, File> {
+    /**
+     * Returns true when this transformer can update the outputs of an earlier transformation.
+     */
+    boolean isIncremental();
+
+    /**
+     * Transforms the given input into the given output directory.
+     *
+     * @param incremental Whether the output directory contains the outputs of an earlier transformation of the input.
+     * @param inputFileChanges The files of the input that changed since the earlier transformation, or all of them when not incremental.
+     */
+    List<File> apply(File input, File outputDir, boolean incremental, Collection<InputFileDetails> inputFileChanges);
+}
@@ -19,14 +19,17 @@ package org.gradle.api.internal.artifacts.transform;
 import org.gradle.api.Describable;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.artifacts.transform.ArtifactTransform;
+import org.gradle.api.artifacts.transform.IncrementalArtifactTransform;
 import org.gradle.api.internal.changedetection.state.isolation.Isolatable;
+import org.gradle.api.tasks.incremental.InputFileDetails;
 import org.gradle.internal.reflect.Instantiator;
-import org.gradle.internal.util.BiFunction;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
-class TransformArtifactsAction implements BiFunction<List<File>, File, File>, Describable {
+class TransformArtifactsAction implements IncrementalTransformer, Describable {
     private final Class<? extends ArtifactTransform> implementationClass;
     private final Isolatable<Object[]> parameters;
     private final Instantiator instantiator;
@@ -37,10 +40,25 @@ class TransformArtifactsAction implements BiFunction<List<File>, File, File>, De
         this.parameters = parameters;
     }
 
+    @Override
+    public boolean isIncremental() {
+        return IncrementalArtifactTransform.class.isAssignableFrom(implementationClass);
+    }
+
     @Override
     public List<File> apply(File file, File outputDir) {
+        return apply(file, outputDir, false, Collections.<InputFileDetails>emptyList());
+    }
+
+    @Override
+    public List<File> apply(File file, File outputDir, boolean incremental, Collection<InputFileDetails> inputFileChanges) {
         ArtifactTransform artifactTransform = instantiator.newInstance(implementationClass, parameters.isolate());
         artifactTransform.setOutputDirectory(outputDir);
+        if (artifactTransform instanceof IncrementalArtifactTransform) {
+            IncrementalArtifactTransform incrementalTransform = (IncrementalArtifactTransform) artifactTransform;
+            incrementalTransform.setIncremental(incremental);
+            incrementalTransform.setInputFileChanges(inputFileChanges);
+        }
         List<File> outputs = artifactTransform.transform(file);
         if (outputs == null) {
             throw new InvalidUserDataException("Transform returned null result.");
@@ -17,6 +17,7 @@
 package org.gradle.internal.resolve.result;
 
 import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.SortedVersionIndex;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelector;
 import org.gradle.internal.resolve.ModuleVersionResolveException;
 import org.gradle.internal.resolve.RejectedByAttributesVersion;
@@ -46,6 +47,12 @@ public interface ComponentSelectionContext {
      */
     void notMatched(ModuleComponentIdentifier id, VersionSelector requestedVersionMatcher);
 
+    /**
+     * Adds the given number of latest versions of a sorted listing, which did not match the provided selector.
+     * These versions are added before any other candidate version.
+     */
+    void latestNotMatched(SortedVersionIndex versions, int count, VersionSelector requestedVersionMatcher);
+
     /**
      * Adds a candidate version that matched the provided selector, but was rejected by some rule.
      */
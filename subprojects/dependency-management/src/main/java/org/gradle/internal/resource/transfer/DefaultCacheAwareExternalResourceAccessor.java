@@ -63,8 +63,9 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
     private final ExternalResourceCachePolicy externalResourceCachePolicy;
     private final ProducerGuard<ExternalResourceName> producerGuard;
     private final FileResourceRepository fileResourceRepository;
+    private final ExternalResourceDownloadScheduler downloadScheduler;
 
-    public DefaultCacheAwareExternalResourceAccessor(ExternalResourceRepository delegate, CachedExternalResourceIndex<String> cachedExternalResourceIndex, BuildCommencedTimeProvider timeProvider, TemporaryFileProvider temporaryFileProvider, ArtifactCacheLockingManager artifactCacheLockingManager, ExternalResourceCachePolicy externalResourceCachePolicy, ProducerGuard<ExternalResourceName> producerGuard, FileResourceRepository fileResourceRepository) {
+    public DefaultCacheAwareExternalResourceAccessor(ExternalResourceRepository delegate, CachedExternalResourceIndex<String> cachedExternalResourceIndex, BuildCommencedTimeProvider timeProvider, TemporaryFileProvider temporaryFileProvider, ArtifactCacheLockingManager artifactCacheLockingManager, ExternalResourceCachePolicy externalResourceCachePolicy, ProducerGuard<ExternalResourceName> producerGuard, FileResourceRepository fileResourceRepository, ExternalResourceDownloadScheduler downloadScheduler) {
         this.delegate = delegate;
         this.cachedExternalResourceIndex = cachedExternalResourceIndex;
         this.timeProvider = timeProvider;
@@ -73,6 +74,7 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
         this.externalResourceCachePolicy = externalResourceCachePolicy;
         this.producerGuard = producerGuard;
         this.fileResourceRepository = fileResourceRepository;
+        this.downloadScheduler = downloadScheduler;
     }
 
     @Nullable
@@ -86,7 +88,16 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
 
                 // If we have no caching options, just get the thing directly
                 if (cached == null && (additionalCandidates == null || additionalCandidates.isNone())) {
-                    return copyToCache(location, fileStore, delegate.withProgressLogging().resource(location));
+                    long expectedSize = ExternalResourceDownloadScheduler.UNKNOWN_SIZE;
+                    if (downloadScheduler.isLimited()) {
+                        // Get the metadata first, so that the download can wait its turn by size
+                        ExternalResourceMetaData remoteMetaData = delegate.resource(location).getMetaData();
+                        if (remoteMetaData == null) {
+                            return null;
+                        }
+                        expectedSize = remoteMetaData.getContentLength();
+                    }
+                    return copyToCache(location, fileStore, delegate.withProgressLogging().resource(location), expectedSize);
                 }
 
                 // We might be able to use a cached/locally available version
@@ -151,7 +162,7 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
                 }
 
                 // All local/cached options failed, get directly
-                return copyToCache(location, fileStore, delegate.withProgressLogging().resource(location, revalidate));
+                return copyToCache(location, fileStore, delegate.withProgressLogging().resource(location, revalidate), remoteMetaData.getContentLength());
             }
         });
     }
@@ -192,11 +203,16 @@ public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExte
         }
     }
 
-    private LocallyAvailableExternalResource copyToCache(final ExternalResourceName source, final ResourceFileStore fileStore, final ExternalResource resource) {
+    private LocallyAvailableExternalResource copyToCache(final ExternalResourceName source, final ResourceFileStore fileStore, final ExternalResource resource, long expectedSize) {
         // Download to temporary location
-        DownloadAction downloadAction = new DownloadAction(source);
+        final DownloadAction downloadAction = new DownloadAction(source);
         try {
-            resource.withContentIfPresent(downloadAction);
+            downloadScheduler.download(source.getUri(), expectedSize, new Factory<Object>() {
+                @Override
+                public Object create() {
+                    return resource.withContentIfPresent(downloadAction);
+                }
+            });
         } catch (Exception e) {
             throw ResourceExceptions.getFailed(source.getUri(), e);
         }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transfer;
+
+import com.google.common.collect.Maps;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Limits the number of downloads that run at the same time against each repository host.
+ *
+ * <p>When downloads have to wait for a free connection, the ones with the largest expected size are started first, so that
+ * a large download does not end up running on its own once all the small ones are done. Downloads of unknown size are
+ * started after those of known size, in the order they were requested.</p>
+ */
+public class ExternalResourceDownloadScheduler {
+    /**
+     * The maximum number of downloads from a single repository host that run at the same time. Unlimited by default.
+     */
+    public static final String MAX_CONCURRENT_DOWNLOADS_PROPERTY = "org.gradle.internal.repository.max.concurrent.downloads";
+
+    public static final long UNKNOWN_SIZE = -1;
+
+    private final int maxConcurrentDownloads;
+    private final Map<String, Host> hosts = Maps.newHashMap();
+
+    public ExternalResourceDownloadScheduler(int maxConcurrentDownloads) {
+        if (maxConcurrentDownloads < 1) {
+            throw new IllegalArgumentException("The maximum number of concurrent downloads must be at least 1.");
+        }
+        this.maxConcurrentDownloads = maxConcurrentDownloads;
+    }
+
+    public static ExternalResourceDownloadScheduler fromSystemProperties() {
+        return new ExternalResourceDownloadScheduler(Math.max(1, Integer.getInteger(MAX_CONCURRENT_DOWNLOADS_PROPERTY, Integer.MAX_VALUE)));
+    }
+
+    /**
+     * Returns true when downloads may have to wait for each other, so that it is worth finding out their size before they start.
+     */
+    public boolean isLimited() {
+        return maxConcurrentDownloads != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Runs the given download of the given resource, once a connection to the host of the resource is available.
+     *
+     * @param expectedSize the expected size of the resource in bytes, or {@link #UNKNOWN_SIZE}.
+     */
+    public <T> T download(URI location, long expectedSize, Factory<T> download) {
+        if (!isLimited() || location.getHost() == null) {
+            return download.create();
+        }
+        Host host = hostFor(location);
+        host.acquire(expectedSize);
+        try {
+            return download.create();
+        } finally {
+            host.release();
+        }
+    }
+
+    private synchronized Host hostFor(URI location) {
+        String key = location.getScheme() + "://" + location.getAuthority();
+        Host host = hosts.get(key);
+        if (host == null) {
+            host = new Host();
+            hosts.put(key, host);
+        }
+        return host;
+    }
+
+    private class Host {
+        private final PriorityQueue<Download> waiting = new PriorityQueue<Download>();
+        private long sequence;
+        private int running;
+
+        synchronized void acquire(long expectedSize) {
+            Download download = new Download(expectedSize, sequence++);
+            waiting.add(download);
+            try {
+                while (running == maxConcurrentDownloads || waiting.peek() != download) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                waiting.remove(download);
+                notifyAll();
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            waiting.poll();
+            running++;
+            // The next download may be able to start as well
+            notifyAll();
+        }
+
+        synchronized void release() {
+            running--;
+            notifyAll();
+        }
+    }
+
+    private static class Download implements Comparable<Download> {
+        private final long expectedSize;
+        private final long sequence;
+
+        Download(long expectedSize, long sequence) {
+            this.expectedSize = expectedSize;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Download other) {
+            if (expectedSize != other.expectedSize) {
+                return expectedSize > other.expectedSize ? -1 : 1;
+            }
+            if (sequence != other.sequence) {
+                return sequence < other.sequence ? -1 : 1;
+            }
+            return 0;
+        }
+    }
+}
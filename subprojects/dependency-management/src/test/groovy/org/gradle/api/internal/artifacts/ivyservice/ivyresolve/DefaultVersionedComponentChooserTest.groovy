@@ -23,7 +23,9 @@ import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
 import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.SubVersionSelector
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionRangeSelector
 import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.DefaultCachePolicy
 import org.gradle.api.internal.attributes.DefaultAttributesSchema
 import org.gradle.api.internal.attributes.ImmutableAttributes
@@ -50,6 +52,7 @@ class DefaultVersionedComponentChooserTest extends Specification {
     def attributesSchema = new DefaultAttributesSchema(new ComponentAttributeMatcher(), TestUtil.instantiatorFactory(), TestUtil.valueSnapshotter())
     def consumerAttributes = ImmutableAttributes.EMPTY
     def cachePolicy = new DefaultCachePolicy()
+    def requested = []
 
     def chooser = new DefaultVersionedComponentChooser(versionComparator, versionParser, componentSelectionRules, attributesSchema)
 
@@ -330,6 +333,52 @@ class DefaultVersionedComponentChooserTest extends Specification {
         0 * _
     }
 
+    def "reports versions above range as not matching without checking them when candidates are sorted by a version index"() {
+        given:
+        def a = component('1.0')
+        def b = component('2.0')
+        def c = component('2.1')
+        def d = component('3.0')
+        def selector = Spy(VersionRangeSelector, constructorArgs: ["[1.0,2.0]", versionComparator.asVersionComparator(), versionParser])
+        def selectedComponentResult = Mock(ComponentSelectionContext)
+
+        when:
+        chooser.selectNewestMatchingComponent(sorted(a, c, d, b), selectedComponentResult, selector, null, consumerAttributes)
+
+        then:
+        _ * componentSelectionRules.rules >> []
+        requested == [b]
+        1 * selectedComponentResult.latestNotMatched({ it.get(0) == d.version && it.get(1) == c.version }, 2, selector)
+        0 * selector.accept(d.version)
+        0 * selector.accept(c.version)
+        1 * selector.accept(b.version)
+        1 * selectedComponentResult.matches(b.id)
+        0 * selectedComponentResult._
+    }
+
+    def "reports versions above prefix as not matching without checking them when candidates are sorted by a version index"() {
+        given:
+        def a = component('1.2')
+        def b = component('1.3')
+        def c = component('2.0')
+        def d = component('10.0')
+        def selector = Spy(SubVersionSelector, constructorArgs: ["1.+"])
+        def selectedComponentResult = Mock(ComponentSelectionContext)
+
+        when:
+        chooser.selectNewestMatchingComponent(sorted(a, c, d, b), selectedComponentResult, selector, null, consumerAttributes)
+
+        then:
+        _ * componentSelectionRules.rules >> []
+        requested == [b]
+        1 * selectedComponentResult.latestNotMatched({ it.get(0) == d.version && it.get(1) == c.version }, 2, selector)
+        0 * selector.accept(d.version)
+        0 * selector.accept(c.version)
+        1 * selector.accept(b.version)
+        1 * selectedComponentResult.matches(b.id)
+        0 * selectedComponentResult._
+    }
+
     def "stops when candidate cannot be resolved"() {
         given:
         def a = component('1.2')
@@ -407,4 +456,16 @@ class DefaultVersionedComponentChooserTest extends Specification {
     def version(String version) {
         return versionParser.transform(version)
     }
+
+    List<ModuleComponentResolveState> sorted(ModuleComponentResolveState... components) {
+        def index = versionParser.transformListing(components.collect { it.version.source } as Set)
+        return new SortedCandidateList<ModuleComponentResolveState>(index) {
+            @Override
+            ModuleComponentResolveState get(int position) {
+                def candidate = components.find { it.version == index.get(position) }
+                requested << candidate
+                return candidate
+            }
+        }
+    }
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import javax.xml.stream.XMLStreamException
+
+class PomStaxParserTest extends Specification {
+
+    def "reads coordinates, parent, relocation and packaging"() {
+        when:
+        def model = parse """
+<project>
+    <groupId>group</groupId>
+    <artifactId>artifact</artifactId>
+    <version>1.0</version>
+    <packaging>bundle</packaging>
+    <parent>
+        <groupId>parent-group</groupId>
+        <artifactId>parent-artifact</artifactId>
+        <version>2.0</version>
+    </parent>
+    <distributionManagement>
+        <site><id>ignored</id></site>
+        <relocation><groupId>relocated</groupId></relocation>
+    </distributionManagement>
+</project>
+"""
+
+        then:
+        model.rootElementName == 'project'
+        model.systemId == 'file:/test.pom'
+        model.groupId == 'group'
+        model.artifactId == 'artifact'
+        model.version == '1.0'
+        model.packaging == 'bundle'
+        model.parent.groupId == 'parent-group'
+        model.parent.artifactId == 'parent-artifact'
+        model.parent.version == '2.0'
+        model.relocation.groupId == 'relocated'
+        model.relocation.artifactId == null
+    }
+
+    def "reads dependencies and dependency management"() {
+        when:
+        def model = parse """
+<project>
+    <dependencyManagement>
+        <dependencies>
+            <dependency>
+                <groupId>managed</groupId>
+                <artifactId>bom</artifactId>
+                <version>1.0</version>
+                <type>pom</type>
+                <scope>import</scope>
+            </dependency>
+        </dependencies>
+    </dependencyManagement>
+    <dependencies>
+        <dependency>
+            <groupId>group</groupId>
+            <artifactId>artifact</artifactId>
+            <classifier>tests</classifier>
+            <optional>true</optional>
+            <exclusions>
+                <exclusion><groupId>excluded</groupId></exclusion>
+                <exclusion><version>ignored</version></exclusion>
+            </exclusions>
+        </dependency>
+    </dependencies>
+</project>
+"""
+
+        then:
+        def managed = model.declarations.dependencyManagement
+        managed.size() == 1
+        managed[0].groupId == 'managed'
+        managed[0].type == 'pom'
+        managed[0].scope == 'import'
+        managed[0].exclusions == null
+
+        def dependencies = model.declarations.dependencies
+        dependencies.size() == 1
+        dependencies[0].groupId == 'group'
+        dependencies[0].classifier == 'tests'
+        dependencies[0].optional == 'true'
+        dependencies[0].exclusions*.groupId == ['excluded']
+        dependencies[0].exclusions*.artifactId == [null]
+    }
+
+    def "reads properties and profiles"() {
+        when:
+        def model = parse """
+<project>
+    <properties>
+        <a.b>value</a.b>
+        <empty/>
+    </properties>
+    <profiles>
+        <profile>
+            <id>default</id>
+            <activation><activeByDefault>true</activeByDefault></activation>
+            <properties><c>d</c></properties>
+        </profile>
+        <profile>
+            <id>by-property</id>
+            <activation><property><name>!skip</name></property></activation>
+            <dependencies><dependency><groupId>g</groupId></dependency></dependencies>
+        </profile>
+    </profiles>
+</project>
+"""
+
+        then:
+        model.declarations.properties == ['a.b': 'value', empty: '']
+        model.profiles.size() == 2
+        model.profiles[0].id == 'default'
+        model.profiles[0].hasActivation()
+        model.profiles[0].activeByDefault == 'true'
+        !model.profiles[0].hasActivationProperty()
+        model.profiles[0].declarations.properties == [c: 'd']
+        model.profiles[1].hasActivationProperty()
+        model.profiles[1].activationPropertyName == '!skip'
+        model.profiles[1].declarations.dependencies*.groupId == ['g']
+    }
+
+    def "keeps the first declaration of an element"() {
+        when:
+        def model = parse """
+<project>
+    <groupId>first</groupId>
+    <groupId>second</groupId>
+    <properties><a>1</a></properties>
+    <properties><b>2</b></properties>
+    <dependencyManagement><other/></dependencyManagement>
+    <dependencyManagement><dependencies><dependency><groupId>ignored</groupId></dependency></dependencies></dependencyManagement>
+</project>
+"""
+
+        then:
+        model.groupId == 'first'
+        model.declarations.properties == [a: '1']
+        model.declarations.hasDependencyManagement()
+        model.declarations.dependencyManagement.empty
+    }
+
+    def "reads only the text directly contained by an element"() {
+        when:
+        def model = parse """<?xml version="1.0" encoding="UTF-8"?>
+<project>
+    <groupId>a<!-- comment -->b<nested>ignored</nested><![CDATA[<c>]]>&amp;&copy;</groupId>
+</project>
+"""
+
+        then:
+        model.groupId == 'ab<c>&©'
+    }
+
+    def "fails on malformed POM"() {
+        when:
+        parse "<project><groupId>group</groupId></projectx>"
+
+        then:
+        thrown(XMLStreamException)
+    }
+
+    @Unroll
+    def "produces the same model as the DOM parser for #description"() {
+        expect:
+        describe(parse(PomStaxParser, pom)) == describe(parse(PomDomParser, pom))
+
+        where:
+        description             | pom
+        "published POM"         | getClass().getResource('/org/gradle/api/internal/artifacts/ivyservice/modulecache/ModuleMetadataSerializerTest/pom/junit-4.12.pom').text
+        "mixed content"         | "<model><artifactId> padded </artifactId><properties><x>1<y>2</y>3</x></properties></model>"
+        "unexpected root"       | "<someothertag><project><groupId>g</groupId></project></someothertag>"
+    }
+
+    private static PomModel parse(String pom) {
+        parse(PomStaxParser, pom)
+    }
+
+    private static PomModel parse(Class<?> parser, String pom) {
+        parser.parsePom(new ByteArrayInputStream(pom.getBytes('UTF-8')), 'file:/test.pom')
+    }
+
+    private static String describe(PomModel model) {
+        def coordinates = { PomModel.Coordinates c -> c == null ? null : [c.groupId, c.artifactId, c.version] }
+        def dependencies = { List<PomModel.Dependency> deps -> deps.collect { [coordinates(it), it.scope, it.type, it.classifier, it.optional, it.exclusions?.collect(coordinates)] } }
+        def declarations = { PomModel.Declarations d -> [d.properties, dependencies(d.dependencies), dependencies(d.dependencyManagement)] }
+        [
+            model.rootElementName, model.groupId, model.artifactId, model.version, model.packaging,
+            coordinates(model.parent), coordinates(model.relocation), declarations(model.declarations),
+            model.profiles.collect { [it.id, it.hasActivation(), it.activeByDefault, it.hasActivationProperty(), it.activationPropertyName, declarations(it.declarations)] }
+        ].toString()
+    }
+}
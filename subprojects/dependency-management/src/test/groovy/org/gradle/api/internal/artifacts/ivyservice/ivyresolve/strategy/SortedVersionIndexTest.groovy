@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy
+
+import spock.lang.Specification
+
+class SortedVersionIndexTest extends Specification {
+    def versionParser = new VersionParser()
+    def comparator = new DefaultVersionComparator().asVersionComparator()
+
+    def "sorts versions latest first"() {
+        def listing = ["1.0", "1.10", "1.2", "1.2-rc", "1.2-dev", "1.2-alpha", "1.2.1", "2.0-final", "2.0-release", "1.0.a", "1.0.b", "a", "123"] as LinkedHashSet
+
+        when:
+        def index = new SortedVersionIndex(listing, versionParser)
+
+        then:
+        (0..<index.size()).collect { index.get(it).source } == ["123", "2.0-final", "2.0-release", "1.10", "1.2.1", "1.2", "1.2-rc", "1.2-alpha", "1.2-dev", "1.0", "1.0.b", "1.0.a", "a"]
+    }
+
+    def "orders versions as the version comparator does"() {
+        def random = new Random(1)
+        def listing = [] as LinkedHashSet
+        while (listing.size() < 500) {
+            listing << (1..(1 + random.nextInt(4))).collect { random.nextInt(6) == 0 ? ["alpha", "beta", "rc", "dev", "final", "SNAPSHOT"][random.nextInt(6)] : random.nextInt(12) }.join([".", "-", "_"][random.nextInt(3)])
+        }
+
+        when:
+        def index = new SortedVersionIndex(listing, versionParser)
+
+        then:
+        (0..<index.size()).collect { index.get(it) } == listing.collect { versionParser.transform(it) }.sort(false, Collections.reverseOrder(comparator))
+        (1..<index.size()).every { Integer.signum(index.compare(it - 1, it)) == Integer.signum(comparator.compare(index.get(it - 1), index.get(it))) }
+    }
+
+    def "counts versions above upper bound"() {
+        def index = new SortedVersionIndex(["3.0", "2.1", "2.0", "2.0-rc", "1.5", "1.0"] as LinkedHashSet, versionParser)
+
+        expect:
+        index.countAbove(versionParser.transform(bound), inclusive) == count
+
+        where:
+        bound    | inclusive | count
+        "4.0"    | true      | 0
+        "3.0"    | true      | 0
+        "3.0"    | false     | 1
+        "2.0"    | true      | 2
+        "2.0"    | false     | 3
+        "2.0-rc" | false     | 4
+        "0.1"    | true      | 6
+    }
+
+    def "counts versions that are above all versions with prefix"() {
+        def index = new SortedVersionIndex(["10.0", "2.1", "2.0", "1.10", "1.2.3", "1.2", "1-rc", "1.0", "1"] as LinkedHashSet, versionParser)
+
+        expect:
+        index.countAbovePrefix(prefix, versionParser) == count
+
+        where:
+        prefix | count
+        ""     | 0
+        "1"    | 0
+        "1."   | 3
+        "1.2"  | 3
+        "1.2." | 4
+        "2."   | 1
+        "3."   | 1
+        "0."   | 9
+    }
+
+    def "does not skip versions when listing is not totally ordered"() {
+        def index = new SortedVersionIndex(["3.0", "2.01", "1.0"] as LinkedHashSet, versionParser)
+
+        expect:
+        index.countAbove(versionParser.transform("2.0"), true) == 0
+        index.countAbovePrefix("1.", versionParser) == 0
+    }
+
+    def "does not skip versions when bound is not totally ordered"() {
+        def index = new SortedVersionIndex(["3.0", "2.1", "1.0"] as LinkedHashSet, versionParser)
+
+        expect:
+        index.countAbove(versionParser.transform("2.01"), true) == 0
+        index.countAbovePrefix("01.", versionParser) == 0
+    }
+
+    def "reuses index for same listing"() {
+        expect:
+        versionParser.transformListing(["1.0", "2.0"] as Set).is(versionParser.transformListing(["2.0", "1.0"] as Set))
+        !versionParser.transformListing(["1.0", "2.0"] as Set).is(versionParser.transformListing(["1.0"] as Set))
+    }
+}
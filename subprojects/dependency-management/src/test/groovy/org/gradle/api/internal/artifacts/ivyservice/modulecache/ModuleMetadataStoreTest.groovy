@@ -22,6 +22,8 @@ import org.gradle.api.internal.artifacts.repositories.metadata.MavenMutableModul
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
 import org.gradle.internal.resource.local.LocallyAvailableResource
 import org.gradle.internal.resource.local.PathKeyFileStore
+import org.gradle.internal.serialize.Decoder
+import org.gradle.internal.serialize.Encoder
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.TestUtil
 import org.gradle.util.internal.SimpleMapInterner
@@ -40,7 +42,8 @@ class ModuleMetadataStoreTest extends Specification {
     }
     def moduleComponentIdentifier = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org.test", "testArtifact"), "1.0")
     def serializer = Mock(ModuleMetadataSerializer)
-    @Subject ModuleMetadataStore store = new ModuleMetadataStore(pathKeyFileStore, serializer, moduleIdentifierFactory, SimpleMapInterner.notThreadSafe())
+    def stringTable = new ModuleMetadataStringTable(temporaryFolder.file("strings.bin"), SimpleMapInterner.notThreadSafe())
+    @Subject ModuleMetadataStore store = new ModuleMetadataStore(pathKeyFileStore, serializer, moduleIdentifierFactory, stringTable)
     def mavenMetadataFactory = new MavenMutableModuleMetadataFactory(moduleIdentifierFactory, TestUtil.attributesFactory(), TestUtil.objectInstantiator(), TestUtil.featurePreviews())
 
     def "getModuleDescriptorFile returns null for not cached descriptors"() {
@@ -70,4 +73,93 @@ class ModuleMetadataStoreTest extends Specification {
         };
         1 * serializer.write(_, descriptor)
     }
+
+    def "ignores descriptor written against another string table"() {
+        setup:
+        File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
+        def descriptor = mavenMetadataFactory.create(moduleComponentIdentifier).asImmutable()
+        pathKeyFileStore.add("org.test/testArtifact/1.0/repositoryId/descriptor.bin", _) >> { path, action ->
+            action.execute(descriptorFile); fileStoreEntry
+        }
+        pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/descriptor.bin") >> fileStoreEntry
+        fileStoreEntry.file >> descriptorFile
+        store.putModuleDescriptor(new ModuleComponentAtRepositoryKey(repository, moduleComponentIdentifier), descriptor)
+
+        when:
+        stringTable.close()
+        temporaryFolder.file("strings.bin").delete()
+        def result = store.getModuleDescriptor(new ModuleComponentAtRepositoryKey(repository, moduleComponentIdentifier))
+
+        then:
+        result == null
+        0 * serializer.read(_, _)
+
+        cleanup:
+        truncatedTable?.close()
+    }
+
+    def "ignores descriptor when the string table lost the strings it refers to"() {
+        setup:
+        File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
+        def descriptor = mavenMetadataFactory.create(moduleComponentIdentifier).asImmutable()
+        pathKeyFileStore.add("org.test/testArtifact/1.0/repositoryId/descriptor.bin", _) >> { path, action ->
+            action.execute(descriptorFile); fileStoreEntry
+        }
+        pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/descriptor.bin") >> fileStoreEntry
+        fileStoreEntry.file >> descriptorFile
+        serializer.write(_, descriptor) >> { Encoder encoder, metadata -> encoder.writeString("org.test") }
+        store.putModuleDescriptor(new ModuleComponentAtRepositoryKey(repository, moduleComponentIdentifier), descriptor)
+
+        when:
+        stringTable.close()
+        def raf = new RandomAccessFile(temporaryFolder.file("strings.bin"), "rw")
+        raf.setLength(12)
+        raf.close()
+        def truncatedTable = new ModuleMetadataStringTable(temporaryFolder.file("strings.bin"), SimpleMapInterner.notThreadSafe())
+        store = new ModuleMetadataStore(pathKeyFileStore, serializer, moduleIdentifierFactory, truncatedTable)
+        def result = store.getModuleDescriptor(new ModuleComponentAtRepositoryKey(repository, moduleComponentIdentifier))
+
+        then:
+        result == null
+        0 * serializer.read(_, _)
+
+        cleanup:
+        truncatedTable?.close()
+    }
+
+    def "stores strings inline once the string table is full"() {
+        setup:
+        def fullTable = new ModuleMetadataStringTable(temporaryFolder.file("full.bin"), SimpleMapInterner.notThreadSafe(), 12)
+        store = new ModuleMetadataStore(pathKeyFileStore, serializer, moduleIdentifierFactory, fullTable)
+        File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
+        def descriptor = mavenMetadataFactory.create(moduleComponentIdentifier).asImmutable()
+        def readDescriptor = mavenMetadataFactory.create(moduleComponentIdentifier)
+        def strings = []
+        pathKeyFileStore.add("org.test/testArtifact/1.0/repositoryId/descriptor.bin", _) >> { path, action ->
+            action.execute(descriptorFile); fileStoreEntry
+        }
+        pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/descriptor.bin") >> fileStoreEntry
+        fileStoreEntry.file >> descriptorFile
+        serializer.write(_, descriptor) >> { Encoder encoder, metadata ->
+            encoder.writeString("org.test")
+            encoder.writeNullableString(null)
+            encoder.writeNullableString("1.0")
+        }
+        serializer.read(_, _) >> { Decoder decoder, factory ->
+            strings << decoder.readString() << decoder.readNullableString() << decoder.readNullableString()
+            readDescriptor
+        }
+
+        when:
+        store.putModuleDescriptor(new ModuleComponentAtRepositoryKey(repository, moduleComponentIdentifier), descriptor)
+        def result = store.getModuleDescriptor(new ModuleComponentAtRepositoryKey(repository, moduleComponentIdentifier))
+
+        then:
+        result == readDescriptor
+        strings == ["org.test", null, "1.0"]
+        fullTable.add("org.test") == ModuleMetadataStringTable.NOT_STORED
+
+        cleanup:
+        fullTable.close()
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import com.google.common.collect.Interner
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.internal.SimpleMapInterner
+import org.junit.Rule
+import spock.lang.Specification
+
+class ModuleMetadataStringTableTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder
+    def file = temporaryFolder.file("strings.bin")
+    def table = new ModuleMetadataStringTable(file, SimpleMapInterner.notThreadSafe())
+
+    def cleanup() {
+        table.close()
+    }
+
+    def "assigns an index to each distinct string"() {
+        expect:
+        table.add("org.gradle") == 0
+        table.add("1.0") == 1
+        table.add("org.gradle") == 0
+        table.get(0) == "org.gradle"
+        table.get(1) == "1.0"
+    }
+
+    def "reads strings written by another instance"() {
+        def other = new ModuleMetadataStringTable(file, SimpleMapInterner.notThreadSafe())
+
+        when:
+        table.add("a")
+        other.add("b")
+        def index = table.add("c")
+
+        then:
+        index == 2
+        table.get(1) == "b"
+        other.get(2) == "c"
+        other.add("a") == 0
+        other.id == table.id
+
+        cleanup:
+        other.close()
+    }
+
+    def "decodes strings from an existing table"() {
+        table.add("\u00fcn\u00efc\u00f8d\u00e9")
+        table.add("")
+        table.flush()
+        table.close()
+
+        when:
+        def reopened = new ModuleMetadataStringTable(file, SimpleMapInterner.notThreadSafe())
+
+        then:
+        reopened.get(0) == "\u00fcn\u00efc\u00f8d\u00e9"
+        reopened.get(1) == ""
+        reopened.id == table.id
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "overwrites an incomplete entry at the end of the table"() {
+        table.add("a")
+        table.close()
+        file << ([0, 0, 0, 10, 1, 2] as byte[])
+
+        when:
+        def reopened = new ModuleMetadataStringTable(file, SimpleMapInterner.notThreadSafe())
+
+        then:
+        reopened.add("b") == 1
+        reopened.get(0) == "a"
+        reopened.get(1) == "b"
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "ignores a corrupt entry and the entries after it"() {
+        table.add("a")
+        table.add("b")
+        table.close()
+        def raf = new RandomAccessFile(file, "rw")
+        raf.seek(20)
+        raf.write('x' as char)
+        raf.close()
+
+        when:
+        def reopened = new ModuleMetadataStringTable(file, SimpleMapInterner.notThreadSafe())
+
+        then:
+        reopened.length == 12
+        !reopened.hasLength(file.length())
+        reopened.add("b") == 0
+        reopened.get(0) == "b"
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "finds the index of a string without decoding the table"() {
+        table.add("a")
+        table.add("b")
+        table.close()
+        def interner = Mock(Interner)
+
+        when:
+        def reopened = new ModuleMetadataStringTable(file, interner)
+
+        then:
+        reopened.add("b") == 1
+        0 * interner._
+
+        cleanup:
+        reopened.close()
+    }
+
+    def "does not add strings once the table is full"() {
+        def small = new ModuleMetadataStringTable(temporaryFolder.file("small.bin"), SimpleMapInterner.notThreadSafe(), 12 + 8 + 3)
+
+        expect:
+        small.add("abc") == 0
+        small.add("d") == ModuleMetadataStringTable.NOT_STORED
+        small.add("abc") == 0
+
+        cleanup:
+        small.close()
+    }
+
+    def "fails for a string that is not in the table"() {
+        table.add("a")
+
+        when:
+        table.get(1)
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message.startsWith("String 1 not found")
+    }
+
+    def "uses a new id when the table is recreated"() {
+        def id = table.id
+        table.close()
+        file.delete()
+
+        expect:
+        table.id != id
+        table.add("a") == 0
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.gradle.cache.FileLockManager
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.cache.internal.DefaultFileLockManagerTestHelper.createDefaultFileLockManager
+
+class SharedModuleCacheIndexTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def file = tmpDir.file("metadata/shared-index.bin")
+    def lockManager = createDefaultFileLockManager()
+    def indices = []
+
+    def cleanup() {
+        indices*.close()
+    }
+
+    def "stores and replaces entries"() {
+        def cache = cache(index(), "a")
+
+        expect:
+        cache.get("key") == null
+
+        when:
+        cache.put("key", "value")
+
+        then:
+        cache.get("key") == "value"
+
+        when:
+        cache.put("key", "other")
+
+        then:
+        cache.get("key") == "other"
+    }
+
+    def "removes entries"() {
+        def cache = cache(index(), "a")
+        cache.put("key", "value")
+
+        when:
+        cache.remove("key")
+
+        then:
+        cache.get("key") == null
+
+        when:
+        cache.put("key", "again")
+
+        then:
+        cache.get("key") == "again"
+    }
+
+    def "each view has its own keys"() {
+        def index = index()
+        cache(index, "a").put("key", "a")
+        cache(index, "b").put("key", "b")
+
+        expect:
+        cache(index, "a").get("key") == "a"
+        cache(index, "b").get("key") == "b"
+    }
+
+    def "entries written by one index are visible to other indices using the same file"() {
+        def writer = cache(index(), "a")
+        def reader = cache(index(), "a")
+
+        expect:
+        reader.get("key") == null
+
+        when:
+        writer.put("key", "value")
+
+        then:
+        reader.get("key") == "value"
+
+        when:
+        writer.put("key", "other")
+
+        then:
+        reader.get("key") == "other"
+
+        when:
+        writer.remove("key")
+
+        then:
+        reader.get("key") == null
+    }
+
+    def "uses the sizes the file was created with"() {
+        cache(index(16, 1024), "a").put("key", "value")
+
+        expect:
+        cache(index(1024, 1024 * 1024), "a").get("key") == "value"
+    }
+
+    def "drops new entries once the slots are full"() {
+        def cache = cache(index(16, 64 * 1024), "a")
+
+        when:
+        (0..<20).each { cache.put("key" + it, "value" + it) }
+
+        then:
+        (0..<12).every { cache.get("key" + it) == "value" + it }
+        (12..<20).every { cache.get("key" + it) == null }
+    }
+
+    def "drops entries once the data region is full"() {
+        def cache = cache(index(1024, 256), "a")
+
+        when:
+        (0..<20).each { cache.put("key" + it, "value" + it) }
+
+        then:
+        cache.get("key0") == "value0"
+        cache.get("key19") == null
+    }
+
+    def "stops serving an entry that cannot be updated or removed once the index is full"() {
+        def cache = cache(index(1024, 256), "a")
+        def reader = cache(index(), "a")
+        (0..<20).each { cache.put("key" + it, "value" + it) }
+
+        expect:
+        cache.get("key0") == "value0"
+        cache.get("key1") == "value1"
+
+        when:
+        cache.put("key0", "x" * 200)
+        cache.remove("key1")
+
+        then:
+        cache.get("key0") == null
+        cache.get("key1") == null
+        reader.get("key0") == null
+        reader.get("key1") == null
+        cache.get("key2") == "value2"
+    }
+
+    def "reclaims the space of replaced entries"() {
+        def cache = cache(index(16, 1024), "a")
+        def reader = cache(index(), "a")
+
+        when:
+        (0..<200).each { cache.put("key", "value" + it) }
+        cache.put("other", "value")
+
+        then:
+        reader.get("key") == "value199"
+        reader.get("other") == "value"
+    }
+
+    def "reclaims the slots of removed entries"() {
+        def cache = cache(index(16, 64 * 1024), "a")
+        (0..<8).each { cache.put("retained" + it, "value" + it) }
+
+        when:
+        (0..<50).each {
+            cache.put("key" + it, "value" + it)
+            cache.remove("key" + it)
+        }
+        cache.put("key", "value")
+
+        then:
+        cache.get("key") == "value"
+        (0..<8).every { cache.get("retained" + it) == "value" + it }
+        (0..<50).every { cache.get("key" + it) == null }
+    }
+
+    def "ignores an entry whose content does not match its checksum"() {
+        def cache = cache(index(), "a")
+        cache.put("key", "value")
+
+        when:
+        def raf = new RandomAccessFile(file, "rw")
+        def bytes = new byte[(int) raf.length()]
+        raf.readFully(bytes)
+        def offset = new String(bytes, "ISO-8859-1").lastIndexOf("valu")
+        raf.seek(offset)
+        raf.write("VALU".bytes)
+        raf.close()
+
+        then:
+        cache(index(), "a").get("key") == null
+    }
+
+    def "clears the index when a process died while compacting it"() {
+        def writer = cache(index(), "a")
+        def reader = cache(index(), "a")
+        writer.put("key", "value")
+
+        when:
+        def raf = new RandomAccessFile(file, "rw")
+        raf.seek(20)
+        def generation = raf.readInt()
+        raf.seek(20)
+        raf.writeInt(generation + 1)
+        raf.close()
+
+        then:
+        reader.get("key") == null
+
+        when:
+        cache(index(), "a").put("other", "value")
+
+        then:
+        reader.get("other") == "value"
+        reader.get("key") == null
+
+        when:
+        writer.put("key", "again")
+
+        then:
+        reader.get("key") == "again"
+    }
+
+    def "adds values found in the persistent caches in batches"() {
+        def writerIndex = index(1024, 64 * 1024)
+        def writer = cache(writerIndex, "a")
+        def reader = cache(index(), "a")
+
+        when:
+        (0..<63).each { writer.putLater("key" + it, "value" + it) }
+
+        then:
+        (0..<63).every { reader.get("key" + it) == null }
+
+        when:
+        writer.putLater("key63", "value63")
+
+        then:
+        (0..<64).every { reader.get("key" + it) == "value" + it }
+
+        when:
+        writer.putLater("other", "value")
+        writerIndex.close()
+
+        then:
+        reader.get("other") == "value"
+    }
+
+    def "does not replace entries with values found in the persistent caches"() {
+        def writerIndex = index(1024, 64 * 1024)
+        def writer = cache(writerIndex, "a")
+        def other = cache(index(), "a")
+
+        when:
+        writer.putLater("key", "found")
+        other.put("key", "stored")
+        writer.putLater("replaced", "found")
+        writer.put("replaced", "stored")
+        writerIndex.close()
+
+        then:
+        other.get("key") == "stored"
+        other.get("replaced") == "stored"
+    }
+
+    def "does nothing when disabled"() {
+        def cache = cache(index(16, 1024, false), "a")
+
+        when:
+        cache.put("key", "value")
+
+        then:
+        cache.get("key") == null
+        !file.exists()
+    }
+
+    private SharedModuleCacheIndex index(int slotCount = 64, int dataSize = 4096, boolean enabled = true) {
+        def index = new SharedModuleCacheIndex(file, lockManager as FileLockManager, slotCount, dataSize, enabled)
+        indices << index
+        return index
+    }
+
+    private static SharedModuleCacheIndex.Cache<String, String> cache(SharedModuleCacheIndex index, String name) {
+        return index.cache(name, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER)
+    }
+}
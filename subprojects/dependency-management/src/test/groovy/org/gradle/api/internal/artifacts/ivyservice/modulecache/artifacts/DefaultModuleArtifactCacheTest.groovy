@@ -17,6 +17,8 @@
 package org.gradle.api.internal.artifacts.ivyservice.modulecache.artifacts
 
 import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.SharedModuleCacheIndex
+import org.gradle.cache.FileLockManager
 import org.gradle.cache.PersistentIndexedCache
 import org.gradle.internal.Factory
 import org.gradle.internal.component.external.model.ModuleComponentArtifactIdentifier
@@ -38,7 +40,9 @@ class DefaultModuleArtifactCacheTest extends Specification {
     FileAccessTracker fileAccessTracker = Stub(FileAccessTracker)
     String persistentCacheFile = "cacheFile"
 
-    @Subject DefaultModuleArtifactCache index = new DefaultModuleArtifactCache(persistentCacheFile, timeProvider, cacheLockingManager, fileAccessTracker)
+    SharedModuleCacheIndex sharedIndex = new SharedModuleCacheIndex(new File("shared-index.bin"), Stub(FileLockManager), 16, 1024, false)
+
+    @Subject DefaultModuleArtifactCache index = new DefaultModuleArtifactCache(persistentCacheFile, timeProvider, cacheLockingManager, fileAccessTracker, sharedIndex)
 
     def "storing null artifactFile not supported"() {
         given:
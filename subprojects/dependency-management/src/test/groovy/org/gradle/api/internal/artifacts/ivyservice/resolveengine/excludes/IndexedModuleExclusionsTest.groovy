@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes
+
+import com.google.common.collect.ImmutableList
+import org.gradle.api.artifacts.ModuleIdentifier
+import org.gradle.api.internal.artifacts.DefaultImmutableModuleIdentifierFactory
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.internal.component.external.descriptor.DefaultExclude
+import org.gradle.internal.component.model.DefaultIvyArtifactName
+import org.gradle.internal.component.model.ExcludeMetadata
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions.excludeNone
+
+class IndexedModuleExclusionsTest extends Specification {
+    static final List<String> GROUPS = ["g0", "g1", "g2", "g3"]
+    static final List<String> NAMES = ["m0", "m1", "m2", "m3"]
+    static final List<ModuleIdentifier> MODULES = (GROUPS + "other").collectMany { group -> (NAMES + "other").collect { name -> DefaultModuleIdentifier.newId(group, name) } }
+    static final List<DefaultIvyArtifactName> ARTIFACTS = [new DefaultIvyArtifactName("a0", "jar", "jar"), new DefaultIvyArtifactName("a1", "jar", "jar")]
+
+    def moduleIdentifierFactory = new DefaultImmutableModuleIdentifierFactory()
+    def moduleExclusions = new ModuleExclusions(moduleIdentifierFactory)
+    def indexedExclusions = new IndexedModuleExclusions(moduleIdentifierFactory)
+    Random random
+
+    def "uses indexed exclusions for a resolution when enabled"() {
+        expect:
+        moduleExclusions.forResolution().is(moduleExclusions)
+
+        when:
+        System.setProperty(ModuleExclusions.INDEXED_EXCLUSIONS_PROPERTY, "true")
+        def exclusions = moduleExclusions.forResolution()
+
+        then:
+        exclusions instanceof IndexedModuleExclusions
+        !exclusions.is(moduleExclusions.forResolution())
+
+        cleanup:
+        System.clearProperty(ModuleExclusions.INDEXED_EXCLUSIONS_PROPERTY)
+    }
+
+    def "spec with no rules excludes nothing"() {
+        expect:
+        indexedExclusions.excludeAny().is(excludeNone())
+        indexedExclusions.excludeAny(rule("g0", "m0")).is(indexedExclusions.excludeAny(rule("g0", "m0")))
+        indexedExclusions.union(indexedExclusions.excludeAny(rule("g0", "*")), indexedExclusions.excludeAny(rule("g1", "*"))).is(excludeNone())
+    }
+
+    def "specs that exclude the same modules are equal"() {
+        def groupAndName = indexedExclusions.union(indexedExclusions.excludeAny(rule("g0", "*")), indexedExclusions.excludeAny(rule("*", "m0")))
+        def module = indexedExclusions.excludeAny(rule("g0", "m0"))
+        def group = indexedExclusions.excludeAny(rule("g0", "*"))
+
+        expect:
+        groupAndName.is(module)
+        indexedExclusions.intersect(group, module).is(group)
+        indexedExclusions.intersect(group, indexedExclusions.excludeAny(rule("*", "*"))).excludesSameModulesAs(indexedExclusions.excludeAny(rule("*", "*")))
+        !group.excludesSameModulesAs(module)
+    }
+
+    def "checking a module does not add it to the index"() {
+        def exclusion = indexedExclusions.excludeAny(rule("g0", "m0"), rule("g1", "*"))
+        def index = indexedExclusions.index
+
+        expect:
+        exclusion.excludeModule(DefaultModuleIdentifier.newId("g0", "m0"))
+        exclusion.excludeModule(DefaultModuleIdentifier.newId("g1", "other"))
+        !exclusion.excludeModule(DefaultModuleIdentifier.newId("g0", "other"))
+        !exclusion.excludeModule(DefaultModuleIdentifier.newId("other", "m0"))
+        !exclusion.excludeModule(DefaultModuleIdentifier.newId("g2", "m2"))
+
+        and:
+        index.group("g2") == 2
+        index.name("m2") == 1
+        index.module(index.group("g0"), index.name("m0")) == 0
+        index.module(index.group("g2"), index.name("m2")) == 1
+    }
+
+    @Unroll
+    def "excludes the same modules as the object based exclusions for exact module rules (seed #seed)"() {
+        random = new Random(seed)
+
+        expect:
+        20.times {
+            def exclusions = combine(4, false, true)
+            assertExcludeSameModules(exclusions[0], exclusions[1])
+        }
+
+        where:
+        seed << (0..<50)
+    }
+
+    @Unroll
+    def "excludes the same modules and artifacts as the object based exclusions when intersecting any rules (seed #seed)"() {
+        random = new Random(seed)
+
+        expect:
+        20.times {
+            def exclusions = combine(4, true, false)
+            assertExcludeSameModules(exclusions[0], exclusions[1])
+            assert exclusions[1].mayExcludeArtifacts() == exclusions[0].mayExcludeArtifacts()
+            MODULES.each { module ->
+                ARTIFACTS.each { artifact ->
+                    assert exclusions[1].excludeArtifact(module, artifact) == exclusions[0].excludeArtifact(module, artifact)
+                }
+            }
+        }
+
+        where:
+        seed << (0..<50)
+    }
+
+    @Unroll
+    def "excludes the same modules as the object based exclusions for any rules (seed #seed)"() {
+        random = new Random(seed)
+
+        expect:
+        20.times {
+            def exclusions = combine(4, true, true)
+            assertExcludeSameModules(exclusions[0], exclusions[1])
+        }
+
+        where:
+        seed << (0..<50)
+    }
+
+    @Unroll
+    def "only reports exclusions that exclude the same modules as such (seed #seed)"() {
+        random = new Random(seed)
+        def results = (0..<10).collect { combine(3, seed % 2 == 1, true) }
+
+        expect:
+        [results, results].combinations().each { one, two ->
+            if (one[1].excludesSameModulesAs(two[1])) {
+                MODULES.each { module ->
+                    assert one[1].excludeModule(module) == two[1].excludeModule(module)
+                }
+            }
+            if (seed % 2 == 0 && one[0].excludesSameModulesAs(two[0])) {
+                assert one[1].excludesSameModulesAs(two[1])
+            }
+        }
+
+        where:
+        seed << (0..<50)
+    }
+
+    private static void assertExcludeSameModules(ModuleExclusion expected, ModuleExclusion actual) {
+        MODULES.each { module ->
+            assert actual.excludeModule(module) == expected.excludeModule(module)
+        }
+    }
+
+    /**
+     * Builds the same random combination of exclude rules with both the object based and the indexed exclusions.
+     */
+    private List<ModuleExclusion> combine(int depth, boolean anyRules, boolean withUnion) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            def excludes = ImmutableList.copyOf((0..<random.nextInt(5)).collect { randomRule(anyRules) })
+            return [moduleExclusions.excludeAny(excludes), indexedExclusions.excludeAny(excludes)]
+        }
+        def one = combine(depth - 1, anyRules, withUnion)
+        def two = combine(depth - 1, anyRules, withUnion)
+        if (withUnion && random.nextBoolean()) {
+            return [moduleExclusions.union(one[0], two[0]), indexedExclusions.union(one[1], two[1])]
+        }
+        return [moduleExclusions.intersect(one[0], two[0]), indexedExclusions.intersect(one[1], two[1])]
+    }
+
+    private ExcludeMetadata randomRule(boolean anyRules) {
+        switch (anyRules ? random.nextInt(10) : 0) {
+            case 8:
+                return new DefaultExclude(DefaultModuleIdentifier.newId(randomValue(GROUPS), randomValue(NAMES)), ARTIFACTS[random.nextInt(2)], new String[0], PatternMatchers.EXACT)
+            case 9:
+                return new DefaultExclude(DefaultModuleIdentifier.newId("g[01]", randomValue(NAMES)), null, new String[0], "regexp")
+            default:
+                return rule(randomValue(GROUPS), randomValue(NAMES))
+        }
+    }
+
+    private String randomValue(List<String> values) {
+        random.nextInt(5) == 0 ? "*" : values[random.nextInt(values.size())]
+    }
+
+    private static ExcludeMetadata rule(String group, String name) {
+        new DefaultExclude(DefaultModuleIdentifier.newId(group, name))
+    }
+}
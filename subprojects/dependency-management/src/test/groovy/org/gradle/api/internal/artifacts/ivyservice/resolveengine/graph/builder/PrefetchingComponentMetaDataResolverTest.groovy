@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder
+
+import com.google.common.base.Optional
+import org.gradle.api.artifacts.component.ComponentIdentifier
+import org.gradle.api.artifacts.component.ComponentSelector
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.model.ComponentOverrideMetadata
+import org.gradle.internal.component.model.ComponentResolveMetadata
+import org.gradle.internal.component.model.ConfigurationMetadata
+import org.gradle.internal.component.model.DependencyMetadata
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.internal.operations.RunnableBuildOperation
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult
+import spock.lang.Specification
+
+class PrefetchingComponentMetaDataResolverTest extends Specification {
+    def delegate = Mock(ComponentMetaDataResolver)
+    def queued = []
+    def queue = Stub(BuildOperationQueue) {
+        add(_) >> { RunnableBuildOperation operation -> queued << operation }
+    }
+    def versionSelectorScheme = new DefaultVersionSelectorScheme(new DefaultVersionComparator(), new VersionParser())
+    def resolver = new PrefetchingComponentMetaDataResolver(delegate, versionSelectorScheme, queue)
+
+    def "fetches the dependencies with static versions of a resolved component"() {
+        def result = new DefaultBuildableComponentResolveResult()
+
+        when:
+        resolver.resolve(id("a"), Stub(ComponentOverrideMetadata), result)
+
+        then:
+        1 * delegate.resolve(id("a"), _, result) >> { resolved(result, component(dependency("b", "1.0"), dependency("c", "[1.0,2.0)"), dependency("d", "latest.release"), dependency("e", "2.0"))) }
+        queued.size() == 2
+
+        when:
+        runQueued()
+
+        then:
+        1 * delegate.resolve(id("b", "1.0"), _, _)
+        1 * delegate.resolve(id("e", "2.0"), _, _)
+        0 * delegate.resolve(_, _, _)
+    }
+
+    def "fetches the dependencies of fetched components"() {
+        when:
+        resolver.resolve(id("a"), Stub(ComponentOverrideMetadata), new DefaultBuildableComponentResolveResult())
+        runQueued()
+        runQueued()
+
+        then:
+        1 * delegate.resolve(id("a"), _, _) >> { ComponentIdentifier id, ComponentOverrideMetadata override, BuildableComponentResolveResult result -> resolved(result, component(dependency("b", "1.0"))) }
+        1 * delegate.resolve(id("b", "1.0"), _, _) >> { ComponentIdentifier id, ComponentOverrideMetadata override, BuildableComponentResolveResult result -> resolved(result, component(dependency("c", "1.0"))) }
+        1 * delegate.resolve(id("c", "1.0"), _, _)
+    }
+
+    def "does not fetch a component that has already been requested or is cheap to fetch"() {
+        when:
+        resolver.resolve(id("b", "1.0"), Stub(ComponentOverrideMetadata), new DefaultBuildableComponentResolveResult())
+        resolver.resolve(id("a"), Stub(ComponentOverrideMetadata), new DefaultBuildableComponentResolveResult())
+        runQueued()
+
+        then:
+        1 * delegate.resolve(id("b", "1.0"), _, _)
+        1 * delegate.resolve(id("a"), _, _) >> { ComponentIdentifier id, ComponentOverrideMetadata override, BuildableComponentResolveResult result -> resolved(result, component(dependency("b", "1.0"), dependency("c", "1.0"))) }
+        1 * delegate.isFetchingMetadataCheap(id("c", "1.0")) >> true
+        0 * delegate.resolve(_, _, _)
+    }
+
+    def "ignores failures to fetch a component"() {
+        when:
+        resolver.resolve(id("a"), Stub(ComponentOverrideMetadata), new DefaultBuildableComponentResolveResult())
+        runQueued()
+
+        then:
+        1 * delegate.resolve(id("a"), _, _) >> { ComponentIdentifier id, ComponentOverrideMetadata override, BuildableComponentResolveResult result -> resolved(result, component(dependency("b", "1.0"))) }
+        1 * delegate.resolve(id("b", "1.0"), _, _) >> { throw new RuntimeException("broken") }
+        noExceptionThrown()
+    }
+
+    def "discards fetches that have not started when stopped"() {
+        given:
+        delegate.resolve(id("a"), _, _) >> { ComponentIdentifier id, ComponentOverrideMetadata override, BuildableComponentResolveResult result -> resolved(result, component(dependency("b", "1.0"))) }
+        resolver.resolve(id("a"), Stub(ComponentOverrideMetadata), new DefaultBuildableComponentResolveResult())
+
+        when:
+        resolver.stop()
+        runQueued()
+
+        then:
+        0 * delegate.resolve(_, _, _)
+    }
+
+    private void runQueued() {
+        def operations = new ArrayList(queued)
+        queued.clear()
+        operations*.run(null)
+    }
+
+    private static ComponentIdentifier id(String name, String version = "1.0") {
+        DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", name), version)
+    }
+
+    private static void resolved(BuildableComponentResolveResult result, ComponentResolveMetadata metadata) {
+        result.resolved(metadata)
+    }
+
+    private ComponentResolveMetadata component(DependencyMetadata... dependencies) {
+        def configuration = Stub(ConfigurationMetadata) {
+            getDependencies() >> (dependencies as List)
+        }
+        Stub(ComponentResolveMetadata) {
+            getVariantsForGraphTraversal() >> Optional.absent()
+            getConfiguration("default") >> configuration
+        }
+    }
+
+    private DependencyMetadata dependency(String name, String version) {
+        ComponentSelector selector = DefaultModuleComponentSelector.newSelector(DefaultModuleIdentifier.newId("org", name), version)
+        Stub(DependencyMetadata) {
+            getSelector() >> selector
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache
+
+import org.gradle.api.internal.artifacts.DefaultImmutableModuleIdentifierFactory
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DesugaredAttributeContainerSerializer
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DetachedComponentResult
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons
+import org.gradle.api.internal.model.NamedObjectInstantiator
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.hash.HashValue
+import org.gradle.internal.serialize.SerializerSpec
+import org.gradle.util.TestUtil
+
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
+
+class CachedResolvedGraphSerializerTest extends SerializerSpec {
+    def serializer = new CachedResolvedGraphSerializer(new DefaultImmutableModuleIdentifierFactory(), new DesugaredAttributeContainerSerializer(TestUtil.attributesFactory(), NamedObjectInstantiator.INSTANCE))
+
+    def "serializes graph"() {
+        def root = component(1L, 'root', '1.0', VersionSelectionReasons.root(), null)
+        def lib = component(2L, 'lib', '2.0', VersionSelectionReasons.of([VersionSelectionReasons.REQUESTED, VersionSelectionReasons.CONFLICT_RESOLUTION]), new HashValue("abc123"))
+        def libSelector1 = DefaultModuleComponentSelector.newSelector(DefaultModuleIdentifier.newId('org', 'lib'), '1.0')
+        def libSelector2 = DefaultModuleComponentSelector.newSelector(DefaultModuleIdentifier.newId('org', 'lib'), '2.0')
+        def graph = new CachedResolvedGraph(
+            10L,
+            [root, lib],
+            [new CachedResolvedGraph.Selector(20L, libSelector1), new CachedResolvedGraph.Selector(21L, libSelector2)],
+            [new CachedResolvedGraph.Node(10L, 1L, 'compile', [] as int[], [0, 1] as int[]),
+             new CachedResolvedGraph.Node(11L, 2L, 'default', [0, 1] as int[], [] as int[])],
+            [new CachedResolvedGraph.Edge(10L, 20L, libSelector1, 11L, true, 0),
+             new CachedResolvedGraph.Edge(10L, 21L, libSelector2, 11L, false, -1)],
+            [10L, 11L])
+
+        when:
+        def result = serialize(graph, serializer)
+
+        then:
+        result.rootNodeId == 10L
+
+        result.components.size() == 2
+        result.components[0].metadataHash == null
+        result.components[0].result.resultId == 1L
+        result.components[0].result.componentId == root.result.componentId
+        result.components[0].result.moduleVersion == root.result.moduleVersion
+        result.components[0].result.selectionReason == root.result.selectionReason
+        result.components[1].metadataHash == new HashValue("abc123")
+        result.components[1].result.resultId == 2L
+        result.components[1].result.componentId == lib.result.componentId
+        result.components[1].result.selectionReason == lib.result.selectionReason
+        result.components[1].result.variantName.displayName == 'default'
+        result.components[1].result.repositoryName == 'repo'
+
+        result.selectors*.id == [20L, 21L]
+        result.selectors*.requested == [libSelector1, libSelector2]
+
+        result.nodes*.id == [10L, 11L]
+        result.nodes*.componentId == [1L, 2L]
+        result.nodes*.configurationName == ['compile', 'default']
+        result.nodes*.incomingEdges.collect { it as List } == [[], [0, 1]]
+        result.nodes*.outgoingEdges.collect { it as List } == [[0, 1], []]
+
+        result.edges*.fromNodeId == [10L, 10L]
+        result.edges*.selectorId == [20L, 21L]
+        result.edges*.requested == [libSelector1, libSelector2]
+        result.edges*.selected == [11L, 11L]
+        result.edges*.contributesArtifacts == [true, false]
+        result.edges*.originalDependency == [0, -1]
+
+        result.edgeVisitOrder == [10L, 11L]
+    }
+
+    def "serializes empty graph"() {
+        def graph = new CachedResolvedGraph(1L, [], [], [], [], [])
+
+        when:
+        def result = serialize(graph, serializer)
+
+        then:
+        result.rootNodeId == 1L
+        result.components.empty
+        result.selectors.empty
+        result.nodes.empty
+        result.edges.empty
+        result.edgeVisitOrder.empty
+    }
+
+    private static CachedResolvedGraph.Component component(Long id, String name, String version, def reason, HashValue metadataHash) {
+        def componentId = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId('org', name), version)
+        def result = new DetachedComponentResult(id, newId('org', name, version), reason, componentId, 'default', TestUtil.attributesFactory().mutable(), metadataHash == null ? null : 'repo')
+        return new CachedResolvedGraph.Component(result, metadataHash)
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache
+
+import com.google.common.collect.ImmutableList
+import org.gradle.api.artifacts.ClientModule
+import org.gradle.api.artifacts.component.ComponentIdentifier
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessorFactory
+import org.gradle.api.internal.artifacts.ComponentSelectionRulesInternal
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules
+import org.gradle.api.internal.artifacts.ResolveContext
+import org.gradle.api.internal.artifacts.configurations.ConflictResolution
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository
+import org.gradle.api.internal.artifacts.repositories.descriptor.FlatDirRepositoryDescriptor
+import org.gradle.api.internal.attributes.ImmutableAttributes
+import org.gradle.internal.Actions
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.local.model.DslOriginDependencyMetadata
+import org.gradle.internal.component.local.model.LocalConfigurationMetadata
+import org.gradle.internal.component.local.model.LocalFileDependencyMetadata
+import org.gradle.internal.component.model.ComponentResolveMetadata
+import org.gradle.internal.component.model.LocalOriginDependencyMetadata
+import spock.lang.Specification
+
+class ResolvedGraphFingerprinterTest extends Specification {
+    def fingerprinter = new ResolvedGraphFingerprinter()
+    def resolutionStrategy = Stub(ResolutionStrategyInternal) {
+        getConflictResolution() >> ConflictResolution.latest
+        getDependencySubstitutionRule() >> Actions.doNothing()
+        getComponentSelection() >> Stub(ComponentSelectionRulesInternal) {
+            getRules() >> []
+        }
+    }
+    def resolveContext = Stub(ResolveContext) {
+        getName() >> "compile"
+        getResolutionStrategy() >> resolutionStrategy
+        getAttributes() >> ImmutableAttributes.EMPTY
+    }
+    def metadataProcessorFactory = Stub(ComponentMetadataProcessorFactory)
+    def metadataHandler = Stub(GlobalDependencyResolutionRules) {
+        getComponentMetadataProcessorFactory() >> metadataProcessorFactory
+    }
+
+    def "same inputs produce the same key"() {
+        expect:
+        def key = fingerprinter.fingerprint(resolveContext, root(dependency("a", "1.0"), dependency("b", "2.0")), [repository("repo")], metadataHandler)
+        key != null
+        key == fingerprinter.fingerprint(resolveContext, root(dependency("a", "1.0"), dependency("b", "2.0")), [repository("repo")], metadataHandler)
+    }
+
+    def "key changes when the declared dependencies or repositories change"() {
+        def key = fingerprinter.fingerprint(resolveContext, root(dependency("a", "1.0")), [repository("repo")], metadataHandler)
+
+        expect:
+        key != fingerprinter.fingerprint(resolveContext, root(dependency("a", "1.1")), [repository("repo")], metadataHandler)
+        key != fingerprinter.fingerprint(resolveContext, root(dependency("a", "1.0"), dependency("b", "1.0")), [repository("repo")], metadataHandler)
+        key != fingerprinter.fingerprint(resolveContext, root(dependency("a", "1.0")), [repository("other")], metadataHandler)
+        key != fingerprinter.fingerprint(resolveContext, root(dependency("a", "1.0")), [repository("repo"), repository("other")], metadataHandler)
+    }
+
+    def "graph is not cacheable when resolution depends on rules"() {
+        given:
+        metadataProcessorFactory.hasRules() >> true
+
+        expect:
+        fingerprinter.fingerprint(resolveContext, root(dependency("a", "1.0")), [], metadataHandler) == null
+    }
+
+    def "graph is not cacheable when resolution strategy fails on conflict or locks dependencies"() {
+        given:
+        def strategy = Stub(ResolutionStrategyInternal) {
+            getConflictResolution() >> conflictResolution
+            isDependencyLockingEnabled() >> locking
+            getDependencySubstitutionRule() >> Actions.doNothing()
+        }
+        def context = Stub(ResolveContext) {
+            getName() >> "compile"
+            getResolutionStrategy() >> strategy
+        }
+
+        expect:
+        fingerprinter.fingerprint(context, root(dependency("a", "1.0")), [], metadataHandler) == null
+
+        where:
+        conflictResolution         | locking
+        ConflictResolution.strict  | false
+        ConflictResolution.latest  | true
+    }
+
+    def "graph is not cacheable when configuration has file dependencies or client modules"() {
+        def clientModule = Stub(DslOriginDependencyMetadata) {
+            getSource() >> Stub(ClientModule)
+            getSelector() >> DefaultModuleComponentSelector.newSelector(DefaultModuleIdentifier.newId("org", "c"), "1.0")
+        }
+
+        expect:
+        fingerprinter.fingerprint(resolveContext, root([Stub(LocalFileDependencyMetadata)] as Set, dependency("a", "1.0")), [], metadataHandler) == null
+        fingerprinter.fingerprint(resolveContext, root(clientModule), [], metadataHandler) == null
+    }
+
+    def root(Object... dependencies) {
+        root([] as Set, dependencies)
+    }
+
+    def root(Set files, Object... dependencies) {
+        def configuration = Stub(LocalConfigurationMetadata) {
+            getFiles() >> files
+            getDependencies() >> (dependencies as List)
+            getExcludes() >> ImmutableList.of()
+        }
+        return Stub(ComponentResolveMetadata) {
+            getId() >> Stub(ComponentIdentifier) {
+                getDisplayName() >> "project :"
+            }
+            getModuleVersionId() >> DefaultModuleVersionIdentifier.newId("org", "root", "1.0")
+            getConfiguration("compile") >> configuration
+        }
+    }
+
+    def dependency(String name, String version) {
+        return Stub(LocalOriginDependencyMetadata) {
+            getSelector() >> DefaultModuleComponentSelector.newSelector(DefaultModuleIdentifier.newId("org", name), version)
+            getModuleConfiguration() >> "compile"
+            isTransitive() >> true
+            getExcludes() >> []
+            getArtifacts() >> []
+        }
+    }
+
+    def repository(String name) {
+        return Stub(ResolutionAwareRepository) {
+            getDescriptor() >> new FlatDirRepositoryDescriptor(name, [new File(name)])
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.result
 
+import com.google.common.io.CountingInputStream
 import org.gradle.cache.internal.BinaryStore
 import org.gradle.internal.serialize.Decoder
 import org.gradle.internal.serialize.Encoder
@@ -32,15 +33,26 @@ public class DummyBinaryStore implements BinaryStore {
 
     BinaryStore.BinaryData done() {
         new BinaryStore.BinaryData() {
+            CountingInputStream input
             Decoder decoder
             def <T> T read(BinaryStore.ReadAction<T> readAction) {
                 if (decoder == null) {
-                    decoder = new InputStreamBackedDecoder(new ByteArrayInputStream(bytes.toByteArray()))
+                    input = new CountingInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+                    decoder = new InputStreamBackedDecoder(input)
                 }
                 readAction.read(decoder)
             }
 
+            long getReadPosition() {
+                input == null ? 0 : input.count
+            }
+
+            byte[] readBytes(long position, int length) {
+                Arrays.copyOfRange(bytes.toByteArray(), (int) position, (int) position + length)
+            }
+
             void close() {
+                input = null
                 decoder = null
             }
         }
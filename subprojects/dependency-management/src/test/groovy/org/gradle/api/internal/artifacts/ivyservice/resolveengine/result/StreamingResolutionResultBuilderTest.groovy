@@ -199,6 +199,76 @@ class StreamingResolutionResultBuilderTest extends Specification {
 """
     }
 
+    def "components reached through different paths are equal and know their dependents"() {
+        def root = rootNode(1, "org", "root", "1.0")
+        def selector1 = selector(10, "org", "dep1", "1.0")
+        def selector2 = selector(11, "org", "dep2", "1.0")
+        def selector3 = selector(12, "org", "dep3", "1.0")
+        root.outgoingEdges >> [dep(selector1, 2), dep(selector2, 3)]
+        def dep1 = node(2, "org", "dep1", "1.0")
+        dep1.outgoingEdges >> [dep(selector3, 4)]
+        def dep2 = node(3, "org", "dep2", "1.0")
+        dep2.outgoingEdges >> [dep(selector3, 4)]
+
+        builder.start(root)
+
+        builder.visitNode(root)
+        builder.visitNode(dep1)
+        builder.visitNode(dep2)
+        builder.visitNode(node(4, "org", "dep3", "1.0"))
+
+        builder.visitSelector(selector1)
+        builder.visitSelector(selector2)
+        builder.visitSelector(selector3)
+
+        builder.visitEdges(root)
+        builder.visitEdges(dep1)
+        builder.visitEdges(dep2)
+
+        builder.finish(root)
+
+        when:
+        def result = builder.complete()
+        def dependencies = result.root.dependencies as List
+        def dep3ViaDep1 = (dependencies[0].selected.dependencies as List)[0].selected
+        def dep3ViaDep2 = (dependencies[1].selected.dependencies as List)[0].selected
+
+        then:
+        dep3ViaDep1 == dep3ViaDep2
+        dep3ViaDep1.hashCode() == dep3ViaDep2.hashCode()
+        dep3ViaDep1.id.displayName == "org:dep3:1.0"
+        dep3ViaDep1.dependents*.from*.id*.displayName == ["org:dep1:1.0", "org:dep2:1.0"]
+        dep3ViaDep1.dependents*.from.every { it.dependents*.from == [result.root] }
+        result.allComponents.size() == 4
+        result.allDependencies.size() == 4
+    }
+
+    def "edges are decoded once and shared by both of their ends"() {
+        def root = rootNode(1, "org", "root", "1.0")
+        def selector1 = selector(10, "org", "dep1", "1.0")
+        root.outgoingEdges >> [dep(selector1, 2)]
+
+        builder.start(root)
+
+        builder.visitNode(root)
+        builder.visitNode(node(2, "org", "dep1", "1.0"))
+        builder.visitSelector(selector1)
+        builder.visitEdges(root)
+
+        builder.finish(root)
+
+        when:
+        def result = builder.complete()
+        def dependency = (result.root.dependencies as List)[0]
+        def dependent = (dependency.selected.dependents as List)[0]
+
+        then:
+        result.root.dependencies.is(result.root.dependencies)
+        dependency.selected.dependents.is(dependency.selected.dependents)
+        dependent.is(dependency)
+        dependent.requested.is(dependency.requested)
+    }
+
     private DependencyGraphEdge dep(DependencyGraphSelector selector, Long selectedId) {
         def edge = Stub(DependencyGraphEdge)
         _ * edge.selector >> selector
@@ -70,6 +70,25 @@ class DefaultBinaryStoreTest extends Specification {
 
     }
 
+    def "reads bytes at a recorded position after the data has been closed"() {
+        def store = new DefaultBinaryStore(temp.file("foo.bin"))
+        store.write({ it.writeString("x") } as BinaryStore.WriteAction)
+        store.done().close()
+        store.write({ it.writeInt(10); it.writeBinary([1, 2, 3] as byte[]) } as BinaryStore.WriteAction)
+        def data = store.done()
+
+        when:
+        def position = data.read({ it.readInt(); it.readSmallInt(); data.readPosition } as BinaryStore.ReadAction)
+        data.close()
+
+        then:
+        data.readBytes(position, 3) == [1, 2, 3] as byte[]
+        data.readBytes(position + 1, 2) == [2, 3] as byte[]
+
+        cleanup:
+        store.close()
+    }
+
     class SomeException extends RuntimeException {}
 
     def "write action exception is propagated to the client"() {
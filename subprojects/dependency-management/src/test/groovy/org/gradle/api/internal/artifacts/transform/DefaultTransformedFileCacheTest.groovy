@@ -16,19 +16,26 @@
 
 package org.gradle.api.internal.artifacts.transform
 
+import org.gradle.api.file.FileTreeElement
 import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheMetadata
 import org.gradle.api.internal.artifacts.ivyservice.CacheLayout
+import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.changedetection.state.InMemoryCacheDecoratorFactory
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.tasks.incremental.InputFileDetails
 import org.gradle.cache.AsyncCacheAccess
 import org.gradle.cache.CacheDecorator
 import org.gradle.cache.CrossProcessCacheAccess
 import org.gradle.cache.MultiProcessSafePersistentIndexedCache
 import org.gradle.cache.internal.CacheScopeMapping
 import org.gradle.cache.internal.DefaultCacheRepository
+import org.gradle.internal.hash.FileHasher
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.resource.local.FileAccessTimeJournal
+import org.gradle.internal.snapshot.FileSystemMirror
 import org.gradle.internal.snapshot.FileSystemSnapshotter
 import org.gradle.internal.snapshot.RegularFileSnapshot
+import org.gradle.internal.snapshot.impl.DefaultFileSystemSnapshotter
 import org.gradle.internal.util.BiFunction
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import org.gradle.test.fixtures.file.TestFile
@@ -64,10 +71,19 @@ class DefaultTransformedFileCacheTest extends ConcurrentSpec {
         cache = createCache()
     }
 
-    private DefaultTransformedFileCache createCache() {
+    private DefaultTransformedFileCache createCache(FileSystemSnapshotter snapshotter = this.snapshotter) {
         new DefaultTransformedFileCache(artifactCacheMetaData, cacheRepo, decorator, snapshotter, fileAccessTimeJournal)
     }
 
+    private FileSystemSnapshotter directorySnapshotter() {
+        def hasher = Stub(FileHasher) {
+            hash(_ as File) >> { File file -> HashCode.fromInt(file.text.hashCode()) }
+            hash(_ as File, _) >> { File file, details -> HashCode.fromInt(file.text.hashCode()) }
+            hash(_ as FileTreeElement) >> { FileTreeElement details -> HashCode.fromInt(details.file.text.hashCode()) }
+        }
+        new DefaultFileSystemSnapshotter(hasher, new StringInterner(), TestFiles.fileSystem(), Stub(FileSystemMirror))
+    }
+
     def "reuses result for given inputs and transform"() {
         def transform = Mock(BiFunction)
         def inputFile = tmpDir.file("a")
@@ -375,6 +391,112 @@ class DefaultTransformedFileCacheTest extends ConcurrentSpec {
         0 * transform._
     }
 
+    def "runs incremental transform in the workspace of the previous transform of the same input directory"() {
+        def cache = createCache(directorySnapshotter())
+        def transform = Mock(IncrementalTransformer)
+        def inputDir = tmpDir.createDir("dir")
+        inputDir.file("a.txt").text = "a"
+        inputDir.file("b.txt").text = "b"
+        def workspace = null
+
+        when:
+        def result = cache.getResult(inputDir, HashCode.fromInt(123), transform)
+
+        then:
+        result*.name == ["out"]
+
+        and:
+        _ * transform.incremental >> true
+        1 * transform.apply(inputDir, _, false, _) >> { File file, File dir, boolean incremental, Collection<InputFileDetails> changes ->
+            assert changes.collect { it.file.name } as Set == ["a.txt", "b.txt"] as Set
+            assert changes.every { it.added }
+            workspace = dir
+            [new TestFile(dir, "out").touch()]
+        }
+        0 * transform._
+
+        when:
+        inputDir.file("a.txt").text = "changed"
+        inputDir.file("b.txt").delete()
+        inputDir.file("c.txt").text = "c"
+        def result2 = cache.getResult(inputDir, HashCode.fromInt(123), transform)
+
+        then:
+        result2 == result
+
+        and:
+        _ * transform.incremental >> true
+        1 * transform.apply(inputDir, _, true, _) >> { File file, File dir, boolean incremental, Collection<InputFileDetails> changes ->
+            assert dir == workspace
+            assert changes.findAll { it.modified }*.file*.name == ["a.txt"]
+            assert changes.findAll { it.removed }*.file*.name == ["b.txt"]
+            assert changes.findAll { it.added }*.file*.name == ["c.txt"]
+            [new File(dir, "out")]
+        }
+        0 * transform._
+    }
+
+    def "reuses result of incremental transform when input directory has not changed"() {
+        def transform = Mock(IncrementalTransformer)
+        def inputDir = tmpDir.createDir("dir")
+        inputDir.file("a.txt").text = "a"
+
+        when:
+        def result = createCache(directorySnapshotter()).getResult(inputDir, HashCode.fromInt(123), transform)
+        def result2 = createCache(directorySnapshotter()).getResult(inputDir, HashCode.fromInt(123), transform)
+
+        then:
+        result2 == result
+
+        and:
+        _ * transform.incremental >> true
+        1 * transform.apply(inputDir, _, false, _) >> { File file, File dir, boolean incremental, Collection<InputFileDetails> changes -> [new TestFile(dir, "out").touch()] }
+        0 * transform._
+    }
+
+    def "runs full transform when previous incremental transform failed"() {
+        def cache = createCache(directorySnapshotter())
+        def transform = Mock(IncrementalTransformer)
+        def failure = new RuntimeException()
+        def inputDir = tmpDir.createDir("dir")
+        inputDir.file("a.txt").text = "a"
+        _ * transform.incremental >> true
+
+        given:
+        1 * transform.apply(inputDir, _, false, _) >> { File file, File dir, boolean incremental, Collection<InputFileDetails> changes -> [new TestFile(dir, "out").touch()] }
+        cache.getResult(inputDir, HashCode.fromInt(123), transform)
+        inputDir.file("a.txt").text = "changed"
+
+        when:
+        cache.getResult(inputDir, HashCode.fromInt(123), transform)
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+
+        and:
+        1 * transform.apply(inputDir, _, true, _) >> { File file, File dir, boolean incremental, Collection<InputFileDetails> changes ->
+            new TestFile(dir, "partial").touch()
+            throw failure
+        }
+        0 * transform.apply(_, _, _, _)
+
+        when:
+        inputDir.file("b.txt").text = "b"
+        def result = cache.getResult(inputDir, HashCode.fromInt(123), transform)
+
+        then:
+        result*.name == ["out"]
+
+        and:
+        1 * transform.apply(inputDir, _, false, _) >> { File file, File dir, boolean incremental, Collection<InputFileDetails> changes ->
+            assert changes.collect { it.file.name } as Set == ["a.txt", "b.txt"] as Set
+            assert !new File(dir, "partial").exists()
+            [new TestFile(dir, "out").touch()]
+        }
+        0 * transform.apply(_, _, _, _)
+    }
+
     def "stopping the cache cleans up old entries and preserves new ones"() {
         given:
         snapshotter.snapshot(_) >> snapshot(HashCode.fromInt(42))
@@ -60,7 +60,7 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
             factory.create()
         }
     }
-    final cache = new DefaultCacheAwareExternalResourceAccessor(repository, index, timeProvider, temporaryFileProvider, cacheLockingManager, cachePolicy, producerGuard, fileRepository)
+    final cache = new DefaultCacheAwareExternalResourceAccessor(repository, index, timeProvider, temporaryFileProvider, cacheLockingManager, cachePolicy, producerGuard, fileRepository, new ExternalResourceDownloadScheduler(Integer.MAX_VALUE))
 
     def "returns null when the request resource is not cached and does not exist in the remote repository"() {
         def location = new ExternalResourceName("thing")
@@ -135,6 +135,64 @@ class DefaultCacheAwareExternalResourceAccessorTest extends Specification {
         0 * _._
     }
 
+    def "gets the size of a resource that is not cached before downloading it when downloads are limited"() {
+        def limitedCache = new DefaultCacheAwareExternalResourceAccessor(repository, index, timeProvider, temporaryFileProvider, cacheLockingManager, cachePolicy, producerGuard, fileRepository, new ExternalResourceDownloadScheduler(1))
+        def location = new ExternalResourceName(new URI("http://host/thing"))
+        def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
+        def localCandidates = Mock(LocallyAvailableResourceCandidates)
+        def remoteResource = Mock(ExternalResource)
+        def remoteMetaData = Mock(ExternalResourceMetaData)
+        def metaData = Mock(ExternalResourceMetaData)
+        def localResource = new DefaultLocallyAvailableResource(cachedFile)
+        def cachedResource = Stub(LocallyAvailableExternalResource)
+
+        when:
+        def result = limitedCache.getResource(location, null, fileStore, localCandidates)
+
+        then:
+        result == cachedResource
+
+        and:
+        1 * index.lookup(location.toString()) >> null
+        1 * localCandidates.isNone() >> true
+        1 * repository.resource(location) >> remoteResource
+        1 * remoteResource.metaData >> remoteMetaData
+        1 * remoteMetaData.contentLength >> 1024
+        1 * repository.withProgressLogging() >> progressLoggingRepo
+        1 * progressLoggingRepo.resource(location) >> remoteResource
+        _ * remoteResource.name >> "remoteResource"
+        1 * remoteResource.withContentIfPresent(_) >> { ExternalResource.ContentAction a ->
+            a.execute(new ByteArrayInputStream(), metaData)
+        }
+
+        and:
+        1 * fileStore.moveIntoCache(tempFile) >> localResource
+        1 * index.store(location.toString(), cachedFile, metaData)
+        1 * fileRepository.resource(cachedFile, location.uri, metaData) >> cachedResource
+        0 * _._
+    }
+
+    def "returns null when the request resource is not cached and does not exist in the remote repository when downloads are limited"() {
+        def limitedCache = new DefaultCacheAwareExternalResourceAccessor(repository, index, timeProvider, temporaryFileProvider, cacheLockingManager, cachePolicy, producerGuard, fileRepository, new ExternalResourceDownloadScheduler(1))
+        def location = new ExternalResourceName(new URI("http://host/thing"))
+        def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
+        def localCandidates = Mock(LocallyAvailableResourceCandidates)
+        def remoteResource = Mock(ExternalResource)
+
+        when:
+        def result = limitedCache.getResource(location, null, fileStore, localCandidates)
+
+        then:
+        result == null
+
+        and:
+        1 * index.lookup(location.toString()) >> null
+        1 * localCandidates.isNone() >> true
+        1 * repository.resource(location) >> remoteResource
+        1 * remoteResource.metaData >> null
+        0 * _._
+    }
+
     def "reuses cached resource if it has not expired"() {
         def location = new ExternalResourceName("scheme:thing")
         def fileStore = Mock(CacheAwareExternalResourceAccessor.ResourceFileStore)
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.resource.transfer
+
+import org.gradle.internal.Factory
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import static org.gradle.internal.resource.transfer.ExternalResourceDownloadScheduler.UNKNOWN_SIZE
+
+class ExternalResourceDownloadSchedulerTest extends ConcurrentSpec {
+    def repo1 = new URI("https://repo1.example.com/maven2/org/a.jar")
+    def repo1Other = new URI("https://repo1.example.com/maven2/org/b.jar")
+    def repo2 = new URI("https://repo2.example.com/maven2/org/a.jar")
+
+    def "returns the result of the download"() {
+        def scheduler = new ExternalResourceDownloadScheduler(1)
+
+        expect:
+        scheduler.download(repo1, 12, factory { "result" }) == "result"
+    }
+
+    def "runs downloads from a repository concurrently when there is no limit"() {
+        def scheduler = new ExternalResourceDownloadScheduler(Integer.MAX_VALUE)
+
+        when:
+        async {
+            start {
+                scheduler.download(repo1, UNKNOWN_SIZE, factory {
+                    instant.first
+                    thread.blockUntil.second
+                })
+            }
+            start {
+                scheduler.download(repo1Other, UNKNOWN_SIZE, factory {
+                    instant.second
+                    thread.blockUntil.first
+                })
+            }
+        }
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "runs no more than the maximum number of downloads from a repository at the same time"() {
+        def scheduler = new ExternalResourceDownloadScheduler(1)
+
+        when:
+        async {
+            start {
+                scheduler.download(repo1, UNKNOWN_SIZE, factory {
+                    instant.firstStarted
+                    thread.block()
+                    instant.firstFinished
+                })
+            }
+            start {
+                thread.blockUntil.firstStarted
+                scheduler.download(repo1Other, UNKNOWN_SIZE, factory {
+                    instant.secondStarted
+                })
+            }
+        }
+
+        then:
+        instant.secondStarted > instant.firstFinished
+    }
+
+    def "limits the downloads of each repository separately"() {
+        def scheduler = new ExternalResourceDownloadScheduler(1)
+
+        when:
+        async {
+            start {
+                scheduler.download(repo1, UNKNOWN_SIZE, factory {
+                    instant.first
+                    thread.blockUntil.second
+                })
+            }
+            start {
+                scheduler.download(repo2, UNKNOWN_SIZE, factory {
+                    instant.second
+                    thread.blockUntil.first
+                })
+            }
+        }
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "starts the waiting downloads with the largest expected size first"() {
+        def scheduler = new ExternalResourceDownloadScheduler(1)
+
+        when:
+        async {
+            start {
+                scheduler.download(repo1, UNKNOWN_SIZE, factory {
+                    instant.first
+                    thread.block()
+                })
+            }
+            start {
+                thread.blockUntil.first
+                scheduler.download(repo1, UNKNOWN_SIZE, factory { instant.unknown })
+            }
+            start {
+                thread.blockUntil.first
+                scheduler.download(repo1, 10, factory { instant.small })
+            }
+            start {
+                thread.blockUntil.first
+                scheduler.download(repo1, 1000, factory { instant.large })
+            }
+        }
+
+        then:
+        instant.large < instant.small
+        instant.small < instant.unknown
+    }
+
+    def "starts the next download when a download fails"() {
+        def scheduler = new ExternalResourceDownloadScheduler(1)
+
+        when:
+        scheduler.download(repo1, UNKNOWN_SIZE, factory { throw new RuntimeException("broken") })
+
+        then:
+        thrown(RuntimeException)
+
+        and:
+        scheduler.download(repo1, UNKNOWN_SIZE, factory { "result" }) == "result"
+    }
+
+    def "does not limit downloads of local files"() {
+        def scheduler = new ExternalResourceDownloadScheduler(1)
+
+        when:
+        async {
+            start {
+                scheduler.download(new URI("file:/repo/a.jar"), UNKNOWN_SIZE, factory {
+                    instant.first
+                    thread.blockUntil.second
+                })
+            }
+            start {
+                scheduler.download(new URI("file:/repo/b.jar"), UNKNOWN_SIZE, factory {
+                    instant.second
+                    thread.blockUntil.first
+                })
+            }
+        }
+
+        then:
+        noExceptionThrown()
+    }
+
+    private static <T> Factory<T> factory(Closure<T> closure) {
+        return closure as Factory<T>
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Compares reading blocks through the file with reading them from memory mapped regions.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class BTreePersistentIndexedCacheBenchmark {
+    private static final int ENTRY_COUNT = 200000;
+
+    @Param({"0", "64"})
+    int mappedRegions;
+
+    File tmpDir;
+    BTreePersistentIndexedCache<String, Long> populatedCache;
+    BTreePersistentIndexedCache<String, Long> emptyCache;
+    Random random = new Random(1234L);
+    long nextKey;
+
+    @Setup(Level.Trial)
+    public void createCaches() throws IOException {
+        tmpDir = File.createTempFile("btree", "benchmark");
+        tmpDir.delete();
+        tmpDir.mkdirs();
+        populatedCache = createCache("populated.bin");
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            populatedCache.put(key(i), (long) i);
+        }
+        // Drop the blocks cached in memory, so that lookups go through the store
+        populatedCache.reset();
+        emptyCache = createCache("empty.bin");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteCaches() throws IOException {
+        populatedCache.close();
+        emptyCache.close();
+        FileUtils.forceDelete(tmpDir);
+    }
+
+    private BTreePersistentIndexedCache<String, Long> createCache(String fileName) {
+        return new BTreePersistentIndexedCache<String, Long>(new File(tmpDir, fileName), BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.LONG_SERIALIZER, (short) 512, 512, mappedRegions);
+    }
+
+    private static String key(long index) {
+        return "some/path/to/a/file-" + index;
+    }
+
+    @Benchmark
+    public void randomLookup(Blackhole blackhole) {
+        blackhole.consume(populatedCache.get(key(random.nextInt(ENTRY_COUNT))));
+    }
+
+    @Benchmark
+    public void sequentialInsert() {
+        long key = nextKey++;
+        emptyCache.put(key(key), key);
+    }
+}
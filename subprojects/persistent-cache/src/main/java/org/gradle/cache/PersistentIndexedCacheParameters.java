@@ -21,11 +21,26 @@ import org.gradle.internal.serialize.Serializer;
 import javax.annotation.Nullable;
 
 public class PersistentIndexedCacheParameters<K, V> {
+    /**
+     * The format used to store the entries of the cache on disk.
+     */
+    public enum Storage {
+        /**
+         * A B-tree, updated in place.
+         */
+        BTREE,
+        /**
+         * An append-only log with an in-memory index. Suits caches that are mostly written to, and where the last written value for a key wins.
+         */
+        APPEND_LOG
+    }
+
     private static final BaseSerializerFactory SERIALIZER_FACTORY = new BaseSerializerFactory();
     private final String cacheName;
     private final Serializer<K> keySerializer;
     private final Serializer<V> valueSerializer;
     private CacheDecorator cacheDecorator;
+    private Storage storage = Storage.BTREE;
 
     public PersistentIndexedCacheParameters(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
         this.cacheName = cacheName;
@@ -67,4 +82,14 @@ public class PersistentIndexedCacheParameters<K, V> {
         this.cacheDecorator = cacheDecorator;
         return this;
     }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public PersistentIndexedCacheParameters<K, V> storage(Storage storage) {
+        assert storage != null;
+        this.storage = storage;
+        return this;
+    }
 }
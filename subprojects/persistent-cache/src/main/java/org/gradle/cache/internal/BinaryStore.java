@@ -38,5 +38,17 @@ public interface BinaryStore {
 
     interface BinaryData extends Closeable {
         <T> T read(ReadAction<T> readAction);
+
+        /**
+         * Returns the number of bytes consumed so far by the decoder passed to {@link #read(ReadAction)}.
+         */
+        long getReadPosition();
+
+        /**
+         * Reads the given number of bytes, starting at a position previously returned by {@link #getReadPosition()}.
+         * Does not affect the decoder passed to {@link #read(ReadAction)} and can be called after this data has been closed,
+         * for as long as the store itself is open.
+         */
+        byte[] readBytes(long position, int length);
     }
 }
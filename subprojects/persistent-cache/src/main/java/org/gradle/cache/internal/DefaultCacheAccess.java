@@ -28,6 +28,8 @@ import org.gradle.cache.LockOptions;
 import org.gradle.cache.LockTimeoutException;
 import org.gradle.cache.MultiProcessSafePersistentIndexedCache;
 import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.cache.PersistentIndexedCacheStore;
+import org.gradle.cache.internal.appendlog.AppendLogPersistentIndexedCache;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.cache.internal.cacheops.CacheAccessOperationsStack;
 import org.gradle.internal.Cast;
@@ -282,11 +284,21 @@ public class DefaultCacheAccess implements CacheCoordinator {
         IndexedCacheEntry<K, V> entry = Cast.uncheckedCast(caches.get(parameters.getCacheName()));
         try {
             if (entry == null) {
-                final File cacheFile = new File(baseDir, parameters.getCacheName() + ".bin");
+                final File cacheFile = new File(baseDir, parameters.getCacheName() + fileExtensionFor(parameters.getStorage()));
                 LOG.debug("Creating new cache for {}, path {}, access {}", parameters.getCacheName(), cacheFile, this);
-                Factory<BTreePersistentIndexedCache<K, V>> indexedCacheFactory = new Factory<BTreePersistentIndexedCache<K, V>>() {
-                    public BTreePersistentIndexedCache<K, V> create() {
-                        return doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+                Factory<PersistentIndexedCacheStore<K, V>> indexedCacheFactory = new Factory<PersistentIndexedCacheStore<K, V>>() {
+                    private PersistentIndexedCacheStore<K, V> reusableStore;
+
+                    public PersistentIndexedCacheStore<K, V> create() {
+                        if (reusableStore != null) {
+                            return reusableStore;
+                        }
+                        PersistentIndexedCacheStore<K, V> store = doCreateCache(cacheFile, parameters);
+                        if (parameters.getStorage() == PersistentIndexedCacheParameters.Storage.APPEND_LOG) {
+                            // Keeps its index when closed at the end of each lock cycle, and only catches up with what changed when next used
+                            reusableStore = store;
+                        }
+                        return store;
                     }
                 };
 
@@ -312,8 +324,19 @@ public class DefaultCacheAccess implements CacheCoordinator {
         }
     }
 
-    <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
-        return new BTreePersistentIndexedCache<K, V>(cacheFile, keySerializer, valueSerializer);
+    private static String fileExtensionFor(PersistentIndexedCacheParameters.Storage storage) {
+        return storage == PersistentIndexedCacheParameters.Storage.APPEND_LOG ? ".log" : ".bin";
+    }
+
+    <K, V> PersistentIndexedCacheStore<K, V> doCreateCache(File cacheFile, PersistentIndexedCacheParameters<K, V> parameters) {
+        switch (parameters.getStorage()) {
+            case APPEND_LOG:
+                return new AppendLogPersistentIndexedCache<K, V>(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+            case BTREE:
+                return new BTreePersistentIndexedCache<K, V>(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+            default:
+                throw new IllegalArgumentException("Unknown cache storage " + parameters.getStorage());
+        }
     }
 
     /**
@@ -444,6 +467,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
             checkCompatibleKeySerializer(faultMessages, parameters.getKeySerializer());
             checkCompatibleValueSerializer(faultMessages, parameters.getValueSerializer());
             checkCompatibleCacheDecorator(faultMessages, parameters.getCacheDecorator());
+            checkCompatibleStorage(faultMessages, parameters.getStorage());
 
             if (!faultMessages.isEmpty()) {
                 String lineSeparator = SystemProperties.getInstance().getLineSeparator();
@@ -486,6 +510,14 @@ public class DefaultCacheAccess implements CacheCoordinator {
                         cacheDecorator, parameters.getCacheDecorator()));
             }
         }
+
+        private void checkCompatibleStorage(Collection<String> faultMessages, PersistentIndexedCacheParameters.Storage storage) {
+            if (storage != parameters.getStorage()) {
+                faultMessages.add(
+                    String.format(" * Requested cache storage (%s) doesn't match current cache storage (%s)",
+                        storage, parameters.getStorage()));
+            }
+        }
     }
 
     private static class InvalidCacheReuseException extends GradleException {
@@ -0,0 +1,477 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.appendlog;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.PersistentIndexedCacheStore;
+import org.gradle.internal.io.RandomAccessFileInputStream;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * An indexed cache that appends every update to a log file, and keeps an in-memory index from each key to the position of its latest value in the log.
+ *
+ * <p>Each record in the log holds its type, the serialized key, the serialized value for a put, and a checksum of the record.
+ * When the log is opened, the records are replayed to rebuild the index. The log is truncated at the first incomplete or corrupt record, which
+ * discards any update that was being written when a process crashed.</p>
+ *
+ * <p>Closing the cache releases the log file but keeps the index, so that the cache can be used again once the owning process reacquires
+ * the cache lock. The log is then reopened and only the records appended by other processes in the meantime are replayed. The header of
+ * the log holds a generation stamp that changes whenever the log is compacted or recreated. When the stamp has changed, or the log is
+ * shorter than when it was last used, the index is rebuilt from the whole log.</p>
+ *
+ * <p>Once less than half of the log holds live values, the live records are copied to a new log which then atomically replaces the old one.
+ * A crash or failure while compacting leaves the old log, and the index that refers to it, in place.</p>
+ */
+public class AppendLogPersistentIndexedCache<K, V> implements PersistentIndexedCacheStore<K, V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AppendLogPersistentIndexedCache.class);
+    private static final int MAGIC = 0x4743414c;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+    private static final Random GENERATIONS = new Random();
+
+    private final File logFile;
+    private final File compactedLogFile;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final long minCompactionSize;
+    private final Map<Key, Entry> index = new HashMap<Key, Entry>();
+    private RandomAccessFile file;
+    private long generation;
+    private long endOfLog;
+    private long liveBytes;
+    private long compactAfter;
+
+    public AppendLogPersistentIndexedCache(File logFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(logFile, keySerializer, valueSerializer, MIN_COMPACTION_SIZE);
+    }
+
+    AppendLogPersistentIndexedCache(File logFile, Serializer<K> keySerializer, Serializer<V> valueSerializer, long minCompactionSize) {
+        this.logFile = logFile;
+        this.compactedLogFile = new File(logFile.getParentFile(), logFile.getName() + ".compacted");
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.minCompactionSize = minCompactionSize;
+        this.compactAfter = minCompactionSize;
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not open %s.", this), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "cache " + logFile.getName() + " (" + logFile + ")";
+    }
+
+    private void open() throws IOException {
+        LOGGER.debug("Opening {}", this);
+        recoverFromInterruptedCompaction();
+        logFile.getParentFile().mkdirs();
+        file = new RandomAccessFile(logFile, "rw");
+        Long logGeneration = readGeneration();
+        if (logGeneration == null) {
+            startNewLog();
+        } else if (endOfLog < HEADER_SIZE || logGeneration != generation || file.length() < endOfLog) {
+            index.clear();
+            liveBytes = 0;
+            generation = logGeneration;
+            replay(HEADER_SIZE);
+        } else {
+            // Same log as when the index was last brought up to date, pick up anything appended since
+            replay(endOfLog);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (file == null) {
+            open();
+        }
+    }
+
+    private void startNewLog() throws IOException {
+        index.clear();
+        liveBytes = 0;
+        generation = GENERATIONS.nextLong();
+        file.setLength(0);
+        file.writeInt(MAGIC);
+        file.writeInt(FORMAT_VERSION);
+        file.writeLong(generation);
+        endOfLog = HEADER_SIZE;
+    }
+
+    private void recoverFromInterruptedCompaction() throws IOException {
+        if (!compactedLogFile.exists()) {
+            return;
+        }
+        if (logFile.exists()) {
+            // Compaction did not complete, the log is still intact
+            if (!compactedLogFile.delete()) {
+                throw new IOException(String.format("Could not delete %s.", compactedLogFile));
+            }
+        } else {
+            // The log is missing but a complete compacted log was left behind, use it instead
+            replaceLog();
+        }
+    }
+
+    /**
+     * Returns the generation of the log, or null when the log does not have a valid header.
+     */
+    private Long readGeneration() throws IOException {
+        if (file.length() < HEADER_SIZE) {
+            return null;
+        }
+        file.seek(0);
+        if (file.readInt() != MAGIC || file.readInt() != FORMAT_VERSION) {
+            return null;
+        }
+        return file.readLong();
+    }
+
+    private void replay(long from) throws IOException {
+        long fileLength = file.length();
+        file.seek(from);
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new RandomAccessFileInputStream(file)));
+        long offset = from;
+        while (offset < fileLength) {
+            Record record = readRecord(input, fileLength - offset);
+            if (record == null) {
+                LOGGER.debug("Discarding incomplete or corrupt record at offset {} in {}.", offset, this);
+                file.setLength(offset);
+                break;
+            }
+            Entry previous;
+            if (record.type == PUT) {
+                previous = index.put(record.key, new Entry(offset, record.length, record.valueLength));
+                liveBytes += record.length;
+            } else {
+                previous = index.remove(record.key);
+            }
+            if (previous != null) {
+                liveBytes -= previous.recordLength;
+            }
+            offset += record.length;
+        }
+        endOfLog = offset;
+    }
+
+    /**
+     * Reads the next record, returning null when the record is incomplete or corrupt.
+     */
+    private static Record readRecord(DataInputStream input, long remaining) throws IOException {
+        try {
+            byte type = input.readByte();
+            if (type != PUT && type != REMOVE) {
+                return null;
+            }
+            int keyLength = input.readInt();
+            if (keyLength < 0 || keyLength > remaining) {
+                return null;
+            }
+            byte[] key = new byte[keyLength];
+            input.readFully(key);
+            byte[] value = null;
+            if (type == PUT) {
+                int valueLength = input.readInt();
+                if (valueLength < 0 || valueLength > remaining) {
+                    return null;
+                }
+                value = new byte[valueLength];
+                input.readFully(value);
+            }
+            int checksum = input.readInt();
+            if (checksum != checksum(type, key, value)) {
+                return null;
+            }
+            return new Record(type, new Key(key), value == null ? -1 : value.length, recordLength(key, value));
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        try {
+            ensureOpen();
+            Entry entry = index.get(new Key(serialize(keySerializer, key)));
+            if (entry == null) {
+                return null;
+            }
+            byte[] value = new byte[entry.valueLength];
+            file.seek(entry.getValueOffset());
+            file.readFully(value);
+            return valueSerializer.read(new KryoBackedDecoder(new ByteArrayInputStream(value)));
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        try {
+            ensureOpen();
+            byte[] keyBytes = serialize(keySerializer, key);
+            byte[] valueBytes = serialize(valueSerializer, value);
+            int recordLength = append(PUT, keyBytes, valueBytes);
+            Entry previous = index.put(new Key(keyBytes), new Entry(endOfLog - recordLength, recordLength, valueBytes.length));
+            liveBytes += recordLength;
+            if (previous != null) {
+                liveBytes -= previous.recordLength;
+            }
+            maybeCompact();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        try {
+            ensureOpen();
+            byte[] keyBytes = serialize(keySerializer, key);
+            Entry previous = index.remove(new Key(keyBytes));
+            if (previous == null) {
+                return;
+            }
+            append(REMOVE, keyBytes, null);
+            liveBytes -= previous.recordLength;
+            maybeCompact();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    private int append(byte type, byte[] key, byte[] value) throws IOException {
+        int recordLength = recordLength(key, value);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(recordLength);
+        DataOutputStream output = new DataOutputStream(buffer);
+        output.writeByte(type);
+        output.writeInt(key.length);
+        output.write(key);
+        if (value != null) {
+            output.writeInt(value.length);
+            output.write(value);
+        }
+        output.writeInt(checksum(type, key, value));
+        file.seek(endOfLog);
+        file.write(buffer.toByteArray());
+        endOfLog += recordLength;
+        return recordLength;
+    }
+
+    private void maybeCompact() throws IOException {
+        long logSize = endOfLog - HEADER_SIZE;
+        if (logSize >= compactAfter && liveBytes < logSize / 2) {
+            if (compact()) {
+                compactAfter = minCompactionSize;
+            } else {
+                // Keep appending to the existing log, and only try again once it has grown significantly
+                compactAfter = logSize * 2;
+            }
+        }
+    }
+
+    /**
+     * Replaces the log with one that holds only the live records. Returns false, leaving the log and the index untouched, when the log could not be compacted.
+     */
+    private boolean compact() throws IOException {
+        LOGGER.debug("Compacting {}", this);
+        long compactedGeneration = generation + 1;
+        Map<Key, Entry> compactedIndex = new HashMap<Key, Entry>(index.size());
+        long offset;
+        try {
+            offset = writeCompactedLog(compactedGeneration, compactedIndex);
+        } catch (IOException e) {
+            LOGGER.debug("Could not write compacted log for {}.", this, e);
+            compactedLogFile.delete();
+            return false;
+        }
+        file.close();
+        file = null;
+        try {
+            Files.move(compactedLogFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.debug("Could not replace the log of {} with the compacted log.", this, e);
+            compactedLogFile.delete();
+            file = new RandomAccessFile(logFile, "rw");
+            return false;
+        }
+        file = new RandomAccessFile(logFile, "rw");
+        index.clear();
+        index.putAll(compactedIndex);
+        generation = compactedGeneration;
+        endOfLog = offset;
+        liveBytes = endOfLog - HEADER_SIZE;
+        return true;
+    }
+
+    private long writeCompactedLog(long compactedGeneration, Map<Key, Entry> compactedIndex) throws IOException {
+        FileOutputStream outputStream = new FileOutputStream(compactedLogFile);
+        try {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeLong(compactedGeneration);
+            long offset = HEADER_SIZE;
+            for (Map.Entry<Key, Entry> mapEntry : index.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                byte[] record = new byte[entry.recordLength];
+                file.seek(entry.recordOffset);
+                file.readFully(record);
+                output.write(record);
+                compactedIndex.put(mapEntry.getKey(), new Entry(offset, entry.recordLength, entry.valueLength));
+                offset += entry.recordLength;
+            }
+            output.flush();
+            outputStream.getFD().sync();
+            return offset;
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private void replaceLog() throws IOException {
+        if (!compactedLogFile.renameTo(logFile)) {
+            throw new IOException(String.format("Could not rename %s to %s.", compactedLogFile, logFile));
+        }
+    }
+
+    /**
+     * Releases the log file. The index is kept, and the log is reopened when the cache is next used.
+     */
+    @Override
+    public void close() {
+        if (file == null) {
+            return;
+        }
+        LOGGER.debug("Closing {}", this);
+        try {
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            file = null;
+        }
+    }
+
+    private static int recordLength(byte[] key, byte[] value) {
+        // type, key length, key, [value length, value], checksum
+        return 1 + 4 + key.length + (value == null ? 0 : 4 + value.length) + 4;
+    }
+
+    private static int checksum(byte type, byte[] key, byte[] value) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(key);
+        if (value != null) {
+            crc.update(value);
+        }
+        return (int) crc.getValue();
+    }
+
+    private static <T> byte[] serialize(Serializer<T> serializer, T value) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        serializer.write(encoder, value);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    private static class Record {
+        private final byte type;
+        private final Key key;
+        private final int valueLength;
+        private final int length;
+
+        private Record(byte type, Key key, int valueLength, int length) {
+            this.type = type;
+            this.key = key;
+            this.valueLength = valueLength;
+            this.length = length;
+        }
+    }
+
+    private static class Entry {
+        private final long recordOffset;
+        private final int recordLength;
+        private final int valueLength;
+
+        private Entry(long recordOffset, int recordLength, int valueLength) {
+            this.recordOffset = recordOffset;
+            this.recordLength = recordLength;
+            this.valueLength = valueLength;
+        }
+
+        long getValueOffset() {
+            // The value is followed by the checksum
+            return recordOffset + recordLength - 4 - valueLength;
+        }
+    }
+
+    private static class Key {
+        private final byte[] bytes;
+        private final int hashCode;
+
+        private Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hashCode = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            return Arrays.equals(bytes, ((Key) obj).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
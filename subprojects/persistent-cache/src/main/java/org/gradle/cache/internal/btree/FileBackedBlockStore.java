@@ -16,6 +16,7 @@
 package org.gradle.cache.internal.btree;
 
 import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.os.OperatingSystem;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -24,7 +25,10 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 
 public class FileBackedBlockStore implements BlockStore {
+    private static final int MAPPED_REGION_SIZE = 1024 * 1024;
+
     private final File cacheFile;
+    private final int mappedRegions;
     private RandomAccessFile file;
     private ByteOutput output;
     private ByteInput input;
@@ -33,7 +37,16 @@ public class FileBackedBlockStore implements BlockStore {
     private long currentFileSize;
 
     public FileBackedBlockStore(File cacheFile) {
+        this(cacheFile, 0);
+    }
+
+    /**
+     * @param mappedRegions the maximum number of regions of the file to keep memory mapped for reading, or 0 to read through the file.
+     */
+    public FileBackedBlockStore(File cacheFile, int mappedRegions) {
         this.cacheFile = cacheFile;
+        // A mapped file cannot be truncated on Windows
+        this.mappedRegions = OperatingSystem.current().isWindows() ? 0 : mappedRegions;
     }
 
     @Override
@@ -47,7 +60,7 @@ public class FileBackedBlockStore implements BlockStore {
             cacheFile.getParentFile().mkdirs();
             file = new RandomAccessFile(cacheFile, "rw");
             output = new ByteOutput(file);
-            input = new ByteInput(file);
+            input = mappedRegions > 0 ? new MappedByteInput(file.getChannel(), MAPPED_REGION_SIZE, mappedRegions) : new RandomAccessFileByteInput(file);
             currentFileSize = file.length();
             nextBlock = currentFileSize;
             if (currentFileSize == 0) {
@@ -60,6 +73,7 @@ public class FileBackedBlockStore implements BlockStore {
 
     public void close() {
         try {
+            input.discard();
             file.close();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -68,6 +82,7 @@ public class FileBackedBlockStore implements BlockStore {
 
     public void clear() {
         try {
+            input.discard();
             file.setLength(0);
             currentFileSize = 0;
         } catch (IOException e) {
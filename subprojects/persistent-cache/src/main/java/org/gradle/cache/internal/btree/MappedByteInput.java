@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import com.google.common.io.CountingInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link ByteInput} that reads from memory mapped regions of a file, keeping the most recently used regions mapped.
+ *
+ * Writes to the file through the same channel or through the {@link java.io.RandomAccessFile} that owns it are visible through the mapped regions.
+ * The file must not be truncated while regions are mapped, so {@link #discard()} must be called before truncating it.
+ * Regions that are dropped are unmapped straight away where the JVM allows it, rather than when they are garbage collected.
+ */
+class MappedByteInput implements ByteInput {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedByteInput.class);
+    private static final Unmapper UNMAPPER = Unmapper.create();
+
+    private final FileChannel channel;
+    private final int regionSize;
+    private final Map<Long, MappedByteBuffer> regions;
+    private final RegionInputStream regionInputStream = new RegionInputStream();
+    private CountingInputStream countingInputStream;
+
+    public MappedByteInput(FileChannel channel, int regionSize, final int maxRegions) {
+        this.channel = channel;
+        this.regionSize = regionSize;
+        this.regions = new LinkedHashMap<Long, MappedByteBuffer>(maxRegions, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, MappedByteBuffer> eldest) {
+                if (size() > maxRegions) {
+                    unmap(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public DataInputStream start(long offset) throws IOException {
+        regionInputStream.position = offset;
+        countingInputStream = new CountingInputStream(regionInputStream);
+        return new DataInputStream(countingInputStream);
+    }
+
+    @Override
+    public long getBytesRead() {
+        return countingInputStream.getCount();
+    }
+
+    @Override
+    public void done() {
+        countingInputStream = null;
+    }
+
+    @Override
+    public void discard() {
+        for (MappedByteBuffer region : regions.values()) {
+            unmap(region);
+        }
+        regions.clear();
+    }
+
+    /**
+     * Returns the region containing the given position, or null when the position is beyond the end of the file.
+     * The region at the end of the file is mapped again when the file has grown since it was mapped.
+     */
+    private MappedByteBuffer regionFor(long position) throws IOException {
+        long regionIndex = position / regionSize;
+        int offsetInRegion = (int) (position % regionSize);
+        MappedByteBuffer region = regions.get(regionIndex);
+        if (region == null || region.capacity() <= offsetInRegion) {
+            long regionStart = regionIndex * regionSize;
+            long fileSize = channel.size();
+            if (position >= fileSize) {
+                return null;
+            }
+            MappedByteBuffer previous = region;
+            region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(regionSize, fileSize - regionStart));
+            regions.put(regionIndex, region);
+            if (previous != null) {
+                unmap(previous);
+            }
+        }
+        return region;
+    }
+
+    private class RegionInputStream extends InputStream {
+        private long position;
+
+        @Override
+        public int read() throws IOException {
+            MappedByteBuffer region = regionFor(position);
+            if (region == null) {
+                return -1;
+            }
+            int value = region.get((int) (position % regionSize)) & 0xff;
+            position++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            MappedByteBuffer region = regionFor(position);
+            if (region == null) {
+                return -1;
+            }
+            int offsetInRegion = (int) (position % regionSize);
+            int count = Math.min(length, region.capacity() - offsetInRegion);
+            ByteBuffer view = region.duplicate();
+            view.position(offsetInRegion);
+            view.get(bytes, offset, count);
+            position += count;
+            return count;
+        }
+    }
+
+    /**
+     * Unmaps the given region, which must not be used afterwards. Falls back to leaving the region to the garbage collector.
+     */
+    private static void unmap(MappedByteBuffer region) {
+        if (UNMAPPER == null) {
+            return;
+        }
+        try {
+            UNMAPPER.unmap(region);
+        } catch (Exception e) {
+            LOGGER.debug("Could not unmap region of B-tree file.", e);
+        }
+    }
+
+    private static abstract class Unmapper {
+        abstract void unmap(MappedByteBuffer buffer) throws Exception;
+
+        static Unmapper create() {
+            try {
+                // Java 9 and later
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                final Object unsafe = theUnsafe.get(null);
+                return new Unmapper() {
+                    @Override
+                    void unmap(MappedByteBuffer buffer) throws Exception {
+                        invokeCleaner.invoke(unsafe, buffer);
+                    }
+                };
+            } catch (Exception e) {
+                // Fall through
+            }
+            try {
+                // Java 8 and earlier
+                final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+                return new Unmapper() {
+                    @Override
+                    void unmap(MappedByteBuffer buffer) throws Exception {
+                        Object bufferCleaner = cleaner.invoke(buffer);
+                        if (bufferCleaner != null) {
+                            clean.invoke(bufferCleaner);
+                        }
+                    }
+                };
+            } catch (Exception e) {
+                LOGGER.debug("Mapped regions of B-tree files are unmapped when they are garbage collected.", e);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import com.google.common.io.CountingInputStream;
+import org.gradle.internal.io.RandomAccessFileInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * A {@link ByteInput} that reads from a {@link RandomAccessFile} through a buffer.
+ */
+class RandomAccessFileByteInput implements ByteInput {
+    private final RandomAccessFile file;
+    private final ResettableBufferedInputStream bufferedInputStream;
+    private CountingInputStream countingInputStream;
+
+    public RandomAccessFileByteInput(RandomAccessFile file) {
+        this.file = file;
+        bufferedInputStream = new ResettableBufferedInputStream(new RandomAccessFileInputStream(file));
+    }
+
+    @Override
+    public DataInputStream start(long offset) throws IOException {
+        file.seek(offset);
+        bufferedInputStream.clear();
+        countingInputStream = new CountingInputStream(bufferedInputStream);
+        return new DataInputStream(countingInputStream);
+    }
+
+    @Override
+    public long getBytesRead() {
+        return countingInputStream.getCount();
+    }
+
+    @Override
+    public void done() {
+        countingInputStream = null;
+    }
+
+    @Override
+    public void discard() {
+    }
+
+    private static class ResettableBufferedInputStream extends BufferedInputStream {
+        ResettableBufferedInputStream(InputStream input) {
+            super(input);
+        }
+
+        void clear() {
+            count = 0;
+            pos = 0;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.appendlog
+
+import org.gradle.internal.serialize.BaseSerializerFactory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class AppendLogPersistentIndexedCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    TestFile logFile
+    AppendLogPersistentIndexedCache<String, String> cache
+
+    def setup() {
+        logFile = tmpDir.file("cache.log")
+        cache = open()
+    }
+
+    def cleanup() {
+        cache.close()
+    }
+
+    private AppendLogPersistentIndexedCache<String, String> open() {
+        return new AppendLogPersistentIndexedCache<String, String>(logFile, BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, 1024)
+    }
+
+    private void reopen() {
+        cache.close()
+        cache = open()
+    }
+
+    def "returns the most recently written value for a key"() {
+        when:
+        cache.put("a", "1")
+        cache.put("b", "2")
+        cache.put("a", "3")
+
+        then:
+        cache.get("a") == "3"
+        cache.get("b") == "2"
+        cache.get("c") == null
+    }
+
+    def "retains values and removals across reopen"() {
+        given:
+        cache.put("a", "1")
+        cache.put("b", "2")
+        cache.remove("b")
+
+        when:
+        reopen()
+
+        then:
+        cache.get("a") == "1"
+        cache.get("b") == null
+    }
+
+    def "discards an incomplete record at the end of the log"() {
+        given:
+        cache.put("a", "1")
+        cache.put("b", "2")
+        cache.close()
+        def file = new RandomAccessFile(logFile, "rw")
+        file.setLength(file.length() - 3)
+        file.close()
+
+        when:
+        cache = open()
+
+        then:
+        cache.get("a") == "1"
+        cache.get("b") == null
+
+        when:
+        cache.put("c", "3")
+        reopen()
+
+        then:
+        cache.get("a") == "1"
+        cache.get("c") == "3"
+    }
+
+    def "discards a log with an unrecognized header"() {
+        given:
+        cache.put("a", "1")
+        cache.close()
+        logFile.bytes = [1, 2, 3, 4, 5, 6, 7, 8] as byte[]
+
+        when:
+        cache = open()
+
+        then:
+        cache.get("a") == null
+    }
+
+    def "compacts the log when most of it is stale"() {
+        given:
+        cache.put("a", "1")
+
+        when:
+        1000.times { cache.put("b", "value $it") }
+
+        then:
+        logFile.length() < 2048
+        cache.get("a") == "1"
+        cache.get("b") == "value 999"
+
+        when:
+        reopen()
+
+        then:
+        cache.get("a") == "1"
+        cache.get("b") == "value 999"
+    }
+
+    def "uses compacted log when the process stopped before it replaced the log"() {
+        given:
+        cache.put("a", "1")
+        cache.close()
+        logFile.renameTo(new File(logFile.parentFile, "cache.log.compacted"))
+
+        when:
+        cache = open()
+
+        then:
+        cache.get("a") == "1"
+    }
+
+    def "can be used again after close and picks up records appended by another instance"() {
+        given:
+        cache.put("a", "1")
+        cache.put("b", "2")
+        cache.close()
+
+        def other = open()
+        other.put("b", "3")
+        other.put("c", "4")
+        other.remove("a")
+        other.close()
+
+        expect:
+        cache.get("a") == null
+        cache.get("b") == "3"
+        cache.get("c") == "4"
+
+        when:
+        cache.put("d", "5")
+        reopen()
+
+        then:
+        cache.get("b") == "3"
+        cache.get("d") == "5"
+    }
+
+    def "rebuilds its index when another instance compacted the log"() {
+        given:
+        cache.put("a", "1")
+        cache.close()
+
+        def other = open()
+        1000.times { other.put("b", "value $it") }
+        other.close()
+
+        expect:
+        logFile.length() < 2048
+        cache.get("a") == "1"
+        cache.get("b") == "value 999"
+    }
+
+    def "keeps the log and its index when the log cannot be compacted"() {
+        given:
+        cache.put("a", "1")
+        def compactedLogFile = tmpDir.createDir("cache.log.compacted")
+        compactedLogFile.file("blocker").createFile()
+
+        when:
+        1000.times { cache.put("b", "value $it") }
+
+        then:
+        logFile.length() > 2048
+        cache.get("a") == "1"
+        cache.get("b") == "value 999"
+
+        when:
+        compactedLogFile.deleteDir()
+        reopen()
+
+        then:
+        cache.get("a") == "1"
+        cache.get("b") == "value 999"
+    }
+}
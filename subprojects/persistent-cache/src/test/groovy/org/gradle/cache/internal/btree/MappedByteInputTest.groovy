@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class MappedByteInputTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    RandomAccessFile file
+    MappedByteInput input
+
+    def setup() {
+        file = new RandomAccessFile(tmpDir.file("test.bin"), "rw")
+        input = new MappedByteInput(file.channel, 6, 2)
+    }
+
+    def cleanup() {
+        input.discard()
+        file.close()
+    }
+
+    def "can reuse to read from multiple locations in file"() {
+        given:
+        file.seek(0)
+        file.writeInt(123)
+        file.writeInt(321)
+        file.writeInt(456)
+
+        expect:
+        def stream = input.start(0)
+        stream.readInt() == 123
+        stream.readInt() == 321
+        input.getBytesRead() == 8
+        input.done()
+
+        def stream2 = input.start(4)
+        stream2.readInt() == 321
+        stream2.readInt() == 456
+        input.done()
+
+        def stream3 = input.start(0)
+        stream3.readInt() == 123
+        input.done()
+    }
+
+    def "can read values spanning regions"() {
+        given:
+        file.seek(0)
+        file.writeLong(Long.MAX_VALUE)
+        file.writeUTF("some value")
+
+        expect:
+        def stream = input.start(0)
+        stream.readLong() == Long.MAX_VALUE
+        stream.readUTF() == "some value"
+        input.done()
+    }
+
+    def "sees content written after a region was mapped"() {
+        given:
+        file.seek(0)
+        file.writeShort(1)
+
+        expect:
+        input.start(0).readShort() == 1
+        input.done()
+
+        when:
+        file.seek(0)
+        file.writeShort(2)
+        file.writeInt(3)
+
+        then:
+        def stream = input.start(0)
+        stream.readShort() == 2
+        stream.readInt() == 3
+        input.done()
+    }
+
+    def "maps regions again after they were evicted or discarded"() {
+        given:
+        file.seek(0)
+        100.times { file.writeInt(it) }
+
+        expect:
+        [99, 0, 50, 1, 98].each { value ->
+            assert input.start(value * 4).readInt() == value
+            input.done()
+        }
+
+        when:
+        input.discard()
+        file.setLength(8)
+
+        then:
+        def stream = input.start(4)
+        stream.readInt() == 1
+        input.done()
+    }
+
+    def "cannot read beyond end of file"() {
+        when:
+        input.start(123).readInt()
+
+        then:
+        EOFException e = thrown()
+    }
+}
@@ -20,7 +20,7 @@ import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
 
-class ByteInputTest extends Specification {
+class RandomAccessFileByteInputTest extends Specification {
     @Rule
     TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
     RandomAccessFile file
@@ -28,7 +28,7 @@ class ByteInputTest extends Specification {
 
     def setup() {
         file = new RandomAccessFile(tmpDir.file("test.bin"), "rw")
-        input = new ByteInput(file)
+        input = new RandomAccessFileByteInput(file)
     }
 
     def cleanup() {
@@ -42,7 +42,7 @@ public class HttpResourceAccessor implements ExternalResourceAccessor {
 
         CloseableHttpResponse response = http.performGet(location, revalidate);
         if (response != null) {
-            return wrapResponse(uri, response);
+            return new ResumableHttpResponseResource(uri, response, http, revalidate);
         }
 
         return null;
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.entity.DecompressingEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.HttpClientUtils;
+import org.gradle.internal.IoActions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * A GET response whose content continues to be read from where it stopped when the connection fails part way through a download.
+ * The rest of the content is requested with a range request, which the server only honors when the resource has not changed in the meantime.
+ */
+public class ResumableHttpResponseResource extends HttpResponseResource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResumableHttpResponseResource.class);
+    static final int MAX_RESUMES = 3;
+
+    private final CloseableHttpResponse response;
+    private final HttpClientHelper http;
+    private final boolean revalidate;
+
+    public ResumableHttpResponseResource(URI source, CloseableHttpResponse response, HttpClientHelper http, boolean revalidate) {
+        super("GET", source, response);
+        this.response = response;
+        this.http = http;
+        this.revalidate = revalidate;
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        InputStream content = super.openStream();
+        String validator = getValidator();
+        if (validator == null || !"bytes".equalsIgnoreCase(getHeaderValue(HttpHeaders.ACCEPT_RANGES)) || isEncoded(response)) {
+            return content;
+        }
+        return new ResumingInputStream(content, validator);
+    }
+
+    /**
+     * Returns the value to send with a range request, so that the range is only returned for the same version of the resource.
+     * Weak entity tags can't be used for this.
+     */
+    private String getValidator() {
+        String etag = getHeaderValue(HttpHeaders.ETAG);
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return getHeaderValue(HttpHeaders.LAST_MODIFIED);
+    }
+
+    /**
+     * Ranges address the encoded content, whereas the position of the stream counts the decoded bytes, so encoded content can't be resumed.
+     * The client removes the content encoding header once it has set up decoding of the content.
+     */
+    private static boolean isEncoded(HttpResponse response) {
+        HttpEntity entity = response.getEntity();
+        return response.getFirstHeader(HttpHeaders.CONTENT_ENCODING) != null || entity instanceof DecompressingEntity || (entity != null && entity.getContentEncoding() != null);
+    }
+
+    private class ResumingInputStream extends InputStream {
+        private final String validator;
+        private InputStream content;
+        private CloseableHttpResponse resumedResponse;
+        private long position;
+        private int resumes;
+
+        ResumingInputStream(InputStream content, String validator) {
+            this.content = content;
+            this.validator = validator;
+        }
+
+        @Override
+        public int read() throws IOException {
+            while (true) {
+                try {
+                    int value = content.read();
+                    if (value >= 0) {
+                        position++;
+                    }
+                    return value;
+                } catch (IOException e) {
+                    resume(e);
+                }
+            }
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            while (true) {
+                try {
+                    int count = content.read(buffer, offset, length);
+                    if (count > 0) {
+                        position += count;
+                    }
+                    return count;
+                } catch (IOException e) {
+                    resume(e);
+                }
+            }
+        }
+
+        private void resume(IOException failure) throws IOException {
+            if (resumes == MAX_RESUMES) {
+                throw failure;
+            }
+            resumes++;
+            closeContent();
+            LOGGER.info("Resuming download of {} at byte {} after failure: {}", getURI(), position, failure.getMessage());
+
+            HttpGet request = new HttpGet(getURI());
+            request.addHeader(HttpHeaders.RANGE, "bytes=" + position + "-");
+            request.addHeader(HttpHeaders.IF_RANGE, validator);
+            CloseableHttpResponse response;
+            try {
+                response = http.performRequest(request, revalidate);
+            } catch (HttpRequestException e) {
+                LOGGER.debug("Could not resume download of " + getURI() + ".", e);
+                throw failure;
+            }
+            String contentRange = getContentRange(response);
+            HttpEntity entity = response.getEntity();
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT || entity == null
+                || contentRange == null || !contentRange.startsWith("bytes " + position + "-") || isEncoded(response)) {
+                // The server does not support ranges or the resource has changed: the download can't be resumed
+                LOGGER.debug("Could not resume download of {}: {} {}", getURI(), response.getStatusLine(), contentRange);
+                HttpClientUtils.closeQuietly(response);
+                throw failure;
+            }
+            resumedResponse = response;
+            content = entity.getContent();
+        }
+
+        private String getContentRange(CloseableHttpResponse response) {
+            Header header = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+            return header == null ? null : header.getValue();
+        }
+
+        private void closeContent() {
+            IoActions.closeQuietly(content);
+            if (resumedResponse != null) {
+                HttpClientUtils.closeQuietly(resumedResponse);
+                resumedResponse = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                content.close();
+            } finally {
+                if (resumedResponse != null) {
+                    HttpClientUtils.closeQuietly(resumedResponse);
+                }
+            }
+        }
+    }
+}
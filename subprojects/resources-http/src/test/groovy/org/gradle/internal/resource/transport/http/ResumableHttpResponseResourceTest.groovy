@@ -0,0 +1,204 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.internal.resource.transport.http
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpHandler
+import com.sun.net.httpserver.HttpServer
+import org.apache.http.client.methods.HttpGet
+import org.apache.http.ssl.SSLContexts
+import org.junit.Rule
+import org.junit.rules.ExternalResource
+import spock.lang.Specification
+
+import java.util.zip.GZIPOutputStream
+
+class ResumableHttpResponseResourceTest extends Specification {
+    @Rule DroppingHttpServer server = new DroppingHttpServer()
+    HttpClientHelper http = new HttpClientHelper(httpSettings)
+
+    def cleanup() {
+        http.close()
+    }
+
+    def "reads content that is not interrupted"() {
+        expect:
+        download() == server.content
+        server.requests == 1
+    }
+
+    def "resumes reading content from where the connection was dropped"() {
+        server.failures = failures
+
+        expect:
+        download() == server.content
+        server.requests == failures + 1
+
+        where:
+        failures << [1, ResumableHttpResponseResource.MAX_RESUMES]
+    }
+
+    def "gives up when the connection is dropped too many times"() {
+        server.failures = ResumableHttpResponseResource.MAX_RESUMES + 1
+
+        when:
+        download()
+
+        then:
+        thrown(IOException)
+        server.requests == ResumableHttpResponseResource.MAX_RESUMES + 1
+    }
+
+    def "does not resume reading content that has changed"() {
+        server.failures = 1
+        server.changeAfterFirstRequest = true
+
+        when:
+        download()
+
+        then:
+        thrown(IOException)
+        server.requests == 2
+    }
+
+    def "does not resume reading content when the server does not support range requests"() {
+        server.failures = 1
+        server.acceptRanges = false
+
+        when:
+        download()
+
+        then:
+        thrown(IOException)
+        server.requests == 1
+    }
+
+    def "does not resume reading content that has a content encoding"() {
+        server.failures = 1
+        server.gzip = true
+
+        when:
+        download()
+
+        then:
+        thrown(IOException)
+        server.requests == 1
+    }
+
+    def "reads content that has a content encoding"() {
+        server.gzip = true
+
+        expect:
+        download() == server.content
+        server.requests == 1
+    }
+
+    private byte[] download() {
+        def response = http.performRequest(new HttpGet(server.uri), false)
+        def resource = new ResumableHttpResponseResource(server.uri, response, http, false)
+        try {
+            def instr = resource.openStream()
+            try {
+                return instr.bytes
+            } finally {
+                instr.close()
+            }
+        } finally {
+            resource.close()
+        }
+    }
+
+    /**
+     * Serves a single resource and drops the connection part way through the body for the first few requests.
+     */
+    static class DroppingHttpServer extends ExternalResource {
+        final byte[] content = new byte[256 * 1024]
+        int failures
+        boolean changeAfterFirstRequest
+        boolean acceptRanges = true
+        boolean gzip
+        volatile int requests
+        private HttpServer server
+
+        @Override
+        protected void before() {
+            new Random(1).nextBytes(content)
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0)
+            server.createContext("/", new HttpHandler() {
+                void handle(HttpExchange exchange) {
+                    serve(exchange, requests++)
+                }
+            })
+            server.start()
+        }
+
+        @Override
+        protected void after() {
+            server.stop(0)
+        }
+
+        URI getUri() {
+            new URI("http://127.0.0.1:${server.address.port}/lib.jar")
+        }
+
+        private void serve(HttpExchange exchange, int request) {
+            def etag = changeAfterFirstRequest && request > 0 ? '"v2"' : '"v1"'
+            def range = exchange.requestHeaders.getFirst("Range")
+            def ifRange = exchange.requestHeaders.getFirst("If-Range")
+            exchange.responseHeaders.add("ETag", etag)
+            if (acceptRanges) {
+                exchange.responseHeaders.add("Accept-Ranges", "bytes")
+            }
+            def data = content
+            if (gzip) {
+                def encoded = new ByteArrayOutputStream()
+                def output = new GZIPOutputStream(encoded)
+                output.write(content)
+                output.close()
+                data = encoded.toByteArray()
+                exchange.responseHeaders.add("Content-Encoding", "gzip")
+            }
+            int start = 0
+            if (acceptRanges && range != null && ifRange == etag) {
+                start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1))
+                exchange.responseHeaders.add("Content-Range", "bytes ${start}-${data.length - 1}/${data.length}")
+                exchange.sendResponseHeaders(206, data.length - start)
+            } else {
+                exchange.sendResponseHeaders(200, data.length)
+            }
+            def body = exchange.responseBody
+            if (request < failures) {
+                body.write(data, start, (data.length - start).intdiv(3) as int)
+                body.flush()
+                exchange.close()
+                return
+            }
+            body.write(data, start, data.length - start)
+            body.close()
+        }
+    }
+
+    private HttpSettings getHttpSettings() {
+        Stub(HttpSettings) {
+            getProxySettings() >> Mock(HttpProxySettings)
+            getSecureProxySettings() >> Mock(HttpProxySettings)
+            getTimeoutSettings() >> new JavaSystemPropertiesHttpTimeoutSettings()
+            getSslContextFactory() >> Mock(SslContextFactory) {
+                createSslContext() >> SSLContexts.createDefault()
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing;
+
+/**
+ * Notified when a test worker has finished processing a test class that was given to it, whether or not the class contained any tests.
+ * This allows test classes to be handed to a worker as it becomes available, rather than up front.
+ */
+public interface TestClassProcessedListener {
+    /**
+     * Notifies this listener that the given test class has been processed. This is also called for test classes that were given to a worker that
+     * stopped before processing them.
+     */
+    void testClassProcessed(String testClassName);
+}
@@ -22,6 +22,7 @@ import org.gradle.api.GradleException;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.FileUtils;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.operations.BuildOperationQueue;
@@ -34,17 +35,32 @@ import org.gradle.util.GFileUtils;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FilenameFilter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Generates a JUnit XML report file for each test class.
+ *
+ * <p>A manifest is kept outside the report directory, with a hash of the results that each report file was generated from, including the timestamp
+ * and the durations. A report file is only written again when its content would change. The report files of classes that are no longer part of the
+ * results are deleted.</p>
+ */
 public class Binary2JUnitXmlReportGenerator {
+    // The number of report files waiting to be generated, beyond which report files are generated on the visiting thread
+    private static final int MAX_PENDING_REPORT_FILES = 4 * Runtime.getRuntime().availableProcessors();
 
     private final File testResultsDir;
+    private final File manifestFile;
     private final TestResultsProvider testResultsProvider;
     private JUnitXmlResultWriter xmlWriter;
     private final BuildOperationExecutor buildOperationExecutor;
     private final static Logger LOG = Logging.getLogger(Binary2JUnitXmlReportGenerator.class);
 
-    public Binary2JUnitXmlReportGenerator(File testResultsDir, TestResultsProvider testResultsProvider, TestOutputAssociation outputAssociation, BuildOperationExecutor buildOperationExecutor, String hostName) {
+    public Binary2JUnitXmlReportGenerator(File testResultsDir, File manifestFile, TestResultsProvider testResultsProvider, TestOutputAssociation outputAssociation, BuildOperationExecutor buildOperationExecutor, String hostName) {
         this.testResultsDir = testResultsDir;
+        this.manifestFile = manifestFile;
         this.testResultsProvider = testResultsProvider;
         this.xmlWriter = new JUnitXmlResultWriter(hostName, testResultsProvider, outputAssociation);
         this.buildOperationExecutor = buildOperationExecutor;
@@ -53,13 +69,40 @@ public class Binary2JUnitXmlReportGenerator {
     public void generate() {
         Timer clock = Time.startTimer();
 
+        final JUnitXmlReportManifest manifest = new JUnitXmlReportManifest(manifestFile);
+        final Map<String, JUnitXmlReportManifest.Entry> previousEntries = manifest.read();
+        final ConcurrentMap<String, JUnitXmlReportManifest.Entry> entries = new ConcurrentHashMap<String, JUnitXmlReportManifest.Entry>();
+        // The manifest is written again only once all the report files are up-to-date
+        manifest.delete();
+        GFileUtils.mkdirs(testResultsDir);
+
+        buildOperationExecutor.runAll(new Action<BuildOperationQueue<JUnitXmlReportFileGenerator>>() {
+            @Override
+            public void execute(final BuildOperationQueue<JUnitXmlReportFileGenerator> queue) {
+                final Semaphore pendingReportFiles = new Semaphore(MAX_PENDING_REPORT_FILES);
+                testResultsProvider.visitClasses(new Action<TestClassResult>() {
+                    public void execute(final TestClassResult result) {
+                        String reportFileName = getReportFileName(result);
+                        final File reportFile = new File(testResultsDir, reportFileName);
+                        JUnitXmlReportFileGenerator generator = new JUnitXmlReportFileGenerator(result, reportFile, xmlWriter, previousEntries.get(reportFileName), entries);
+                        if (pendingReportFiles.tryAcquire()) {
+                            queue.add(generator.releasing(pendingReportFiles));
+                        } else {
+                            // Too many report files are waiting, so generate this one here rather than holding on to more results
+                            buildOperationExecutor.run(generator);
+                        }
+                    }
+                });
+            }
+        });
+
         buildOperationExecutor.run(new RunnableBuildOperation() {
             @Override
             public void run(BuildOperationContext context) {
                 File[] oldXmlFiles = testResultsDir.listFiles(new FilenameFilter() {
                     @Override
                     public boolean accept(File dir, String name) {
-                        return name.startsWith("TEST") && name.endsWith(".xml");
+                        return name.startsWith("TEST") && name.endsWith(".xml") && !entries.containsKey(name);
                     }
                 });
 
@@ -74,17 +117,7 @@ public class Binary2JUnitXmlReportGenerator {
             }
         });
 
-        buildOperationExecutor.runAll(new Action<BuildOperationQueue<JUnitXmlReportFileGenerator>>() {
-            @Override
-            public void execute(final BuildOperationQueue<JUnitXmlReportFileGenerator> queue) {
-                testResultsProvider.visitClasses(new Action<TestClassResult>() {
-                    public void execute(final TestClassResult result) {
-                        final File reportFile = new File(testResultsDir, getReportFileName(result));
-                        queue.add(new JUnitXmlReportFileGenerator(result, reportFile, xmlWriter));
-                    }
-                });
-            }
-        });
+        manifest.write(entries);
 
         LOG.info("Finished generating test XML results ({}) into: {}", clock.getElapsed(), testResultsDir);
     }
@@ -97,11 +130,28 @@ public class Binary2JUnitXmlReportGenerator {
         private final TestClassResult result;
         private final File reportFile;
         private final JUnitXmlResultWriter xmlWriter;
+        private final JUnitXmlReportManifest.Entry previousEntry;
+        private final ConcurrentMap<String, JUnitXmlReportManifest.Entry> entries;
+        private final Semaphore permits;
+
+        public JUnitXmlReportFileGenerator(TestClassResult result, File reportFile, JUnitXmlResultWriter xmlWriter, JUnitXmlReportManifest.Entry previousEntry, ConcurrentMap<String, JUnitXmlReportManifest.Entry> entries) {
+            this(result, reportFile, xmlWriter, previousEntry, entries, null);
+        }
 
-        public JUnitXmlReportFileGenerator(TestClassResult result, File reportFile, JUnitXmlResultWriter xmlWriter) {
+        private JUnitXmlReportFileGenerator(TestClassResult result, File reportFile, JUnitXmlResultWriter xmlWriter, JUnitXmlReportManifest.Entry previousEntry, ConcurrentMap<String, JUnitXmlReportManifest.Entry> entries, Semaphore permits) {
             this.result = result;
             this.reportFile = reportFile;
             this.xmlWriter = xmlWriter;
+            this.previousEntry = previousEntry;
+            this.entries = entries;
+            this.permits = permits;
+        }
+
+        /**
+         * Returns a copy of this generator that releases a permit to the given semaphore once it has run.
+         */
+        JUnitXmlReportFileGenerator releasing(Semaphore permits) {
+            return new JUnitXmlReportFileGenerator(result, reportFile, xmlWriter, previousEntry, entries, permits);
         }
 
         @Override
@@ -111,11 +161,27 @@ public class Binary2JUnitXmlReportGenerator {
 
         @Override
         public void run(BuildOperationContext context) {
+            try {
+                generate();
+            } finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        }
+
+        private void generate() {
             FileOutputStream output = null;
             try {
+                HashCode hash = xmlWriter.hashResults(result);
+                if (previousEntry != null && previousEntry.matches(hash, reportFile)) {
+                    entries.put(reportFile.getName(), previousEntry);
+                    return;
+                }
                 output = new FileOutputStream(reportFile);
                 xmlWriter.write(result, output);
                 output.close();
+                entries.put(reportFile.getName(), new JUnitXmlReportManifest.Entry(hash, reportFile.length()));
             } catch (Exception e) {
                 throw new GradleException(String.format("Could not write XML test results for %s to file %s.", result.getClassName(), reportFile), e);
             } finally {
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records the hash of the results each JUnit XML report file in a directory was generated from, and the length of the file, so that files whose results have not changed do not need to be written again.
+ */
+class JUnitXmlReportManifest {
+    private static final Logger LOG = Logging.getLogger(JUnitXmlReportManifest.class);
+    private static final int MANIFEST_VERSION = 3;
+    private final File manifestFile;
+
+    JUnitXmlReportManifest(File manifestFile) {
+        this.manifestFile = manifestFile;
+    }
+
+    /**
+     * Returns the entries of the manifest, by report file name. Returns no entries when the manifest does not exist or cannot be read.
+     */
+    Map<String, Entry> read() {
+        Map<String, Entry> entries = new HashMap<String, Entry>();
+        if (!manifestFile.isFile()) {
+            return entries;
+        }
+        try {
+            InputStream inputStream = new FileInputStream(manifestFile);
+            try {
+                Decoder decoder = new KryoBackedDecoder(inputStream);
+                int version = decoder.readSmallInt();
+                if (version != MANIFEST_VERSION) {
+                    return entries;
+                }
+                int count = decoder.readSmallInt();
+                for (int i = 0; i < count; i++) {
+                    String fileName = decoder.readString();
+                    HashCode hash = HashCode.fromBytes(decoder.readBinary());
+                    long length = decoder.readSmallLong();
+                    entries.put(fileName, new Entry(hash, length));
+                }
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            // Rewrite all the report files instead
+            LOG.debug("Could not read JUnit XML report manifest {}.", manifestFile, e);
+            entries.clear();
+        }
+        return entries;
+    }
+
+    void write(Map<String, Entry> entries) {
+        GFileUtils.mkdirs(manifestFile.getParentFile());
+        try {
+            OutputStream outputStream = new FileOutputStream(manifestFile);
+            try {
+                FlushableEncoder encoder = new KryoBackedEncoder(outputStream);
+                encoder.writeSmallInt(MANIFEST_VERSION);
+                encoder.writeSmallInt(entries.size());
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    encoder.writeString(entry.getKey());
+                    encoder.writeBinary(entry.getValue().getHash().toByteArray());
+                    encoder.writeSmallLong(entry.getValue().getLength());
+                }
+                encoder.flush();
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes the manifest, so that report files are not trusted while they are being updated.
+     */
+    void delete() {
+        GFileUtils.deleteQuietly(manifestFile);
+    }
+
+    static class Entry {
+        private final HashCode hash;
+        private final long length;
+
+        Entry(HashCode hash, long length) {
+            this.hash = hash;
+            this.length = length;
+        }
+
+        HashCode getHash() {
+            return hash;
+        }
+
+        long getLength() {
+            return length;
+        }
+
+        /**
+         * Returns true when the report was generated from results with the given hash, and the report file still has the length that was recorded.
+         */
+        boolean matches(HashCode hash, File reportFile) {
+            return this.hash.equals(hash) && reportFile.isFile() && reportFile.length() == length;
+        }
+    }
+}
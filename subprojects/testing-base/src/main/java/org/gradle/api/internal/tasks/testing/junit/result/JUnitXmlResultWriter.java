@@ -17,13 +17,21 @@
 package org.gradle.api.internal.tasks.testing.junit.result;
 
 import org.apache.tools.ant.util.DateUtils;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.hash.HashingOutputStream;
+import org.gradle.internal.io.NullOutputStream;
 import org.gradle.internal.xml.SimpleXmlWriter;
 import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.api.tasks.testing.TestResult;
 import org.gradle.internal.UncheckedException;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 
 public class JUnitXmlResultWriter {
 
@@ -74,6 +82,65 @@ public class JUnitXmlResultWriter {
         }
     }
 
+    /**
+     * Returns a hash of everything that {@link #write} renders for the given test class, including the timestamp and the durations.
+     */
+    public HashCode hashResults(TestClassResult result) {
+        long classId = result.getId();
+        try {
+            Hasher hasher = Hashing.md5().newHasher();
+            hasher.putString(hostName);
+            hasher.putString(result.getClassName());
+            hasher.putInt(result.getTestsCount());
+            hasher.putInt(result.getSkippedCount());
+            hasher.putInt(result.getFailuresCount());
+            hasher.putLong(result.getStartTime());
+            hasher.putLong(result.getDuration());
+            for (TestMethodResult methodResult : result.getResults()) {
+                hasher.putString(methodResult.getName());
+                hasher.putLong(methodResult.getDuration());
+                putNullableString(hasher, methodResult.getResultType() == null ? null : methodResult.getResultType().name());
+                hasher.putInt(methodResult.getFailures().size());
+                for (TestFailure failure : methodResult.getFailures()) {
+                    putNullableString(hasher, failure.getMessage());
+                    putNullableString(hasher, failure.getExceptionType());
+                    putNullableString(hasher, failure.getStackTrace());
+                }
+                if (outputAssociation.equals(TestOutputAssociation.WITH_TESTCASE)) {
+                    hasher.putHash(hashOutputs(classId, methodResult.getId(), false, TestOutputEvent.Destination.StdOut));
+                    hasher.putHash(hashOutputs(classId, methodResult.getId(), false, TestOutputEvent.Destination.StdErr));
+                }
+            }
+            boolean allClassOutput = outputAssociation.equals(TestOutputAssociation.WITH_SUITE);
+            hasher.putHash(hashOutputs(classId, null, allClassOutput, TestOutputEvent.Destination.StdOut));
+            hasher.putHash(hashOutputs(classId, null, allClassOutput, TestOutputEvent.Destination.StdErr));
+            return hasher.hash();
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private HashCode hashOutputs(long classId, @Nullable Long testId, boolean allClassOutput, TestOutputEvent.Destination destination) throws IOException {
+        HashingOutputStream hashingOutput = new HashingOutputStream(Hashing.md5(), NullOutputStream.INSTANCE);
+        Writer writer = new OutputStreamWriter(hashingOutput, "UTF-8");
+        if (testId != null) {
+            testResultsProvider.writeTestOutput(classId, testId, destination, writer);
+        } else if (allClassOutput) {
+            testResultsProvider.writeAllOutput(classId, destination, writer);
+        } else {
+            testResultsProvider.writeNonTestOutput(classId, destination, writer);
+        }
+        writer.flush();
+        return hashingOutput.hash();
+    }
+
+    private static void putNullableString(Hasher hasher, @Nullable String value) {
+        hasher.putBoolean(value != null);
+        if (value != null) {
+            hasher.putString(value);
+        }
+    }
+
     private void writeOutputs(SimpleXmlWriter writer, long classId, boolean allClassOutput, TestOutputEvent.Destination destination) throws IOException {
         writer.startCDATA();
         if (allClassOutput) {
@@ -30,6 +30,8 @@ import java.io.*;
 import java.nio.charset.Charset;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class TestOutputStore {
 
@@ -219,7 +221,11 @@ public class TestOutputStore {
 
     public class Reader implements Closeable {
         private final Index index;
-        private final RandomAccessFile dataFile;
+        private final File dataFile;
+        // Each read uses its own file handle, so that outputs can be read from multiple threads
+        private final Queue<RandomAccessFile> idleDataFiles = new ConcurrentLinkedQueue<RandomAccessFile>();
+        // Every handle that has been opened, including those in use, so that all of them are closed
+        private final Queue<RandomAccessFile> openDataFiles = new ConcurrentLinkedQueue<RandomAccessFile>();
 
         public Reader() {
             File indexFile = getIndexFile();
@@ -261,12 +267,9 @@ public class TestOutputStore {
                 }
 
                 index = rootBuilder.build();
+                dataFile = outputsFile;
 
-                try {
-                    dataFile = new RandomAccessFile(getOutputsFile(), "r");
-                } catch (FileNotFoundException e) {
-                    throw new UncheckedIOException(e);
-                }
+                idleDataFiles.add(openDataFile());
             } else { // no outputs file
                 if (indexFile.exists()) {
                     throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
@@ -279,8 +282,20 @@ public class TestOutputStore {
 
         @Override
         public void close() throws IOException {
-            if (dataFile != null) {
-                dataFile.close();
+            idleDataFiles.clear();
+            IOException failure = null;
+            RandomAccessFile file;
+            while ((file = openDataFiles.poll()) != null) {
+                try {
+                    file.close();
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
             }
         }
 
@@ -334,6 +349,7 @@ public class TestOutputStore {
             boolean ignoreClassLevel = !allClassOutput && testId != 0;
             boolean ignoreTestLevel = !allClassOutput && testId == 0;
 
+            RandomAccessFile dataFile = acquireDataFile();
             try {
                 dataFile.seek(region.start);
                 long maxPos = region.stop - region.start;
@@ -379,7 +395,28 @@ public class TestOutputStore {
                 }
             } catch (IOException e1) {
                 throw new UncheckedIOException(e1);
+            } finally {
+                idleDataFiles.add(dataFile);
+            }
+        }
+
+        private RandomAccessFile acquireDataFile() {
+            RandomAccessFile file = idleDataFiles.poll();
+            if (file != null) {
+                return file;
+            }
+            return openDataFile();
+        }
+
+        private RandomAccessFile openDataFile() {
+            RandomAccessFile file;
+            try {
+                file = new RandomAccessFile(dataFile, "r");
+            } catch (FileNotFoundException e) {
+                throw new UncheckedIOException(e);
             }
+            openDataFiles.add(file);
+            return file;
         }
     }
 
@@ -0,0 +1,348 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessedListener;
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.actor.Actor;
+import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.dispatch.DispatchException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Manages a set of parallel TestClassProcessors, balancing the work between them.
+ *
+ * <p>When work stealing is enabled, test classes are queued and each processor is given the next test class when it reports that it has
+ * processed the previous one, so that a processor that runs out of work takes over test classes that would otherwise wait for a busy one.
+ * This requires the processors to run test classes as they receive them. Otherwise, each test class is assigned to the processor with
+ * the least work, as estimated from the durations of the test classes in a previous run.</p>
+ *
+ * <p>Test classes are handed out in the order they are received, and should be received longest first.</p>
+ */
+public class DurationBalancedTestClassProcessor implements TestClassProcessor {
+    private final int maxProcessors;
+    private final Factory<TestClassProcessor> factory;
+    private final ActorFactory actorFactory;
+    private final Map<String, Long> previousDurations;
+    private final long defaultDuration;
+    private final boolean workStealing;
+    private final Lock lock = new ReentrantLock();
+    private final Condition workChanged = lock.newCondition();
+    private final Deque<TestClassRunInfo> queue = new ArrayDeque<TestClassRunInfo>();
+    private final List<Fork> forks = new ArrayList<Fork>();
+    private TestResultProcessor resultProcessor;
+    private Actor resultProcessorActor;
+    private volatile boolean stoppedNow;
+
+    public DurationBalancedTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> previousDurations, boolean workStealing) {
+        this.maxProcessors = maxProcessors;
+        this.factory = factory;
+        this.actorFactory = actorFactory;
+        this.previousDurations = previousDurations;
+        this.defaultDuration = averageDuration(previousDurations);
+        this.workStealing = workStealing;
+    }
+
+    private static long averageDuration(Map<String, Long> durations) {
+        if (durations.isEmpty()) {
+            return 1;
+        }
+        long total = 0;
+        for (Long duration : durations.values()) {
+            total += duration;
+        }
+        return Math.max(1, total / durations.size());
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        // Create a processor that processes events in its own thread
+        resultProcessorActor = actorFactory.createActor(resultProcessor);
+        this.resultProcessor = resultProcessorActor.getProxy(TestResultProcessor.class);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        if (stoppedNow) {
+            return;
+        }
+
+        if (workStealing) {
+            lock.lock();
+            try {
+                queue.add(testClass);
+                dispatchQueued();
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            Fork fork;
+            lock.lock();
+            try {
+                fork = forks.size() < maxProcessors ? startFork() : leastLoadedFork();
+                fork.expectedDuration += expectedDuration(testClass);
+            } finally {
+                lock.unlock();
+            }
+            fork.processor.processTestClass(testClass);
+        }
+    }
+
+    private long expectedDuration(TestClassRunInfo testClass) {
+        Long duration = previousDurations.get(testClass.getTestClassName());
+        return duration != null ? duration : defaultDuration;
+    }
+
+    private Fork leastLoadedFork() {
+        Fork leastLoaded = forks.get(0);
+        for (Fork fork : forks) {
+            if (fork.expectedDuration < leastLoaded.expectedDuration) {
+                leastLoaded = fork;
+            }
+        }
+        return leastLoaded;
+    }
+
+    private Fork startFork() {
+        TestClassProcessor rawProcessor = factory.create();
+        Fork fork = new Fork(rawProcessor);
+        fork.actor = actorFactory.createActor(fork);
+        fork.processor = fork.actor.getProxy(TestClassProcessor.class);
+        forks.add(fork);
+        // Processors only report processed test classes when asked to, by a result processor that listens for them
+        fork.processor.startProcessing(workStealing ? new WorkStealingForkResultProcessor(fork) : new ForkResultProcessor());
+        return fork;
+    }
+
+    /**
+     * Hands queued test classes to idle processors, starting new processors as required. Must be called while holding the lock.
+     */
+    private void dispatchQueued() {
+        while (!queue.isEmpty() && !stoppedNow) {
+            Fork fork = idleFork();
+            if (fork == null) {
+                return;
+            }
+            fork.processing++;
+            fork.processor.processTestClass(queue.poll());
+        }
+    }
+
+    private Fork idleFork() {
+        for (Fork fork : forks) {
+            if (!fork.failed && fork.processing == 0) {
+                return fork;
+            }
+        }
+        if (forks.size() < maxProcessors) {
+            return startFork();
+        }
+        return null;
+    }
+
+    private boolean hasUsableFork() {
+        if (forks.size() < maxProcessors) {
+            return true;
+        }
+        for (Fork fork : forks) {
+            if (!fork.failed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void processed(Fork fork) {
+        lock.lock();
+        try {
+            if (fork.processing > 0) {
+                fork.processing--;
+            }
+            dispatchQueued();
+            workChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void failed(Fork fork) {
+        if (!workStealing) {
+            return;
+        }
+        lock.lock();
+        try {
+            // The failure is reported when the processor is stopped
+            fork.failed = true;
+            fork.processing = 0;
+            dispatchQueued();
+            workChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (workStealing) {
+            awaitQueuedTestClasses();
+        }
+        List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
+        List<Actor> actors = new ArrayList<Actor>();
+        for (Fork fork : forks) {
+            processors.add(fork.processor);
+            actors.add(fork.actor);
+        }
+        try {
+            CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
+        } catch (DispatchException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+
+    private void awaitQueuedTestClasses() {
+        lock.lock();
+        try {
+            while (!queue.isEmpty() && !stoppedNow && hasUsableFork()) {
+                workChanged.await();
+            }
+            queue.clear();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void stopNow() {
+        stoppedNow = true;
+        List<Fork> toStop;
+        lock.lock();
+        try {
+            toStop = new ArrayList<Fork>(forks);
+            workChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Fork fork : toStop) {
+            fork.rawProcessor.stopNow();
+        }
+    }
+
+    /**
+     * A processor, along with the work it has been given. Processes the test classes given to it on the actor's thread.
+     */
+    private class Fork implements TestClassProcessor {
+        private final TestClassProcessor rawProcessor;
+        private Actor actor;
+        private TestClassProcessor processor;
+        private long expectedDuration;
+        private int processing;
+        private boolean failed;
+
+        Fork(TestClassProcessor rawProcessor) {
+            this.rawProcessor = rawProcessor;
+        }
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            rawProcessor.startProcessing(resultProcessor);
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            boolean dispatched = false;
+            try {
+                rawProcessor.processTestClass(testClass);
+                dispatched = true;
+            } finally {
+                if (!dispatched) {
+                    failed(this);
+                }
+            }
+        }
+
+        @Override
+        public void stop() {
+            rawProcessor.stop();
+        }
+
+        @Override
+        public void stopNow() {
+            rawProcessor.stopNow();
+        }
+    }
+
+    /**
+     * Forwards the results of a processor.
+     */
+    private class ForkResultProcessor implements TestResultProcessor {
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            resultProcessor.started(test, event);
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            resultProcessor.completed(testId, event);
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            resultProcessor.output(testId, event);
+        }
+
+        @Override
+        public void failure(Object testId, Throwable result) {
+            resultProcessor.failure(testId, result);
+        }
+
+    }
+
+    /**
+     * Forwards the results of a processor, and keeps track of the test classes it has processed.
+     */
+    private class WorkStealingForkResultProcessor extends ForkResultProcessor implements TestClassProcessedListener {
+        private final Fork fork;
+
+        WorkStealingForkResultProcessor(Fork fork) {
+            this.fork = fork;
+        }
+
+        @Override
+        public void testClassProcessed(String testClassName) {
+            processed(fork);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Passes test classes to its delegate in order of decreasing duration in a previous run, so that long running test classes do not
+ * start last and hold up the end of the test run. Test classes without a previous duration, such as new ones, are passed first and
+ * in the order they are received.
+ *
+ * <p>Test classes without a previous duration are passed as soon as they are received. The other test classes can only be sorted once
+ * all of them have been received, so they are held back until this processor is stopped, and do not start while test classes are still being scanned.</p>
+ */
+public class LongestFirstTestClassProcessor implements TestClassProcessor {
+    private final Map<String, Long> previousDurations;
+    private final TestClassProcessor delegate;
+    private final List<TestClassRunInfo> testClasses = new ArrayList<TestClassRunInfo>();
+
+    public LongestFirstTestClassProcessor(Map<String, Long> previousDurations, TestClassProcessor delegate) {
+        this.previousDurations = previousDurations;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        delegate.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        if (previousDurations.containsKey(testClass.getTestClassName())) {
+            testClasses.add(testClass);
+        } else {
+            delegate.processTestClass(testClass);
+        }
+    }
+
+    @Override
+    public void stop() {
+        Collections.sort(testClasses, new Comparator<TestClassRunInfo>() {
+            @Override
+            public int compare(TestClassRunInfo left, TestClassRunInfo right) {
+                long leftDuration = previousDurations.get(left.getTestClassName());
+                long rightDuration = previousDurations.get(right.getTestClassName());
+                return leftDuration > rightDuration ? -1 : leftDuration == rightDuration ? 0 : 1;
+            }
+        });
+        for (TestClassRunInfo testClass : testClasses) {
+            delegate.processTestClass(testClass);
+        }
+        delegate.stop();
+    }
+
+    @Override
+    public void stopNow() {
+        delegate.stopNow();
+    }
+}
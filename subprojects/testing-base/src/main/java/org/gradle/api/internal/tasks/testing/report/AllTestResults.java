@@ -60,6 +60,22 @@ public class AllTestResults extends CompositeTestResults {
         return addPackageForClass(className).addClass(classId, className, classDisplayName);
     }
 
+    /**
+     * Adds a summary of the given class results, which keeps the counters of the class but not its individual test results.
+     * Only the names of the failed and ignored tests are kept, so that they can be listed.
+     */
+    public ClassTestResults addTestClassSummary(ClassTestResults classResults) {
+        ClassTestResults summary = addTestClass(classResults.getId(), classResults.getName(), classResults.getDisplayName());
+        summary.addTestCounts(classResults.getTestCount(), classResults.getDuration());
+        for (TestResult failure : classResults.getFailures()) {
+            new TestResult(failure.getName(), failure.getDisplayName(), failure.getDuration(), summary).setFailed();
+        }
+        for (TestResult ignored : classResults.getIgnored()) {
+            new TestResult(ignored.getName(), ignored.getDisplayName(), ignored.getDuration(), summary).setIgnored();
+        }
+        return summary;
+    }
+
     private PackageTestResults addPackageForClass(String className) {
         String packageName = StringUtils.substringBeforeLast(className, ".");
         if (packageName.equals(className)) {
@@ -154,4 +154,12 @@ public abstract class CompositeTestResults extends TestResultModel {
         duration += test.getDuration();
         return test;
     }
+
+    protected void addTestCounts(int testCount, long testDuration) {
+        tests += testCount;
+        duration += testDuration;
+        if (parent != null) {
+            parent.addTestCounts(testCount, testDuration);
+        }
+    }
 }
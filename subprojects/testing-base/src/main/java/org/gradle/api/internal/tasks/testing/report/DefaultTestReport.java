@@ -37,11 +37,21 @@ import org.gradle.util.GFileUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
+import java.util.concurrent.Semaphore;
 
 import static org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED;
 
+/**
+ * Generates the HTML test report while streaming the results of each test class from the results provider.
+ *
+ * <p>The page of each class is generated as soon as the class is visited, and the results of the class are then discarded.
+ * Only a summary of each class is kept to generate the overview and package pages, so that memory usage does not grow
+ * with the number of tests or with the size of their output.</p>
+ */
 public class DefaultTestReport implements TestReporter {
+    // The number of class pages waiting to be generated, beyond which class pages are generated on the visiting thread
+    private static final int MAX_PENDING_CLASS_PAGES = 4 * Runtime.getRuntime().availableProcessors();
+
     private final BuildOperationExecutor buildOperationExecutor;
     private final static Logger LOG = Logging.getLogger(DefaultTestReport.class);
 
@@ -54,34 +64,28 @@ public class DefaultTestReport implements TestReporter {
         LOG.info("Generating HTML test report...");
 
         Timer clock = Time.startTimer();
-        AllTestResults model = loadModelFromProvider(resultsProvider);
-        generateFiles(model, resultsProvider, reportDir);
+        generateFiles(resultsProvider, reportDir);
         LOG.info("Finished generating test html results ({}) into: {}", clock.getElapsed(), reportDir);
     }
 
-    private AllTestResults loadModelFromProvider(TestResultsProvider resultsProvider) {
-        final AllTestResults model = new AllTestResults();
-        resultsProvider.visitClasses(new Action<TestClassResult>() {
-            public void execute(TestClassResult classResult) {
-                model.addTestClass(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName());
-                List<TestMethodResult> collectedResults = classResult.getResults();
-                for (TestMethodResult collectedResult : collectedResults) {
-                    final TestResult testResult = model.addTest(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName(), collectedResult.getName(), collectedResult.getDisplayName(), collectedResult.getDuration());
-                    if (collectedResult.getResultType() == SKIPPED) {
-                        testResult.setIgnored();
-                    } else {
-                        List<TestFailure> failures = collectedResult.getFailures();
-                        for (TestFailure failure : failures) {
-                            testResult.addFailure(failure);
-                        }
-                    }
+    private static ClassTestResults loadClassModel(TestClassResult classResult) {
+        // Each class is loaded into its own model, which is discarded once the class page has been generated
+        AllTestResults model = new AllTestResults();
+        ClassTestResults classResults = model.addTestClass(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName());
+        for (TestMethodResult collectedResult : classResult.getResults()) {
+            final TestResult testResult = model.addTest(classResult.getId(), classResult.getClassName(), classResult.getClassDisplayName(), collectedResult.getName(), collectedResult.getDisplayName(), collectedResult.getDuration());
+            if (collectedResult.getResultType() == SKIPPED) {
+                testResult.setIgnored();
+            } else {
+                for (TestFailure failure : collectedResult.getFailures()) {
+                    testResult.addFailure(failure);
                 }
             }
-        });
-        return model;
+        }
+        return classResults;
     }
 
-    private void generateFiles(AllTestResults model, final TestResultsProvider resultsProvider, final File reportDir) {
+    private void generateFiles(final TestResultsProvider resultsProvider, final File reportDir) {
         try {
             HtmlReportRenderer htmlRenderer = new HtmlReportRenderer();
             buildOperationExecutor.run(new RunnableBuildOperation() {
@@ -98,18 +102,35 @@ public class DefaultTestReport implements TestReporter {
                 }
             });
 
-            htmlRenderer.render(model, new ReportRenderer<AllTestResults, HtmlReportBuilder>() {
+            htmlRenderer.render(new AllTestResults(), new ReportRenderer<AllTestResults, HtmlReportBuilder>() {
                 @Override
                 public void render(final AllTestResults model, final HtmlReportBuilder output) throws IOException {
+                    buildOperationExecutor.runAll(new Action<BuildOperationQueue<HtmlReportFileGenerator<? extends CompositeTestResults>>>() {
+                        @Override
+                        public void execute(final BuildOperationQueue<HtmlReportFileGenerator<? extends CompositeTestResults>> queue) {
+                            final Semaphore pendingClassPages = new Semaphore(MAX_PENDING_CLASS_PAGES);
+                            resultsProvider.visitClasses(new Action<TestClassResult>() {
+                                @Override
+                                public void execute(TestClassResult classResult) {
+                                    ClassTestResults classResults = loadClassModel(classResult);
+                                    model.addTestClassSummary(classResults);
+                                    HtmlReportFileGenerator<ClassTestResults> classPage = generator(classResults.getBaseUrl(), classResults, new ClassPageRenderer(resultsProvider), output);
+                                    if (pendingClassPages.tryAcquire()) {
+                                        queue.add(classPage.releasing(pendingClassPages));
+                                    } else {
+                                        // Too many pages are waiting, so generate this one here rather than holding on to more results
+                                        buildOperationExecutor.run(classPage);
+                                    }
+                                }
+                            });
+                        }
+                    });
                     buildOperationExecutor.runAll(new Action<BuildOperationQueue<HtmlReportFileGenerator<? extends CompositeTestResults>>>() {
                         @Override
                         public void execute(BuildOperationQueue<HtmlReportFileGenerator<? extends CompositeTestResults>> queue) {
                             queue.add(generator("index.html", model, new OverviewPageRenderer(), output));
                             for (PackageTestResults packageResults : model.getPackages()) {
                                 queue.add(generator(packageResults.getBaseUrl(), packageResults, new PackagePageRenderer(), output));
-                                for (ClassTestResults classResults : packageResults.getClasses()) {
-                                    queue.add(generator(classResults.getBaseUrl(), classResults, new ClassPageRenderer(resultsProvider), output));
-                                }
                             }
                         }
                     });
@@ -121,7 +142,7 @@ public class DefaultTestReport implements TestReporter {
     }
 
     public static <T extends CompositeTestResults> HtmlReportFileGenerator<T> generator(String fileUrl, T results, PageRenderer<T> renderer, HtmlReportBuilder output) {
-        return new HtmlReportFileGenerator<T>(fileUrl, results, renderer, output);
+        return new HtmlReportFileGenerator<T>(fileUrl, results, renderer, output, null);
     }
 
     private static class HtmlReportFileGenerator<T extends CompositeTestResults> implements RunnableBuildOperation {
@@ -129,12 +150,21 @@ public class DefaultTestReport implements TestReporter {
         private final T results;
         private final PageRenderer<T> renderer;
         private final HtmlReportBuilder output;
+        private final Semaphore permits;
 
-        HtmlReportFileGenerator(String fileUrl, T results, PageRenderer<T> renderer, HtmlReportBuilder output) {
+        HtmlReportFileGenerator(String fileUrl, T results, PageRenderer<T> renderer, HtmlReportBuilder output, Semaphore permits) {
             this.fileUrl = fileUrl;
             this.results = results;
             this.renderer = renderer;
             this.output = output;
+            this.permits = permits;
+        }
+
+        /**
+         * Returns a copy of this generator that releases a permit to the given semaphore once it has run.
+         */
+        HtmlReportFileGenerator<T> releasing(Semaphore permits) {
+            return new HtmlReportFileGenerator<T>(fileUrl, results, renderer, output, permits);
         }
 
         @Override
@@ -144,7 +174,13 @@ public class DefaultTestReport implements TestReporter {
 
         @Override
         public void run(BuildOperationContext context) {
-            output.renderHtmlPage(fileUrl, results, renderer);
+            try {
+                output.renderHtmlPage(fileUrl, results, renderer);
+            } finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
         }
     }
 }
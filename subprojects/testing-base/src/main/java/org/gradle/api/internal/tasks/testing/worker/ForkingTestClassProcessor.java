@@ -20,10 +20,13 @@ import org.gradle.api.Action;
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.tasks.testing.JULRedirector;
+import org.gradle.api.internal.tasks.testing.TestClassProcessedListener;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.dispatch.StreamCompletion;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.JavaForkOptions;
@@ -33,8 +36,12 @@ import org.gradle.process.internal.worker.WorkerProcessBuilder;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 import org.gradle.util.CollectionUtils;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -47,15 +54,18 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private final ModuleRegistry moduleRegistry;
+    private final TestWorkerPool workerPool;
     private final Lock lock = new ReentrantLock();
+    private final ProcessedTestClasses processedTestClasses = new ProcessedTestClasses();
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
+    private PooledTestWorker pooledWorker;
     private TestResultProcessor resultProcessor;
     private WorkerLeaseRegistry.WorkerLeaseCompletion completion;
     private DocumentationRegistry documentationRegistry;
     private boolean stoppedNow;
 
-    public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry) {
+    public ForkingTestClassProcessor(WorkerLeaseRegistry.WorkerLease parentWorkerLease, WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, DocumentationRegistry documentationRegistry, @Nullable TestWorkerPool workerPool) {
         this.currentWorkerLease = parentWorkerLease;
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
@@ -64,11 +74,15 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         this.buildConfigAction = buildConfigAction;
         this.moduleRegistry = moduleRegistry;
         this.documentationRegistry = documentationRegistry;
+        this.workerPool = workerPool;
     }
 
     @Override
     public void startProcessing(TestResultProcessor resultProcessor) {
         this.resultProcessor = resultProcessor;
+        if (resultProcessor instanceof TestClassProcessedListener) {
+            processedTestClasses.listener = (TestClassProcessedListener) resultProcessor;
+        }
     }
 
     @Override
@@ -82,9 +96,10 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
             if (remoteProcessor == null) {
                 completion = currentWorkerLease.startChild();
                 JULRedirector.checkDeprecatedProperty(options);
-                remoteProcessor = forkProcess();
+                remoteProcessor = workerPool != null ? leaseWorker() : forkProcess();
             }
 
+            processedTestClasses.dispatched(testClass.getTestClassName());
             remoteProcessor.processTestClass(testClass);
         } finally {
             lock.unlock();
@@ -92,7 +107,7 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     }
 
     RemoteTestClassProcessor forkProcess() {
-        WorkerProcessBuilder builder = workerFactory.create(new TestWorker(processorFactory));
+        WorkerProcessBuilder builder = workerFactory.create(new TestWorker(processorFactory, isNotifyingProcessedTestClasses()));
         builder.setBaseName("Gradle Test Executor");
         builder.setImplementationClasspath(getTestWorkerImplementationClasspath());
         builder.applicationClasspath(classPath);
@@ -106,12 +121,60 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         ObjectConnection connection = workerProcess.getConnection();
         connection.useParameterSerializers(TestEventSerializer.create());
         connection.addIncoming(TestResultProcessor.class, resultProcessor);
+        if (isNotifyingProcessedTestClasses()) {
+            connection.addIncoming(TestClassProcessedListener.class, processedTestClasses);
+        }
         RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
         connection.connect();
         remoteProcessor.startProcessing();
         return remoteProcessor;
     }
 
+    RemoteTestClassProcessor leaseWorker() {
+        List<File> sharedClasspath = new ArrayList<File>();
+        for (File file : classPath) {
+            if (file.isFile()) {
+                sharedClasspath.add(file);
+            }
+        }
+
+        WorkerProcessBuilder builder = workerFactory.create(new ReusableTestWorker());
+        builder.setBaseName("Gradle Test Executor");
+        builder.setImplementationClasspath(getTestWorkerImplementationClasspath());
+        builder.applicationClasspath(sharedClasspath);
+        options.copyTo(builder.getJavaCommand());
+        builder.getJavaCommand().jvmArgs("-Dorg.gradle.native=false");
+        buildConfigAction.execute(builder);
+
+        TestWorkerSpec spec = new TestWorkerSpec(processorFactory.getClass().getName(), builder.getJavaCommand(), sharedClasspath);
+        pooledWorker = workerPool.reserveIdleWorker(spec);
+        if (pooledWorker == null) {
+            pooledWorker = workerPool.startWorker(builder, spec);
+        }
+
+        // The worker loads the jars that it shares with this test execution, everything else is loaded for this test execution only
+        List<File> testClasspath = new ArrayList<File>();
+        int sharedJars = pooledWorker.getSpec().getSharedClasspathSize();
+        for (File file : classPath) {
+            if (sharedJars > 0 && file.isFile()) {
+                sharedJars--;
+            } else {
+                testClasspath.add(file);
+            }
+        }
+
+        RemoteTestClassProcessor remoteProcessor = pooledWorker.lease(processorFactory, DefaultClassPath.of(testClasspath).getAsURLs(), isNotifyingProcessedTestClasses(), resultProcessor, processedTestClasses);
+        remoteProcessor.startProcessing();
+        return remoteProcessor;
+    }
+
+    /**
+     * The worker only notifies processed test classes when the result processor asked for them, by being a {@link TestClassProcessedListener}.
+     */
+    private boolean isNotifyingProcessedTestClasses() {
+        return processedTestClasses.listener != null;
+    }
+
     List<URL> getTestWorkerImplementationClasspath() {
         return CollectionUtils.flattenCollections(URL.class,
             moduleRegistry.getModule("gradle-core-api").getImplementationClasspath().getAsURLs(),
@@ -149,7 +212,17 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
                 } finally {
                     lock.unlock();
                 }
-                workerProcess.waitForStop();
+                if (pooledWorker != null) {
+                    try {
+                        if (!pooledWorker.awaitStopped()) {
+                            pooledWorker.waitForStop();
+                        }
+                    } finally {
+                        workerPool.release(pooledWorker);
+                    }
+                } else {
+                    workerProcess.waitForStop();
+                }
             } catch (ExecException e) {
                 if (!stoppedNow) {
                     throw new ExecException(e.getMessage()
@@ -168,11 +241,61 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         lock.lock();
         try {
             stoppedNow = true;
-            if (remoteProcessor != null) {
+            if (pooledWorker != null) {
+                pooledWorker.stopNow();
+            } else if (remoteProcessor != null) {
                 workerProcess.stopNow();
             }
         } finally {
             lock.unlock();
         }
     }
+
+    /**
+     * Forwards the notifications of the worker process about processed test classes. When the worker process goes away, the test classes
+     * it did not process are reported as processed too, so that the listener does not wait for them.
+     */
+    private static class ProcessedTestClasses implements TestClassProcessedListener, StreamCompletion {
+        private final Deque<String> pending = new ArrayDeque<String>();
+        private boolean ended;
+        private volatile TestClassProcessedListener listener;
+
+        void dispatched(String testClassName) {
+            synchronized (this) {
+                if (!ended) {
+                    pending.add(testClassName);
+                    return;
+                }
+            }
+            notifyListener(testClassName);
+        }
+
+        @Override
+        public void testClassProcessed(String testClassName) {
+            synchronized (this) {
+                pending.poll();
+            }
+            notifyListener(testClassName);
+        }
+
+        @Override
+        public void endStream() {
+            List<String> lost;
+            synchronized (this) {
+                ended = true;
+                lost = new ArrayList<String>(pending);
+                pending.clear();
+            }
+            for (String testClassName : lost) {
+                notifyListener(testClassName);
+            }
+        }
+
+        private void notifyListener(String testClassName) {
+            TestClassProcessedListener listener = this.listener;
+            if (listener != null) {
+                listener.testClassProcessed(testClassName);
+            }
+        }
+    }
 }
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessedListener;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.dispatch.StreamCompletion;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.process.internal.ExecException;
+import org.gradle.process.internal.worker.WorkerProcess;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A test worker process that is kept alive once it has processed the test classes of a test execution, so that it can process the test classes of later
+ * compatible test executions. A worker is leased to one test execution at a time.
+ */
+public class PooledTestWorker implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(PooledTestWorker.class);
+
+    private final TestWorkerSpec spec;
+    private final WorkerProcess workerProcess;
+    private final LogLevel logLevel;
+    private final RemoteReusableTestClassProcessor remoteProcessor;
+    private final Lock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+    private volatile TestResultProcessor resultProcessor;
+    private volatile TestClassProcessedListener processedListener;
+    private boolean processing;
+    private boolean ended;
+    private int uses;
+
+    PooledTestWorker(TestWorkerSpec spec, WorkerProcess workerProcess, LogLevel logLevel) {
+        this.spec = spec;
+        this.workerProcess = workerProcess;
+        this.logLevel = logLevel;
+        ObjectConnection connection = workerProcess.getConnection();
+        connection.useParameterSerializers(TestEventSerializer.create());
+        connection.addIncoming(ReusableTestResultProcessor.class, new WorkerEvents());
+        remoteProcessor = connection.addOutgoing(RemoteReusableTestClassProcessor.class);
+        connection.connect();
+    }
+
+    public TestWorkerSpec getSpec() {
+        return spec;
+    }
+
+    public LogLevel getLogLevel() {
+        return logLevel;
+    }
+
+    public int getUses() {
+        return uses;
+    }
+
+    /**
+     * Leases this worker to a test execution. The results of the test execution are sent to the given processor. The given listener is notified of each
+     * processed test class when requested. When the given listener is also a {@link StreamCompletion}, it is notified when the worker process goes away.
+     */
+    public RemoteTestClassProcessor lease(final WorkerTestClassProcessorFactory factory, final List<URL> testClasspath, final boolean notifyProcessedTestClasses, TestResultProcessor resultProcessor, TestClassProcessedListener processedListener) {
+        lock.lock();
+        try {
+            uses++;
+            processing = true;
+            this.resultProcessor = resultProcessor;
+            this.processedListener = processedListener;
+        } finally {
+            lock.unlock();
+        }
+        return new RemoteTestClassProcessor() {
+            @Override
+            public void startProcessing() {
+                remoteProcessor.startProcessing(factory, testClasspath, notifyProcessedTestClasses);
+            }
+
+            @Override
+            public void processTestClass(TestClassRunInfo testClass) {
+                remoteProcessor.processTestClass(testClass);
+            }
+
+            @Override
+            public void stop() {
+                remoteProcessor.stop();
+            }
+        };
+    }
+
+    /**
+     * Waits until the worker has stopped processing the test classes of the current lease, or the worker process has gone away.
+     *
+     * @return true when the worker can be used again.
+     */
+    public boolean awaitStopped() {
+        lock.lock();
+        try {
+            while (processing && !ended) {
+                stateChanged.await();
+            }
+            return !ended;
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isUsable() {
+        lock.lock();
+        try {
+            return !processing && !ended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the worker process to exit, once it has gone away.
+     *
+     * @throws ExecException when the worker process failed.
+     */
+    public void waitForStop() {
+        workerProcess.waitForStop();
+    }
+
+    public void stopNow() {
+        lock.lock();
+        try {
+            ended = true;
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        workerProcess.stopNow();
+    }
+
+    @Override
+    public void stop() {
+        boolean running;
+        lock.lock();
+        try {
+            running = !ended;
+            ended = true;
+        } finally {
+            lock.unlock();
+        }
+        if (running) {
+            remoteProcessor.stopWorker();
+        }
+        try {
+            workerProcess.waitForStop();
+        } catch (ExecException e) {
+            LOGGER.debug("Test worker process failed while stopping.", e);
+        }
+    }
+
+    /**
+     * Forwards the events received from the worker process to the current lease.
+     */
+    private class WorkerEvents implements ReusableTestResultProcessor, StreamCompletion {
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            resultProcessor.started(test, event);
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+            resultProcessor.completed(testId, event);
+        }
+
+        @Override
+        public void output(Object testId, TestOutputEvent event) {
+            resultProcessor.output(testId, event);
+        }
+
+        @Override
+        public void failure(Object testId, Throwable result) {
+            resultProcessor.failure(testId, result);
+        }
+
+        @Override
+        public void testClassProcessed(String testClassName) {
+            processedListener.testClassProcessed(testClassName);
+        }
+
+        @Override
+        public void processingStopped() {
+            lock.lock();
+            try {
+                processing = false;
+                // Do not hold on to the test execution while the worker is idle
+                resultProcessor = null;
+                processedListener = null;
+                stateChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void endStream() {
+            lock.lock();
+            try {
+                ended = true;
+                stateChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            TestClassProcessedListener processedListener = PooledTestWorker.this.processedListener;
+            if (processedListener instanceof StreamCompletion) {
+                ((StreamCompletion) processedListener).endStream();
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+
+import java.net.URL;
+import java.util.List;
+
+/**
+ * A test worker that can process the test classes of several test executions, one after the other.
+ *
+ * @see ReusableTestWorker
+ */
+public interface RemoteReusableTestClassProcessor {
+    /**
+     * Starts processing test classes using a processor created by the given factory. The test classes are loaded from the given classpath, in addition to the application classpath of the worker.
+     * When requested, the worker notifies {@link ReusableTestResultProcessor#testClassProcessed} once it has processed each test class.
+     *
+     * Does not block.
+     */
+    void startProcessing(WorkerTestClassProcessorFactory factory, List<URL> testClasspath, boolean notifyProcessedTestClasses);
+
+    /**
+     * Does not block.
+     */
+    void processTestClass(TestClassRunInfo testClass);
+
+    /**
+     * Stops processing the test classes given since the last call to {@link #startProcessing}. The worker can then be used again.
+     *
+     * Does not block.
+     */
+    void stop();
+
+    /**
+     * Stops the worker.
+     *
+     * Does not block.
+     */
+    void stopWorker();
+}
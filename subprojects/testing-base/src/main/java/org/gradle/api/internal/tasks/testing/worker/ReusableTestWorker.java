@@ -0,0 +1,164 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.dispatch.ContextClassLoaderProxy;
+import org.gradle.internal.id.IdGenerator;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.internal.service.DefaultServiceRegistry;
+import org.gradle.internal.time.Clock;
+import org.gradle.process.internal.worker.WorkerProcessContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.AccessControlException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A test worker that processes the test classes of a sequence of test executions, so that the worker process can be reused.
+ *
+ * <p>The test classes of each test execution are loaded in a new ClassLoader, which is discarded when the test execution stops. The system properties
+ * and the security manager are also reset at this point.</p>
+ */
+public class ReusableTestWorker implements Action<WorkerProcessContext>, RemoteReusableTestClassProcessor, Serializable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReusableTestWorker.class);
+    private CountDownLatch completed;
+    private WorkerProcessContext workerProcessContext;
+    private DefaultServiceRegistry testServices;
+    private ReusableTestResultProcessor resultProcessor;
+    private TestClassProcessor processor;
+    private boolean notifyProcessedTestClasses;
+    private URLClassLoader testClassLoader;
+    private Properties systemProperties;
+    private SecurityManager securityManager;
+
+    @Override
+    public void execute(WorkerProcessContext workerProcessContext) {
+        LOGGER.info("{} started executing tests.", workerProcessContext.getDisplayName());
+
+        completed = new CountDownLatch(1);
+        this.workerProcessContext = workerProcessContext;
+
+        System.setProperty(TestWorker.WORKER_ID_SYS_PROPERTY, workerProcessContext.getWorkerId().toString());
+
+        testServices = new TestWorker.TestFrameworkServiceRegistry(workerProcessContext);
+        startReceivingTests(workerProcessContext);
+
+        try {
+            try {
+                completed.await();
+            } catch (InterruptedException e) {
+                throw new UncheckedException(e);
+            }
+        } finally {
+            LOGGER.info("{} finished executing tests.", workerProcessContext.getDisplayName());
+            testServices.close();
+        }
+    }
+
+    private void startReceivingTests(WorkerProcessContext workerProcessContext) {
+        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
+        serverConnection.useParameterSerializers(TestEventSerializer.create());
+        this.resultProcessor = serverConnection.addOutgoing(ReusableTestResultProcessor.class);
+        serverConnection.addIncoming(RemoteReusableTestClassProcessor.class, this);
+        serverConnection.connect();
+    }
+
+    @Override
+    public void startProcessing(WorkerTestClassProcessorFactory factory, List<URL> testClasspath, boolean notifyProcessedTestClasses) {
+        Thread.currentThread().setName("Test worker");
+        this.notifyProcessedTestClasses = notifyProcessedTestClasses;
+        securityManager = System.getSecurityManager();
+        systemProperties = new Properties();
+        systemProperties.putAll(System.getProperties());
+        testClassLoader = new URLClassLoader(testClasspath.toArray(new URL[0]), workerProcessContext.getApplicationClassLoader());
+
+        TestClassProcessor targetProcessor = factory.create(testServices);
+        IdGenerator<Object> idGenerator = testServices.get(IdGenerator.class);
+        targetProcessor = new WorkerTestClassProcessor(targetProcessor, idGenerator.generateId(),
+                workerProcessContext.getDisplayName(), testServices.get(Clock.class));
+        ContextClassLoaderProxy<TestClassProcessor> proxy = new ContextClassLoaderProxy<TestClassProcessor>(
+                TestClassProcessor.class, targetProcessor, testClassLoader);
+        processor = proxy.getSource();
+        processor.startProcessing(resultProcessor);
+    }
+
+    @Override
+    public void processTestClass(TestClassRunInfo testClass) {
+        Thread.currentThread().setName("Test worker");
+        try {
+            processor.processTestClass(testClass);
+        } catch (AccessControlException e) {
+            completed.countDown();
+            throw e;
+        } finally {
+            // Clean the interrupted status
+            Thread.interrupted();
+            if (notifyProcessedTestClasses) {
+                resultProcessor.testClassProcessed(testClass.getTestClassName());
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        Thread.currentThread().setName("Test worker");
+        try {
+            processor.stop();
+        } finally {
+            // Clean the interrupted status
+            // because some test class processors do work here, e.g. JUnitPlatform
+            Thread.interrupted();
+            reset();
+            resultProcessor.processingStopped();
+        }
+    }
+
+    private void reset() {
+        processor = null;
+        if (System.getSecurityManager() != securityManager) {
+            try {
+                // Reset security manager the tests seem to have installed
+                System.setSecurityManager(securityManager);
+            } catch (SecurityException e) {
+                LOGGER.warn("Unable to reset SecurityManager. Continuing anyway...", e);
+            }
+        }
+        Properties currentProperties = System.getProperties();
+        currentProperties.keySet().retainAll(systemProperties.keySet());
+        currentProperties.putAll(systemProperties);
+        systemProperties = null;
+        ClassLoaderUtils.tryClose(testClassLoader);
+        testClassLoader = null;
+    }
+
+    @Override
+    public void stopWorker() {
+        completed.countDown();
+    }
+}
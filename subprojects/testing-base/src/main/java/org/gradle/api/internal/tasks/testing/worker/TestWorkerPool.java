@@ -0,0 +1,227 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.logging.LogLevel;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.logging.LoggingManagerInternal;
+import org.gradle.internal.logging.events.LogLevelChangeEvent;
+import org.gradle.internal.logging.events.OutputEvent;
+import org.gradle.internal.logging.events.OutputEventListener;
+import org.gradle.process.internal.health.memory.MaximumHeapHelper;
+import org.gradle.process.internal.health.memory.MemoryAmount;
+import org.gradle.process.internal.health.memory.MemoryHolder;
+import org.gradle.process.internal.health.memory.MemoryManager;
+import org.gradle.process.internal.health.memory.TotalPhysicalMemoryProvider;
+import org.gradle.process.internal.worker.WorkerProcess;
+import org.gradle.process.internal.worker.WorkerProcessBuilder;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Keeps test worker processes alive between test executions, so that they can be reused by later compatible test executions, in this build or in later builds.
+ *
+ * <p>At most a fixed number of idle workers are kept. When this number is exceeded, the least recently used idle workers are stopped.
+ * Idle workers are also stopped, least recently used first, when the {@link MemoryManager} asks for system memory to be released.</p>
+ */
+public class TestWorkerPool implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(TestWorkerPool.class);
+
+    private final Object lock = new Object();
+    private final List<PooledTestWorker> allWorkers = new ArrayList<PooledTestWorker>();
+    private final List<PooledTestWorker> idleWorkers = new ArrayList<PooledTestWorker>();
+    private final int maxIdleWorkers;
+    private final LoggingManagerInternal loggingManager;
+    private final OutputEventListener logLevelChangeEventListener;
+    private final MemoryManager memoryManager;
+    private final MemoryHolder idleWorkerExpiration;
+    private LogLevel currentLogLevel;
+
+    public TestWorkerPool(LoggingManagerInternal loggingManager, MemoryManager memoryManager, int maxIdleWorkers) {
+        this(loggingManager, memoryManager, maxIdleWorkers, getTotalPhysicalMemory());
+    }
+
+    TestWorkerPool(LoggingManagerInternal loggingManager, MemoryManager memoryManager, int maxIdleWorkers, long osTotalMemory) {
+        this.loggingManager = loggingManager;
+        this.memoryManager = memoryManager;
+        this.maxIdleWorkers = maxIdleWorkers;
+        this.logLevelChangeEventListener = new LogLevelChangeEventListener();
+        loggingManager.addOutputEventListener(logLevelChangeEventListener);
+        this.currentLogLevel = loggingManager.getLevel();
+        this.idleWorkerExpiration = new IdleWorkerExpiration(osTotalMemory);
+        memoryManager.addMemoryHolder(idleWorkerExpiration);
+    }
+
+    private static long getTotalPhysicalMemory() {
+        try {
+            return TotalPhysicalMemoryProvider.getTotalPhysicalMemory();
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Reserves the most recently used idle worker that is compatible with the given configuration, if any.
+     */
+    @Nullable
+    public PooledTestWorker reserveIdleWorker(TestWorkerSpec spec) {
+        List<PooledTestWorker> outdatedWorkers = new ArrayList<PooledTestWorker>();
+        try {
+            synchronized (lock) {
+                ListIterator<PooledTestWorker> it = idleWorkers.listIterator(idleWorkers.size());
+                while (it.hasPrevious()) {
+                    PooledTestWorker candidate = it.previous();
+                    if (candidate.getLogLevel() != currentLogLevel) {
+                        LOGGER.info("Log level has changed, stopping idle test worker with out-of-date log level.");
+                        it.remove();
+                        allWorkers.remove(candidate);
+                        outdatedWorkers.add(candidate);
+                    } else if (candidate.getSpec().isCompatibleWith(spec)) {
+                        it.remove();
+                        return candidate;
+                    }
+                }
+                return null;
+            }
+        } finally {
+            CompositeStoppable.stoppable(outdatedWorkers).stop();
+        }
+    }
+
+    /**
+     * Starts a new worker, configured by the given builder. The worker is reserved by the caller.
+     */
+    public PooledTestWorker startWorker(WorkerProcessBuilder builder, TestWorkerSpec spec) {
+        LogLevel logLevel;
+        synchronized (lock) {
+            logLevel = currentLogLevel;
+        }
+        WorkerProcess workerProcess = builder.build();
+        workerProcess.start();
+        PooledTestWorker worker = new PooledTestWorker(spec, workerProcess, logLevel);
+        synchronized (lock) {
+            allWorkers.add(worker);
+        }
+        return worker;
+    }
+
+    /**
+     * Returns the given worker to the pool, or discards it when it cannot be used again.
+     */
+    public void release(PooledTestWorker worker) {
+        List<PooledTestWorker> workersToStop = new ArrayList<PooledTestWorker>();
+        try {
+            synchronized (lock) {
+                if (!worker.isUsable()) {
+                    allWorkers.remove(worker);
+                    workersToStop.add(worker);
+                    return;
+                }
+                idleWorkers.add(worker);
+                while (idleWorkers.size() > maxIdleWorkers) {
+                    PooledTestWorker leastRecentlyUsed = idleWorkers.remove(0);
+                    allWorkers.remove(leastRecentlyUsed);
+                    workersToStop.add(leastRecentlyUsed);
+                }
+            }
+        } finally {
+            CompositeStoppable.stoppable(workersToStop).stop();
+        }
+    }
+
+    @Override
+    public void stop() {
+        List<PooledTestWorker> workersToStop;
+        synchronized (lock) {
+            workersToStop = new ArrayList<PooledTestWorker>(allWorkers);
+            allWorkers.clear();
+            idleWorkers.clear();
+        }
+        if (!workersToStop.isEmpty()) {
+            LOGGER.debug("Stopping {} test worker(s).", workersToStop.size());
+            CompositeStoppable.stoppable(workersToStop).stop();
+        }
+        memoryManager.removeMemoryHolder(idleWorkerExpiration);
+        loggingManager.removeOutputEventListener(logLevelChangeEventListener);
+    }
+
+    /**
+     * Stops the least recently used idle workers until their maximum heap sizes add up to the memory to release.
+     */
+    private class IdleWorkerExpiration implements MemoryHolder {
+        private final long osTotalMemory;
+
+        IdleWorkerExpiration(long osTotalMemory) {
+            this.osTotalMemory = osTotalMemory;
+        }
+
+        @Override
+        public long attemptToRelease(long memoryAmountBytes) throws IllegalArgumentException {
+            if (memoryAmountBytes < 0) {
+                throw new IllegalArgumentException("Negative memory amount");
+            }
+            List<PooledTestWorker> workersToStop = new ArrayList<PooledTestWorker>();
+            long releasedBytes = 0;
+            try {
+                synchronized (lock) {
+                    while (releasedBytes < memoryAmountBytes && !idleWorkers.isEmpty()) {
+                        PooledTestWorker leastRecentlyUsed = idleWorkers.remove(0);
+                        allWorkers.remove(leastRecentlyUsed);
+                        workersToStop.add(leastRecentlyUsed);
+                        releasedBytes += getMaxHeapSize(leastRecentlyUsed);
+                    }
+                }
+                if (!workersToStop.isEmpty()) {
+                    LOGGER.debug("Stopping {} idle test worker(s) to free system memory.", workersToStop.size());
+                }
+                return releasedBytes;
+            } finally {
+                CompositeStoppable.stoppable(workersToStop).stop();
+            }
+        }
+
+        private long getMaxHeapSize(PooledTestWorker worker) {
+            long maxHeapSize = MemoryAmount.parseNotation(worker.getSpec().getMaxHeapSize());
+            if (maxHeapSize != -1) {
+                return maxHeapSize;
+            }
+            // Approximate the default maximum heap size of the JVM
+            if (osTotalMemory != -1) {
+                return new MaximumHeapHelper().getDefaultMaximumHeapSize(osTotalMemory);
+            }
+            return 0;
+        }
+    }
+
+    private class LogLevelChangeEventListener implements OutputEventListener {
+        @Override
+        public void onOutput(OutputEvent event) {
+            if (event instanceof LogLevelChangeEvent) {
+                LogLevelChangeEvent logLevelChangeEvent = (LogLevelChangeEvent) event;
+                synchronized (lock) {
+                    currentLogLevel = logLevelChangeEvent.getNewLogLevel();
+                }
+            }
+        }
+    }
+}
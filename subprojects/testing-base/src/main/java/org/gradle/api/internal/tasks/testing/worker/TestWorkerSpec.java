@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.gradle.process.JavaForkOptions;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The configuration of a test worker process, used to decide whether a reusable worker process can process the test classes of a test execution.
+ *
+ * <p>The shared classpath is the part of the test classpath that is loaded by the application ClassLoader of the worker process, and is made up of the
+ * jars of the test classpath. The rest of the test classpath is loaded separately for each test execution.</p>
+ */
+public class TestWorkerSpec {
+    private final String testFramework;
+    private final String executable;
+    private final File workingDir;
+    private final List<String> jvmArgs;
+    private final Map<String, String> environment;
+    private final List<ClasspathEntry> sharedClasspath;
+    private final String maxHeapSize;
+
+    public TestWorkerSpec(String testFramework, JavaForkOptions javaCommand, Iterable<File> sharedClasspath) {
+        this.testFramework = testFramework;
+        this.executable = javaCommand.getExecutable();
+        this.workingDir = javaCommand.getWorkingDir();
+        this.jvmArgs = ImmutableList.copyOf(javaCommand.getAllJvmArgs());
+        this.maxHeapSize = javaCommand.getMaxHeapSize();
+        ImmutableMap.Builder<String, String> environment = ImmutableMap.builder();
+        for (Map.Entry<String, Object> entry : javaCommand.getEnvironment().entrySet()) {
+            environment.put(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        this.environment = environment.build();
+        ImmutableList.Builder<ClasspathEntry> classpath = ImmutableList.builder();
+        for (File file : sharedClasspath) {
+            classpath.add(new ClasspathEntry(file));
+        }
+        this.sharedClasspath = classpath.build();
+    }
+
+    /**
+     * The maximum heap size of the worker process, or null when the default of the JVM is used.
+     */
+    @Nullable
+    public String getMaxHeapSize() {
+        return maxHeapSize;
+    }
+
+    public int getSharedClasspathSize() {
+        return sharedClasspath.size();
+    }
+
+    /**
+     * Returns true when a worker process started with this configuration can process the test classes of a test execution with the given configuration.
+     * This is the case when the configuration of the processes is the same, and the shared classpath of this configuration is a prefix of the shared classpath
+     * of the given configuration, with the same jar files.
+     */
+    public boolean isCompatibleWith(TestWorkerSpec required) {
+        return testFramework.equals(required.testFramework)
+            && executable.equals(required.executable)
+            && workingDir.equals(required.workingDir)
+            && jvmArgs.equals(required.jvmArgs)
+            && environment.equals(required.environment)
+            && sharedClasspath.size() <= required.sharedClasspath.size()
+            && sharedClasspath.equals(required.sharedClasspath.subList(0, sharedClasspath.size()));
+    }
+
+    @Override
+    public String toString() {
+        return testFramework + " worker using " + executable;
+    }
+
+    /**
+     * A jar file, along with the size and the last modified time it had when the configuration was created.
+     */
+    private static class ClasspathEntry {
+        private final File file;
+        private final long length;
+        private final long lastModified;
+
+        ClasspathEntry(File file) {
+            this.file = file;
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ClasspathEntry other = (ClasspathEntry) o;
+            return length == other.length && lastModified == other.lastModified && file.equals(other.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return file.hashCode();
+        }
+    }
+}
@@ -521,7 +521,7 @@ public abstract class AbstractTestTask extends ConventionTask implements Verific
                 TestOutputAssociation outputAssociation = junitXml.isOutputPerTestCase()
                     ? TestOutputAssociation.WITH_TESTCASE
                     : TestOutputAssociation.WITH_SUITE;
-                Binary2JUnitXmlReportGenerator binary2JUnitXmlReportGenerator = new Binary2JUnitXmlReportGenerator(junitXml.getDestination(), testResultsProvider, outputAssociation, getBuildOperationExecutor(), getInetAddressFactory().getHostname());
+                Binary2JUnitXmlReportGenerator binary2JUnitXmlReportGenerator = new Binary2JUnitXmlReportGenerator(junitXml.getDestination(), new File(getTemporaryDir(), "junit-xml-manifest.bin"), testResultsProvider, outputAssociation, getBuildOperationExecutor(), getInetAddressFactory().getHostname());
                 binary2JUnitXmlReportGenerator.generate();
             }
 
@@ -17,9 +17,11 @@
 package org.gradle.api.internal.tasks.testing.junit.result
 
 import org.gradle.api.Action
+import org.gradle.api.tasks.testing.TestResult
 import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.concurrent.ParallelismConfigurationManager
 import org.gradle.internal.concurrent.ParallelismConfigurationManagerFixture
+import org.gradle.internal.hash.Hashing
 import org.gradle.internal.operations.BuildOperationExecutor
 import org.gradle.internal.operations.BuildOperationListener
 import org.gradle.internal.operations.DefaultBuildOperationExecutor
@@ -29,6 +31,7 @@ import org.gradle.internal.operations.MultipleBuildOperationFailures
 import org.gradle.internal.progress.NoOpProgressLoggerFactory
 import org.gradle.internal.time.Clock
 import org.gradle.internal.work.WorkerLeaseService
+import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.test.fixtures.work.TestWorkerLeaseService
 import org.junit.Rule
@@ -42,13 +45,20 @@ class Binary2JUnitXmlReportGeneratorSpec extends Specification {
     BuildOperationExecutor buildOperationExecutor
     Binary2JUnitXmlReportGenerator generator
     final WorkerLeaseService workerLeaseService = new TestWorkerLeaseService()
+    TestFile reportDir
+    TestFile manifestFile
+
+    def setup() {
+        reportDir = temp.testDirectory.file("reports")
+        manifestFile = temp.testDirectory.file("tmp/manifest.bin")
+    }
 
     def generatorWithMaxThreads(int numThreads) {
         ParallelismConfigurationManager parallelExecutionManager = new ParallelismConfigurationManagerFixture(false, numThreads)
         buildOperationExecutor = new DefaultBuildOperationExecutor(
             Mock(BuildOperationListener), Mock(Clock), new NoOpProgressLoggerFactory(),
             new DefaultBuildOperationQueueFactory(workerLeaseService), new DefaultExecutorFactory(), parallelExecutionManager, new DefaultBuildOperationIdFactory())
-        Binary2JUnitXmlReportGenerator reportGenerator = new Binary2JUnitXmlReportGenerator(temp.testDirectory, resultsProvider, TestOutputAssociation.WITH_SUITE, buildOperationExecutor, "localhost")
+        Binary2JUnitXmlReportGenerator reportGenerator = new Binary2JUnitXmlReportGenerator(reportDir, manifestFile, resultsProvider, TestOutputAssociation.WITH_SUITE, buildOperationExecutor, "localhost")
         reportGenerator.xmlWriter = Mock(JUnitXmlResultWriter)
         return reportGenerator
     }
@@ -68,6 +78,7 @@ class Binary2JUnitXmlReportGeneratorSpec extends Specification {
             action.execute(fooTest)
             action.execute(barTest)
         }
+        hashesClassNames()
 
         when:
         generator.generate()
@@ -75,7 +86,7 @@ class Binary2JUnitXmlReportGeneratorSpec extends Specification {
         then:
         1 * generator.xmlWriter.write(fooTest, _)
         1 * generator.xmlWriter.write(barTest, _)
-        0 * generator.xmlWriter._
+        0 * generator.xmlWriter.write(_, _)
 
         where:
         numThreads << [ 1, 4 ]
@@ -101,4 +112,149 @@ class Binary2JUnitXmlReportGeneratorSpec extends Specification {
         ex.causes[0].message.startsWith('Could not write XML test results for FooTest')
         ex.causes[0].cause.message == "Boo!"
     }
+
+    def "writes only the report files whose results changed"() {
+        generator = generatorWithMaxThreads(1)
+        def fooTest = new TestClassResult(1, 'FooTest', 100)
+        def barTest = new TestClassResult(2, 'BarTest', 100)
+        def barContent = "bar"
+        resultsProvider.visitClasses(_) >> { Action action ->
+            action.execute(fooTest)
+            action.execute(barTest)
+        }
+        generator.xmlWriter.hashResults(barTest) >> { Hashing.md5().hashString(barContent) }
+        hashesClassNames()
+        generator.xmlWriter.write(fooTest, _) >> { TestClassResult result, OutputStream output -> output.write("foo".bytes) }
+        generator.xmlWriter.write(barTest, _) >> { TestClassResult result, OutputStream output -> output.write(barContent.bytes) }
+        def fooFile = reportDir.file("TEST-FooTest.xml")
+        def barFile = reportDir.file("TEST-BarTest.xml")
+
+        when:
+        generator.generate()
+
+        then:
+        fooFile.text == "foo"
+        barFile.text == "bar"
+
+        when:
+        fooFile.lastModified = 1000
+        barFile.lastModified = 1000
+        barContent = "bar changed"
+        generator.generate()
+
+        then:
+        fooFile.text == "foo"
+        fooFile.lastModified() == 1000
+        barFile.text == "bar changed"
+    }
+
+    def "rewrites a report file only when its content changes"() {
+        generator = generatorWithMaxThreads(1)
+        generator.xmlWriter = new JUnitXmlResultWriter("localhost", resultsProvider, TestOutputAssociation.WITH_SUITE)
+        def fooTest = new TestClassResult(1, 'FooTest', 100)
+            .add(new TestMethodResult(1, "foo", TestResult.ResultType.SUCCESS, 20, 120))
+        resultsProvider.visitClasses(_) >> { Action action ->
+            action.execute(fooTest)
+        }
+        def fooFile = reportDir.file("TEST-FooTest.xml")
+
+        when:
+        generator.generate()
+        def content = fooFile.text
+        fooFile.lastModified = 1000
+        generator.generate()
+
+        then:
+        fooFile.lastModified() == 1000
+        fooFile.text == content
+
+        when:
+        fooTest = new TestClassResult(1, 'FooTest', 5000)
+            .add(new TestMethodResult(1, "foo", TestResult.ResultType.SUCCESS, 300, 5300))
+        generator.generate()
+
+        then:
+        fooFile.text != content
+        fooFile.text.contains('time="0.3"')
+
+        when:
+        fooTest = new TestClassResult(1, 'FooTest', 9000)
+            .add(new TestMethodResult(1, "foo", TestResult.ResultType.FAILURE, 300, 9300).addFailure("broken", "stack", "Exception"))
+        generator.generate()
+
+        then:
+        fooFile.text.contains('message="broken"')
+    }
+
+    def "keeps the manifest out of the report directory"() {
+        generator = generatorWithMaxThreads(1)
+        def fooTest = new TestClassResult(1, 'FooTest', 100)
+        resultsProvider.visitClasses(_) >> { Action action ->
+            action.execute(fooTest)
+        }
+        generator.xmlWriter.write(fooTest, _) >> { TestClassResult result, OutputStream output -> output.write("foo".bytes) }
+        hashesClassNames()
+
+        when:
+        generator.generate()
+
+        then:
+        reportDir.list() as List == ["TEST-FooTest.xml"]
+        manifestFile.file
+    }
+
+    def "rewrites report files that were modified since they were generated"() {
+        generator = generatorWithMaxThreads(1)
+        def fooTest = new TestClassResult(1, 'FooTest', 100)
+        resultsProvider.visitClasses(_) >> { Action action ->
+            action.execute(fooTest)
+        }
+        generator.xmlWriter.write(fooTest, _) >> { TestClassResult result, OutputStream output -> output.write("foo".bytes) }
+        hashesClassNames()
+        def fooFile = reportDir.file("TEST-FooTest.xml")
+
+        when:
+        generator.generate()
+        fooFile.text = "modified"
+        generator.generate()
+
+        then:
+        fooFile.text == "foo"
+    }
+
+    def "deletes the report files of classes that are no longer in the results"() {
+        generator = generatorWithMaxThreads(1)
+        def fooTest = new TestClassResult(1, 'FooTest', 100)
+        def barTest = new TestClassResult(2, 'BarTest', 100)
+        def classes = [fooTest, barTest]
+        resultsProvider.visitClasses(_) >> { Action action ->
+            classes.each { action.execute(it) }
+        }
+        generator.xmlWriter.write(_, _) >> { TestClassResult result, OutputStream output -> output.write(result.className.bytes) }
+        hashesClassNames()
+        def otherFile = reportDir.file("TEST-OtherTest.xml").createFile()
+        def unrelatedFile = reportDir.file("other.txt").createFile()
+
+        when:
+        generator.generate()
+
+        then:
+        reportDir.file("TEST-FooTest.xml").file
+        reportDir.file("TEST-BarTest.xml").file
+        !otherFile.exists()
+        unrelatedFile.file
+
+        when:
+        classes = [fooTest]
+        generator.generate()
+
+        then:
+        reportDir.file("TEST-FooTest.xml").text == "FooTest"
+        !reportDir.file("TEST-BarTest.xml").exists()
+        unrelatedFile.file
+    }
+
+    private void hashesClassNames() {
+        generator.xmlWriter.hashResults(_) >> { TestClassResult result -> Hashing.md5().hashString(result.className) }
+    }
 }
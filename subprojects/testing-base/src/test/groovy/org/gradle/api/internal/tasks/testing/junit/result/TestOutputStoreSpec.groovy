@@ -20,6 +20,8 @@ import org.gradle.api.internal.tasks.testing.TestDescriptorInternal
 import org.gradle.api.tasks.testing.TestOutputEvent
 import org.gradle.test.fixtures.file.WorkspaceTest
 
+import java.util.concurrent.CountDownLatch
+
 import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdErr
 import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdOut
 
@@ -169,6 +171,68 @@ class TestOutputStoreSpec extends WorkspaceTest {
         thrown(IllegalStateException)
     }
 
+    def "output can be read from multiple threads using the same reader"() {
+        when:
+        def writer = output.writer()
+        (1..20).each { classId ->
+            (1..10).each { writer.onOutput(classId, output(StdOut, "[$classId-$it]")) }
+        }
+        writer.close()
+        def reader = output.reader()
+        def outputs = Collections.synchronizedMap([:])
+        def threads = (1..20).collect { classId ->
+            Thread.start {
+                5.times { outputs[classId] = collectAllOutput(reader, classId, StdOut) }
+            }
+        }
+        threads*.join()
+
+        then:
+        (1..20).every { classId -> outputs[classId] == (1..10).collect { "[$classId-$it]" }.join("") }
+
+        cleanup:
+        reader.close()
+    }
+
+    def "closing the reader closes the files that are being read"() {
+        given:
+        def writer = output.writer()
+        // Larger than the read buffer, so that the second event is read from the file after the first one has been written out
+        writer.onOutput(1, output(StdOut, "a" * 10000))
+        writer.onOutput(1, output(StdOut, "b" * 10000))
+        writer.close()
+        def reader = output.reader()
+        def firstEventWritten = new CountDownLatch(1)
+        def readerClosed = new CountDownLatch(1)
+        def blockingWriter = new StringWriter() {
+            @Override
+            void write(String str) {
+                super.write(str)
+                firstEventWritten.countDown()
+                readerClosed.await()
+            }
+        }
+        def failure = null
+        def thread = Thread.start {
+            try {
+                reader.writeAllOutput(1, StdOut, blockingWriter)
+            } catch (Throwable t) {
+                failure = t
+            }
+        }
+
+        when:
+        firstEventWritten.await()
+        reader.close()
+        readerClosed.countDown()
+        thread.join()
+
+        then:
+        // The rest of the output cannot be read once the file in use has been closed
+        failure != null
+        blockingWriter.toString() == "a" * 10000
+    }
+
     String collectAllOutput(TestOutputStore.Reader reader, long classId, TestOutputEvent.Destination destination) {
         def writer = new StringWriter()
         reader.writeAllOutput(classId, destination, writer)
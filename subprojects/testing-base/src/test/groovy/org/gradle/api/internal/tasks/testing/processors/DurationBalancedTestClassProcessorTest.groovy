@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessedListener
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.internal.Factory
+import org.gradle.internal.actor.Actor
+import org.gradle.internal.actor.ActorFactory
+import spock.lang.Specification
+
+class DurationBalancedTestClassProcessorTest extends Specification {
+    private final Factory<TestClassProcessor> factory = Mock()
+    private final TestResultProcessor resultProcessor = Mock()
+    private final ActorFactory actorFactory = Stub() {
+        createActor(_) >> { args -> synchronousActor(args[0]) }
+    }
+    private final TestClassProcessor processor1 = Mock()
+    private final TestClassProcessor processor2 = Mock()
+    private final Map<TestClassProcessor, TestResultProcessor> forkResultProcessors = [:]
+
+    def setup() {
+        processor1.startProcessing(_) >> { forkResultProcessors[processor1] = it[0] }
+        processor2.startProcessing(_) >> { forkResultProcessors[processor2] = it[0] }
+    }
+
+    def "hands queued test classes to processors as they finish their previous test class"() {
+        def processor = new DurationBalancedTestClassProcessor(2, factory, actorFactory, [:], true)
+        processor.startProcessing(resultProcessor)
+
+        when:
+        ['A', 'B', 'C', 'D'].each { processor.processTestClass(test(it)) }
+
+        then:
+        2 * factory.create() >>> [processor1, processor2]
+        1 * processor1.processTestClass(test('A'))
+        1 * processor2.processTestClass(test('B'))
+        0 * processor1.processTestClass(_)
+        0 * processor2.processTestClass(_)
+
+        when:
+        processed(processor2, 'B')
+
+        then:
+        1 * processor2.processTestClass(test('C'))
+        0 * processor1.processTestClass(_)
+
+        when:
+        processed(processor2, 'C')
+
+        then:
+        1 * processor2.processTestClass(test('D'))
+        0 * processor1.processTestClass(_)
+
+        when:
+        processor.stop()
+
+        then:
+        1 * processor1.stop()
+        1 * processor2.stop()
+    }
+
+    def "forwards results of processors"() {
+        def processor = new DurationBalancedTestClassProcessor(2, factory, actorFactory, [:], true)
+        def event = new TestCompleteEvent(0)
+        processor.startProcessing(resultProcessor)
+
+        when:
+        processor.processTestClass(test('A'))
+        forkResultProcessors[processor1].completed('id', event)
+
+        then:
+        1 * factory.create() >> processor1
+        1 * resultProcessor.completed('id', event)
+    }
+
+    def "assigns test classes to the processor with the least expected work when not stealing work"() {
+        def processor = new DurationBalancedTestClassProcessor(2, factory, actorFactory, [A: 100L, B: 30L, C: 30L, D: 20L], false)
+        processor.startProcessing(resultProcessor)
+
+        when:
+        ['A', 'B', 'C', 'D', 'E'].each { processor.processTestClass(test(it)) }
+
+        then:
+        2 * factory.create() >>> [processor1, processor2]
+        1 * processor1.processTestClass(test('A'))
+        1 * processor2.processTestClass(test('B'))
+        1 * processor2.processTestClass(test('C'))
+        1 * processor2.processTestClass(test('D'))
+        // E has no previous duration, and is expected to take the average duration
+        1 * processor2.processTestClass(test('E'))
+
+        and:
+        // The processors are not asked to report processed test classes
+        !(forkResultProcessors[processor1] instanceof TestClassProcessedListener)
+    }
+
+    def "stop does not wait for queued test classes after stopNow"() {
+        def processor = new DurationBalancedTestClassProcessor(1, factory, actorFactory, [:], true)
+        processor.startProcessing(resultProcessor)
+
+        when:
+        processor.processTestClass(test('A'))
+        processor.processTestClass(test('B'))
+        processor.stopNow()
+        processor.stop()
+
+        then:
+        1 * factory.create() >> processor1
+        1 * processor1.processTestClass(test('A'))
+        1 * processor1.stopNow()
+        1 * processor1.stop()
+        0 * processor1.processTestClass(_)
+    }
+
+    private void processed(TestClassProcessor processor, String testClassName) {
+        (forkResultProcessors[processor] as TestClassProcessedListener).testClassProcessed(testClassName)
+    }
+
+    private static DefaultTestClassRunInfo test(String name) {
+        new DefaultTestClassRunInfo(name)
+    }
+
+    private Actor synchronousActor(Object target) {
+        Stub(Actor) {
+            getProxy(_) >> target
+        }
+    }
+}
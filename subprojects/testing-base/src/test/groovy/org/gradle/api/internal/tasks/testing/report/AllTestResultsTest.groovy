@@ -15,8 +15,11 @@
  */
 package org.gradle.api.internal.tasks.testing.report
 
+import org.gradle.api.internal.tasks.testing.junit.result.TestFailure
 import spock.lang.Specification
 
+import static org.gradle.api.tasks.testing.TestResult.ResultType.FAILURE
+
 class AllTestResultsTest extends Specification {
     final AllTestResults results = new AllTestResults()
 
@@ -41,4 +44,35 @@ class AllTestResultsTest extends Specification {
         test.classResults.packageResults.name == 'default-package'
         results.packages.contains(test.classResults.packageResults)
     }
+
+    def addsSummaryOfTestClass() {
+        given:
+        def classResults = new AllTestResults().addTestClass(1, 'org.gradle.Test')
+        classResults.addTest('passed', 'passed', 10)
+        classResults.addTest('failed', 'failed', 20).addFailure(new TestFailure('broken', 'broken', 'java.lang.RuntimeException'))
+        classResults.addTest('ignored', 'ignored', 0).setIgnored()
+
+        when:
+        def summary = results.addTestClassSummary(classResults)
+
+        then:
+        summary.id == 1
+        summary.name == 'org.gradle.Test'
+        summary.testResults.empty
+        summary.testCount == 3
+        summary.failureCount == 1
+        summary.ignoredCount == 1
+        summary.duration == 30
+        summary.failures*.name == ['failed']
+        summary.failures*.resultType == [FAILURE]
+        summary.ignored*.name == ['ignored']
+
+        and:
+        summary.packageResults.testCount == 3
+        summary.packageResults.failureCount == 1
+        results.testCount == 3
+        results.failureCount == 1
+        results.ignoredCount == 1
+        results.duration == 30
+    }
 }
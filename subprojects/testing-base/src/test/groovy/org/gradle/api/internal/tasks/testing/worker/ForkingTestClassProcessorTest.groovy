@@ -20,7 +20,9 @@ import org.gradle.api.Action
 import org.gradle.api.internal.DocumentationRegistry
 import org.gradle.api.internal.classpath.Module
 import org.gradle.api.internal.classpath.ModuleRegistry
+import org.gradle.api.internal.tasks.testing.TestClassProcessedListener
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
 import org.gradle.internal.classpath.ClassPath
 import org.gradle.internal.remote.ObjectConnection
@@ -44,7 +46,7 @@ class ForkingTestClassProcessorTest extends Specification {
     JavaForkOptions options = Stub(JavaForkOptions)
 
     @Subject
-        processor = Spy(ForkingTestClassProcessor, constructorArgs: [workerLease, workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), moduleRegistry, documentationRegistry])
+        processor = Spy(ForkingTestClassProcessor, constructorArgs: [workerLease, workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), moduleRegistry, documentationRegistry, null])
 
     def setup() {
         workerProcessBuilder.build() >> workerProcess
@@ -93,7 +95,7 @@ class ForkingTestClassProcessorTest extends Specification {
     }
 
     def "stopNow propagates to worker process"() {
-        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry)
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry, null)
 
         setup:
         1 * workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> Stub(RemoteTestClassProcessor) }
@@ -107,7 +109,7 @@ class ForkingTestClassProcessorTest extends Specification {
     }
 
     def "no exception when stop after stopNow"() {
-        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry)
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry, null)
 
         setup:
         1 * workerProcess.getConnection() >> Stub(ObjectConnection) { addOutgoing(_) >> Stub(RemoteTestClassProcessor) }
@@ -123,6 +125,129 @@ class ForkingTestClassProcessorTest extends Specification {
         notThrown(ExecException)
     }
 
+    def "reports test classes as processed when the worker process reports them or goes away"() {
+        def connection = Mock(ObjectConnection)
+        def resultProcessor = Mock(ListeningResultProcessor)
+        def handler = null
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry, null)
+        processor.startProcessing(resultProcessor)
+
+        setup:
+        workerProcess.getConnection() >> connection
+        connection.addOutgoing(_) >> Stub(RemoteTestClassProcessor)
+        connection.addIncoming(TestClassProcessedListener, _) >> { handler = it[1] }
+
+        when:
+        processor.processTestClass(Stub(TestClassRunInfo) { getTestClassName() >> "Test1" })
+        processor.processTestClass(Stub(TestClassRunInfo) { getTestClassName() >> "Test2" })
+        processor.processTestClass(Stub(TestClassRunInfo) { getTestClassName() >> "Test3" })
+        handler.testClassProcessed("Test1")
+
+        then:
+        1 * resultProcessor.testClassProcessed("Test1")
+        0 * resultProcessor.testClassProcessed(_)
+
+        when:
+        handler.endStream()
+
+        then:
+        1 * resultProcessor.testClassProcessed("Test2")
+
+        then:
+        1 * resultProcessor.testClassProcessed("Test3")
+
+        when:
+        processor.processTestClass(Stub(TestClassRunInfo) { getTestClassName() >> "Test4" })
+
+        then:
+        1 * resultProcessor.testClassProcessed("Test4")
+    }
+
+    def "does not ask the worker process to notify processed test classes when the result processor does not listen for them"() {
+        def connection = Mock(ObjectConnection)
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classpath.jar")], Mock(Action), Stub(ModuleRegistry), documentationRegistry, null)
+        processor.startProcessing(Mock(TestResultProcessor))
+
+        setup:
+        workerProcess.getConnection() >> connection
+        connection.addOutgoing(_) >> Stub(RemoteTestClassProcessor)
+
+        when:
+        processor.processTestClass(Stub(TestClassRunInfo))
+
+        then:
+        0 * connection.addIncoming(TestClassProcessedListener, _)
+    }
+
+    def "leases a reusable worker from the pool and returns it to the pool when stopped"() {
+        def pool = Mock(TestWorkerPool)
+        def pooledWorker = Mock(PooledTestWorker)
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+        def test = Mock(TestClassRunInfo)
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classes")], Mock(Action), Stub(ModuleRegistry), documentationRegistry, pool)
+
+        when:
+        processor.processTestClass(test)
+
+        then:
+        1 * pool.reserveIdleWorker(_) >> pooledWorker
+        0 * pool.startWorker(_, _)
+        _ * pooledWorker.getSpec() >> Stub(TestWorkerSpec)
+        1 * pooledWorker.lease(_, [new File("classes").toURI().toURL()], false, _, _) >> remoteProcessor
+        1 * remoteProcessor.startProcessing()
+        1 * remoteProcessor.processTestClass(test)
+
+        when:
+        processor.stop()
+
+        then:
+        1 * remoteProcessor.stop()
+        1 * pooledWorker.awaitStopped() >> true
+        1 * pool.release(pooledWorker)
+        0 * pooledWorker.waitForStop()
+    }
+
+    def "starts a reusable worker when the pool has no compatible idle worker"() {
+        def pool = Mock(TestWorkerPool)
+        def pooledWorker = Mock(PooledTestWorker)
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classes")], Mock(Action), Stub(ModuleRegistry), documentationRegistry, pool)
+
+        when:
+        processor.processTestClass(Mock(TestClassRunInfo))
+
+        then:
+        1 * pool.reserveIdleWorker(_) >> null
+        1 * pool.startWorker(workerProcessBuilder, _) >> pooledWorker
+        _ * pooledWorker.getSpec() >> Stub(TestWorkerSpec)
+        1 * pooledWorker.lease(_, _, _, _, _) >> remoteProcessor
+        0 * workerProcessBuilder.build()
+    }
+
+    def "waits for a reusable worker that went away and discards it"() {
+        def pool = Mock(TestWorkerPool)
+        def pooledWorker = Mock(PooledTestWorker)
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(Stub(WorkerLeaseRegistry.WorkerLease), workerProcessFactory, Mock(WorkerTestClassProcessorFactory), options, [new File("classes")], Mock(Action), Stub(ModuleRegistry), documentationRegistry, pool)
+
+        given:
+        pool.reserveIdleWorker(_) >> pooledWorker
+        pooledWorker.getSpec() >> Stub(TestWorkerSpec)
+        pooledWorker.lease(_, _, _, _, _) >> Stub(RemoteTestClassProcessor)
+        processor.processTestClass(Mock(TestClassRunInfo))
+
+        when:
+        processor.stop()
+
+        then:
+        1 * pooledWorker.awaitStopped() >> false
+        1 * pooledWorker.waitForStop() >> { throw new ExecException("worker failed") }
+
+        then:
+        1 * pool.release(pooledWorker)
+        def e = thrown(ExecException)
+        e.message.startsWith("worker failed")
+    }
+
     def module(String module) {
         return Stub(Module) {
             _ * getImplementationClasspath() >> {
@@ -133,3 +258,6 @@ class ForkingTestClassProcessorTest extends Specification {
         }
     }
 }
+
+interface ListeningResultProcessor extends TestResultProcessor, TestClassProcessedListener {
+}
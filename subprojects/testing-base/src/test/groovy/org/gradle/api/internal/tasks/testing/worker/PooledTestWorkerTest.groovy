@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessedListener
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.dispatch.StreamCompletion
+import org.gradle.internal.remote.ObjectConnection
+import org.gradle.process.internal.worker.WorkerProcess
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+class PooledTestWorkerTest extends ConcurrentSpec {
+    def workerProcess = Mock(WorkerProcess)
+    def connection = Mock(ObjectConnection)
+    def remoteProcessor = Mock(RemoteReusableTestClassProcessor)
+    def factory = Mock(WorkerTestClassProcessorFactory)
+    def resultProcessor = Mock(TestResultProcessor)
+    def processedListener = Mock(TestClassProcessedListener)
+    ReusableTestResultProcessor workerEvents
+    PooledTestWorker worker
+
+    def setup() {
+        workerProcess.getConnection() >> connection
+        connection.addIncoming(ReusableTestResultProcessor, _) >> { Class type, ReusableTestResultProcessor events -> workerEvents = events }
+        connection.addOutgoing(RemoteReusableTestClassProcessor) >> remoteProcessor
+        worker = new PooledTestWorker(Stub(TestWorkerSpec), workerProcess, LogLevel.LIFECYCLE)
+    }
+
+    def "forwards requests to the worker process and events to the current lease"() {
+        def testClass = Mock(TestClassRunInfo)
+        def completeEvent = new TestCompleteEvent(100)
+
+        when:
+        def processor = worker.lease(factory, [], true, resultProcessor, processedListener)
+        processor.startProcessing()
+        processor.processTestClass(testClass)
+        processor.stop()
+        workerEvents.completed("id", completeEvent)
+        workerEvents.testClassProcessed("SomeTest")
+
+        then:
+        1 * remoteProcessor.startProcessing(factory, [], true)
+        1 * remoteProcessor.processTestClass(testClass)
+        1 * remoteProcessor.stop()
+        1 * resultProcessor.completed("id", completeEvent)
+        1 * processedListener.testClassProcessed("SomeTest")
+        worker.uses == 1
+        !worker.usable
+    }
+
+    def "forwards events to the lease that is current when they are received"() {
+        def otherResultProcessor = Mock(TestResultProcessor)
+        def completeEvent = new TestCompleteEvent(100)
+
+        when:
+        worker.lease(factory, [], true, resultProcessor, processedListener)
+        workerEvents.processingStopped()
+        worker.lease(factory, [], true, otherResultProcessor, processedListener)
+        workerEvents.completed("id", completeEvent)
+
+        then:
+        0 * resultProcessor._
+        1 * otherResultProcessor.completed("id", completeEvent)
+        worker.uses == 2
+    }
+
+    def "does not hold on to the lease once processing has stopped"() {
+        when:
+        worker.lease(factory, [], true, resultProcessor, processedListener)
+        workerEvents.processingStopped()
+
+        then:
+        worker.resultProcessor == null
+        worker.processedListener == null
+        worker.usable
+    }
+
+    def "awaitStopped blocks until the worker has stopped processing"() {
+        when:
+        worker.lease(factory, [], true, resultProcessor, processedListener)
+        def usable
+        async {
+            start {
+                thread.block()
+                instant.processingStopped
+                workerEvents.processingStopped()
+            }
+            usable = worker.awaitStopped()
+            instant.awaited
+        }
+
+        then:
+        usable
+        instant.awaited > instant.processingStopped
+        worker.usable
+    }
+
+    def "awaitStopped returns false when the worker process goes away"() {
+        when:
+        worker.lease(factory, [], true, resultProcessor, processedListener)
+        def usable
+        async {
+            start {
+                thread.block()
+                instant.ended
+                workerEvents.endStream()
+            }
+            usable = worker.awaitStopped()
+            instant.awaited
+        }
+
+        then:
+        !usable
+        instant.awaited > instant.ended
+        !worker.usable
+    }
+
+    def "notifies the lease when the worker process goes away"() {
+        def listener = Mock(StreamCompletionListener)
+
+        when:
+        worker.lease(factory, [], true, resultProcessor, listener)
+        workerEvents.endStream()
+
+        then:
+        1 * listener.endStream()
+        !worker.usable
+    }
+
+    def "stops the worker process when stopped"() {
+        when:
+        worker.stop()
+
+        then:
+        1 * remoteProcessor.stopWorker()
+        1 * workerProcess.waitForStop()
+        !worker.usable
+    }
+
+    def "does not ask a worker process that has gone away to stop"() {
+        when:
+        workerEvents.endStream()
+        worker.stop()
+
+        then:
+        0 * remoteProcessor.stopWorker()
+        1 * workerProcess.waitForStop()
+    }
+
+    interface StreamCompletionListener extends TestClassProcessedListener, StreamCompletion {
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
+import org.gradle.internal.remote.ObjectConnection
+import org.gradle.internal.service.DefaultServiceRegistry
+import org.gradle.internal.time.Clock
+import org.gradle.internal.time.Time
+import org.gradle.process.internal.worker.WorkerProcessContext
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+
+class ReusableTestWorkerTest extends ConcurrentSpec {
+    @Rule SetSystemProperties properties = new SetSystemProperties()
+    def workerContext = Mock(WorkerProcessContext)
+    def connection = Mock(ObjectConnection)
+    def factory = Mock(WorkerTestClassProcessorFactory)
+    def processor = Mock(TestClassProcessor)
+    def test = Mock(TestClassRunInfo)
+    def resultProcessor = Mock(ReusableTestResultProcessor)
+    def worker = new ReusableTestWorker()
+    def serviceRegistry = new DefaultServiceRegistry().add(Clock, Time.clock())
+
+    def setup() {
+        workerContext.workerId >> "<worker-id>"
+        workerContext.serverConnection >> connection
+        workerContext.serviceRegistry >> serviceRegistry
+        workerContext.applicationClassLoader >> getClass().classLoader
+    }
+
+    def processesTestClassesOfSeveralExecutionsAndBlocksUntilWorkerStopped() {
+        def propertyAfterStop = "unknown"
+
+        when:
+        async {
+            worker.execute(workerContext)
+            instant.completed
+        }
+
+        then:
+        instant.completed > instant.stopped
+        System.properties['org.gradle.test.worker'] == '<worker-id>'
+        propertyAfterStop == null
+
+        and:
+        1 * connection.addOutgoing(ReusableTestResultProcessor) >> resultProcessor
+        1 * connection.addIncoming(RemoteReusableTestClassProcessor, worker)
+        1 * connection.useParameterSerializers(_)
+        1 * connection.connect() >> {
+            start {
+                worker.startProcessing(factory, [], true)
+                worker.processTestClass(test)
+                System.setProperty("org.gradle.test.property", "value")
+                worker.stop()
+                propertyAfterStop = System.getProperty("org.gradle.test.property")
+                worker.startProcessing(factory, [], false)
+                worker.processTestClass(test)
+                worker.stop()
+                thread.block()
+                instant.stopped
+                worker.stopWorker()
+            }
+        }
+        2 * factory.create(_) >> processor
+        2 * processor.startProcessing(_)
+        2 * processor.processTestClass(test)
+        1 * resultProcessor.testClassProcessed(_)
+        2 * processor.stop()
+        2 * resultProcessor.processingStopped()
+    }
+}
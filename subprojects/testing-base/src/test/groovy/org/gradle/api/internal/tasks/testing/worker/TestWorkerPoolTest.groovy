@@ -0,0 +1,208 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.logging.LoggingManagerInternal
+import org.gradle.internal.logging.events.LogLevelChangeEvent
+import org.gradle.internal.logging.events.OutputEventListener
+import org.gradle.internal.remote.ObjectConnection
+import org.gradle.process.JavaForkOptions
+import org.gradle.process.internal.health.memory.MaximumHeapHelper
+import org.gradle.process.internal.health.memory.MemoryHolder
+import org.gradle.process.internal.health.memory.MemoryManager
+import org.gradle.process.internal.worker.WorkerProcess
+import org.gradle.process.internal.worker.WorkerProcessBuilder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestWorkerPoolTest extends Specification {
+    static final long OS_TOTAL_MEMORY = 8L * 1024 * 1024 * 1024
+    static final long MB = 1024 * 1024
+
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def loggingManager = Mock(LoggingManagerInternal)
+    def memoryManager = Mock(MemoryManager)
+    def remoteProcessors = [:]
+    OutputEventListener outputEventListener
+    MemoryHolder memoryHolder
+    TestWorkerPool pool
+
+    def setup() {
+        loggingManager.getLevel() >> LogLevel.LIFECYCLE
+        loggingManager.addOutputEventListener(_) >> { OutputEventListener listener -> outputEventListener = listener }
+        memoryManager.addMemoryHolder(_) >> { MemoryHolder holder -> memoryHolder = holder }
+        pool = new TestWorkerPool(loggingManager, memoryManager, 2, OS_TOTAL_MEMORY)
+    }
+
+    def "reserves the most recently used compatible idle worker"() {
+        def spec = spec(["-Xmx64m"])
+        def worker1 = startWorker(spec)
+        def worker2 = startWorker(spec)
+        def other = startWorker(spec(["-Xmx128m"]))
+        pool.release(worker1)
+        pool.release(worker2)
+        pool.release(other)
+
+        expect:
+        pool.reserveIdleWorker(spec) == worker2
+        pool.reserveIdleWorker(spec) == worker1
+        pool.reserveIdleWorker(spec) == null
+    }
+
+    def "does not reserve a worker that is in use"() {
+        def spec = spec([])
+        startWorker(spec)
+
+        expect:
+        pool.reserveIdleWorker(spec) == null
+    }
+
+    def "stops the least recently used idle workers when too many workers are idle"() {
+        def spec = spec([])
+        def worker1 = startWorker(spec)
+        def worker2 = startWorker(spec)
+        def worker3 = startWorker(spec)
+        pool.release(worker1)
+        pool.release(worker2)
+
+        when:
+        pool.release(worker3)
+
+        then:
+        1 * remoteProcessors[worker1].stopWorker()
+        0 * remoteProcessors[worker2].stopWorker()
+        0 * remoteProcessors[worker3].stopWorker()
+
+        and:
+        pool.reserveIdleWorker(spec) == worker3
+        pool.reserveIdleWorker(spec) == worker2
+        pool.reserveIdleWorker(spec) == null
+    }
+
+    def "discards a worker that cannot be used again"() {
+        def spec = spec([])
+        def worker = startWorker(spec)
+        worker.stopNow()
+
+        when:
+        pool.release(worker)
+
+        then:
+        pool.reserveIdleWorker(spec) == null
+    }
+
+    def "stops idle workers whose log level is out of date"() {
+        def spec = spec([])
+        def worker = startWorker(spec)
+        pool.release(worker)
+
+        when:
+        outputEventListener.onOutput(new LogLevelChangeEvent(LogLevel.DEBUG))
+        def reserved = pool.reserveIdleWorker(spec)
+
+        then:
+        reserved == null
+        1 * remoteProcessors[worker].stopWorker()
+
+        when:
+        def newWorker = startWorker(spec)
+
+        then:
+        newWorker.logLevel == LogLevel.DEBUG
+    }
+
+    def "stops the least recently used idle workers to release memory"() {
+        def spec = spec([], "256m")
+        def worker1 = startWorker(spec)
+        def worker2 = startWorker(spec)
+        def inUse = startWorker(spec)
+        pool.release(worker1)
+        pool.release(worker2)
+
+        when:
+        def released = memoryHolder.attemptToRelease(100 * MB)
+
+        then:
+        released == 256 * MB
+        1 * remoteProcessors[worker1].stopWorker()
+        0 * remoteProcessors[worker2].stopWorker()
+
+        when:
+        released = memoryHolder.attemptToRelease(1024 * MB)
+
+        then:
+        released == 256 * MB
+        1 * remoteProcessors[worker2].stopWorker()
+        0 * remoteProcessors[inUse].stopWorker()
+
+        and:
+        pool.reserveIdleWorker(spec) == null
+    }
+
+    def "estimates the memory of a worker without maximum heap size using the default maximum heap size"() {
+        def worker = startWorker(spec([]))
+        pool.release(worker)
+
+        expect:
+        memoryHolder.attemptToRelease(1) == new MaximumHeapHelper().getDefaultMaximumHeapSize(OS_TOTAL_MEMORY)
+    }
+
+    def "stops all workers when stopped"() {
+        def spec = spec([])
+        def idle = startWorker(spec)
+        def inUse = startWorker(spec)
+        pool.release(idle)
+
+        when:
+        pool.stop()
+
+        then:
+        1 * remoteProcessors[idle].stopWorker()
+        1 * remoteProcessors[inUse].stopWorker()
+        1 * memoryManager.removeMemoryHolder(memoryHolder)
+        1 * loggingManager.removeOutputEventListener(outputEventListener)
+    }
+
+    private PooledTestWorker startWorker(TestWorkerSpec spec) {
+        def remoteProcessor = Mock(RemoteReusableTestClassProcessor)
+        def connection = Stub(ObjectConnection) {
+            addOutgoing(RemoteReusableTestClassProcessor) >> remoteProcessor
+        }
+        def workerProcess = Stub(WorkerProcess) {
+            getConnection() >> connection
+        }
+        def builder = Stub(WorkerProcessBuilder) {
+            build() >> workerProcess
+        }
+        def worker = pool.startWorker(builder, spec)
+        remoteProcessors[worker] = remoteProcessor
+        return worker
+    }
+
+    private TestWorkerSpec spec(List<String> jvmArgs, String maxHeapSize = null) {
+        def options = Stub(JavaForkOptions) {
+            getExecutable() >> "java"
+            getWorkingDir() >> tmpDir.testDirectory
+            getAllJvmArgs() >> jvmArgs
+            getMaxHeapSize() >> maxHeapSize
+            getEnvironment() >> [:]
+        }
+        return new TestWorkerSpec("junit", options, [])
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.process.JavaForkOptions
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestWorkerSpecTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    File jar1
+    File jar2
+
+    def setup() {
+        jar1 = tmpDir.file("lib1.jar").createFile()
+        jar2 = tmpDir.file("lib2.jar").createFile()
+    }
+
+    def "is compatible with a configuration that has the same process options and starts with the same shared classpath"() {
+        def spec = spec("junit", ["-Xmx64m"], [jar1])
+
+        expect:
+        spec.isCompatibleWith(spec("junit", ["-Xmx64m"], [jar1]))
+        spec.isCompatibleWith(spec("junit", ["-Xmx64m"], [jar1, jar2]))
+        !spec.isCompatibleWith(spec("junit", ["-Xmx64m"], [jar2, jar1]))
+        !spec.isCompatibleWith(spec("junit", ["-Xmx64m"], []))
+        !spec.isCompatibleWith(spec("junit", ["-Xmx128m"], [jar1]))
+        !spec.isCompatibleWith(spec("testng", ["-Xmx64m"], [jar1]))
+    }
+
+    def "is not compatible with a configuration whose shared jars have changed"() {
+        def spec = spec("junit", [], [jar1])
+
+        when:
+        jar1 << "changed"
+
+        then:
+        !spec.isCompatibleWith(spec("junit", [], [jar1]))
+    }
+
+    private TestWorkerSpec spec(String framework, List<String> jvmArgs, List<File> sharedClasspath) {
+        def options = Stub(JavaForkOptions) {
+            getExecutable() >> "java"
+            getWorkingDir() >> tmpDir.testDirectory
+            getAllJvmArgs() >> jvmArgs
+            getEnvironment() >> [PATH: "/bin"]
+        }
+        return new TestWorkerSpec(framework, options, sharedClasspath)
+    }
+}
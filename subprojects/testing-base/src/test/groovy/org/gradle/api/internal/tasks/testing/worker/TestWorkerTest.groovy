@@ -17,6 +17,7 @@
 
 package org.gradle.api.internal.tasks.testing.worker
 
+import org.gradle.api.internal.tasks.testing.TestClassProcessedListener
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
@@ -38,7 +39,8 @@ public class TestWorkerTest extends ConcurrentSpec {
     def processor = Mock(TestClassProcessor)
     def test = Mock(TestClassRunInfo)
     def resultProcessor = Mock(TestResultProcessor)
-    def worker = new TestWorker(factory)
+    def processedListener = Mock(TestClassProcessedListener)
+    def worker = new TestWorker(factory, true)
     def serviceRegistry = new DefaultServiceRegistry().add(Clock, Time.clock())
 
     def setup() {
@@ -61,6 +63,7 @@ public class TestWorkerTest extends ConcurrentSpec {
         and:
         1 * factory.create(_) >> processor
         1 * connection.addOutgoing(TestResultProcessor) >> resultProcessor
+        1 * connection.addOutgoing(TestClassProcessedListener) >> processedListener
         1 * connection.addIncoming(RemoteTestClassProcessor, worker)
         1 * connection.useParameterSerializers(_)
         1 * connection.connect() >> {
@@ -74,6 +77,30 @@ public class TestWorkerTest extends ConcurrentSpec {
         }
         1 * processor.startProcessing(_)
         1 * processor.processTestClass(test)
+        1 * processedListener.testClassProcessed(_)
         1 * processor.stop()
     }
+
+    def "does not notify processed test classes unless asked to"() {
+        def worker = new TestWorker(factory)
+
+        when:
+        async {
+            worker.execute(workerContext)
+        }
+
+        then:
+        1 * factory.create(_) >> processor
+        1 * connection.addOutgoing(TestResultProcessor) >> resultProcessor
+        0 * connection.addOutgoing(TestClassProcessedListener)
+        1 * connection.connect() >> {
+            start {
+                worker.startProcessing()
+                worker.processTestClass(test)
+                worker.stop()
+            }
+        }
+        1 * processor.processTestClass(test)
+        0 * processedListener._
+    }
 }
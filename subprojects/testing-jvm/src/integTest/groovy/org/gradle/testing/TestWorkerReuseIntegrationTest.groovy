@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.testing
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+
+import static org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter.REUSE_WORKERS_PROPERTY
+
+class TestWorkerReuseIntegrationTest extends AbstractIntegrationSpec {
+    def setup() {
+        buildFile << """
+            apply plugin: 'java'
+            ${mavenCentralRepository()}
+            dependencies { testCompile 'junit:junit:4.12' }
+
+            test {
+                include '**/FirstTest.class'
+            }
+
+            task otherTest(type: Test) {
+                testClassesDirs = sourceSets.test.output.classesDirs
+                classpath = sourceSets.test.runtimeClasspath
+                include '**/SecondTest.class'
+                mustRunAfter test
+            }
+        """
+        writeTestClass("FirstTest")
+        writeTestClass("SecondTest")
+    }
+
+    def "reuses the worker process of a test task for a later compatible test task"() {
+        when:
+        executer.withArgument("-D${REUSE_WORKERS_PROPERTY}=true")
+        succeeds "test", "otherTest"
+
+        then:
+        workerOf("FirstTest") == workerOf("SecondTest")
+    }
+
+    def "does not reuse the worker process of a test task for a test task with different JVM arguments"() {
+        buildFile << """
+            otherTest.jvmArgs '-Dsome.property=value'
+        """
+
+        when:
+        executer.withArgument("-D${REUSE_WORKERS_PROPERTY}=true")
+        succeeds "test", "otherTest"
+
+        then:
+        workerOf("FirstTest") != workerOf("SecondTest")
+    }
+
+    def "does not reuse worker processes by default"() {
+        when:
+        succeeds "test", "otherTest"
+
+        then:
+        workerOf("FirstTest") != workerOf("SecondTest")
+    }
+
+    private void writeTestClass(String name) {
+        file("src/test/java/${name}.java") << """
+            import java.io.File;
+            import java.io.FileWriter;
+            import java.lang.management.ManagementFactory;
+            import org.junit.Test;
+
+            public class ${name} {
+                @Test
+                public void recordsWorker() throws Exception {
+                    FileWriter writer = new FileWriter(new File("build/${name}-worker.txt"));
+                    try {
+                        writer.write(ManagementFactory.getRuntimeMXBean().getName());
+                    } finally {
+                        writer.close();
+                    }
+                }
+            }
+        """
+    }
+
+    private String workerOf(String testClass) {
+        return file("build/${testClass}-worker.txt").text
+    }
+}
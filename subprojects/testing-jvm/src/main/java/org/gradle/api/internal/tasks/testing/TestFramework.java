@@ -44,4 +44,10 @@ public interface TestFramework {
      * executed before starting each worker process.
      */
     Action<WorkerProcessBuilder> getWorkerConfigurationAction();
+
+    /**
+     * Returns true if the test processor in a worker process runs each test class as soon as it is received, rather than running all of them
+     * when it is stopped. Test classes can only be handed to a worker as it becomes available when they are run as soon as they are received.
+     */
+    boolean isRunningTestClassesAsReceived();
 }
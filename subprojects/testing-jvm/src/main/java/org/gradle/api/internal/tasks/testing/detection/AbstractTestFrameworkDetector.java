@@ -17,55 +17,58 @@
 package org.gradle.api.internal.tasks.testing.detection;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.StringUtils;
 import org.gradle.api.GradleException;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.internal.Factory;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
+/**
+ * Detects test classes by analysing class files and, where needed, the class files of their super classes.
+ * Detection of individual classes via {@link #detectTestClass(File)} can happen concurrently.
+ */
 public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor> implements TestFrameworkDetector {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTestFrameworkDetector.class);
     private static final String JAVA_LANG_OBJECT = "java/lang/Object";
 
     private List<File> testClassDirectories;
-    private final ClassFileExtractionManager classFileExtractionManager;
-    private final Map<File, Boolean> superClasses;
+    private final LibraryClassFileReader libraryClassFileReader;
+    private final ConcurrentMap<String, Boolean> superClasses;
     private TestClassProcessor testClassProcessor;
+    private TestClassAnalysisCache classAnalysisCache;
 
     private Set<File> testClassesDirectories;
     private Set<File> testClasspath;
 
-    protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
-        assert classFileExtractionManager != null;
-        this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+    protected AbstractTestFrameworkDetector(LibraryClassFileReader libraryClassFileReader) {
+        assert libraryClassFileReader != null;
+        this.libraryClassFileReader = libraryClassFileReader;
+        this.superClasses = new ConcurrentHashMap<String, Boolean>();
     }
 
     protected abstract T createClassVisitor();
 
-    private File getSuperTestClassFile(String superClassName) {
-        prepareClasspath();
-        if (StringUtils.isEmpty(superClassName)) {
-            throw new IllegalArgumentException("superClassName is empty!");
-        }
-
+    @Nullable
+    private TestClassAnalysis analyzeSuperClass(String superClassName) {
         File superTestClassFile = null;
-        for (File testClassDirectory : testClassDirectories) {
+        for (File testClassDirectory : prepareClasspath()) {
             File candidate = new File(testClassDirectory, superClassName + ".class");
             if (candidate.exists()) {
                 superTestClassFile = candidate;
@@ -73,35 +76,47 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         }
 
         if (superTestClassFile != null) {
-            return superTestClassFile;
+            return analyze(superTestClassFile);
         } else if (JAVA_LANG_OBJECT.equals(superClassName)) {
             // java.lang.Object found, which is not a test class
             return null;
         } else {
             // super test class file not in test class directories
-            return classFileExtractionManager.getLibraryClassFile(superClassName);
+            byte[] libraryClassFile = libraryClassFileReader.getLibraryClassFile(superClassName);
+            if (libraryClassFile == null) {
+                LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file", superClassName);
+                return null;
+            }
+            return analyze(superClassName, libraryClassFile);
         }
     }
 
-    private void prepareClasspath() {
+    private synchronized List<File> prepareClasspath() {
         if (testClassDirectories != null) {
-            return;
+            return testClassDirectories;
         }
 
-        testClassDirectories = new ArrayList<File>();
+        List<File> directories = new ArrayList<File>();
 
         if (testClassesDirectories != null) {
-            testClassDirectories.addAll(testClassesDirectories);
+            directories.addAll(testClassesDirectories);
         }
         if (testClasspath != null) {
             for (File file : testClasspath) {
                 if (file.isDirectory()) {
-                    testClassDirectories.add(file);
+                    directories.add(file);
                 } else if (file.isFile() && hasExtension(file, ".jar")) {
-                    classFileExtractionManager.addLibraryJar(file);
+                    libraryClassFileReader.addLibraryJar(file);
                 }
             }
         }
+        testClassDirectories = directories;
+        return directories;
+    }
+
+    @Override
+    public void finishDetection() {
+        libraryClassFileReader.close();
     }
 
     @Override
@@ -114,88 +129,102 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         this.testClasspath = testClasspath;
     }
 
-    protected TestClassVisitor classVisitor(final File testClassFile) {
-        final TestClassVisitor classVisitor = createClassVisitor();
+    @Override
+    public void setClassAnalysisCache(@Nullable TestClassAnalysisCache classAnalysisCache) {
+        this.classAnalysisCache = classAnalysisCache;
+    }
 
+    protected TestClassVisitor classVisitor(final File testClassFile) {
         InputStream classStream = null;
         try {
             classStream = new BufferedInputStream(new FileInputStream(testClassFile));
-            final ClassReader classReader = new ClassReader(IOUtils.toByteArray(classStream));
-            classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+            return classVisitor(IOUtils.toByteArray(classStream));
         } catch (Throwable e) {
             throw new GradleException("failed to read class file " + testClassFile.getAbsolutePath(), e);
         } finally {
             IOUtils.closeQuietly(classStream);
         }
+    }
 
+    private TestClassVisitor classVisitor(byte[] classFile) {
+        final TestClassVisitor classVisitor = createClassVisitor();
+        final ClassReader classReader = new ClassReader(classFile);
+        classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
         return classVisitor;
     }
 
+    private TestClassAnalysis analyze(final File classFile) {
+        Factory<TestClassAnalysis> analyzer = new Factory<TestClassAnalysis>() {
+            @Override
+            public TestClassAnalysis create() {
+                return TestClassAnalysis.of(classVisitor(classFile));
+            }
+        };
+        TestClassAnalysisCache cache = classAnalysisCache;
+        if (cache == null) {
+            return analyzer.create();
+        }
+        return cache.get(getClass().getName(), classFile, analyzer);
+    }
+
+    private TestClassAnalysis analyze(String className, byte[] classFile) {
+        try {
+            return TestClassAnalysis.of(classVisitor(classFile));
+        } catch (Throwable e) {
+            throw new GradleException("failed to read class file of " + className, e);
+        }
+    }
+
     @Override
     public boolean processTestClass(File testClassFile) {
-        return processTestClass(testClassFile, false);
+        TestClassRunInfo testClass = detectTestClass(testClassFile);
+        if (testClass != null) {
+            testClassProcessor.processTestClass(testClass);
+        }
+        return testClass != null;
     }
 
     /**
      * Uses a TestClassVisitor to detect whether the class in the testClassFile is a test class. <p/> If the class is not a test, this function will go up the inheritance tree to check if a parent
      * class is a test class. First the package of the parent class is checked, if it is a java.lang or groovy.lang the class can't be a test class, otherwise the parent class is scanned. <p/> When a
      * parent class is a test class all the extending classes are marked as test classes.
+     * <p/> A test class is only returned when it is not abstract, so that super classes are not detected multiple times (for each extending class).
      */
-    private boolean processTestClass(final File testClassFile, boolean superClass) {
-        final TestClassVisitor classVisitor = classVisitor(testClassFile);
-
-        boolean isTest = classVisitor.isTest();
-
-        if (!isTest) { // scan parent class
-            final String superClassName = classVisitor.getSuperClassName();
-
-            if (isKnownTestCaseClassName(superClassName)) {
-                isTest = true;
-            } else {
-                final File superClassFile = getSuperTestClassFile(superClassName);
-
-                if (superClassFile != null) {
-                    isTest = processSuperClass(superClassFile);
-                } else {
-                    LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file",
-                        superClassName);
-                }
-            }
+    @Nullable
+    @Override
+    public TestClassRunInfo detectTestClass(File testClassFile) {
+        TestClassAnalysis analysis = analyze(testClassFile);
+        if (isTest(analysis) && !analysis.isAbstract()) {
+            String className = Type.getObjectType(analysis.getClassName()).getClassName();
+            return new DefaultTestClassRunInfo(className);
         }
-
-        publishTestClass(isTest, classVisitor, superClass);
-
-        return isTest;
+        return null;
     }
 
-    protected abstract boolean isKnownTestCaseClassName(String testCaseClassName);
-
-    private boolean processSuperClass(File testClassFile) {
-        boolean isTest;
+    private boolean isTest(TestClassAnalysis analysis) {
+        if (analysis.isTest()) {
+            return true;
+        }
+        String superClassName = analysis.getSuperClassName();
+        return superClassName != null && isSuperClassTest(superClassName);
+    }
 
-        Boolean isSuperTest = superClasses.get(testClassFile);
+    private boolean isSuperClassTest(String superClassName) {
+        if (isKnownTestCaseClassName(superClassName)) {
+            return true;
+        }
 
+        Boolean isSuperTest = superClasses.get(superClassName);
         if (isSuperTest == null) {
-            isTest = processTestClass(testClassFile, true);
-
-            superClasses.put(testClassFile, isTest);
-        } else {
-            isTest = isSuperTest;
+            // Concurrent detections may analyse the same super class, which gives the same result
+            TestClassAnalysis superClassAnalysis = analyzeSuperClass(superClassName);
+            isSuperTest = superClassAnalysis != null && isTest(superClassAnalysis);
+            superClasses.put(superClassName, isSuperTest);
         }
-
-        return isTest;
+        return isSuperTest;
     }
 
-    /**
-     * In none super class mode a test class is published when the class is a test and it is not abstract. In super class mode it must not publish the class otherwise it will get published multiple
-     * times (for each extending class).
-     */
-    private void publishTestClass(boolean isTest, TestClassVisitor classVisitor, boolean superClass) {
-        if (isTest && !classVisitor.isAbstract() && !superClass) {
-            String className = Type.getObjectType(classVisitor.getClassName()).getClassName();
-            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
-        }
-    }
+    protected abstract boolean isKnownTestCaseClassName(String testCaseClassName);
 
     @Override
     public void startDetection(TestClassProcessor testClassProcessor) {
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.state.InMemoryCacheDecoratorFactory;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.cache.internal.MinimalPersistentCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.HashCodeSerializer;
+
+import java.io.Closeable;
+import java.io.File;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Cross-process cache of test class analysis. Unchanged class files are not read again by later builds, and results are shared between projects.
+ */
+public class DefaultTestClassAnalysisCache implements TestClassAnalysisCache, Closeable {
+    private final PersistentCache cache;
+    private final MinimalPersistentCache<HashCode, TestClassAnalysis> analysisCache;
+    private final FileHasher fileHasher;
+
+    public DefaultTestClassAnalysisCache(CacheRepository cacheRepository, Gradle gradle, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory, FileHasher fileHasher, StringInterner interner) {
+        this.fileHasher = fileHasher;
+        cache = cacheRepository
+            .cache(gradle, "testClassDetection")
+            .withDisplayName("Test class detection cache")
+            .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+            .open();
+        PersistentIndexedCacheParameters<HashCode, TestClassAnalysis> parameters = new PersistentIndexedCacheParameters<HashCode, TestClassAnalysis>("testClassAnalysis", new HashCodeSerializer(), new TestClassAnalysisSerializer(interner))
+            .cacheDecorator(inMemoryCacheDecoratorFactory.decorator(100000, true));
+        analysisCache = new MinimalPersistentCache<HashCode, TestClassAnalysis>(cache.createCache(parameters));
+    }
+
+    @Override
+    public TestClassAnalysis get(String detectorType, File classFile, Factory<TestClassAnalysis> analyzer) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(detectorType);
+        hasher.putHash(fileHasher.hash(classFile));
+        return analysisCache.get(hasher.hash(), analyzer);
+    }
+
+    @Override
+    public void close() {
+        cache.close();
+    }
+}
@@ -22,32 +22,61 @@ import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
  * a detection or filename scan is performed to find test classes.
+ *
+ * <p>When given more than one detection thread, class files are analysed concurrently. Detected test classes are
+ * still passed to the test class processor from the scanning thread, in the order in which the class files are visited.</p>
  */
 public class DefaultTestClassScanner implements Runnable {
     private static final Pattern ANONYMOUS_CLASS_NAME = Pattern.compile(".*\\$\\d+");
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final ExecutorFactory executorFactory;
+    private final int detectionThreads;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null, 1);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, @Nullable ExecutorFactory executorFactory, int detectionThreads) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.executorFactory = executorFactory;
+        this.detectionThreads = detectionThreads;
     }
 
     @Override
     public void run() {
         if (testFrameworkDetector == null) {
             filenameScan();
-        } else {
-            detectionScan();
+            return;
+        }
+        try {
+            if (executorFactory == null || detectionThreads <= 1) {
+                detectionScan();
+            } else {
+                parallelDetectionScan();
+            }
+        } finally {
+            testFrameworkDetector.finishDetection();
         }
     }
 
@@ -60,6 +89,50 @@ public class DefaultTestClassScanner implements Runnable {
         });
     }
 
+    private void parallelDetectionScan() {
+        // Bound the number of class files waiting to be published, so that a slow test class processor does not cause the whole tree to be buffered
+        final int maxPending = detectionThreads * 64;
+        final Deque<Future<TestClassRunInfo>> pending = new ArrayDeque<Future<TestClassRunInfo>>();
+        final ManagedExecutor executor = executorFactory.create("Test class detection", detectionThreads);
+        try {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(final FileVisitDetails fileDetails) {
+                    pending.add(executor.submit(new Callable<TestClassRunInfo>() {
+                        @Override
+                        public TestClassRunInfo call() {
+                            return testFrameworkDetector.detectTestClass(fileDetails.getFile());
+                        }
+                    }));
+                    if (pending.size() >= maxPending) {
+                        publish(pending.removeFirst());
+                    }
+                }
+            });
+            while (!pending.isEmpty()) {
+                publish(pending.removeFirst());
+            }
+        } finally {
+            for (Future<TestClassRunInfo> future : pending) {
+                future.cancel(false);
+            }
+            executor.stop();
+        }
+    }
+
+    private void publish(Future<TestClassRunInfo> detection) {
+        TestClassRunInfo testClass;
+        try {
+            testClass = detection.get();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+        if (testClass != null) {
+            testClassProcessor.processTestClass(testClass);
+        }
+    }
+
     private void filenameScan() {
         candidateClassFiles.visit(new ClassFileVisitor() {
             public void visitClassFile(FileVisitDetails fileDetails) {
@@ -27,22 +27,27 @@ import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
+import org.gradle.api.internal.tasks.testing.processors.DurationBalancedTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.processors.LongestFirstTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.PatternMatchTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RunPreviousFailedFirstTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.worker.TestWorkerPool;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.Factory;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.operations.BuildOperationExecutor;
 import org.gradle.internal.time.Clock;
 import org.gradle.internal.work.WorkerLeaseRegistry;
 import org.gradle.process.internal.worker.WorkerProcessFactory;
 
 import java.io.File;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -50,6 +55,16 @@ import java.util.Set;
  */
 public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
 
+    /**
+     * When set, test classes are distributed across forks using their durations in the previous run, rather than round-robin.
+     */
+    public static final String BALANCED_DISTRIBUTION_PROPERTY = "org.gradle.internal.testing.balancedDistribution";
+
+    /**
+     * When set, test worker processes are kept alive after the test execution and reused by later compatible test executions.
+     */
+    public static final String REUSE_WORKERS_PROPERTY = "org.gradle.internal.testing.reuseWorkers";
+
     private static final Logger LOGGER = Logging.getLogger(DefaultTestExecuter.class);
 
     private final WorkerProcessFactory workerFactory;
@@ -61,11 +76,15 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
     private final Clock clock;
     private final DocumentationRegistry documentationRegistry;
     private final DefaultTestFilter testFilter;
+    private final TestWorkerPool testWorkerPool;
+    private final ExecutorFactory executorFactory;
+    private final TestClassAnalysisCache testClassAnalysisCache;
     private TestClassProcessor processor;
 
     public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry,
                                WorkerLeaseRegistry workerLeaseRegistry, BuildOperationExecutor buildOperationExecutor, int maxWorkerCount,
-                               Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter) {
+                               Clock clock, DocumentationRegistry documentationRegistry, DefaultTestFilter testFilter, TestWorkerPool testWorkerPool,
+                               ExecutorFactory executorFactory, TestClassAnalysisCache testClassAnalysisCache) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
         this.moduleRegistry = moduleRegistry;
@@ -75,6 +94,9 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
         this.clock = clock;
         this.documentationRegistry = documentationRegistry;
         this.testFilter = testFilter;
+        this.testWorkerPool = testWorkerPool;
+        this.executorFactory = executorFactory;
+        this.testClassAnalysisCache = testClassAnalysisCache;
     }
 
     @Override
@@ -83,10 +105,11 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
         final WorkerTestClassProcessorFactory testInstanceFactory = testFramework.getProcessorFactory();
         final WorkerLeaseRegistry.WorkerLease currentWorkerLease = workerLeaseRegistry.getCurrentWorkerLease();
         final Set<File> classpath = ImmutableSet.copyOf(testExecutionSpec.getClasspath());
+        final TestWorkerPool workerPool = isReusingWorkers(testExecutionSpec) ? testWorkerPool : null;
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(currentWorkerLease, workerFactory, testInstanceFactory, testExecutionSpec.getJavaForkOptions(),
-                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry);
+                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, documentationRegistry, workerPool);
             }
         };
         final Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -94,10 +117,19 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
                 return new RestartEveryNTestClassProcessor(forkingProcessorFactory, testExecutionSpec.getForkEvery());
             }
         };
-        processor =
-            new PatternMatchTestClassProcessor(testFilter,
-                new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
-                    new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory)));
+        if (Boolean.getBoolean(BALANCED_DISTRIBUTION_PROPERTY)) {
+            Map<String, Long> previousDurations = testExecutionSpec.getPreviousTestClassDurations();
+            processor =
+                new PatternMatchTestClassProcessor(testFilter,
+                    new LongestFirstTestClassProcessor(previousDurations,
+                        new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
+                            new DurationBalancedTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory, previousDurations, testFramework.isRunningTestClassesAsReceived()))));
+        } else {
+            processor =
+                new PatternMatchTestClassProcessor(testFilter,
+                    new RunPreviousFailedFirstTestClassProcessor(testExecutionSpec.getPreviousFailedTestClasses(),
+                        new MaxNParallelTestClassProcessor(getMaxParallelForks(testExecutionSpec), reforkingProcessorFactory, actorFactory)));
+        }
 
         final FileTree testClassFiles = testExecutionSpec.getCandidateClassFiles();
 
@@ -106,7 +138,8 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
             TestFrameworkDetector testFrameworkDetector = testFramework.getDetector();
             testFrameworkDetector.setTestClasses(testExecutionSpec.getTestClassesDirs().getFiles());
             testFrameworkDetector.setTestClasspath(classpath);
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
+            testFrameworkDetector.setClassAnalysisCache(testClassAnalysisCache);
+            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor, executorFactory, getDetectionThreads());
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
         }
@@ -123,6 +156,15 @@ public class DefaultTestExecuter implements TestExecuter<JvmTestExecutionSpec> {
         }
     }
 
+    private static boolean isReusingWorkers(JvmTestExecutionSpec testExecutionSpec) {
+        // Workers are not reused when a fresh process is requested, or when the process waits for a debugger
+        return Boolean.getBoolean(REUSE_WORKERS_PROPERTY) && testExecutionSpec.getForkEvery() == 0 && !testExecutionSpec.getJavaForkOptions().getDebug();
+    }
+
+    private int getDetectionThreads() {
+        return Math.max(1, Math.min(maxWorkerCount, Runtime.getRuntime().availableProcessors()));
+    }
+
     private int getMaxParallelForks(JvmTestExecutionSpec testExecutionSpec) {
         int maxParallelForks = testExecutionSpec.getMaxParallelForks();
         if (maxParallelForks > maxWorkerCount) {
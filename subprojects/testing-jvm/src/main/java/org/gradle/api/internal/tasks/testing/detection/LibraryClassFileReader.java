@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.GradleException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads class files from library jar files. Can be used concurrently.
+ *
+ * <p>Jar files are opened when a class is first read from them and are kept open until {@link #close()} is called.</p>
+ */
+public class LibraryClassFileReader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LibraryClassFileReader.class);
+    private final Map<String, Set<File>> packageJarFilesMappings = new HashMap<String, Set<File>>();
+    private final Map<File, ZipFile> openJarFiles = new HashMap<File, ZipFile>();
+
+    /**
+     * Add all packages found in the jar file to the package <> jar(s) index.
+     *
+     * @param libraryJar Jar file to add to the index.
+     */
+    public void addLibraryJar(final File libraryJar) {
+        new JarFilePackageLister().listJarPackages(libraryJar, new JarFilePackageListener() {
+            public void receivePackage(String packageName) {
+                synchronized (packageJarFilesMappings) {
+                    Set<File> jarFiles = packageJarFilesMappings.get(packageName);
+                    if (jarFiles == null) {
+                        jarFiles = new TreeSet<File>();
+                        packageJarFilesMappings.put(packageName, jarFiles);
+                    }
+                    jarFiles.add(libraryJar);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads the content of a class file from the library jar files, without extracting it.
+     *
+     * @param className Internal name of the class to read.
+     * @return The content of the class file, or null when the class is not found in the library jar files.
+     */
+    @Nullable
+    public byte[] getLibraryClassFile(String className) {
+        String classNamePackage = classNamePackage(className);
+        Set<File> packageJarFiles;
+        synchronized (packageJarFilesMappings) {
+            packageJarFiles = packageJarFilesMappings.get(classNamePackage);
+            if (packageJarFiles == null) {
+                // super class not on the classpath - unable to scan parent class
+                return null;
+            }
+            packageJarFiles = new TreeSet<File>(packageJarFiles);
+        }
+
+        String classFileName = className + ".class";
+        for (File jarFile : packageJarFiles) {
+            byte[] content = readZipEntry(jarFile, classFileName);
+            if (content != null) {
+                LOGGER.debug("read class {} from {}", className, jarFile.getName());
+                return content;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Closes the jar files that were opened to read classes. Classes can still be read afterwards, which opens the jar files again.
+     */
+    public void close() {
+        synchronized (openJarFiles) {
+            for (ZipFile zipFile : openJarFiles.values()) {
+                try {
+                    zipFile.close();
+                } catch (IOException e) {
+                    LOGGER.debug("failed to close jar file " + zipFile.getName(), e);
+                }
+            }
+            openJarFiles.clear();
+        }
+    }
+
+    @Nullable
+    private byte[] readZipEntry(File jarFile, String entryName) {
+        try {
+            ZipFile zipFile = getZipFile(jarFile);
+            ZipEntry zipEntry = zipFile.getEntry(entryName);
+            if (zipEntry == null) {
+                return null;
+            }
+            InputStream inputStream = zipFile.getInputStream(zipEntry);
+            try {
+                return IOUtils.toByteArray(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            throw new GradleException("failed to read class file from jar (" + jarFile + ")", e);
+        }
+    }
+
+    private ZipFile getZipFile(File jarFile) throws IOException {
+        synchronized (openJarFiles) {
+            ZipFile zipFile = openJarFiles.get(jarFile);
+            if (zipFile == null) {
+                zipFile = new ZipFile(jarFile);
+                openJarFiles.put(jarFile, zipFile);
+            }
+            return zipFile;
+        }
+    }
+
+    @Nullable
+    private static String classNamePackage(final String className) {
+        final int lastSlashIndex = className.lastIndexOf('/');
+
+        if (lastSlashIndex == -1) {
+            return null; // class in root package - should not happen
+        } else {
+            return className.substring(0, lastSlashIndex + 1);
+        }
+    }
+}
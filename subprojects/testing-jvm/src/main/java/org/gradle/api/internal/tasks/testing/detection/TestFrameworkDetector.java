@@ -16,7 +16,9 @@
 package org.gradle.api.internal.tasks.testing.detection;
 
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Set;
 
@@ -25,7 +27,22 @@ public interface TestFrameworkDetector {
 
     boolean processTestClass(File testClassFile);
 
+    /**
+     * Detects whether the given class file contains a test class, without passing it to the test class processor. Can be called concurrently.
+     *
+     * @return the test class, or null when the class file does not contain a test class to execute.
+     */
+    @Nullable
+    TestClassRunInfo detectTestClass(File testClassFile);
+
+    /**
+     * Releases the resources held for detection, once all class files have been processed or detected.
+     */
+    void finishDetection();
+
     void setTestClasses(Set<File> testClasses);
 
     void setTestClasspath(Set<File> classpath);
+
+    void setClassAnalysisCache(@Nullable TestClassAnalysisCache classAnalysisCache);
 }
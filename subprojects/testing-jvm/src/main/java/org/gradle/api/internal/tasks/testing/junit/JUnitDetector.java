@@ -17,15 +17,15 @@ package org.gradle.api.internal.tasks.testing.junit;
 
 import com.google.common.collect.ImmutableSet;
 import org.gradle.api.internal.tasks.testing.detection.AbstractTestFrameworkDetector;
-import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
+import org.gradle.api.internal.tasks.testing.detection.LibraryClassFileReader;
 
 public class JUnitDetector extends AbstractTestFrameworkDetector<JUnitTestClassDetector> {
     private static final String TEST_CASE = "junit/framework/TestCase";
     private static final String GROOVY_TEST_CASE = "groovy/util/GroovyTestCase";
     private static final ImmutableSet<String> KNOWN_TEST_CASE_CLASS_NAMES = ImmutableSet.of(TEST_CASE, GROOVY_TEST_CASE);
 
-    public JUnitDetector(ClassFileExtractionManager classFileExtractionManager) {
-        super(classFileExtractionManager);
+    public JUnitDetector(LibraryClassFileReader libraryClassFileReader) {
+        super(libraryClassFileReader);
     }
 
     @Override
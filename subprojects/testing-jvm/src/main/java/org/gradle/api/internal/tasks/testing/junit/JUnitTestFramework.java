@@ -20,7 +20,7 @@ import org.gradle.api.Action;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
-import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
+import org.gradle.api.internal.tasks.testing.detection.LibraryClassFileReader;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.api.tasks.testing.junit.JUnitOptions;
@@ -40,7 +40,7 @@ public class JUnitTestFramework implements TestFramework {
     public JUnitTestFramework(Test testTask, DefaultTestFilter filter) {
         this.filter = filter;
         options = new JUnitOptions();
-        detector = new JUnitDetector(new ClassFileExtractionManager(testTask.getTemporaryDirFactory()));
+        detector = new JUnitDetector(new LibraryClassFileReader());
     }
 
     @Override
@@ -59,6 +59,11 @@ public class JUnitTestFramework implements TestFramework {
         };
     }
 
+    @Override
+    public boolean isRunningTestClassesAsReceived() {
+        return true;
+    }
+
     @Override
     public JUnitOptions getOptions() {
         return options;
@@ -61,6 +61,11 @@ public class JUnitPlatformTestFramework implements TestFramework {
         };
     }
 
+    @Override
+    public boolean isRunningTestClassesAsReceived() {
+        return false;
+    }
+
     @Override
     public JUnitPlatformOptions getOptions() {
         return options;
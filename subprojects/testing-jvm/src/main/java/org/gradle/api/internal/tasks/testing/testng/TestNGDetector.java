@@ -16,11 +16,11 @@
 package org.gradle.api.internal.tasks.testing.testng;
 
 import org.gradle.api.internal.tasks.testing.detection.AbstractTestFrameworkDetector;
-import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
+import org.gradle.api.internal.tasks.testing.detection.LibraryClassFileReader;
 
 class TestNGDetector extends AbstractTestFrameworkDetector<TestNGTestClassDetector> {
-    TestNGDetector(ClassFileExtractionManager classFileExtractionManager) {
-        super(classFileExtractionManager);
+    TestNGDetector(LibraryClassFileReader libraryClassFileReader) {
+        super(libraryClassFileReader);
     }
 
     @Override
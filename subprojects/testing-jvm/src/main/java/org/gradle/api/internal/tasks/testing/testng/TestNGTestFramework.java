@@ -25,7 +25,7 @@ import org.gradle.api.internal.tasks.testing.TestClassLoaderFactory;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
-import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
+import org.gradle.api.internal.tasks.testing.detection.LibraryClassFileReader;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
 import org.gradle.api.reporting.DirectoryReport;
 import org.gradle.api.tasks.testing.Test;
@@ -54,7 +54,7 @@ public class TestNGTestFramework implements TestFramework {
         this.filter = filter;
         options = instantiator.newInstance(TestNGOptions.class, testTask.getProject().getProjectDir());
         conventionMapOutputDirectory(options, testTask.getReports().getHtml());
-        detector = new TestNGDetector(new ClassFileExtractionManager(testTask.getTemporaryDirFactory()));
+        detector = new TestNGDetector(new LibraryClassFileReader());
         classLoaderFactory = new TestClassLoaderFactory(classLoaderCache, testTask);
     }
 
@@ -120,6 +120,11 @@ public class TestNGTestFramework implements TestFramework {
         };
     }
 
+    @Override
+    public boolean isRunningTestClassesAsReceived() {
+        return false;
+    }
+
     @Override
     public TestNGOptions getOptions() {
         return options;
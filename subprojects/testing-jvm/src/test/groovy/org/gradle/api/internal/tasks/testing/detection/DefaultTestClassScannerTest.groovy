@@ -22,7 +22,10 @@ import org.gradle.api.file.FileVisitDetails
 import org.gradle.api.file.FileVisitor
 import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.file.DefaultFileVisitDetails
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.junit.Test
 import spock.lang.Specification
 
@@ -51,6 +54,8 @@ class DefaultTestClassScannerTest extends Specification {
             visitor.visitFile(mockFileVisitDetails('class1'))
             visitor.visitFile(mockFileVisitDetails('class2'))
         }
+        then:
+        1 * detector.finishDetection()
 
         0 * _._
     }
@@ -71,8 +76,68 @@ class DefaultTestClassScannerTest extends Specification {
             visitor.visitFile(mockFileVisitDetails('AnonymousClass$1'))
             visitor.visitFile(mockFileVisitDetails('AnonymousClass$1$22'))
         }
+        then:
+        1 * detector.finishDetection()
+
+        0 * _._
+    }
+
+    @Test
+    void detectsClassFilesConcurrentlyAndPublishesTestClassesInVisitOrder() {
+        def executorFactory = new DefaultExecutorFactory()
+        DefaultTestClassScanner scanner = new DefaultTestClassScanner(files, detector, processor, executorFactory, 4)
+        def published = []
 
+        when:
+        scanner.run()
+
+        then:
+        1 * files.visit(_) >> { args ->
+            FileVisitor visitor = args[0]
+            (1..500).each { visitor.visitFile(mockFileVisitDetails("class$it")) }
+        }
+        500 * detector.detectTestClass(_) >> { File file ->
+            def index = file.name.replaceAll("\\D", "") as int
+            if (index % 7 == 0) {
+                Thread.sleep(1)
+            }
+            return index % 2 == 0 ? new DefaultTestClassRunInfo(file.name) : null
+        }
+        250 * processor.processTestClass(_) >> { TestClassRunInfo testClass -> published << testClass.testClassName }
+        1 * detector.finishDetection()
         0 * _._
+
+        and:
+        published == (1..500).findAll { it % 2 == 0 }.collect { "class${it}.class" as String }
+
+        cleanup:
+        executorFactory.stop()
+    }
+
+    @Test
+    void rethrowsDetectionFailure() {
+        def executorFactory = new DefaultExecutorFactory()
+        def failure = new RuntimeException("broken")
+        DefaultTestClassScanner scanner = new DefaultTestClassScanner(files, detector, processor, executorFactory, 2)
+
+        given:
+        files.visit(_) >> { args ->
+            FileVisitor visitor = args[0]
+            visitor.visitFile(mockFileVisitDetails("class1"))
+        }
+        detector.detectTestClass(_) >> { throw failure }
+
+        when:
+        scanner.run()
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+        0 * processor._
+        1 * detector.finishDetection()
+
+        cleanup:
+        executorFactory.stop()
     }
 
     FileVisitDetails mockFileVisitDetails(String className) {
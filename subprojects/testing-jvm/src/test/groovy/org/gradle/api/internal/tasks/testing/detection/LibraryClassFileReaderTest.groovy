@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class LibraryClassFileReaderTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def reader = new LibraryClassFileReader()
+
+    def cleanup() {
+        reader.close()
+    }
+
+    def "reads class files from library jars"() {
+        given:
+        reader.addLibraryJar(jar("lib1.jar", "org/a/A.class": "a", "org/a/B.class": "b"))
+        reader.addLibraryJar(jar("lib2.jar", "org/b/C.class": "c"))
+
+        expect:
+        new String(reader.getLibraryClassFile("org/a/A")) == "a"
+        new String(reader.getLibraryClassFile("org/a/B")) == "b"
+        new String(reader.getLibraryClassFile("org/b/C")) == "c"
+        reader.getLibraryClassFile("org/a/D") == null
+        reader.getLibraryClassFile("org/c/E") == null
+    }
+
+    def "reads class files again after the jars have been closed"() {
+        given:
+        reader.addLibraryJar(jar("lib.jar", "org/a/A.class": "a"))
+
+        when:
+        def first = reader.getLibraryClassFile("org/a/A")
+        reader.close()
+        def second = reader.getLibraryClassFile("org/a/A")
+
+        then:
+        new String(first) == "a"
+        new String(second) == "a"
+    }
+
+    private File jar(Map<String, String> entries, String name) {
+        def file = tmpDir.file(name)
+        def output = new ZipOutputStream(new FileOutputStream(file))
+        try {
+            // Packages are listed from the directory entries of the jar
+            entries.keySet().collect { it.substring(0, it.lastIndexOf('/') + 1) }.unique().each { directory ->
+                output.putNextEntry(new ZipEntry(directory))
+                output.closeEntry()
+            }
+            entries.each { path, content ->
+                output.putNextEntry(new ZipEntry(path))
+                output.write(content.bytes)
+                output.closeEntry()
+            }
+        } finally {
+            output.close()
+        }
+        return file
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.internal.serialize.SerializerSpec
+
+class TestClassAnalysisSerializerTest extends SerializerSpec {
+    def serializer = new TestClassAnalysisSerializer(new StringInterner())
+
+    def "serializes analysis"() {
+        when:
+        def result = serialize(new TestClassAnalysis("org/SomeTest", superClassName, test, isAbstract), serializer)
+
+        then:
+        result.className == "org/SomeTest"
+        result.superClassName == superClassName
+        result.test == test
+        result.abstract == isAbstract
+
+        where:
+        superClassName     | test  | isAbstract
+        "org/BaseTest"     | true  | false
+        "java/lang/Object" | false | true
+        null               | false | false
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit
+
+import groovy.io.FileType
+import org.gradle.api.internal.tasks.testing.detection.LibraryClassFileReader
+import org.gradle.api.internal.tasks.testing.detection.TestClassAnalysis
+import org.gradle.api.internal.tasks.testing.detection.TestClassAnalysisCache
+import org.gradle.internal.Factory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import javax.tools.ToolProvider
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class JUnitDetectorTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def junitJar = new File(org.junit.Test.protectionDomain.codeSource.location.toURI())
+    def classesDir = tmpDir.file("classes")
+    def libJar = tmpDir.file("lib.jar")
+    def cache = new InMemoryTestClassAnalysisCache()
+
+    def setup() {
+        def libClassesDir = tmpDir.file("lib-classes")
+        compile(libClassesDir, [junitJar], [
+            "lib/LibraryBaseTest.java": "package lib; public class LibraryBaseTest { @org.junit.Test public void test() {} }"
+        ])
+        jar(libClassesDir, libJar)
+        compile(classesDir, [junitJar, libJar], [
+            "org/LibrarySubclassTest.java": "package org; public class LibrarySubclassTest extends lib.LibraryBaseTest {}",
+            "org/AbstractBaseTest.java": "package org; public abstract class AbstractBaseTest { @org.junit.Test public void test() {} }",
+            "org/ConcreteTest.java": "package org; public class ConcreteTest extends AbstractBaseTest {}",
+            "org/LegacyTest.java": "package org; public class LegacyTest extends junit.framework.TestCase { public void testSomething() {} }",
+            "org/OuterTest.java": """package org; public class OuterTest {
+                @org.junit.Test public void test() {}
+                public class InnerTest { @org.junit.Test public void test() {} }
+                public static class NestedTest { @org.junit.Test public void test() {} }
+            }""",
+            "org/NotATest.java": "package org; public class NotATest { public void test() {} }"
+        ])
+    }
+
+    @Unroll
+    def "detects test classes (cached: #cached)"() {
+        expect:
+        detectTestClasses(cached) == [
+            "org.ConcreteTest",
+            "org.LegacyTest",
+            "org.LibrarySubclassTest",
+            "org.OuterTest",
+            "org.OuterTest\$NestedTest"
+        ] as SortedSet
+
+        where:
+        cached << [false, true]
+    }
+
+    def "reuses the cached analysis of class files"() {
+        when:
+        def first = detectTestClasses(true)
+        def analyzed = cache.analyzed
+
+        then:
+        analyzed == classesDir.allDescendants().size()
+
+        when:
+        def second = detectTestClasses(true)
+
+        then:
+        second == first
+        cache.analyzed == analyzed
+    }
+
+    private SortedSet<String> detectTestClasses(boolean cached) {
+        def detector = new JUnitDetector(new LibraryClassFileReader())
+        detector.testClasses = [classesDir] as Set
+        detector.testClasspath = [junitJar, libJar] as Set
+        if (cached) {
+            detector.classAnalysisCache = cache
+        }
+        def detected = [] as SortedSet
+        try {
+            classesDir.eachFileRecurse(FileType.FILES) { File classFile ->
+                def testClass = detector.detectTestClass(classFile)
+                if (testClass != null) {
+                    detected << testClass.testClassName
+                }
+            }
+        } finally {
+            detector.finishDetection()
+        }
+        return detected
+    }
+
+    private static void compile(TestFile destination, List<File> classpath, Map<String, String> sources) {
+        def sourceDir = new TestFile(destination.parentFile, destination.name + "-src")
+        def sourceFiles = sources.collect { path, text -> sourceDir.file(path).write(text) }
+        destination.createDir()
+        def args = ["-d", destination.path, "-cp", classpath*.path.join(File.pathSeparator)] + sourceFiles*.path
+        assert ToolProvider.systemJavaCompiler.run(null, null, null, args as String[]) == 0
+    }
+
+    private static void jar(TestFile classesDir, File jarFile) {
+        def output = new ZipOutputStream(new FileOutputStream(jarFile))
+        try {
+            // Packages are listed from the directory entries of the jar
+            classesDir.eachFileRecurse { File file ->
+                output.putNextEntry(new ZipEntry(classesDir.toURI().relativize(file.toURI()).path))
+                if (file.file) {
+                    output.write(file.bytes)
+                }
+                output.closeEntry()
+            }
+        } finally {
+            output.close()
+        }
+    }
+
+    private static class InMemoryTestClassAnalysisCache implements TestClassAnalysisCache {
+        final Map<List<Object>, TestClassAnalysis> entries = [:]
+        int analyzed
+
+        @Override
+        synchronized TestClassAnalysis get(String detectorType, File classFile, Factory<TestClassAnalysis> analyzer) {
+            def key = [detectorType, classFile, classFile.lastModified()]
+            if (!entries.containsKey(key)) {
+                entries[key] = analyzer.create()
+                analyzed++
+            }
+            return entries[key]
+        }
+    }
+}